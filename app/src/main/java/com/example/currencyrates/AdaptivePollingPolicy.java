@@ -0,0 +1,172 @@
+package com.example.currencyrates;
+
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Decides the delay before the next call to the rates API, based on the result of the previous
+ * call, instead of polling at a fixed period. It:
+ * <ul>
+ * <li>backs off exponentially, with jitter, while the calls fail;</li>
+ * <li>stretches the interval after several calls in a row return unchanged rates;</li>
+ * <li>does not poll again before the response is stale according to its {@code Cache-Control}
+ * or {@code Expires} headers;</li>
+ * <li>snaps back to the fastest interval once the rates change.</li>
+ * </ul>
+ * The current interval and the reason for it are exposed for diagnostics.
+ *
+ * @author Nikola Georgiev
+ * @version 1.0
+ * @since 1.1.0
+ */
+/* package-private */ final class AdaptivePollingPolicy {
+
+    /* package-private */ static final long MAX_IDLE_INTERVAL = 16_000;
+    /* package-private */ static final long MAX_BACKOFF_INTERVAL = 60_000;
+    /* package-private */ static final long MAX_FRESHNESS_INTERVAL = 300_000;
+    /* package-private */ static final int UNCHANGED_THRESHOLD = 3;
+
+    private static final String MAX_AGE = "max-age=";
+    private static final int MAX_SHIFT = 16;
+
+    /**
+     * The reasons for the current polling interval.
+     *
+     * @author Nikola Georgiev
+     * @version 1.0
+     * @since 1.1.0
+     */
+    /* package-private */ enum Reason {
+        INITIAL, CHANGED, UNCHANGED, IDLE_STRETCH, FAILURE_BACKOFF, CACHE_FRESHNESS
+    }
+
+    private final long minInterval;
+    private final Random random;
+    private volatile long currentInterval;
+    private volatile Reason reason = Reason.INITIAL;
+    private volatile int consecutiveFailures;
+    private volatile int unchangedStreak;
+
+    /**
+     * The main constructor of this class.
+     *
+     * @param minInterval {@see long} - The fastest polling interval in milliseconds.
+     * @param random      {@see Random} - The source of the back off jitter.
+     */
+    /* package-private */ AdaptivePollingPolicy(final long minInterval, final Random random) {
+        this.minInterval = minInterval;
+        this.random = random;
+        this.currentInterval = minInterval;
+    }
+
+    /**
+     * Computes the delay before the next poll from the result of the last one.
+     *
+     * @param status    {@see PollResult.Status} - The outcome of the last poll.
+     * @param changed   {@see boolean} - Whether the last poll has changed the rates.
+     * @param freshness {@see long} - How long the response stays fresh according to its cache
+     *                  headers, in milliseconds, or 0 in case it has no such headers.
+     * @return {@see long} - The delay before the next poll in milliseconds.
+     * @see AdaptivePollingPolicy#freshness(String, long, long, long)
+     */
+    /* package-private */ synchronized long onResult(final PollResult.Status status,
+                                                      final boolean changed, final long freshness) {
+
+        long interval;
+        Reason nextReason;
+        if (status == PollResult.Status.FAILED) {
+            this.consecutiveFailures++;
+            final long backoff = Math.min(MAX_BACKOFF_INTERVAL,
+                    this.minInterval << Math.min(this.consecutiveFailures, MAX_SHIFT));
+            /* Equal jitter: half of the back off is fixed and the other half is random */
+            interval = backoff / 2 + (long) (this.random.nextDouble() * (backoff / 2));
+            nextReason = Reason.FAILURE_BACKOFF;
+        } else {
+            this.consecutiveFailures = 0;
+            if (changed) {
+                this.unchangedStreak = 0;
+                interval = this.minInterval;
+                nextReason = Reason.CHANGED;
+            } else {
+                this.unchangedStreak++;
+                if (this.unchangedStreak >= UNCHANGED_THRESHOLD) {
+                    final int shift = Math.min(this.unchangedStreak - UNCHANGED_THRESHOLD + 1, MAX_SHIFT);
+                    interval = Math.min(MAX_IDLE_INTERVAL, this.minInterval << shift);
+                    nextReason = Reason.IDLE_STRETCH;
+                } else {
+                    interval = this.minInterval;
+                    nextReason = Reason.UNCHANGED;
+                }
+            }
+            final long fresh = Math.min(freshness, MAX_FRESHNESS_INTERVAL);
+            if (fresh > interval) {
+                interval = fresh;
+                nextReason = Reason.CACHE_FRESHNESS;
+            }
+        }
+        this.currentInterval = interval;
+        this.reason = nextReason;
+        return interval;
+    }
+
+    /**
+     * Computes how long a response stays fresh from its cache headers. The {@code max-age}
+     * directive of {@code Cache-Control} takes precedence over {@code Expires}, and the
+     * {@code no-cache} and {@code no-store} directives make the response stale immediately.
+     *
+     * @param cacheControl {@see String} - The Cache-Control header, or NULL.
+     * @param expires      {@see long} - The Expires header in epoch milliseconds, or a value not
+     *                     greater than 0 in case it is missing.
+     * @param date         {@see long} - The Date header in epoch milliseconds, or a value not
+     *                     greater than 0 in case it is missing.
+     * @param now          {@see long} - The current time in epoch milliseconds, used in case the
+     *                     Date header is missing.
+     * @return {@see long} - The freshness lifetime in milliseconds, or 0.
+     */
+    /* package-private */
+    static long freshness(final String cacheControl, final long expires, final long date,
+                          final long now) {
+
+        if (cacheControl != null) {
+            final String directives = cacheControl.toLowerCase(Locale.US);
+            if (directives.contains("no-cache") || directives.contains("no-store"))
+                return 0;
+            final int start = directives.indexOf(MAX_AGE);
+            if (start >= 0) {
+                int end = start + MAX_AGE.length();
+                long seconds = 0;
+                while (end < directives.length() && Character.isDigit(directives.charAt(end))
+                        && seconds < Integer.MAX_VALUE) {
+                    seconds = seconds * 10 + (directives.charAt(end++) - '0');
+                }
+                return seconds * 1000;
+            }
+        }
+        if (expires > 0) {
+            return Math.max(0, expires - ((date > 0) ? date : now));
+        }
+        return 0;
+    }
+
+    /* package-private */ long getCurrentInterval() {
+        return currentInterval;
+    }
+
+    /* package-private */ Reason getReason() {
+        return reason;
+    }
+
+    /* package-private */ int getConsecutiveFailures() {
+        return consecutiveFailures;
+    }
+
+    /* package-private */ int getUnchangedStreak() {
+        return unchangedStreak;
+    }
+
+    @Override
+    public String toString() {
+        return "interval=" + getCurrentInterval() + "ms, reason=" + getReason()
+                + ", failures=" + getConsecutiveFailures() + ", unchanged=" + getUnchangedStreak();
+    }
+}
@@ -0,0 +1,187 @@
+package com.example.currencyrates;
+
+import android.util.Log;
+
+import com.github.kevinsawicki.http.HttpRequest;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * The polling state of one base currency subscribed to the {@see CurrencyRatesService}: its
+ * consumers, the validators and the version of its last accepted rates, and its
+ * {@see AdaptivePollingPolicy}. A new subscription starts without rates, so its first poll
+ * downloads the rates in full and publishes them as a whole snapshot. The consumers count and the
+ * rates are used on the main thread only.
+ * <p>
+ * At most one poll of a subscription is in flight at a time, without any flag: its first poll is
+ * scheduled when it is created, and each next poll only once the previous one has completed, so
+ * there is a single chain of polls per subscription. A chain ends, once its subscription is not
+ * current anymore, or its scheduler has been replaced.
+ * <p>
+ * Each poll revalidates the last downloaded rates with a conditional request, which replays the
+ * ETag and the Last-Modified validators of the last non-empty response, so a not modified
+ * response skips the body transfer and the parsing.
+ *
+ * @author Nikola Georgiev
+ * @version 1.0
+ * @since 1.1.0
+ */
+/* package-private */ final class BaseSubscription {
+
+    private static final String TAG = BaseSubscription.class.getSimpleName();
+
+    private final String base;
+    private final String url;
+    private final RatesStreamParser ratesParser = new RatesStreamParser();
+    private final AdaptivePollingPolicy pollingPolicy;
+    private int consumers;
+    /* package-private */ RateTable lastRates;
+    /* package-private */ long ratesVersion = RateDelta.NO_VERSION;
+    private volatile String eTag;
+    private volatile long lastModified;
+
+    /**
+     * The main constructor of this class.
+     *
+     * @param base          {@see String} - The 3 letter currency code of the base currency.
+     * @param url           {@see String} - The API URL of the base currency rates.
+     * @param pollingPolicy {@see AdaptivePollingPolicy} - The policy, which decides the polling
+     *                      interval of the base.
+     */
+    /* package-private */ BaseSubscription(final String base, final String url,
+                                           final AdaptivePollingPolicy pollingPolicy) {
+        this.base = base;
+        this.url = url;
+        this.pollingPolicy = pollingPolicy;
+    }
+
+    /* package-private */ String getBase() {
+        return base;
+    }
+
+    /* package-private */ String getUrl() {
+        return url;
+    }
+
+    /* package-private */ AdaptivePollingPolicy getPollingPolicy() {
+        return pollingPolicy;
+    }
+
+    /* package-private */ int getConsumers() {
+        return consumers;
+    }
+
+    /* package-private */ int addConsumer() {
+        return ++this.consumers;
+    }
+
+    /* package-private */ int removeConsumer() {
+        return --this.consumers;
+    }
+
+    /**
+     * Calls the API with the validators of the last downloaded rates, so a not modified response
+     * skips the body transfer and the parsing. The validators of a downloaded non-empty response
+     * replace the previous ones. The connection of every response is released, whether its body
+     * is read or not. NOTE: Must not be called on the main thread.
+     *
+     * @param startedAt     {@see long} - The sampled start time of the poll, or
+     *                      {@link PipelineMetrics#NOT_SAMPLED}.
+     * @param transferStats {@see TransferStats} - The counters of the downloaded bytes.
+     * @return {@see PollResult} - The result of the call.
+     */
+    /* package-private */ PollResult poll(final long startedAt, final TransferStats transferStats) {
+        HttpRequest request = null;
+        boolean bodyClosed = false;
+        try {
+            request = HttpRequest.get(this.url);
+            //Accept all certificates
+            request.trustAllCerts();
+            request.acceptGzipEncoding();
+            final String eTag = this.eTag;
+            final long lastModified = this.lastModified;
+            if (eTag != null)
+                request.ifNoneMatch(eTag);
+            if (lastModified > 0)
+                request.ifModifiedSince(lastModified);
+            final PipelineMetrics metrics = PipelineMetrics.getInstance();
+            long time = startedAt;
+            if (time != PipelineMetrics.NOT_SAMPLED) {
+                //Connect explicitly only when sampling, to time it apart from the response
+                request.getConnection().connect();
+                time = metrics.record(PipelineMetrics.Stage.CONNECT, time);
+            }
+            request.code();
+            metrics.record(PipelineMetrics.Stage.FIRST_BYTE, time);
+            if (request.notModified()) {
+                return PollResult.notModified(freshness(request));
+            }
+            if (request.ok()) {
+                //Parse the response directly from the decompressed body stream
+                final InputStream body = TransferStreams.openBody(request, transferStats);
+                final RateTable ratesTable;
+                try {
+                    ratesTable = CurrencyUtils.convertData(body, this.ratesParser);
+                } finally {
+                    closeQuietly(body);
+                    bodyClosed = true;
+                }
+                if (!ratesTable.isEmpty()) {
+                    this.eTag = request.eTag();
+                    this.lastModified = request.lastModified();
+                }
+                return PollResult.downloaded(ratesTable, freshness(request));
+            }
+            return PollResult.failed();
+        } catch (HttpRequest.HttpRequestException | IOException exception) {
+            return PollResult.failed();
+        } finally {
+            if (request != null && !bodyClosed)
+                release(request);
+        }
+    }
+
+    /**
+     * Releases the connection of a response, whose body has not been read. The empty body of a
+     * not modified response is closed, so its connection is kept alive for the next poll, while
+     * the connection of a failed response is disconnected.
+     *
+     * @param request {@see HttpRequest} - The request, whose body has not been read.
+     */
+    private void release(final HttpRequest request) {
+        try {
+            if (request.notModified()) {
+                request.getConnection().getInputStream().close();
+                return;
+            }
+        } catch (HttpRequest.HttpRequestException | IOException exception) {
+            //Disconnected below
+        }
+        request.disconnect();
+    }
+
+    /**
+     * Gets how long the response stays fresh according to its cache headers.
+     *
+     * @param request {@see HttpRequest} - The request with a received response.
+     * @return {@see long} - The freshness lifetime in milliseconds, or 0.
+     */
+    private static long freshness(final HttpRequest request) {
+        return AdaptivePollingPolicy.freshness(request.cacheControl(), request.expires(),
+                request.date(), System.currentTimeMillis());
+    }
+
+    /**
+     * Closes the response body stream, ignoring the errors, as the data has already been read.
+     *
+     * @param stream {@see InputStream} - The stream that should be closed.
+     */
+    private void closeQuietly(final InputStream stream) {
+        try {
+            stream.close();
+        } catch (IOException e) {
+            Log.w(TAG, "Cannot close the response stream for URL: " + this.url, e);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.currencyrates;
+
+/**
+ * Cross-rate engine that derives the currency rates for every base currency from a single
+ * snapshot. The snapshot is the {@see RateTable} of rates against one source base currency (e.g.
+ * EUR), as returned by {@link CurrencyUtils#convertData(String)}. Any other base is derived in
+ * memory, so switching the base currency does not need another call to the API. A derived rate
+ * is the rate of the snapshot over the rate of the new base, which is kept as a fraction, so it
+ * is not rounded until it is converted for the display. Cutting it to a fixed scale here would
+ * leave a few significant digits of the small rates, e.g. of BTC against IDR.
+ *
+ * @author Nikola Georgiev
+ * @version 1.1
+ * @since 1.1.0
+ */
+/* package-private */ final class CrossRateEngine {
+
+    private final int sourceBase;
+    private final RateTable sourceRates;
+
+    /**
+     * The main constructor of this class.
+     *
+     * @param sourceBase  {@see String} - The 3 letter currency code of the snapshot base currency.
+     * @param sourceRates {@see RateTable} - The snapshot rates against the source base currency.
+     */
+    /* package-private */ CrossRateEngine(final String sourceBase, final RateTable sourceRates) {
+        this.sourceBase = RateTable.indexOf(sourceBase);
+        this.sourceRates = (sourceRates != null) ? sourceRates : new RateTable().seal();
+    }
+
+    /* package-private */ String getSourceBase() {
+        return RateTable.codeAt(this.sourceBase);
+    }
+
+    /* package-private */ RateTable getSourceRates() {
+        return sourceRates;
+    }
+
+    /**
+     * Checks whether the rates against a specific base currency can be derived from the snapshot.
+     *
+     * @param base {@see String} - The 3 letter currency code of the requested base currency.
+     * @return {@see boolean} - True - in case the base is the source base or is part of the
+     * snapshot, False - otherwise.
+     */
+    /* package-private */ boolean canRebase(final String base) {
+
+        final int baseIndex = RateTable.indexOf(base);
+        return baseIndex != RateTable.NO_INDEX
+                && (baseIndex == this.sourceBase || this.sourceRates.contains(baseIndex));
+    }
+
+    /**
+     * Derives the rates of every currency in the snapshot against a new base currency. The new
+     * base itself is not part of the result, while the source base is added with the inverse
+     * rate of the new base, so the result has the same shape as an API response for that base.
+     * The derived table has the snapshot rates over the rate of the new base as its
+     * denominator, so no rate is divided or rounded here.
+     *
+     * @param base {@see String} - The 3 letter currency code of the requested base currency.
+     * @return {@see RateTable} - Returns sealed table of the derived rates. It will return an
+     * empty table, in case the rates cannot be derived for this base.
+     * @see RateTable#getDenominator()
+     * @see CrossRateEngine#canRebase(String)
+     */
+    /* package-private */ RateTable rebase(final String base) {
+
+        if (!canRebase(base)) {
+            return new RateTable().seal();
+        }
+
+        final int baseIndex = RateTable.indexOf(base);
+        final long unit = this.sourceRates.getDenominator();
+        final long pivot = (baseIndex == this.sourceBase) ? unit : this.sourceRates.get(baseIndex);
+        final RateTable rates = new RateTable(pivot);
+        for (int i = this.sourceRates.next(0); i >= 0; i = this.sourceRates.next(i + 1)) {
+            if (i != baseIndex) {
+                rates.put(i, this.sourceRates.get(i));
+            }
+        }
+        if (baseIndex != this.sourceBase) {
+            rates.put(this.sourceBase, unit);
+        }
+        return rates.seal();
+    }
+}
@@ -2,7 +2,9 @@ package com.example.currencyrates;
 
 import android.app.Activity;
 import android.content.Context;
-import android.net.Uri;
+import android.graphics.Bitmap;
+import android.text.Editable;
+import android.text.TextUtils;
 import android.util.SparseArray;
 import android.view.KeyEvent;
 import android.view.LayoutInflater;
@@ -18,7 +20,6 @@ import android.widget.TextView;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
-import java.math.BigDecimal;
 import java.util.Collection;
 import java.util.List;
 
@@ -40,6 +41,7 @@ import butterknife.ButterKnife;
     private final LayoutInflater inflater;
     private final Animation animSlideUp;
     private SparseArray<ListItem> listItems;
+    private FlagBitmapCache iconCache;
 
     private List<CurrencyModel> currencyRates;
 
@@ -74,7 +76,8 @@ import butterknife.ButterKnife;
      * A Callback, that will be called every time the {@see ListView} needs to get the list item
      * {@see View} at specific list position. Implemented logic to create {@see ListItem} view if
      * not present at the specified position. An instance to the item {@see ListItem} will
-     * be added to the view tag (see {@link View#getTag()}).
+     * be added to the view tag (see {@link View#getTag()}). The bind is timed as the
+     * {@link PipelineMetrics.Stage#LIST_BIND} stage.
      *
      * @param position    {@see int} - The position of the required view in the list.
      * @param convertView {@see View} - An instance of the view, if already created.
@@ -85,6 +88,8 @@ import butterknife.ButterKnife;
     @Override
     public View getView(int position, @Nullable View convertView, @NonNull ViewGroup parent) {
 
+        final PipelineMetrics metrics = PipelineMetrics.getInstance();
+        final long start = metrics.start();
         final ListItem item;
         final CurrencyModel currencyModel = getItem(position);
         if (convertView != null) {
@@ -98,10 +103,12 @@ import butterknife.ButterKnife;
                             CurrenciesListAdapter.this.onClickCallback(position, parent);
                         }
                     });
+            item.iconCache = this.iconCache;
             this.listItems.put(position, item);
         }
         item.setValues(currencyModel);
         convertView.setTag(item);
+        metrics.record(PipelineMetrics.Stage.LIST_BIND, start);
         return convertView;
     }
 
@@ -139,6 +146,27 @@ import butterknife.ButterKnife;
         super.addAll(items);
     }
 
+    /**
+     * Sets the cache of the decoded icons, which is used by the list items created afterwards.
+     *
+     * @param iconCache {@see FlagBitmapCache} - The cache of the decoded icons.
+     */
+    /* package-private */ void setIconCache(final FlagBitmapCache iconCache) {
+        this.iconCache = iconCache;
+    }
+
+    /**
+     * Reloads the icon of the created list items, which show a currency, e.g. once its icon has
+     * been downloaded or decoded.
+     *
+     * @param currencyCode {@see String} - The 3 letter currency code.
+     */
+    /* package-private */ void refreshIcon(final String currencyCode) {
+        for (int i = 0; i < this.listItems.size(); i++) {
+            this.listItems.valueAt(i).refreshIcon(currencyCode);
+        }
+    }
+
     /**
      * Changes the base currency according to the clicked list item.
      *
@@ -207,7 +235,9 @@ import butterknife.ButterKnife;
      */
     /* package-private */ ListHeader createListHeader(final View headerView,
                                                       final View.OnFocusChangeListener focusChangeListener) {
-        return new ListHeader(headerView, this::onEditorAction, focusChangeListener);
+        final ListHeader listHeader = new ListHeader(headerView, this::onEditorAction, focusChangeListener);
+        listHeader.iconCache = this.iconCache;
+        return listHeader;
     }
 
     /**
@@ -255,7 +285,10 @@ import butterknife.ButterKnife;
         @BindView(R.id.listItemCurrencyRate)
         /* package-private */ EditText fieldRate;
 
+        private final DigitWriter rateWriter = new DigitWriter();
         private CurrencyModel currencyModel;
+        /* package-private */ FlagBitmapCache iconCache;
+        private Bitmap shownBitmap;
         private View.OnClickListener onClickListener;
         private View.OnFocusChangeListener onFocusChangeListener;
         private TextView.OnEditorActionListener onEditorActionListener;
@@ -292,10 +325,10 @@ import butterknife.ButterKnife;
          */
         /* package-private */ void setValues(final CurrencyModel currencyModel) {
             if (currencyModel != null) {
-                setIcon(currencyModel.getCountryFlagIconUri());
+                setIcon(currencyModel);
                 setFieldCode(currencyModel.getCurrencyCode());
                 setFieldName(currencyModel.getCurrencyName());
-                setFieldRate(currencyModel.getCurrencyRate());
+                setFieldRate(currencyModel);
                 this.currencyModel = currencyModel;
             }
         }
@@ -310,17 +343,47 @@ import butterknife.ButterKnife;
         }
 
         /**
-         * Private setter of the icon {@see ImageView} value.
+         * Private setter of the country flag icon {@see ImageView} value. The decoded icon is
+         * taken from the {@see FlagBitmapCache}, and is set only in case it is not shown already,
+         * so binding the same flag again costs nothing. An icon, which is not decoded yet, is
+         * shown, once the cache reports it by {@link ListItem#refreshIcon(String)}.
          *
-         * @param iconUri {@see Uri} - The icon image file uri path.
+         * @param currencyModel {@see CurrencyModel} - The currency value holder object.
          */
-        private void setIcon(final Uri iconUri) {
+        private void setIcon(final CurrencyModel currencyModel) {
             if (this.icon != null) {
-                this.icon.setImageURI(iconUri);
+                if (this.iconCache == null) {
+                    this.icon.setImageURI(currencyModel.getCountryFlagIconUri());
+                } else {
+                    final Bitmap bitmap = this.iconCache.get(currencyModel.getCurrencyCode(),
+                            currencyModel.getCountryFlagIconUri());
+                    if (bitmap != this.shownBitmap) {
+                        if (bitmap != null) {
+                            this.icon.setImageBitmap(bitmap);
+                        } else {
+                            this.icon.setImageDrawable(null);
+                        }
+                        this.shownBitmap = bitmap;
+                    }
+                }
                 this.icon.setOnClickListener(this.onClickListener);
             }
         }
 
+        /**
+         * Reloads the icon, in case this item shows a specific currency.
+         *
+         * @param currencyCode {@see String} - The 3 letter currency code.
+         */
+        /* package-private */ void refreshIcon(final String currencyCode) {
+            if (this.icon != null && this.currencyModel != null
+                    && this.currencyModel.getCurrencyCode().equals(currencyCode)) {
+                if (this.iconCache == null)
+                    this.icon.setImageURI(null);
+                setIcon(this.currencyModel);
+            }
+        }
+
         /**
          * Private setter of the currency code {@see TextView} value.
          *
@@ -347,18 +410,43 @@ import butterknife.ButterKnife;
 
         /**
          * Private setter of the currency rate {@see EditText} view value. This value will be
-         * formatted according to the current locale specifics.
+         * formatted according to the current locale specifics and the minor units of the currency.
+         * The rounded rate of the model is written by the {@see DigitWriter} of the row into the
+         * existing {@see Editable} of the view, so no string is created per bind, and the text is
+         * not touched at all, in case it has not changed.
          *
-         * @param fieldRate {@see BigDecimal} - The currency rate value as BigDecimal.
+         * @param currencyModel {@see CurrencyModel} - The currency value holder object.
          */
-        private void setFieldRate(final BigDecimal fieldRate) {
+        private void setFieldRate(final CurrencyModel currencyModel) {
             if (this.fieldRate != null) {
-                this.fieldRate.setText(CurrencyUtils.formatBigDecimalAsString(fieldRate));
+                final long amount = currencyModel.getDisplayAmount();
+                final int scale = currencyModel.getDisplayScale();
+                if (amount != CurrencyModel.NO_DISPLAY_AMOUNT
+                        && this.rateWriter.write(amount, scale, scale)) {
+                    setRateText(this.rateWriter);
+                } else {
+                    setRateText(CurrencyUtils.formatBigDecimalAsString(
+                            currencyModel.getCurrencyRate(), currencyModel.getCurrencyCode()));
+                }
                 this.fieldRate.setOnEditorActionListener(this.onEditorActionListener);
                 this.fieldRate.setOnFocusChangeListener(this.onFocusChangeListener);
             }
         }
 
+        /**
+         * Replaces the text of the currency rate view in place, in case it has changed.
+         *
+         * @param text {@see CharSequence} - The formatted rate.
+         */
+        private void setRateText(final CharSequence text) {
+            final Editable editable = this.fieldRate.getText();
+            if (editable == null || text == null) {
+                this.fieldRate.setText(text);
+            } else if (!TextUtils.equals(editable, text)) {
+                editable.replace(0, editable.length(), text);
+            }
+        }
+
         /**
          * Request focus to the field EditorText for the currency rate.
          */
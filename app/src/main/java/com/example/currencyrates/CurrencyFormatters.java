@@ -0,0 +1,205 @@
+package com.example.currencyrates;
+
+import java.math.RoundingMode;
+import java.text.DecimalFormat;
+import java.text.NumberFormat;
+import java.util.Currency;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Process-wide registry of the configured formatters of the currency amounts, one per currency
+ * of the current device locale. A formatter shows the ISO 4217 minor units of its currency, e.g.
+ * 0 decimal digits for JPY and 3 for BHD, or {@link CurrencyFormatters#DEFAULT_FRACTION_DIGITS}
+ * for the unknown currencies and the ones without minor units, and rounds half up.
+ * <p>
+ * A {@see DecimalFormat} is mutable and not thread-safe, so the registry keeps one configured
+ * prototype per currency and gives each thread its own clone of it, which is configured once and
+ * reused by every format on that thread. The registry is bound to the default {@see Locale}: once
+ * it changes, e.g. by the system settings, the next lookup drops all the cached formatters and
+ * creates them for the new locale. The same applies to the {@see DigitWriter.Symbols} of the
+ * locale, which the list uses to write the rates without creating strings.
+ *
+ * @author Nikola Georgiev
+ * @version 1.0
+ * @since 1.1.0
+ */
+/* package-private */ final class CurrencyFormatters {
+
+    /* package-private */ static final int DEFAULT_FRACTION_DIGITS = RateConverter.DISPLAY_SCALE;
+
+    private static final CurrencyFormatters INSTANCE = new CurrencyFormatters();
+
+    private volatile Registry registry = new Registry(Locale.getDefault());
+
+    /**
+     * The constructor of this class, the list and the activity share the instance of
+     * {@link CurrencyFormatters#getInstance()}.
+     */
+    /* package-private */ CurrencyFormatters() {
+    }
+
+    /**
+     * Gets the formatters of the process.
+     *
+     * @return {@see CurrencyFormatters} - The single instance.
+     */
+    /* package-private */ static CurrencyFormatters getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Gets the formatter of a currency for the calling thread. The formatter should not be passed
+     * to other threads.
+     *
+     * @param currencyCode {@see String} - The 3 letter currency code, or NULL for the default
+     *                     fraction digits.
+     * @return {@see DecimalFormat} - The configured formatter of the current locale.
+     */
+    /* package-private */ DecimalFormat get(final String currencyCode) {
+        return current().entryOf(currencyCode).formatter.get();
+    }
+
+    /**
+     * Gets the number of decimal digits shown for a currency.
+     *
+     * @param currencyCode {@see String} - The 3 letter currency code, or NULL for the default
+     *                     fraction digits.
+     * @return {@see int} - The ISO 4217 minor units of the currency, or
+     * {@link CurrencyFormatters#DEFAULT_FRACTION_DIGITS}.
+     */
+    /* package-private */ int getFractionDigits(final String currencyCode) {
+        return current().entryOf(currencyCode).fractionDigits;
+    }
+
+    /**
+     * Gets the digits and the separators of the current locale, for the allocation-free
+     * {@see DigitWriter}.
+     *
+     * @return {@see DigitWriter.Symbols} - The cached symbols of the current locale.
+     */
+    /* package-private */ DigitWriter.Symbols getSymbols() {
+
+        final Registry current = current();
+        DigitWriter.Symbols symbols = current.symbols;
+        if (symbols == null) {
+            symbols = DigitWriter.Symbols.of(current.locale);
+            current.symbols = symbols;
+        }
+        return symbols;
+    }
+
+    /**
+     * Drops all the cached formatters and symbols, they are created again by the next lookup.
+     */
+    /* package-private */ void invalidate() {
+        this.registry = new Registry(Locale.getDefault());
+    }
+
+    /**
+     * Gets the registry of the current default locale, and replaces the cached one, in case the
+     * locale has changed.
+     *
+     * @return {@see Registry} - The registry of the current locale.
+     */
+    private Registry current() {
+
+        final Registry cached = this.registry;
+        final Locale locale = Locale.getDefault();
+        if (cached.locale.equals(locale))
+            return cached;
+        final Registry fresh = new Registry(locale);
+        this.registry = fresh;
+        return fresh;
+    }
+
+    /**
+     * Resolves the ISO 4217 minor units of a currency.
+     *
+     * @param currencyCode {@see String} - The 3 letter currency code.
+     * @return {@see int} - The minor units, or {@link CurrencyFormatters#DEFAULT_FRACTION_DIGITS}
+     * in case the currency is unknown or has no minor units.
+     */
+    /* package-private */ static int resolveFractionDigits(final String currencyCode) {
+
+        if (currencyCode == null)
+            return DEFAULT_FRACTION_DIGITS;
+        try {
+            final int digits = Currency.getInstance(currencyCode).getDefaultFractionDigits();
+            return (digits >= 0 && digits <= RateTable.SCALE) ? digits : DEFAULT_FRACTION_DIGITS;
+        } catch (IllegalArgumentException iae) {
+            return DEFAULT_FRACTION_DIGITS;
+        }
+    }
+
+    /**
+     * The cached formatters of one locale by currency code, and the symbols of the locale.
+     *
+     * @author Nikola Georgiev
+     * @version 1.0
+     * @since 1.1.0
+     */
+    private static final class Registry {
+
+        private static final String DEFAULT_KEY = "";
+
+        private final Locale locale;
+        private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+        private volatile DigitWriter.Symbols symbols;
+
+        private Registry(final Locale locale) {
+            this.locale = locale;
+        }
+
+        private Entry entryOf(final String currencyCode) {
+
+            final String key = (currencyCode != null) ? currencyCode : DEFAULT_KEY;
+            Entry entry = this.entries.get(key);
+            if (entry == null) {
+                final Entry created = new Entry(this.locale, resolveFractionDigits(currencyCode));
+                entry = this.entries.putIfAbsent(key, created);
+                if (entry == null)
+                    entry = created;
+            }
+            return entry;
+        }
+    }
+
+    /**
+     * The formatter prototype of one currency and its per thread clones.
+     *
+     * @author Nikola Georgiev
+     * @version 1.0
+     * @since 1.1.0
+     */
+    private static final class Entry {
+
+        private final int fractionDigits;
+        private final ThreadLocal<DecimalFormat> formatter;
+
+        private Entry(final Locale locale, final int fractionDigits) {
+
+            this.fractionDigits = fractionDigits;
+            final DecimalFormat prototype = createFormat(locale, fractionDigits);
+            this.formatter = new ThreadLocal<DecimalFormat>() {
+                @Override
+                protected DecimalFormat initialValue() {
+                    synchronized (prototype) {
+                        return (DecimalFormat) prototype.clone();
+                    }
+                }
+            };
+        }
+
+        private static DecimalFormat createFormat(final Locale locale, final int fractionDigits) {
+
+            final NumberFormat nf = NumberFormat.getNumberInstance(locale);
+            final DecimalFormat formatter = (nf instanceof DecimalFormat)
+                    ? (DecimalFormat) nf : new DecimalFormat();
+            formatter.setMinimumFractionDigits(fractionDigits);
+            formatter.setMaximumFractionDigits(fractionDigits);
+            formatter.setRoundingMode(RoundingMode.HALF_UP);
+            return formatter;
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package com.example.currencyrates;
+
+import android.content.Context;
+import android.content.res.Resources;
+import android.content.res.TypedArray;
+import android.util.Log;
+
+import java.math.BigDecimal;
+import java.util.Locale;
+
+/**
+ * Registry of the static data of the known currencies: the display name, the default multiplier,
+ * the key of the country flag and the ISO 4217 minor units. The data is read once from the
+ * resource arrays {@code currency_codes}, {@code currency_names} and
+ * {@code currency_multipliers}, which are in the same order, and is kept in arrays by the
+ * {@see RateTable} index of the currency code, so a lookup is an array read, without any
+ * {@see Resources} call on the rates path.
+ * <p>
+ * The names are localized, so the registry of the process is bound to the default
+ * {@see Locale}, and is read again by {@link CurrencyMetadata#getInstance(Context)}, once the
+ * locale changes. The currencies, which are not in the resources, e.g. new ones sent by the API,
+ * get their code as name, 0 as default multiplier, and a flag key and minor units derived from
+ * the code.
+ *
+ * @author Nikola Georgiev
+ * @version 1.0
+ * @since 1.1.0
+ */
+/* package-private */ final class CurrencyMetadata {
+
+    private static final String TAG = CurrencyMetadata.class.getSimpleName();
+
+    private static volatile CurrencyMetadata instance;
+
+    private final Locale locale;
+    private final String[] names = new String[RateTable.MAX_CURRENCIES];
+    private final BigDecimal[] multipliers = new BigDecimal[RateTable.MAX_CURRENCIES];
+    private final String[] flagKeys = new String[RateTable.MAX_CURRENCIES];
+    private final int[] minorUnits = new int[RateTable.MAX_CURRENCIES];
+
+    /**
+     * The constructor of an empty registry, which is filled by
+     * {@link CurrencyMetadata#put(String, String, BigDecimal)} before it is shared.
+     *
+     * @param locale {@see Locale} - The locale of the names.
+     */
+    /* package-private */ CurrencyMetadata(final Locale locale) {
+        this.locale = locale;
+    }
+
+    /**
+     * Gets the registry of the current locale, and reads it from the resources of the application
+     * the first time, or once the locale has changed.
+     *
+     * @param context {@see Context} - The context of the application resources.
+     * @return {@see CurrencyMetadata} - The registry of the current locale.
+     */
+    /* package-private */ static CurrencyMetadata getInstance(final Context context) {
+
+        final Locale locale = Locale.getDefault();
+        CurrencyMetadata metadata = instance;
+        if (metadata == null || !metadata.locale.equals(locale)) {
+            synchronized (CurrencyMetadata.class) {
+                metadata = instance;
+                if (metadata == null || !metadata.locale.equals(locale)) {
+                    metadata = load(context.getResources(), locale);
+                    instance = metadata;
+                }
+            }
+        }
+        return metadata;
+    }
+
+    /**
+     * Reads the registry from the resource arrays.
+     *
+     * @param res    {@see Resources} - The application resources.
+     * @param locale {@see Locale} - The locale of the resources.
+     * @return {@see CurrencyMetadata} - The filled registry.
+     */
+    private static CurrencyMetadata load(final Resources res, final Locale locale) {
+
+        final CurrencyMetadata metadata = new CurrencyMetadata(locale);
+        final String[] codes = res.getStringArray(R.array.currency_codes);
+        final String[] names = res.getStringArray(R.array.currency_names);
+        final TypedArray multipliers = res.obtainTypedArray(R.array.currency_multipliers);
+        try {
+            if (codes.length != names.length || codes.length != multipliers.length())
+                Log.w(TAG, "The currency arrays have different lengths, the missing values are skipped.");
+            for (int i = 0; i < codes.length; i++) {
+                final String name = (i < names.length) ? names[i] : null;
+                /* Use the decimal string of the float, not its binary value, e.g. 0.1 instead of 0.1000000014901161 */
+                final BigDecimal multiplier = (i < multipliers.length() && multipliers.hasValue(i))
+                        ? new BigDecimal(Float.toString(multipliers.getFloat(i, 0))) : null;
+                metadata.put(codes[i], name, multiplier);
+            }
+        } finally {
+            multipliers.recycle();
+        }
+        return metadata;
+    }
+
+    /**
+     * Adds the data of a currency.
+     *
+     * @param currencyCode {@see String} - The 3 letter currency code.
+     * @param name         {@see String} - The display name, or NULL for the currency code.
+     * @param multiplier   {@see BigDecimal} - The default multiplier, or NULL for 0.
+     */
+    /* package-private */ void put(final String currencyCode, final String name,
+                                   final BigDecimal multiplier) {
+
+        final int index = RateTable.indexOf(currencyCode);
+        if (index == RateTable.NO_INDEX) {
+            Log.w(TAG, "Cannot register the currency: " + currencyCode);
+            return;
+        }
+        this.names[index] = (name != null && !name.isEmpty()) ? name : currencyCode;
+        this.multipliers[index] = (multiplier != null) ? multiplier : BigDecimal.ZERO;
+        this.flagKeys[index] = toFlagKey(currencyCode);
+        this.minorUnits[index] = CurrencyFormatters.resolveFractionDigits(currencyCode);
+    }
+
+    /**
+     * Gets the display name of a currency.
+     *
+     * @param currencyCode {@see String} - The 3 letter currency code.
+     * @return {@see String} - The name, or the currency code, in case it is not registered.
+     */
+    /* package-private */ String getName(final String currencyCode) {
+        final int index = RateTable.indexOf(currencyCode);
+        return (index != RateTable.NO_INDEX && this.names[index] != null)
+                ? this.names[index] : currencyCode;
+    }
+
+    /**
+     * Gets the default multiplier of a currency, used when it becomes the base currency.
+     *
+     * @param currencyCode {@see String} - The 3 letter currency code.
+     * @return {@see BigDecimal} - The multiplier, or 0 in case it is not registered.
+     */
+    /* package-private */ BigDecimal getDefaultMultiplier(final String currencyCode) {
+        final int index = RateTable.indexOf(currencyCode);
+        return (index != RateTable.NO_INDEX && this.multipliers[index] != null)
+                ? this.multipliers[index] : BigDecimal.ZERO;
+    }
+
+    /**
+     * Gets the key of the country flag of a currency, the lower case 2 letter country code.
+     *
+     * @param currencyCode {@see String} - The 3 letter currency code.
+     * @return {@see String} - The flag key, or NULL in case the code is too short.
+     */
+    /* package-private */ String getFlagKey(final String currencyCode) {
+        final int index = RateTable.indexOf(currencyCode);
+        return (index != RateTable.NO_INDEX && this.flagKeys[index] != null)
+                ? this.flagKeys[index] : toFlagKey(currencyCode);
+    }
+
+    /**
+     * Gets the ISO 4217 minor units of a currency.
+     *
+     * @param currencyCode {@see String} - The 3 letter currency code.
+     * @return {@see int} - The decimal digits shown for the currency.
+     */
+    /* package-private */ int getMinorUnits(final String currencyCode) {
+        final int index = RateTable.indexOf(currencyCode);
+        return (index != RateTable.NO_INDEX && this.names[index] != null)
+                ? this.minorUnits[index] : CurrencyFormatters.getInstance().getFractionDigits(currencyCode);
+    }
+
+    /**
+     * Derives the key of the country flag from a currency code, whose first 2 letters are the
+     * country code.
+     *
+     * @param currencyCode {@see String} - The 3 letter currency code.
+     * @return {@see String} - The lower case 2 letter country code, or NULL in case the code is
+     * too short.
+     */
+    /* package-private */ static String toFlagKey(final String currencyCode) {
+        if (currencyCode == null || currencyCode.trim().length() < 2)
+            return null;
+        return currencyCode.substring(0, 2).toLowerCase(Locale.US);
+    }
+}
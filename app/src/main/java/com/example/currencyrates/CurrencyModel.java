@@ -17,9 +17,14 @@ import java.math.BigDecimal;
     private final String currencyCode;
     private final String currencyName;
     private final BigDecimal currencyRate;
+    private final long displayAmount;
+    private final int displayScale;
+
+    /* package-private */ static final long NO_DISPLAY_AMOUNT = Long.MIN_VALUE;
 
     /**
-     * The main constructor of this class.
+     * The constructor of a model without a fixed-point display amount, whose rate is formatted as
+     * {@see BigDecimal}.
      *
      * @param countryFlagIconUri {@see Uri} - The country flag icon file Uri.
      * @param currencyCode       {@see String} - The 3 letter currency code that will used.
@@ -29,10 +34,32 @@ import java.math.BigDecimal;
      */
     /* package-private */ CurrencyModel(final Uri countryFlagIconUri, final String currencyCode,
                                         final String currencyName, final BigDecimal currencyRate) {
+        this(countryFlagIconUri, currencyCode, currencyName, currencyRate, NO_DISPLAY_AMOUNT, 0);
+    }
+
+    /**
+     * The main constructor of this class.
+     *
+     * @param countryFlagIconUri {@see Uri} - The country flag icon file Uri.
+     * @param currencyCode       {@see String} - The 3 letter currency code that will used.
+     * @param currencyName       {@see String} - The currency name, which will be shown.
+     * @param currencyRate       {@see BigDecimal} - The currency rate of the currency pair
+     *                           with the base currency, or NULL in case it is the display
+     *                           amount.
+     * @param displayAmount      {@see long} - The rate rounded to the display scale and
+     *                           unscaled, which is written by the {@see DigitWriter}, or
+     *                           {@link CurrencyModel#NO_DISPLAY_AMOUNT} in case it does not fit.
+     * @param displayScale       {@see int} - The decimal digits of the display amount.
+     */
+    /* package-private */ CurrencyModel(final Uri countryFlagIconUri, final String currencyCode,
+                                        final String currencyName, final BigDecimal currencyRate,
+                                        final long displayAmount, final int displayScale) {
         this.countryFlagIconUri = countryFlagIconUri;
         this.currencyCode = currencyCode;
         this.currencyName = currencyName;
         this.currencyRate = currencyRate;
+        this.displayAmount = displayAmount;
+        this.displayScale = displayScale;
     }
 
     /* package-private */ Uri getCountryFlagIconUri() {
@@ -47,7 +74,23 @@ import java.math.BigDecimal;
         return currencyName;
     }
 
+    /**
+     * Gets the currency rate, which is created from the display amount, in case the model was
+     * built by the fixed-point mode of the {@see RateConverter}.
+     *
+     * @return {@see BigDecimal} - The currency rate of the currency pair with the base currency.
+     */
     /* package-private */ BigDecimal getCurrencyRate() {
+        if (currencyRate == null && displayAmount != NO_DISPLAY_AMOUNT)
+            return BigDecimal.valueOf(displayAmount, displayScale);
         return currencyRate;
     }
+
+    /* package-private */ long getDisplayAmount() {
+        return displayAmount;
+    }
+
+    /* package-private */ int getDisplayScale() {
+        return displayScale;
+    }
 }
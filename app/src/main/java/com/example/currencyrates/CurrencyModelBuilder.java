@@ -0,0 +1,184 @@
+package com.example.currencyrates;
+
+import android.net.Uri;
+
+import org.apache.commons.lang3.Validate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Converts the snapshots of the currency rates to the {@see CurrencyModel} items of the list. The
+ * rates are multiplied by the current multiplier of the shared {@see RateConverter}, while the
+ * icons and the names of the currencies are provided by the {@see CurrencyAssets} of the client,
+ * so the conversion itself does not depend on the android resources and can be measured on a
+ * plain JVM.
+ *
+ * @author Nikola Georgiev
+ * @version 1.0
+ * @since 1.1.0
+ */
+/* package-private */ final class CurrencyModelBuilder {
+
+    private final RateConverter rateConverter;
+    private final CurrencyAssets assets;
+
+    /**
+     * The main constructor of this class.
+     *
+     * @param rateConverter {@see RateConverter} - The converter of the rates, whose multiplier is
+     *                      changed by the client.
+     * @param assets        {@see CurrencyAssets} - The provider of the icons and the names.
+     */
+    /* package-private */ CurrencyModelBuilder(final RateConverter rateConverter,
+                                               final CurrencyAssets assets) {
+        this.rateConverter = rateConverter;
+        this.assets = assets;
+    }
+
+    /**
+     * Converts a currency code and its rate to a {@see CurrencyModel}. The rate is multiplied by
+     * the current multiplier using the selected {@see RateConverter} mode, at the display scale of
+     * the minor units of the currency. In the fixed-point mode the model keeps only the unscaled
+     * amount, so no {@see BigDecimal} is allocated per model.
+     *
+     * @param currencyCode {@see String} - The 3 letter currency code.
+     * @param scaledRate   {@see long} - The fixed-point currency rate against the base currency.
+     * @return {@see CurrencyModel} - Returns currency model based on the currency code and rate.
+     */
+    /* package-private */ CurrencyModel build(final String currencyCode, final long scaledRate) {
+        return build(currencyCode, scaledRate, RateTable.UNIT);
+    }
+
+    /**
+     * Converts a currency code and its rate, which is a fraction of a denominator, e.g. of a
+     * table derived by the {@see CrossRateEngine}, to a {@see CurrencyModel}.
+     *
+     * @param currencyCode {@see String} - The 3 letter currency code.
+     * @param rate         {@see long} - The numerator of the rate against the base currency.
+     * @param denominator  {@see long} - The positive denominator of the rate.
+     * @return {@see CurrencyModel} - Returns currency model based on the currency code and rate.
+     * @see RateTable#getDenominator()
+     */
+    /* package-private */ CurrencyModel build(final String currencyCode, final long rate,
+                                             final long denominator) {
+
+        Validate.notNull(currencyCode, "Currency code should NOT have Null Pointer. ");
+
+        final Uri iconUri = this.assets.getIconUri(currencyCode);
+        final String currencyName = this.assets.getName(currencyCode);
+        final int displayScale = this.assets.getMinorUnits(currencyCode);
+        final long amount = this.rateConverter.convertFixed(rate, denominator, displayScale);
+        if (amount >= 0)
+            return new CurrencyModel(iconUri, currencyCode, currencyName, null, amount, displayScale);
+        final BigDecimal currencyRate = this.rateConverter.convert(rate, denominator, displayScale);
+        return new CurrencyModel(iconUri, currencyCode, currencyName, currencyRate,
+                toDisplayAmount(currencyRate, displayScale), displayScale);
+    }
+
+    /**
+     * Rounds a converted rate half up to the display scale, once per built model, so the list can
+     * write it on every bind without formatting the {@see BigDecimal} again.
+     *
+     * @param currencyRate {@see BigDecimal} - The converted rate.
+     * @param displayScale {@see int} - The decimal digits shown.
+     * @return {@see long} - The unscaled rounded rate, or {@link CurrencyModel#NO_DISPLAY_AMOUNT}
+     * in case it does not fit a long.
+     */
+    /* package-private */ static long toDisplayAmount(final BigDecimal currencyRate,
+                                                      final int displayScale) {
+
+        if (currencyRate == null)
+            return CurrencyModel.NO_DISPLAY_AMOUNT;
+        final BigDecimal rounded = currencyRate.setScale(displayScale, RoundingMode.HALF_UP);
+        return (rounded.precision() <= 18)
+                ? rounded.unscaledValue().longValue() : CurrencyModel.NO_DISPLAY_AMOUNT;
+    }
+
+    /**
+     * Checks whether the models of the previous snapshot can be reused for the currencies, which
+     * are not changed by a delta. That is only possible, in case the delta follows the version
+     * the models were built from, and the rate of the base currency itself has not changed, as
+     * the rates against any other base are derived from it.
+     *
+     * @param delta        {@see RateDelta} - The received delta, or NULL.
+     * @param seenVersion  {@see long} - The version of the snapshot the models were built from.
+     * @param baseCurrency {@see String} - The 3 letter code of the shown base currency.
+     * @return {@see boolean} - True - in case only the changed models should be rebuilt,
+     * False - in case all the models should be rebuilt.
+     */
+    /* package-private */ static boolean isPartialUpdate(final RateDelta delta,
+                                                         final long seenVersion,
+                                                         final String baseCurrency) {
+        return delta != null && delta.follows(seenVersion)
+                && !delta.isChanged(RateTable.indexOf(baseCurrency));
+    }
+
+    /**
+     * Converts a {@see RateTable} to {@see ArrayList} of {@see CurrencyModel} items. The models
+     * built for the previous snapshot are reused for the currencies, which are not changed by the
+     * delta.
+     *
+     * @param ratesTable {@see RateTable} - A table of currency rates by currency index.
+     * @param delta      {@see RateDelta} - The changed currencies, or NULL in case all the
+     *                   models should be rebuilt.
+     * @param models     {@see CurrencyModel[]} - The models of the previous snapshot by currency
+     *                   index, which are replaced by the rebuilt ones.
+     * @return {@see List} - Returns {@see ArrayList} of {@see CurrencyModel}. In case the table
+     * is empty or has null pointer, this method will return an empty list.
+     */
+    /* package-private */ List<CurrencyModel> buildAll(final RateTable ratesTable,
+                                                       final RateDelta delta,
+                                                       final CurrencyModel[] models) {
+
+        final List<CurrencyModel> currencies = new ArrayList<>();
+        if (ratesTable != null && !ratesTable.isEmpty()) {
+            for (int i = ratesTable.next(0); i >= 0; i = ratesTable.next(i + 1)) {
+                CurrencyModel model = models[i];
+                if (model == null || delta == null || delta.isChanged(i)) {
+                    model = build(RateTable.codeAt(i), ratesTable.get(i),
+                            ratesTable.getDenominator());
+                    models[i] = model;
+                }
+                currencies.add(model);
+            }
+        }
+        return currencies;
+    }
+
+    /**
+     * The provider of the icons, the names and the minor units of the currencies.
+     *
+     * @author Nikola Georgiev
+     * @version 1.0
+     * @since 1.1.0
+     */
+    /* package-private */ interface CurrencyAssets {
+
+        /**
+         * Gets the icon of the country of a currency.
+         *
+         * @param currencyCode {@see String} - The 3 letter currency code.
+         * @return {@see Uri} - The icon URI.
+         */
+        Uri getIconUri(String currencyCode);
+
+        /**
+         * Gets the display name of a currency.
+         *
+         * @param currencyCode {@see String} - The 3 letter currency code.
+         * @return {@see String} - The name, or the currency code, in case the name is not found.
+         */
+        String getName(String currencyCode);
+
+        /**
+         * Gets the ISO 4217 minor units of a currency, the decimal digits shown for its rate.
+         *
+         * @param currencyCode {@see String} - The 3 letter currency code.
+         * @return {@see int} - The minor units.
+         */
+        int getMinorUnits(String currencyCode);
+    }
+}
@@ -3,36 +3,63 @@ package com.example.currencyrates;
 import android.app.Service;
 import android.content.Context;
 import android.content.Intent;
-import android.os.AsyncTask;
 import android.os.Binder;
 import android.os.Bundle;
+import android.os.Handler;
 import android.os.IBinder;
+import android.os.Looper;
 import android.util.Log;
 
 import androidx.annotation.Nullable;
-import androidx.localbroadcastmanager.content.LocalBroadcastManager;
 
 import com.github.kevinsawicki.http.HttpRequest;
 
-import java.io.Serializable;
-import java.math.BigDecimal;
-import java.util.Map;
-import java.util.Timer;
-import java.util.TimerTask;
+import java.io.FileDescriptor;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Random;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 /**
- * The android service that will handle the Currency Rates updating from the Revolut API. It
- * starts a {@see Timer} job, which schedules a API call at specific time in milliseconds. This
+ * The android service that will handle the Currency Rates updating from the Revolut API. It polls
+ * the rates of a set of subscribed base currencies, each one with its own
+ * {@see BaseSubscription} in the {@see SubscriptionRegistry}, which counts the consumers of that
+ * base, so the number of calls grows with the number of distinct bases, not with the number of
+ * consumers. The client that binds the service subscribes
+ * the base currency from the bind intent, other bases can be subscribed through the binder. The
+ * last downloaded snapshot of each base is kept in a {@see SnapshotCache}, which any consumer can
+ * read immediately.
+ * <p>
+ * The service owns its executors: a {@see ScheduledExecutorService}, which schedules a API call of
+ * each base after a delay in milliseconds, decided by the {@see AdaptivePollingPolicy} of that
+ * base from the result of its previous call, and two bounded {@see NetworkLane} pools, one for the
+ * rates polls, which polls the bases concurrently, and one for the asset downloads of the clients,
+ * so the polls never queue behind the flag downloads. The lane threads share the keep-alive
+ * connections of {@see java.net.HttpURLConnection} to the API host. The executors are created when
+ * a client binds and shut down when all clients unbind. This
  * class also includes inner LocalBinder which will take care of service bindings,
- * {@see ScheduledUpdater} class is a {@see TimerTask}, which creates {@see RatesDownloader}, that
- * will do the async calls of the API. The {@see RatesDownloader} is actually {@see AsyncTask}
- * job, which uses {@see HttpRequest} and converts the data to a {@see Map} of {@see BigDecimal}
- * values by the currency code as key, and then calls
- * {@link CurrencyRatesService#broadcastCurrentRates(String)} to broadcast the result to every
- * entity, that's interested in the result.
+ * {@see ScheduledUpdater} class is a {@see Runnable} tick, which submits a {@see RatesDownloader}
+ * to the rates lane, that will do the call of the API. The {@see RatesDownloader} uses its
+ * {@see BaseSubscription} to revalidate the last downloaded rates with a conditional
+ * {@see HttpRequest}, streams the new data, if any, decompressing it on the fly, to a {@see RateTable}, and
+ * then, back on the main thread, publishes the changes since the previous result of that base to
+ * the {@see RatesRepository}, which shares them with every entity, that's interested in the
+ * result. The clients can subscribe to them through the {@see RateStream} of the service, at
+ * their own pace. Each
+ * accepted snapshot of the bound base is also saved by the {@see SnapshotStore} on a background
+ * thread, so the clients can show the last known rates on the next cold start, and appended to
+ * the on-disk {@see HistoryLog}. Its changed currencies are also kept as ticks in the in-memory
+ * {@see RateHistory}. Nothing is published in case the rates have not changed. At most one
+ * {@see RatesDownloader} per base is in flight at a time, as the next poll of a base is
+ * scheduled only once its previous one has completed, see {@see BaseSubscription}.
  *
  * @author Nikola Georgiev
- * @version 1.0
+ * @version 1.1
  * @since 1.0.0
  */
 public class CurrencyRatesService extends Service {
@@ -40,14 +67,52 @@ public class CurrencyRatesService extends Service {
     public static final String TAG = CurrencyRatesService.class.getSimpleName();
     public static final int PERIOD = 1000;
     protected static final String URL_KEY = "api-url";
-    protected static final String CURRENCY_RATES_KEY = "currency-rates";
-    protected static final String BROADCAST_KEY = "currency-rates-service-broadcast-key";
+    protected static final String BASE_CURRENCY_KEY = "base-currency";
     private static final String FAIL_SAFE_URL = "about:blank";
+    private static final long SNAPSHOT_TTL = 10 * PERIOD;
+    private static final int RATES_LANE_THREADS = 4;
+    private static final int RATES_LANE_CAPACITY = RateTable.MAX_CURRENCIES;
+    private static final int ASSETS_LANE_THREADS = 2;
+    private static final int ASSETS_LANE_CAPACITY = RateTable.MAX_CURRENCIES;
 
     private final IBinder binder = new LocalBinder();
+    private final PollStats pollStats = new PollStats();
+    private final TransferStats transferStats = new TransferStats();
+    private final SnapshotCache snapshotCache = new SnapshotCache(SNAPSHOT_TTL);
+    private final SubscriptionRegistry subscriptions =
+            new SubscriptionRegistry(PERIOD, new Random());
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
 
-    private Timer timer;
-    private String url;
+    private ScheduledExecutorService scheduler;
+    private NetworkLane ratesLane;
+    private NetworkLane assetsLane;
+    private String url = FAIL_SAFE_URL;
+    private String baseCurrency;
+    private SnapshotStore snapshotStore;
+    private ExecutorService diskExecutor;
+    private RateHistory rateHistory;
+    private HistoryLog historyLog;
+    private ScheduledExecutorService streamTimer;
+    private RateStream rateStream;
+
+    /**
+     * Called by the system when the service is first created. Creates the in-memory rates history
+     * with the memory ceiling from the resources, the on-disk history log, and the rate stream
+     * with its timer, and turns the sampling of the {@see PipelineMetrics} on or off, as set in
+     * the resources.
+     */
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        this.rateHistory = new RateHistory(
+                super.getResources().getInteger(R.integer.rate_history_memory_kb) * 1024L);
+        this.historyLog = HistoryLog.open(this);
+        this.streamTimer = Executors.newSingleThreadScheduledExecutor(
+                new NetworkLane.LaneThreadFactory("rates-stream"));
+        this.rateStream = new RateStream(RatesRepository.getInstance(), this.streamTimer);
+        PipelineMetrics.getInstance().setSampling(
+                super.getResources().getBoolean(R.bool.pipeline_metrics_sampling));
+    }
 
     /**
      * Return the communication channel to the service.  May return null if
@@ -74,10 +139,7 @@ public class CurrencyRatesService extends Service {
     public IBinder onBind(Intent intent) {
 
         setJobUrl(intent);
-
-        final ScheduledUpdater repeatTask = new ScheduledUpdater();
-        this.timer = new Timer();
-        this.timer.schedule(repeatTask, 0, PERIOD);
+        startExecutors();
 
         return this.binder;
     }
@@ -90,7 +152,13 @@ public class CurrencyRatesService extends Service {
      */
     @Override
     public void onDestroy() {
-        this.timer.cancel();
+        shutdownExecutors();
+        if (this.historyLog != null)
+            this.historyLog.close();
+        if (this.rateStream != null)
+            this.rateStream.close();
+        if (this.streamTimer != null)
+            this.streamTimer.shutdownNow();
         super.onDestroy();
     }
 
@@ -109,6 +177,7 @@ public class CurrencyRatesService extends Service {
     public void onRebind(Intent intent) {
         super.onRebind(intent);
         setJobUrl(intent);
+        startExecutors();
     }
 
     /**
@@ -125,33 +194,321 @@ public class CurrencyRatesService extends Service {
      */
     @Override
     public boolean onUnbind(Intent intent) {
-        this.timer.cancel();
+        shutdownExecutors();
+        return true;
+    }
+
+    /**
+     * Prints the state of the service: the poll and transfer counters, the lanes, the histories
+     * and the latencies of the pipeline stages. Called by
+     * {@code adb shell dumpsys activity service CurrencyRatesService}, on a binder thread, so it
+     * reads only the thread-safe state.
+     *
+     * @param fd     {@see FileDescriptor} - The raw file descriptor that the dump is being sent to.
+     * @param writer {@see PrintWriter} - The writer to print the state to.
+     * @param args   {@see String[]} - The additional arguments to the dump request, "reset"
+     *               clears the latencies after they are printed.
+     */
+    @Override
+    protected void dump(FileDescriptor fd, PrintWriter writer, String[] args) {
+
+        writer.println("Polls: " + this.pollStats);
+        writer.println("Transfers: " + this.transferStats);
+        final NetworkLane rates = this.ratesLane;
+        final NetworkLane assets = this.assetsLane;
+        writer.println("Rates lane: " + ((rates != null) ? rates : "stopped"));
+        writer.println("Assets lane: " + ((assets != null) ? assets : "stopped"));
+        if (this.rateHistory != null)
+            writer.println("Rate history: " + this.rateHistory);
+        if (this.historyLog != null)
+            writer.println("History log: segments=" + this.historyLog.getSegmentCount()
+                    + ", bytes=" + this.historyLog.getTotalBytes());
+        final RateStream stream = this.rateStream;
+        if (stream != null)
+            writer.println("Rate stream: subscribers=" + stream.getSubscriberCount());
+        final PipelineMetrics metrics = PipelineMetrics.getInstance();
+        metrics.dump(writer);
+        if (args != null && args.length > 0 && "reset".equals(args[0]))
+            metrics.reset();
+    }
+
+    /**
+     * Creates the executors of the service and subscribes the base currency of the bound client,
+     * which starts polling it immediately, replacing the previous executors and subscriptions, if
+     * any.
+     */
+    private void startExecutors() {
+        shutdownExecutors();
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(
+                new NetworkLane.LaneThreadFactory("rates-scheduler"));
+        this.ratesLane = new NetworkLane("rates", RATES_LANE_THREADS, RATES_LANE_CAPACITY);
+        this.assetsLane = new NetworkLane("assets", ASSETS_LANE_THREADS, ASSETS_LANE_CAPACITY);
+        this.diskExecutor = Executors.newSingleThreadExecutor(
+                new NetworkLane.LaneThreadFactory("rates-disk"));
+        if (this.baseCurrency != null)
+            subscribe(this.baseCurrency);
+    }
+
+    /**
+     * Shuts down the executors of the service and drops all the subscriptions, so no more polls
+     * are scheduled and the queued tasks are dropped. The running tasks are interrupted, a poll
+     * that still completes is not followed by another one. A pending snapshot write is completed.
+     */
+    private void shutdownExecutors() {
+        this.subscriptions.clear();
+        if (this.scheduler != null) {
+            this.scheduler.shutdownNow();
+            this.scheduler = null;
+        }
+        if (this.ratesLane != null) {
+            this.ratesLane.shutdownNow();
+            Log.d(TAG, "Shut down " + this.ratesLane);
+            this.ratesLane = null;
+        }
+        if (this.assetsLane != null) {
+            this.assetsLane.shutdownNow();
+            Log.d(TAG, "Shut down " + this.assetsLane);
+            this.assetsLane = null;
+        }
+        if (this.diskExecutor != null) {
+            //Let the pending snapshot write complete
+            this.diskExecutor.shutdown();
+            this.diskExecutor = null;
+        }
+    }
+
+    /**
+     * Subscribes a consumer to the rates of a base currency. The first subscription of a base
+     * starts polling it immediately, the next ones only count the consumers. NOTE: Must be called
+     * on the main thread, while a client is bound.
+     *
+     * @param base {@see String} - The 3 letter currency code of the base currency.
+     * @return {@see boolean} - True - in case the base is subscribed, False - in case it is not a
+     * valid currency code or no client is bound.
+     * @see CurrencyRatesService#getCachedSnapshot(String)
+     */
+    /* package-private */ boolean subscribe(final String base) {
+
+        if (this.scheduler == null)
+            return false;
+        final BaseSubscription subscription = this.subscriptions.subscribe(base, this.url + base);
+        if (subscription == null)
+            return false;
+        if (subscription.getConsumers() == 1)
+            scheduleNextPoll(subscription, this.scheduler, 0);
         return true;
     }
 
     /**
-     * Broadcasts the result data to every entity, that's interested in the result. Each
-     * {@see Activity} that is interested in the data, must subscribe for this broadcast events
-     * by using the Intent key specified. It will convert the JSON string to a {@see Map} and
-     * will be set as {@see Serializable} extra to the {@see Intent}.
+     * Unsubscribes a consumer from the rates of a base currency. Once the last consumer has
+     * unsubscribed, the base is not polled anymore, while its cached snapshot is kept until it
+     * expires. NOTE: Must be called on the main thread.
+     *
+     * @param base {@see String} - The 3 letter currency code of the base currency.
+     */
+    /* package-private */ void unsubscribe(final String base) {
+
+        if (this.subscriptions.unsubscribe(base))
+            this.snapshotCache.evictExpired(System.currentTimeMillis());
+    }
+
+    /**
+     * Gets the last downloaded snapshot of a base currency, without waiting for a poll.
+     *
+     * @param base {@see String} - The 3 letter currency code of the base currency.
+     * @return {@see SnapshotCache.Entry} - The cached snapshot, which may have expired, or NULL in
+     * case the base has not been downloaded yet.
+     */
+    /* package-private */ SnapshotCache.Entry getCachedSnapshot(final String base) {
+        return this.snapshotCache.get(base);
+    }
+
+    /**
+     * Schedules the next poll of a base after a delay, in case the base is still subscribed and
+     * the scheduler, which has scheduled the previous poll, is still the current one, i.e. the
+     * executors have not been shut down or restarted since.
+     *
+     * @param subscription {@see BaseSubscription} - The subscription of the base.
+     * @param owner        {@see ScheduledExecutorService} - The scheduler of the previous poll.
+     * @param delay        {@see long} - The delay before the next poll in milliseconds.
+     */
+    private void scheduleNextPoll(final BaseSubscription subscription,
+                                  final ScheduledExecutorService owner, final long delay) {
+        if (owner != null && owner == this.scheduler && this.subscriptions.isCurrent(subscription)) {
+            try {
+                owner.schedule(new ScheduledUpdater(subscription, owner, this.ratesLane), delay,
+                        TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException exception) {
+                Log.w(TAG, "Cannot schedule the next poll, the scheduler is shut down.", exception);
+            }
+        }
+    }
+
+    /**
+     * Compares the downloaded rates of a base to the last accepted ones and publishes the
+     * difference, in case there is any. Empty results are ignored, so a failed parse does not
+     * clear the rates.
+     *
+     * @param subscription {@see BaseSubscription} - The subscription of the base.
+     * @param ratesTable   {@see RateTable} - The sealed table of the downloaded currency rates.
+     * @param freshness    {@see long} - The freshness lifetime of the response in milliseconds.
+     * @return {@see boolean} - True - in case the rates have changed and were published, False -
+     * otherwise.
+     * @see RateDelta#between(RateTable, RateTable, long)
+     */
+    private boolean onRatesDownloaded(final BaseSubscription subscription,
+                                      final RateTable ratesTable, final long freshness) {
+
+        if (ratesTable.isEmpty()) {
+            Log.w(TAG, "No rates found in the data downloaded from " + subscription.getUrl());
+            return false;
+        }
+        final long timestamp = System.currentTimeMillis();
+        this.snapshotCache.put(subscription.getBase(), ratesTable, timestamp, freshness);
+        final RateDelta delta = RateDelta.between(subscription.lastRates, ratesTable,
+                subscription.ratesVersion);
+        if (delta == null) {
+            Log.d(TAG, "The " + subscription.getBase() + " rates have not changed since version "
+                    + subscription.ratesVersion);
+            return false;
+        }
+        subscription.lastRates = ratesTable;
+        subscription.ratesVersion = delta.getVersion();
+        final PipelineMetrics metrics = PipelineMetrics.getInstance();
+        final long publishedAt = metrics.start();
+        RatesRepository.getInstance().publish(subscription.getBase(), delta);
+        metrics.record(PipelineMetrics.Stage.PUBLISH, publishedAt);
+        if (subscription.getBase().equals(this.baseCurrency)) {
+            saveSnapshot(ratesTable, timestamp);
+            if (this.rateHistory != null)
+                this.rateHistory.record(timestamp, delta);
+        }
+        return true;
+    }
+
+    /**
+     * Saves the accepted rates by the {@see SnapshotStore} and appends them to the
+     * {@see HistoryLog} on the disk thread, so the main thread does not wait for the disk.
+     *
+     * @param ratesTable {@see RateTable} - The sealed table of the accepted rates.
+     * @param timestamp  {@see long} - The time the rates were accepted at, in epoch milliseconds.
+     */
+    private void saveSnapshot(final RateTable ratesTable, final long timestamp) {
+
+        final ExecutorService executor = this.diskExecutor;
+        if (executor == null || this.baseCurrency == null)
+            return;
+        if (this.snapshotStore == null)
+            this.snapshotStore = SnapshotStore.in(this);
+        final SnapshotStore store = this.snapshotStore;
+        final HistoryLog log = this.historyLog;
+        final SnapshotStore.Snapshot snapshot = new SnapshotStore.Snapshot(this.baseCurrency,
+                ratesTable, timestamp);
+        try {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        store.write(snapshot);
+                    } catch (IOException exception) {
+                        Log.e(TAG, "Cannot save the rates snapshot to " + store.getFile(),
+                                exception);
+                    }
+                    if (log != null)
+                        log.append(timestamp, ratesTable);
+                }
+            });
+        } catch (RejectedExecutionException exception) {
+            Log.w(TAG, "Cannot save the rates snapshot, the disk executor is shut down.", exception);
+        }
+    }
+
+    /**
+     * Gets the counters of the polls made by this service.
+     *
+     * @return {@see PollStats} - The live poll counters.
+     */
+    /* package-private */ PollStats getPollStats() {
+        return this.pollStats;
+    }
+
+    /**
+     * Gets the counters of the compressed and uncompressed bytes downloaded by this service.
+     *
+     * @return {@see TransferStats} - The live transfer counters.
+     */
+    /* package-private */ TransferStats getTransferStats() {
+        return this.transferStats;
+    }
+
+    /**
+     * Gets the policy, which decides the polling interval of a base, to read its current interval
+     * and the reason for it. NOTE: Must be called on the main thread.
+     *
+     * @param base {@see String} - The 3 letter currency code of the base currency.
+     * @return {@see AdaptivePollingPolicy} - The live polling policy, or NULL in case the base is
+     * not subscribed.
+     */
+    /* package-private */ AdaptivePollingPolicy getPollingPolicy(final String base) {
+        final BaseSubscription subscription = this.subscriptions.get(base);
+        return (subscription != null) ? subscription.getPollingPolicy() : null;
+    }
+
+    /**
+     * Gets the in-memory history of the rates ticks, to query it.
+     *
+     * @return {@see RateHistory} - The live rates history.
+     */
+    /* package-private */ RateHistory getRateHistory() {
+        return this.rateHistory;
+    }
+
+    /**
+     * Gets the on-disk history log of the rates, to query it. NOTE: The queries read the disk, so
+     * they should not be made on the main thread.
+     *
+     * @return {@see HistoryLog} - The history log, or NULL in case its directory cannot be
+     * created.
+     */
+    /* package-private */ HistoryLog getHistoryLog() {
+        return this.historyLog;
+    }
+
+    /**
+     * Gets the stream of the published rates, to which the clients subscribe with their own
+     * demand, delivery mode and minimum interval.
      *
-     * @param data {@see String} - The raw data as string, it suppose to be JSON object as string.
-     * @see LocalBroadcastManager
+     * @return {@see RateStream} - The rate stream of the service.
      */
-    private void broadcastCurrentRates(final String data) {
+    /* package-private */ RateStream getRateStream() {
+        return this.rateStream;
+    }
 
-        final Map<String, BigDecimal> ratesMap = CurrencyUtils.convertData(data);
-        final Intent intent = new Intent(BROADCAST_KEY);
-        intent.putExtra(CURRENCY_RATES_KEY, (Serializable) ratesMap);
+    /**
+     * Gets the lane of the rates polls, to read its queue depth and wait time.
+     *
+     * @return {@see NetworkLane} - The rates lane, or NULL in case no client is bound.
+     */
+    /* package-private */ NetworkLane getRatesLane() {
+        return this.ratesLane;
+    }
 
-        LocalBroadcastManager.getInstance(super.getBaseContext()).sendBroadcast(intent);
+    /**
+     * Gets the lane, which the clients should use to download assets, e.g. the country flags, so
+     * the downloads do not delay the rates polls.
+     *
+     * @return {@see NetworkLane} - The assets lane, or NULL in case no client is bound.
+     */
+    /* package-private */ NetworkLane getAssetsLane() {
+        return this.assetsLane;
     }
 
     /**
-     * Service setter to set the API URL, which will be used to make the {@see HttpRequest}.
+     * Service setter to set the API URL, to which the base currency code is appended to make the
+     * {@see HttpRequest}, and the base currency of the bound client.
      *
-     * @param intent {@see Intent} - The intent context that will be used to get the URL as
-     *               attached {@see String} extra.
+     * @param intent {@see Intent} - The intent context that will be used to get the URL and the
+     *               base currency as attached {@see String} extras.
      */
     /* package-private */ void setJobUrl(final Intent intent) {
 
@@ -159,120 +516,151 @@ public class CurrencyRatesService extends Service {
             final Bundle extras = intent.getExtras();
             if (extras != null) {
                 this.url = extras.getString(URL_KEY, FAIL_SAFE_URL);
+                this.baseCurrency = extras.getString(BASE_CURRENCY_KEY);
             }
         }
     }
 
     /**
-     * The Scheduled job that will call the API every specific milliseconds, using the
-     * {@see RateDownloader}. This job must be canceled once the Service has done it's job.
+     * The Scheduled job that will call the API once for a base, using the
+     * {@see RateDownloader}. The next job is scheduled when the download is done, so the jobs of
+     * a base never overlap.
      *
      * @author Nikola Georgiev
-     * @version 1.0
+     * @version 1.3
      * @since 1.0.0
      */
-    private class ScheduledUpdater extends TimerTask {
+    private class ScheduledUpdater implements Runnable {
 
-        private RatesDownloader asyncTask;
+        private final BaseSubscription subscription;
+        private final ScheduledExecutorService owner;
+        private final Executor lane;
 
         /**
-         * The action to be performed by this timer task.
+         * The main constructor of this class.
+         *
+         * @param subscription {@see BaseSubscription} - The subscription of the polled base.
+         * @param owner        {@see ScheduledExecutorService} - The scheduler, which schedules
+         *                     this job.
+         * @param lane         {@see Executor} - The lane, which runs the download.
          */
-        @Override
-        public void run() {
-            asyncTask = new RatesDownloader();
-            asyncTask.execute(CurrencyRatesService.this.url);
+        private ScheduledUpdater(final BaseSubscription subscription,
+                                 final ScheduledExecutorService owner, final Executor lane) {
+            this.subscription = subscription;
+            this.owner = owner;
+            this.lane = lane;
         }
 
         /**
-         * Cancels this timer task.  If the task has been scheduled for one-time
-         * execution and has not yet run, or has not yet been scheduled, it will
-         * never run.  If the task has been scheduled for repeated execution, it
-         * will never run again.  (If the task is running when this call occurs,
-         * the task will run to completion, but will never run again.)
-         *
-         * <p>Note that calling this method from within the <tt>run</tt> method of
-         * a repeating timer task absolutely guarantees that the timer task will
-         * not run again.
-         *
-         * <p>This method may be called repeatedly; the second and subsequent
-         * calls have no effect.
-         *
-         * @return true if this task is scheduled for one-time execution and has
-         * not yet run, or this task is scheduled for repeated execution.
-         * Returns false if the task was scheduled for one-time execution
-         * and has already run, or if the task was never scheduled, or if
-         * the task was already cancelled.  (Loosely speaking, this method
-         * returns <tt>true</tt> if it prevents one or more scheduled
-         * executions from taking place.)
+         * The action to be performed by this scheduled job.
          */
         @Override
-        public boolean cancel() {
-            return !asyncTask.isCancelled() || asyncTask.cancel(true);
+        public void run() {
+            try {
+                this.lane.execute(new RatesDownloader(this.subscription, this.owner));
+            } catch (RejectedExecutionException exception) {
+                Log.w(TAG, "Cannot poll, the rates lane is shut down or full.", exception);
+            }
         }
     }
 
     /**
-     * The async job, which will be performed in order to call the Revolut API and get the
-     * Currency Rates. The raw data will be converted and broadcast to each subscriber. NOTE:
-     * Once the job is done, the {@see AsyncTask} cannot be reused. To reused it, create new
-     * instance of it.
+     * The job, which will be performed on the rates lane in order to call the Revolut API and get
+     * the Currency Rates of a base. The response body is parsed while it is streamed, on the lane
+     * thread, and the result is posted to the main thread, where it is published to each
+     * subscriber.
      *
      * @author Nikola Georgiev
-     * @version 1.0
+     * @version 1.2
      * @since 1.0.0
      */
-    private class RatesDownloader extends AsyncTask<String, Long, String> {
+    private class RatesDownloader implements Runnable {
+
+        private final BaseSubscription subscription;
+        private final ScheduledExecutorService owner;
+        private final String url;
+        private long startedAt = PipelineMetrics.NOT_SAMPLED;
 
         /**
-         * Override this method to perform a computation on a background thread. The
-         * specified parameters are the parameters passed to {@link #execute}
-         * by the caller of this task.
-         * <p>
-         * This method can call {@link #publishProgress} to publish updates
-         * on the UI thread.
+         * The main constructor of this class.
          *
-         * @param urls The parameters of the task.
-         * @return A result, defined by the subclass of this task.
-         * @see #onPreExecute()
-         * @see #onPostExecute
-         * @see #publishProgress
+         * @param subscription {@see BaseSubscription} - The subscription of the polled base.
+         * @param owner        {@see ScheduledExecutorService} - The scheduler, which will
+         *                     schedule the next poll.
+         */
+        private RatesDownloader(final BaseSubscription subscription,
+                                final ScheduledExecutorService owner) {
+            this.subscription = subscription;
+            this.owner = owner;
+            this.url = subscription.getUrl();
+        }
+
+        /**
+         * Calls the API on the lane thread and posts the result to the main thread.
          */
         @Override
-        protected String doInBackground(String... urls) {
+        public void run() {
+            PollResult result;
             try {
-                final HttpRequest request = HttpRequest.get(urls[0]);
-                //Accept all certificates
-                request.trustAllCerts();
-                String dataAsString = null;
-                if (request.ok()) {
-                    //Copy response to dataAsString
-                    dataAsString = request.body();
-                }
-                return dataAsString;
-            } catch (HttpRequest.HttpRequestException exception) {
-                return null;
+                this.startedAt = PipelineMetrics.getInstance().start();
+                result = this.subscription.poll(this.startedAt,
+                        CurrencyRatesService.this.transferStats);
+            } catch (RuntimeException exception) {
+                Log.e(TAG, "An error occurred, while polling URL: " + this.url, exception);
+                result = PollResult.failed();
             }
+            CurrencyRatesService.this.pollStats.record(result.getStatus());
+
+            final PollResult completed = result;
+            CurrencyRatesService.this.mainHandler.post(new Runnable() {
+                @Override
+                public void run() {
+                    onCompleted(completed);
+                }
+            });
         }
 
         /**
-         * <p>Runs on the UI thread after {@link #doInBackground}. The
-         * specified result is the value returned by {@link #doInBackground}.</p>
+         * Runs on the main thread after {@link #run()}. Applies the result and schedules the next
+         * poll. The result of a subscription, which is not current anymore, is dropped, and no
+         * next poll is scheduled for it.
          *
-         * <p>This method won't be invoked if the task was cancelled.</p>
-         *
-         * @param data The result of the operation computed by {@link #doInBackground}.
-         * @see #onPreExecute
-         * @see #doInBackground
-         * @see #onCancelled()
+         * @param result {@see PollResult} - The result of the poll.
          */
-        @Override
-        protected void onPostExecute(String data) {
-            if (data != null) {
-                Log.i(TAG, "Data successfully downloaded from " + url);
-                CurrencyRatesService.this.broadcastCurrentRates(data);
-            } else
-                Log.w(TAG, "Download failed for URL: " + url);
+        private void onCompleted(final PollResult result) {
+            final CurrencyRatesService service = CurrencyRatesService.this;
+            final BaseSubscription subscription = this.subscription;
+            if (!service.subscriptions.isCurrent(subscription)) {
+                //The base was unsubscribed, and maybe subscribed again, while this poll was running
+                Log.d(TAG, "Dropping the poll of a former " + subscription.getBase()
+                        + " subscription.");
+                return;
+            }
+
+            boolean changed = false;
+            switch (result.getStatus()) {
+                case DOWNLOADED:
+                    Log.i(TAG, "Data successfully downloaded from " + this.url);
+                    changed = service.onRatesDownloaded(subscription, result.getRatesTable(),
+                            result.getFreshness());
+                    break;
+                case NOT_MODIFIED:
+                    Log.d(TAG, "Data not modified at " + this.url);
+                    service.snapshotCache.touch(subscription.getBase(), System.currentTimeMillis(),
+                            result.getFreshness());
+                    break;
+                default:
+                    Log.w(TAG, "Download failed for URL: " + this.url);
+                    break;
+            }
+            PipelineMetrics.getInstance().record(PipelineMetrics.Stage.TICK, this.startedAt);
+            Log.d(TAG, "Poll stats: " + service.pollStats
+                    + ", transfer stats: " + service.transferStats);
+
+            final long delay = subscription.getPollingPolicy().onResult(
+                    result.getStatus(), changed, result.getFreshness());
+            Log.d(TAG, "Next " + subscription.getBase() + " poll: " + subscription.getPollingPolicy());
+            service.scheduleNextPoll(subscription, this.owner, delay);
         }
     }
 
@@ -5,14 +5,9 @@ import android.util.Log;
 import org.json.JSONException;
 import org.json.JSONObject;
 
+import java.io.InputStream;
 import java.math.BigDecimal;
-import java.math.RoundingMode;
-import java.text.DecimalFormat;
-import java.text.NumberFormat;
-import java.util.HashMap;
 import java.util.Iterator;
-import java.util.Locale;
-import java.util.Map;
 
 /**
  * Utility class that helps extracting common currency logics.
@@ -27,18 +22,21 @@ import java.util.Map;
     private static final String RATES_NODE = "rates";
 
     /**
-     * Parses the JSON string raw data to a {@see JSONObject}, and converts it to a {@see Map}.
+     * Parses the JSON string raw data to a {@see JSONObject}, and converts it to a
+     * {@see RateTable}.
      *
      * @param data {@see String} - The raw data as string, it suppose to be JSON object as string.
-     * @return {@see Map} - Returns map of {@see BigDecimal} values and the Currency Codes as
-     * keys. It will return an empty map, in case the {@param data} is not a JSON string or
-     * doesn't have the required data.
+     * @return {@see RateTable} - Returns sealed table of the currency rates. It will return an
+     * empty table, in case the {@param data} is not a JSON string or doesn't have the required
+     * data.
      */
     /* package-private */
-    static Map<String, BigDecimal> convertData(final String data) {
+    static RateTable convertData(final String data) {
 
+        final PipelineMetrics metrics = PipelineMetrics.getInstance();
+        final long start = metrics.start();
         final JSONObject jsonData = parseJSONData(data);
-        final Map<String, BigDecimal> ratesMap = new HashMap<>();
+        final RateTable ratesTable = new RateTable();
         if (jsonData != null && !jsonData.isNull(RATES_NODE)) {
             try {
                 final JSONObject rates = jsonData.getJSONObject(RATES_NODE);
@@ -47,14 +45,55 @@ import java.util.Map;
                     while (keys.hasNext()) {
                         final String currency = keys.next();
                         final BigDecimal rate = new BigDecimal(rates.getString(currency));
-                        ratesMap.put(currency, rate);
+                        ratesTable.put(currency, rate);
                     }
                 }
-            } catch (JSONException | NumberFormatException e) {
+            } catch (JSONException | IllegalArgumentException | ArithmeticException e) {
                 Log.e(TAG, "An error occurred, while trying to convert data.", e);
             }
         }
-        return ratesMap;
+        metrics.record(PipelineMetrics.Stage.BODY_PARSE, start);
+        return ratesTable.seal();
+    }
+
+    /**
+     * Parses the raw data stream with a {@see RatesStreamParser}, and converts it to a
+     * {@see RateTable} without building an intermediate string or {@see JSONObject}.
+     *
+     * @param data {@see InputStream} - The raw data stream, it suppose to be JSON object.
+     * @return {@see RateTable} - Returns sealed table of the currency rates. It will return an
+     * empty table, in case the {@param data} is not a JSON object, is truncated, or doesn't have
+     * the required data.
+     * @see RatesStreamParser#parse(InputStream)
+     */
+    /* package-private */
+    static RateTable convertData(final InputStream data) {
+        return convertData(data, new RatesStreamParser());
+    }
+
+    /**
+     * Parses the raw data stream with a reusable {@see RatesStreamParser}, and converts it to a
+     * {@see RateTable}. The parse, including the read of the streamed data, is timed as the
+     * {@link PipelineMetrics.Stage#BODY_PARSE} stage, in case the sampling is on.
+     *
+     * @param data   {@see InputStream} - The raw data stream, it suppose to be JSON object.
+     * @param parser {@see RatesStreamParser} - The parser, which is not used by another thread
+     *               at the same time.
+     * @return {@see RateTable} - Returns sealed table of the currency rates. It will return an
+     * empty table, in case the {@param data} is not a JSON object, is truncated, or doesn't have
+     * the required data.
+     */
+    /* package-private */
+    static RateTable convertData(final InputStream data, final RatesStreamParser parser) {
+
+        final PipelineMetrics metrics = PipelineMetrics.getInstance();
+        final long start = metrics.start();
+        final RateTable ratesTable = parser.parse(data);
+        metrics.record(PipelineMetrics.Stage.BODY_PARSE, start);
+        if (parser.getLastError() != null)
+            Log.e(TAG, "An error occurred, while trying to parse the rates payload.",
+                    parser.getLastError());
+        return ratesTable;
     }
 
     /**
@@ -77,28 +116,35 @@ import java.util.Map;
 
     /**
      * This method formats a parsed {@see BigDecimal} value to a string according to the current
-     * device locale.
+     * device locale, with {@link CurrencyFormatters#DEFAULT_FRACTION_DIGITS} decimal digits.
      *
      * @param number {@see BigDecimal} - The decimal number that should be formatted.
      * @return {@see String} - The formatted decimal number as string.
      */
     /* package-private */
     static String formatBigDecimalAsString(final BigDecimal number) {
+        return formatBigDecimalAsString(number, null);
+    }
+
+    /**
+     * This method formats a parsed {@see BigDecimal} amount of a currency to a string according to
+     * the current device locale, with the minor units of the currency. The configured formatter
+     * is cached by {@see CurrencyFormatters}, so no formatter is created per call.
+     *
+     * @param number       {@see BigDecimal} - The decimal number that should be formatted.
+     * @param currencyCode {@see String} - The 3 letter currency code, or NULL for the default
+     *                     fraction digits.
+     * @return {@see String} - The formatted decimal number as string.
+     */
+    /* package-private */
+    static String formatBigDecimalAsString(final BigDecimal number, final String currencyCode) {
 
         if (number == null) return null;
 
-        final NumberFormat nf = NumberFormat.getNumberInstance(Locale.getDefault());
-        if (nf instanceof DecimalFormat) {
-            final DecimalFormat formatter = (DecimalFormat) nf;
-            formatter.setDecimalSeparatorAlwaysShown(true);
-            formatter.setMinimumFractionDigits(2);
-            formatter.setMaximumFractionDigits(2);
-            formatter.setRoundingMode(RoundingMode.HALF_UP);
-            try {
-                return formatter.format(number);
-            } catch (NumberFormatException nfe) {
-                Log.w(TAG, "The number input is wrong type.", nfe);
-            }
+        try {
+            return CurrencyFormatters.getInstance().get(currencyCode).format(number);
+        } catch (NumberFormatException nfe) {
+            Log.w(TAG, "The number input is wrong type.", nfe);
         }
         return null;
     }
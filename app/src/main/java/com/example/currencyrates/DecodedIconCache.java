@@ -0,0 +1,248 @@
+package com.example.currencyrates;
+
+import android.content.ComponentCallbacks2;
+
+import androidx.collection.LruCache;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Size-bounded in-memory cache of the decoded icons by currency code, the least recently used of
+ * which are evicted by a {@see LruCache}, once the sum of their sizes, as measured by the
+ * {@see Sizer}, exceeds the maximum size. The icons are decoded from their files by the
+ * {@see Decoder}, so the cache does not depend on the type of the decoded icons, e.g. a
+ * {@see android.graphics.Bitmap}. The {@see LruCache} of the androidx collections is used, as the
+ * one of the platform can be trimmed to a given size only from API 17.
+ * <p>
+ * A missing icon is decoded asynchronously on the decoder {@see Executor}, at most once at a time
+ * per currency, and the {@see Listener} is called on the main thread, once it is cached. An icon
+ * file, which cannot be decoded, is remembered as missing until
+ * {@link DecodedIconCache#invalidate(String)} is called, e.g. after its download. An icon
+ * invalidated while it is decoding is stale: its result is dropped and the listener is called,
+ * so the rows ask for it again.
+ * <p>
+ * The cache is used on the main thread, only the decoding runs on the decoder.
+ *
+ * @param <V> The type of the decoded icons.
+ * @author Nikola Georgiev
+ * @version 1.0
+ * @since 1.1.0
+ */
+/* package-private */ final class DecodedIconCache<V> {
+
+    private final LruCache<String, V> icons;
+    private final Set<String> decoding = new HashSet<>();
+    private final Set<String> missing = new HashSet<>();
+    private final Set<String> stale = new HashSet<>();
+    private final Decoder<V> decoder;
+    private final Executor decoderExecutor;
+    private final Executor mainThread;
+    private final Listener listener;
+
+    /**
+     * The main constructor of this class.
+     *
+     * @param maxSize         {@see int} - The maximum sum of the sizes of the cached icons.
+     * @param sizer           {@see Sizer} - Measures a decoded icon.
+     * @param decoder         {@see Decoder} - Decodes an icon file.
+     * @param decoderExecutor {@see Executor} - The executor of the decoding.
+     * @param mainThread      {@see Executor} - The executor of the main thread.
+     * @param listener        {@see Listener} - The listener of the decoded icons.
+     */
+    /* package-private */ DecodedIconCache(final int maxSize, final Sizer<V> sizer,
+                                           final Decoder<V> decoder,
+                                           final Executor decoderExecutor,
+                                           final Executor mainThread, final Listener listener) {
+        if (maxSize <= 0)
+            throw new IllegalArgumentException("The maximum size must be positive.");
+        this.icons = new LruCache<String, V>(maxSize) {
+            @Override
+            protected int sizeOf(final String currencyCode, final V icon) {
+                return sizer.sizeOf(icon);
+            }
+        };
+        this.decoder = decoder;
+        this.decoderExecutor = decoderExecutor;
+        this.mainThread = mainThread;
+        this.listener = listener;
+    }
+
+    /**
+     * Gets the cached icon of a currency, or starts decoding it, in case it is not cached.
+     *
+     * @param currencyCode {@see String} - The 3 letter currency code.
+     * @param path         {@see String} - The path of the icon file, or NULL in case it is not
+     *                     known.
+     * @return {@see V} - The cached icon, or NULL in case it is not decoded yet.
+     */
+    /* package-private */ V get(final String currencyCode, final String path) {
+
+        if (currencyCode == null)
+            return null;
+        final V icon = this.icons.get(currencyCode);
+        if (icon == null && path != null)
+            decode(currencyCode, path);
+        return icon;
+    }
+
+    /**
+     * Drops the icon of a currency, and forgets that its file was missing, e.g. once the icon
+     * has been downloaded.
+     *
+     * @param currencyCode {@see String} - The 3 letter currency code.
+     */
+    /* package-private */ void invalidate(final String currencyCode) {
+        if (currencyCode == null)
+            return;
+        this.missing.remove(currencyCode);
+        this.icons.remove(currencyCode);
+        if (this.decoding.contains(currencyCode))
+            this.stale.add(currencyCode);
+    }
+
+    /**
+     * Releases memory according to the level of {@see ComponentCallbacks2}: a half of the cache
+     * from {@link ComponentCallbacks2#TRIM_MEMORY_RUNNING_LOW} up to
+     * {@link ComponentCallbacks2#TRIM_MEMORY_BACKGROUND}, i.e. while the app runs low on memory,
+     * is hidden or has just entered the background list of the system, and the whole cache from
+     * {@link ComponentCallbacks2#TRIM_MEMORY_MODERATE}, once the app is deeper in that list.
+     *
+     * @param level {@see int} - The memory trim level.
+     */
+    /* package-private */ void onTrimMemory(final int level) {
+
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_MODERATE) {
+            this.icons.evictAll();
+        } else if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW) {
+            this.icons.trimToSize(this.icons.maxSize() / 2);
+        }
+    }
+
+    /* package-private */ int size() {
+        return this.icons.size();
+    }
+
+    /* package-private */ int maxSize() {
+        return this.icons.maxSize();
+    }
+
+    /* package-private */ boolean isMissing(final String currencyCode) {
+        return this.missing.contains(currencyCode);
+    }
+
+    /* package-private */ boolean isStale(final String currencyCode) {
+        return this.stale.contains(currencyCode);
+    }
+
+    /**
+     * Decodes the icon file of a currency on the decoder, unless it is already decoding or known
+     * to be missing.
+     *
+     * @param currencyCode {@see String} - The 3 letter currency code.
+     * @param path         {@see String} - The path of the icon file.
+     */
+    private void decode(final String currencyCode, final String path) {
+
+        if (this.missing.contains(currencyCode) || !this.decoding.add(currencyCode))
+            return;
+        try {
+            this.decoderExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    V icon = null;
+                    try {
+                        icon = DecodedIconCache.this.decoder.decode(path);
+                    } finally {
+                        //Posted even if the decoder throws, so the icon does not stay decoding
+                        final V decoded = icon;
+                        DecodedIconCache.this.mainThread.execute(new Runnable() {
+                            @Override
+                            public void run() {
+                                onDecoded(currencyCode, decoded);
+                            }
+                        });
+                    }
+                }
+            });
+        } catch (RejectedExecutionException exception) {
+            //Decoded again by the next get
+            this.decoding.remove(currencyCode);
+        }
+    }
+
+    private void onDecoded(final String currencyCode, final V icon) {
+
+        this.decoding.remove(currencyCode);
+        if (this.stale.remove(currencyCode)) {
+            /* The file has changed while decoding, let the rows ask for it again */
+            this.listener.onIconDecoded(currencyCode);
+            return;
+        }
+        if (icon == null) {
+            this.missing.add(currencyCode);
+            return;
+        }
+        this.icons.put(currencyCode, icon);
+        this.listener.onIconDecoded(currencyCode);
+    }
+
+    /**
+     * Decodes an icon file on the decoder executor.
+     *
+     * @param <V> The type of the decoded icons.
+     * @author Nikola Georgiev
+     * @version 1.0
+     * @since 1.1.0
+     */
+    /* package-private */ interface Decoder<V> {
+
+        /**
+         * Decodes an icon file.
+         *
+         * @param path {@see String} - The path of the icon file.
+         * @return {@see V} - The decoded icon, or NULL in case the file cannot be decoded. An
+         * icon, the decoder throws for, is treated as missing too.
+         */
+        V decode(String path);
+    }
+
+    /**
+     * Measures the decoded icons against the maximum size of the cache.
+     *
+     * @param <V> The type of the decoded icons.
+     * @author Nikola Georgiev
+     * @version 1.0
+     * @since 1.1.0
+     */
+    /* package-private */ interface Sizer<V> {
+
+        /**
+         * Measures a decoded icon. The size of an icon must not change while it is cached.
+         *
+         * @param icon {@see V} - The decoded icon.
+         * @return {@see int} - The size of the icon.
+         */
+        int sizeOf(V icon);
+    }
+
+    /**
+     * The listener of the decoded icons.
+     *
+     * @author Nikola Georgiev
+     * @version 1.0
+     * @since 1.1.0
+     */
+    /* package-private */ interface Listener {
+
+        /**
+         * Called on the main thread, once the icon of a currency is cached, or a stale one has
+         * been dropped.
+         *
+         * @param currencyCode {@see String} - The 3 letter currency code.
+         */
+        void onIconDecoded(String currencyCode);
+    }
+}
@@ -0,0 +1,226 @@
+package com.example.currencyrates;
+
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.text.NumberFormat;
+import java.util.Locale;
+
+/**
+ * A reusable {@see CharSequence}, which writes a fixed-point amount with the grouping and the
+ * decimal separators of a locale into its own char buffer, instead of creating a new
+ * {@see String} for every format. A list row keeps one writer and rewrites it on every bind, so
+ * the rate text is updated on every tick without allocating.
+ * <p>
+ * The amount is given as an unscaled long and its scale, and is rounded half up to the requested
+ * fraction digits, the same way {@see CurrencyFormatters} rounds, so both show identical text.
+ * The separators, the digits and the grouping size come from {@see Symbols}, which
+ * {@link CurrencyFormatters#getSymbols()} caches for the current locale. The content is valid
+ * until the next write, so the writer should be copied, e.g. by an {@see android.text.Editable},
+ * and not kept.
+ *
+ * @author Nikola Georgiev
+ * @version 1.0
+ * @since 1.1.0
+ */
+/* package-private */ final class DigitWriter implements CharSequence {
+
+    /* package-private */ static final int MAX_FRACTION_DIGITS = 18;
+    private static final int CAPACITY = 48;
+
+    private static final long[] POWERS_OF_TEN = new long[MAX_FRACTION_DIGITS + 1];
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    private final char[] buffer = new char[CAPACITY];
+    private int offset = CAPACITY;
+
+    /**
+     * Writes an amount with the symbols of the current locale.
+     *
+     * @param unscaled       {@see long} - The unscaled amount.
+     * @param scale          {@see int} - The decimal digits of the unscaled amount.
+     * @param fractionDigits {@see int} - The decimal digits to show.
+     * @return {@see boolean} - True in case the amount was written, false in case it overflows a
+     * long after rescaling, so the client should fall back to the {@see CurrencyFormatters}.
+     */
+    /* package-private */ boolean write(final long unscaled, final int scale,
+                                        final int fractionDigits) {
+        return write(unscaled, scale, fractionDigits, CurrencyFormatters.getInstance().getSymbols());
+    }
+
+    /**
+     * Writes an amount with specific symbols. The previous content is replaced, also in case the
+     * amount cannot be written, then the writer is empty.
+     *
+     * @param unscaled       {@see long} - The unscaled amount.
+     * @param scale          {@see int} - The decimal digits of the unscaled amount, from 0 to
+     *                       {@link DigitWriter#MAX_FRACTION_DIGITS}.
+     * @param fractionDigits {@see int} - The decimal digits to show, from 0 to
+     *                       {@link DigitWriter#MAX_FRACTION_DIGITS}.
+     * @param symbols        {@see Symbols} - The digits and the separators of the locale.
+     * @return {@see boolean} - True in case the amount was written, false in case it overflows a
+     * long after rescaling, or the locale groups its digits in groups of different sizes.
+     */
+    /* package-private */ boolean write(final long unscaled, final int scale,
+                                        final int fractionDigits, final Symbols symbols) {
+
+        this.offset = CAPACITY;
+        if (!symbols.uniformGrouping || unscaled == Long.MIN_VALUE || scale < 0 || scale > MAX_FRACTION_DIGITS
+                || fractionDigits < 0 || fractionDigits > MAX_FRACTION_DIGITS)
+            return false;
+
+        boolean negative = unscaled < 0;
+        long value = negative ? -unscaled : unscaled;
+        if (scale > fractionDigits) {
+            final long divisor = POWERS_OF_TEN[scale - fractionDigits];
+            final long remainder = value % divisor;
+            value /= divisor;
+            if (remainder >= divisor - remainder)
+                value++;
+        } else if (scale < fractionDigits) {
+            final long factor = POWERS_OF_TEN[fractionDigits - scale];
+            if (value > Long.MAX_VALUE / factor)
+                return false;
+            value *= factor;
+        }
+        if (value == 0)
+            negative = false;
+
+        int position = CAPACITY;
+        for (int i = 0; i < fractionDigits; i++) {
+            this.buffer[--position] = (char) (symbols.zeroDigit + (int) (value % 10));
+            value /= 10;
+        }
+        if (fractionDigits > 0)
+            this.buffer[--position] = symbols.decimalSeparator;
+        int grouped = 0;
+        do {
+            if (symbols.groupingSize > 0 && grouped == symbols.groupingSize) {
+                this.buffer[--position] = symbols.groupingSeparator;
+                grouped = 0;
+            }
+            this.buffer[--position] = (char) (symbols.zeroDigit + (int) (value % 10));
+            value /= 10;
+            grouped++;
+        } while (value > 0);
+        if (negative)
+            this.buffer[--position] = symbols.minusSign;
+        this.offset = position;
+        return true;
+    }
+
+    @Override
+    public int length() {
+        return CAPACITY - this.offset;
+    }
+
+    @Override
+    public char charAt(final int index) {
+        if (index < 0 || index >= length())
+            throw new IndexOutOfBoundsException("Index " + index + ", length " + length());
+        return this.buffer[this.offset + index];
+    }
+
+    @Override
+    public CharSequence subSequence(final int start, final int end) {
+        if (start < 0 || end > length() || start > end)
+            throw new IndexOutOfBoundsException("Start " + start + ", end " + end
+                    + ", length " + length());
+        return new String(this.buffer, this.offset + start, end - start);
+    }
+
+    @Override
+    public String toString() {
+        return new String(this.buffer, this.offset, length());
+    }
+
+    /**
+     * The digits, the separators and the grouping size of a locale, as used by its number
+     * {@see DecimalFormat}. Only the locales with a single grouping size are supported, as the
+     * ones with a secondary grouping size, like hi_IN, would be written differently than their
+     * format shows them.
+     *
+     * @author Nikola Georgiev
+     * @version 1.0
+     * @since 1.1.0
+     */
+    /* package-private */ static final class Symbols {
+
+        private final char zeroDigit;
+        private final char groupingSeparator;
+        private final char decimalSeparator;
+        private final char minusSign;
+        private final int groupingSize;
+        private final boolean uniformGrouping;
+
+        private Symbols(final DecimalFormatSymbols symbols, final int groupingSize,
+                        final boolean uniformGrouping) {
+            this.zeroDigit = symbols.getZeroDigit();
+            this.groupingSeparator = symbols.getGroupingSeparator();
+            this.decimalSeparator = symbols.getDecimalSeparator();
+            this.minusSign = symbols.getMinusSign();
+            this.groupingSize = groupingSize;
+            this.uniformGrouping = uniformGrouping;
+        }
+
+        /**
+         * Reads the symbols of the number format of a locale.
+         *
+         * @param locale {@see Locale} - The locale.
+         * @return {@see Symbols} - The symbols of the locale.
+         */
+        /* package-private */ static Symbols of(final Locale locale) {
+
+            final NumberFormat nf = NumberFormat.getNumberInstance(locale);
+            if (nf instanceof DecimalFormat) {
+                final DecimalFormat format = (DecimalFormat) nf;
+                final boolean grouping = format.isGroupingUsed();
+                return new Symbols(format.getDecimalFormatSymbols(),
+                        grouping ? format.getGroupingSize() : 0,
+                        !grouping || isUniformGrouping(format.toPattern()));
+            }
+            return new Symbols(DecimalFormatSymbols.getInstance(locale), 3, true);
+        }
+
+        /* package-private */ boolean isUniformGrouping() {
+            return uniformGrouping;
+        }
+
+        /**
+         * Checks whether the integer digits of a non-localized decimal format pattern are grouped
+         * in groups of a single size, i.e. the pattern has no secondary grouping size, like the
+         * "#,##,##0.###" pattern of hi_IN has.
+         *
+         * @param pattern {@see String} - The non-localized pattern of the format.
+         * @return {@see boolean} - True - in case all the groups have the same size.
+         */
+        /* package-private */ static boolean isUniformGrouping(final String pattern) {
+
+            int end = pattern.length();
+            final int negative = pattern.indexOf(';');
+            if (negative >= 0)
+                end = negative;
+            final int decimal = pattern.indexOf('.');
+            if (decimal >= 0 && decimal < end)
+                end = decimal;
+            final int last = pattern.lastIndexOf(',', end - 1);
+            if (last < 0)
+                return true;
+            final int previous = pattern.lastIndexOf(',', last - 1);
+            if (previous < 0)
+                return true;
+            int primary = 0;
+            for (int i = last + 1; i < end; i++) {
+                final char c = pattern.charAt(i);
+                if (c == '#' || (c >= '0' && c <= '9'))
+                    primary++;
+            }
+            return last - previous - 1 == primary;
+        }
+    }
+}
@@ -100,8 +100,27 @@ import java.io.FileOutputStream;
         if (context == null || fileName == null)
             return null;
 
+        final File cacheStorageDir = getStorageDir(context, IconIndex.DIR_NAME);
+        return (cacheStorageDir != null) ? new File(cacheStorageDir, fileName + IconIndex.EXTENSION) : null;
+    }
+
+    /**
+     * Gets a directory under the storage root of the app, i.e. its files dir, creating it in case
+     * it does not exist.
+     *
+     * @param context {@see Context} - The base application context.
+     * @param dirName {@see String} - The name of the directory.
+     * @return {@see File} - The directory. NULL - in case either some of the context, and dirName
+     * have Null Pointer, or the directory cannot be created.
+     */
+    /* package-private */
+    static File getStorageDir(final Context context, final String dirName) {
+
+        if (context == null || dirName == null)
+            return null;
+
         final String cacheRoot = context.getFilesDir().getAbsolutePath();
-        final File cacheStorageDir = new File(cacheRoot + "/country_images");
+        final File cacheStorageDir = new File(cacheRoot + "/" + dirName);
         if (!cacheStorageDir.exists() || !cacheStorageDir.isDirectory()) {
             try {
                 if (!cacheStorageDir.mkdirs()) {
@@ -112,7 +131,7 @@ import java.io.FileOutputStream;
                 return null;
             }
         }
-        return new File(cacheStorageDir, fileName + ".png");
+        return cacheStorageDir;
     }
 
     /**
@@ -0,0 +1,109 @@
+package com.example.currencyrates;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.net.Uri;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Size-bounded in-memory cache of the decoded country flag icons by currency code, so binding a
+ * list row again with the same flag does not decode the PNG file on the main thread. The least
+ * recently used bitmaps are evicted, once the cache exceeds
+ * 1/{@link FlagBitmapCache#MEMORY_FRACTION} of the heap.
+ * <p>
+ * The caching, the asynchronous decoding and the memory trimming are done by a
+ * {@see DecodedIconCache} of bitmaps, which are decoded by {@see BitmapFactory} and measured in
+ * kilobytes. A missing bitmap is decoded on the decoder {@see Executor}, and the
+ * {@see Listener} is called on the main thread, once it is cached, so the rows showing it can be
+ * bound again. An icon file, which does not exist yet, is remembered as missing until
+ * {@link FlagBitmapCache#invalidate(String)} is called, e.g. after its download.
+ * <p>
+ * The cache is used on the main thread, only the decoding runs on the decoder.
+ *
+ * @author Nikola Georgiev
+ * @version 1.0
+ * @since 1.1.0
+ */
+/* package-private */ final class FlagBitmapCache {
+
+    /* package-private */ static final int MEMORY_FRACTION = 16;
+
+    private final DecodedIconCache<Bitmap> bitmaps;
+
+    /**
+     * The main constructor of this class.
+     *
+     * @param decoder    {@see Executor} - The executor of the decoding.
+     * @param mainThread {@see Executor} - The executor of the main thread.
+     * @param listener   {@see Listener} - The listener of the decoded bitmaps.
+     */
+    /* package-private */ FlagBitmapCache(final Executor decoder, final Executor mainThread,
+                                          final Listener listener) {
+        final int maxKilobytes = (int) (Runtime.getRuntime().maxMemory() / 1024 / MEMORY_FRACTION);
+        this.bitmaps = new DecodedIconCache<>(maxKilobytes, new DecodedIconCache.Sizer<Bitmap>() {
+            @Override
+            public int sizeOf(Bitmap bitmap) {
+                return Math.max(1, bitmap.getByteCount() / 1024);
+            }
+        }, new DecodedIconCache.Decoder<Bitmap>() {
+            @Override
+            public Bitmap decode(String path) {
+                return BitmapFactory.decodeFile(path);
+            }
+        }, decoder, mainThread, new DecodedIconCache.Listener() {
+            @Override
+            public void onIconDecoded(String currencyCode) {
+                listener.onBitmapDecoded(currencyCode);
+            }
+        });
+    }
+
+    /**
+     * Gets the cached bitmap of a currency, or starts decoding it, in case it is not cached.
+     *
+     * @param currencyCode {@see String} - The 3 letter currency code.
+     * @param iconUri      {@see Uri} - The file Uri of the icon.
+     * @return {@see Bitmap} - The cached bitmap, or NULL in case it is not decoded yet.
+     */
+    /* package-private */ Bitmap get(final String currencyCode, final Uri iconUri) {
+        return this.bitmaps.get(currencyCode, (iconUri != null) ? iconUri.getPath() : null);
+    }
+
+    /**
+     * Drops the bitmap of a currency, and forgets that its file was missing, e.g. once the icon
+     * has been downloaded.
+     *
+     * @param currencyCode {@see String} - The 3 letter currency code.
+     */
+    /* package-private */ void invalidate(final String currencyCode) {
+        this.bitmaps.invalidate(currencyCode);
+    }
+
+    /**
+     * Releases memory according to the level of {@see android.content.ComponentCallbacks2}.
+     *
+     * @param level {@see int} - The memory trim level.
+     * @see DecodedIconCache#onTrimMemory(int)
+     */
+    /* package-private */ void onTrimMemory(final int level) {
+        this.bitmaps.onTrimMemory(level);
+    }
+
+    /**
+     * The listener of the decoded bitmaps.
+     *
+     * @author Nikola Georgiev
+     * @version 1.0
+     * @since 1.1.0
+     */
+    /* package-private */ interface Listener {
+
+        /**
+         * Called on the main thread, once the bitmap of a currency is cached.
+         *
+         * @param currencyCode {@see String} - The 3 letter currency code.
+         */
+        void onBitmapDecoded(String currencyCode);
+    }
+}
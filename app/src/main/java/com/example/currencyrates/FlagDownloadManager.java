@@ -0,0 +1,396 @@
+package com.example.currencyrates;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Downloads the country flag icons, at most once at a time per icon. A request for an icon, which
+ * is already queued, downloading or waiting for a retry, is merged with it, so the rates ticks,
+ * which build the models again and again before the first download completes, do not start
+ * duplicate downloads.
+ * <p>
+ * The downloads are queued per host and at most {@link FlagDownloadManager#MAX_DOWNLOADS_PER_HOST}
+ * of each host run at a time on the worker {@see Executor}. A failed download is retried after an
+ * exponential backoff, timed by a {@see ScheduledExecutorService}, up to
+ * {@link FlagDownloadManager#MAX_ATTEMPTS} attempts. Then the icon is not requested again for
+ * {@link FlagDownloadManager#FAILURE_COOLDOWN_MILLIS}. A completed download is reported to the
+ * {@see Listener} on the callback executor, e.g. the main thread, so the rows showing the icon
+ * can be updated, and so is a given up one, so the manager itself does not log.
+ * <p>
+ * Threading: {@link FlagDownloadManager#request(String, String)},
+ * {@link FlagDownloadManager#close()} and the getters are synchronized, and may be called on any
+ * thread, while the {@see Fetcher} runs on the worker and the retries on the timer thread. The
+ * {@see Listener} is called only on the callback executor. The app passes the main thread
+ * executor there and calls {@link FlagDownloadManager#request(String, String)} and
+ * {@link FlagDownloadManager#close()} on the main thread, as its listener updates the
+ * {@see IconIndex}, a lazy singleton, which is not synchronized and is confined to the main
+ * thread, where the models asking for the icons are built.
+ *
+ * @author Nikola Georgiev
+ * @version 1.0
+ * @since 1.1.0
+ */
+/* package-private */ final class FlagDownloadManager {
+
+    /* package-private */ static final int MAX_DOWNLOADS_PER_HOST = 2;
+    /* package-private */ static final int MAX_ATTEMPTS = 4;
+    /* package-private */ static final long INITIAL_BACKOFF_MILLIS = 1000;
+    /* package-private */ static final long FAILURE_COOLDOWN_MILLIS = 60_000;
+
+    private final Fetcher fetcher;
+    private final Executor worker;
+    private final Executor callbackExecutor;
+    private final ScheduledExecutorService timer;
+    private final Listener listener;
+    private final long initialBackoffMillis;
+
+    private final Map<String, Download> downloads = new HashMap<>();
+    private final Map<String, ArrayDeque<Download>> waitingByHost = new HashMap<>();
+    private final Map<String, Integer> runningByHost = new HashMap<>();
+    private final Map<String, Long> failedUntil = new HashMap<>();
+    private long mergedCount;
+    private boolean closed;
+
+    /**
+     * The main constructor of this class.
+     *
+     * @param fetcher          {@see Fetcher} - Downloads and stores one icon.
+     * @param worker           {@see Executor} - The executor of the downloads.
+     * @param callbackExecutor {@see Executor} - The executor, which calls the listener, e.g.
+     *                         the main thread, in case the listener touches main thread state.
+     * @param timer            {@see ScheduledExecutorService} - The timer of the retries.
+     * @param listener         {@see Listener} - The listener of the completed downloads.
+     */
+    /* package-private */ FlagDownloadManager(final Fetcher fetcher, final Executor worker,
+                                              final Executor callbackExecutor,
+                                              final ScheduledExecutorService timer,
+                                              final Listener listener) {
+        this(fetcher, worker, callbackExecutor, timer, listener, INITIAL_BACKOFF_MILLIS);
+    }
+
+    /* package-private */ FlagDownloadManager(final Fetcher fetcher, final Executor worker,
+                                              final Executor callbackExecutor,
+                                              final ScheduledExecutorService timer,
+                                              final Listener listener,
+                                              final long initialBackoffMillis) {
+        this.fetcher = fetcher;
+        this.worker = worker;
+        this.callbackExecutor = callbackExecutor;
+        this.timer = timer;
+        this.listener = listener;
+        this.initialBackoffMillis = initialBackoffMillis;
+    }
+
+    /**
+     * Requests the download of an icon, unless it is already requested or has recently failed.
+     *
+     * @param key {@see String} - The key of the icon, e.g. the currency code.
+     * @param url {@see String} - The URL of the icon.
+     * @return {@see boolean} - True in case a new download is queued, false in case the request
+     * is merged with a pending one, or is ignored.
+     */
+    /* package-private */ synchronized boolean request(final String key, final String url) {
+
+        if (this.closed || key == null || url == null)
+            return false;
+        if (this.downloads.containsKey(key)) {
+            this.mergedCount++;
+            return false;
+        }
+        final Long until = this.failedUntil.get(key);
+        if (until != null) {
+            if (System.nanoTime() - until < 0)
+                return false;
+            this.failedUntil.remove(key);
+        }
+        final Download download = new Download(key, url, hostOf(url));
+        this.downloads.put(key, download);
+        enqueue(download);
+        return true;
+    }
+
+    /**
+     * Stops all the downloads, which are not running yet, and the notifications of the listener.
+     */
+    /* package-private */ synchronized void close() {
+        this.closed = true;
+        this.downloads.clear();
+        this.waitingByHost.clear();
+    }
+
+    /**
+     * Gets the number of icons, which are queued, downloading, waiting for a retry, or stored and
+     * waiting for the listener to be called.
+     *
+     * @return {@see int} - The number of pending downloads.
+     */
+    /* package-private */ synchronized int getPendingCount() {
+        return this.downloads.size();
+    }
+
+    /**
+     * Gets the number of requests, which were merged with a pending download.
+     *
+     * @return {@see long} - The number of merged requests.
+     */
+    /* package-private */ synchronized long getMergedCount() {
+        return this.mergedCount;
+    }
+
+    /* package-private */ synchronized int getRunningCount(final String host) {
+        final Integer running = this.runningByHost.get(host);
+        return (running != null) ? running : 0;
+    }
+
+    /**
+     * Queues a download to its host and starts the downloads the host has room for. Must be
+     * called holding the lock.
+     *
+     * @param download {@see Download} - The download to queue.
+     */
+    private void enqueue(final Download download) {
+
+        ArrayDeque<Download> waiting = this.waitingByHost.get(download.host);
+        if (waiting == null) {
+            waiting = new ArrayDeque<>();
+            this.waitingByHost.put(download.host, waiting);
+        }
+        waiting.add(download);
+        dispatch(download.host);
+    }
+
+    /**
+     * Starts the waiting downloads of a host, while less than the maximum are running. Must be
+     * called holding the lock.
+     *
+     * @param host {@see String} - The host.
+     */
+    private void dispatch(final String host) {
+
+        final ArrayDeque<Download> waiting = this.waitingByHost.get(host);
+        while (waiting != null && !waiting.isEmpty() && getRunningCount(host) < MAX_DOWNLOADS_PER_HOST) {
+            final Download download = waiting.poll();
+            download.attempts++;
+            this.runningByHost.put(host, getRunningCount(host) + 1);
+            try {
+                this.worker.execute(download);
+            } catch (RejectedExecutionException exception) {
+                //Counted as a failed attempt
+                this.runningByHost.put(host, getRunningCount(host) - 1);
+                retryOrFail(download);
+                return;
+            }
+        }
+        if (waiting != null && waiting.isEmpty() && getRunningCount(host) == 0)
+            this.waitingByHost.remove(host);
+    }
+
+    /**
+     * Completes a download, which has run on the worker.
+     *
+     * @param download {@see Download} - The download.
+     * @param stored   {@see boolean} - True in case the icon was downloaded and stored.
+     */
+    private synchronized void onFinished(final Download download, final boolean stored) {
+
+        this.runningByHost.put(download.host, getRunningCount(download.host) - 1);
+        if (this.closed)
+            return;
+        if (stored) {
+            notifyReady(download);
+        } else {
+            retryOrFail(download);
+        }
+        dispatch(download.host);
+    }
+
+    /**
+     * Schedules the next attempt of a failed download after a backoff, or gives it up after the
+     * last attempt. Must be called holding the lock.
+     *
+     * @param download {@see Download} - The failed download.
+     */
+    private void retryOrFail(final Download download) {
+
+        if (download.attempts >= MAX_ATTEMPTS) {
+            giveUp(download);
+            this.failedUntil.put(download.key,
+                    System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(FAILURE_COOLDOWN_MILLIS));
+            return;
+        }
+        final long backoff = this.initialBackoffMillis << (download.attempts - 1);
+        try {
+            this.timer.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    synchronized (FlagDownloadManager.this) {
+                        if (!FlagDownloadManager.this.closed
+                                && FlagDownloadManager.this.downloads.get(download.key) == download)
+                            enqueue(download);
+                    }
+                }
+            }, backoff, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException exception) {
+            //The timer is shut down
+            giveUp(download);
+        }
+    }
+
+    /**
+     * Drops a failed download and reports it to the listener on the callback executor. Must be
+     * called holding the lock.
+     *
+     * @param download {@see Download} - The failed download.
+     */
+    private void giveUp(final Download download) {
+
+        this.downloads.remove(download.key);
+        try {
+            this.callbackExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    synchronized (FlagDownloadManager.this) {
+                        if (FlagDownloadManager.this.closed)
+                            return;
+                    }
+                    FlagDownloadManager.this.listener.onFlagFailed(download.key, download.url,
+                            download.attempts);
+                }
+            });
+        } catch (RejectedExecutionException exception) {
+            //Nobody left to report to
+        }
+    }
+
+    /**
+     * Reports a stored icon to the listener on the callback executor. The download stays pending
+     * until the listener has been called, so the requests made meanwhile, before the listener has
+     * recorded the icon as present, are merged with it instead of downloading it again. Must be
+     * called holding the lock.
+     *
+     * @param download {@see Download} - The completed download.
+     */
+    private void notifyReady(final Download download) {
+        try {
+            this.callbackExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    synchronized (FlagDownloadManager.this) {
+                        if (FlagDownloadManager.this.closed)
+                            return;
+                    }
+                    FlagDownloadManager.this.listener.onFlagReady(download.key);
+                    synchronized (FlagDownloadManager.this) {
+                        if (FlagDownloadManager.this.downloads.get(download.key) == download)
+                            FlagDownloadManager.this.downloads.remove(download.key);
+                    }
+                }
+            });
+        } catch (RejectedExecutionException exception) {
+            //Nobody left to report to, let a later request download it again
+            this.downloads.remove(download.key);
+        }
+    }
+
+    /**
+     * Gets the host of a URL, the downloads of which share the concurrency limit.
+     *
+     * @param url {@see String} - The URL.
+     * @return {@see String} - The host, or an empty string in case it cannot be parsed.
+     */
+    /* package-private */ static String hostOf(final String url) {
+        try {
+            final String host = new URI(url).getHost();
+            return (host != null) ? host : "";
+        } catch (URISyntaxException exception) {
+            return "";
+        }
+    }
+
+    /**
+     * Downloads and stores one icon on the worker.
+     *
+     * @author Nikola Georgiev
+     * @version 1.0
+     * @since 1.1.0
+     */
+    /* package-private */ interface Fetcher {
+
+        /**
+         * Downloads an icon and stores it.
+         *
+         * @param key {@see String} - The key of the icon.
+         * @param url {@see String} - The URL of the icon.
+         * @return {@see boolean} - True in case the icon is stored, false in case it should be
+         * retried.
+         */
+        boolean fetch(String key, String url);
+    }
+
+    /**
+     * The listener of the completed downloads.
+     *
+     * @author Nikola Georgiev
+     * @version 1.0
+     * @since 1.1.0
+     */
+    /* package-private */ interface Listener {
+
+        /**
+         * Called on the callback executor, once an icon is stored.
+         *
+         * @param key {@see String} - The key of the icon.
+         */
+        void onFlagReady(String key);
+
+        /**
+         * Called on the callback executor, once the download of an icon is given up, after its
+         * last attempt, or as its retry cannot be scheduled.
+         *
+         * @param key      {@see String} - The key of the icon.
+         * @param url      {@see String} - The URL of the icon.
+         * @param attempts {@see int} - The number of the made attempts.
+         */
+        void onFlagFailed(String key, String url, int attempts);
+    }
+
+    /**
+     * One requested icon and its attempts.
+     *
+     * @author Nikola Georgiev
+     * @version 1.0
+     * @since 1.1.0
+     */
+    private final class Download implements Runnable {
+
+        private final String key;
+        private final String url;
+        private final String host;
+        private int attempts;
+
+        private Download(final String key, final String url, final String host) {
+            this.key = key;
+            this.url = url;
+            this.host = host;
+        }
+
+        @Override
+        public void run() {
+            boolean stored = false;
+            try {
+                stored = FlagDownloadManager.this.fetcher.fetch(this.key, this.url);
+            } catch (RuntimeException exception) {
+                //Counted as a failed attempt, the fetcher logs its own errors
+            } finally {
+                onFinished(this, stored);
+            }
+        }
+    }
+}
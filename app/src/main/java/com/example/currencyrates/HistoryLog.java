@@ -0,0 +1,673 @@
+package com.example.currencyrates;
+
+import android.content.Context;
+import android.util.Log;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * Append-only, segmented on-disk log of the rates history, for days of history that should not be
+ * kept on the heap. The log is a directory of segment files, each one holding the ticks of a
+ * limited time span, named by the time of its first tick. A segment is:
+ * <pre>
+ * int   magic            0x484C4F47 ("HLOG")
+ * byte  format version   {@link HistoryLog#FORMAT_VERSION}
+ * byte  flags            {@link HistoryLog#FLAG_COMPACTED}
+ * long  start            epoch milliseconds
+ * short code count
+ * 3 ASCII letters of each currency code, in the order of its slot
+ * records...
+ * </pre>
+ * The indexes of {@see RateTable} are fixed only for the process lifetime, so a segment refers
+ * to a currency by its slot in the code table of its header, which is mapped to the current
+ * index of that code when the segment is read. A snapshot with a currency, which is not in the
+ * table of the current segment, starts a new segment.
+ * <p>
+ * A record is the varint time, the kind, the varint count of the currencies in it, and for each
+ * currency the varint gap to the previous currency slot and the varint XOR of its fixed-point
+ * rate with the previous rate of that currency in the segment, so the rates that barely move take
+ * a couple of bytes. A delta record holds the changed currencies only and its time is relative to
+ * the previous record. Every {@link HistoryLog#KEYFRAME_INTERVAL} records, and at the start of a
+ * segment, a keyframe record holds all the currencies XOR-ed with zero and its time is relative
+ * to the segment start, so the decoding can start at any keyframe. The offset and the time of
+ * each keyframe are written to the time index file of the segment.
+ * <p>
+ * A range query looks up the keyframe before the range in the time index and maps the segment
+ * from there with a {@see MappedByteBuffer}, so it touches only the pages of the range. A
+ * truncated record at the end of a segment, e.g. after a crash, ends the segment.
+ * <p>
+ * The closed segments older than the compaction age are rewritten to keep one record per
+ * compaction interval, and the segments older than the retention age, or over the size limit,
+ * are deleted, oldest first. NOTE: The methods are synchronized, but appending does disk I/O, so
+ * it should not be called on the main thread.
+ *
+ * @author Nikola Georgiev
+ * @version 1.0
+ * @since 1.1.0
+ */
+/* package-private */ final class HistoryLog {
+
+    /* package-private */ static final String TAG = HistoryLog.class.getSimpleName();
+    /* package-private */ static final String DIR_NAME = "history";
+    /* package-private */ static final int MAGIC = 0x484C4F47;
+    /* package-private */ static final byte FORMAT_VERSION = 2;
+    /* package-private */ static final byte FLAG_COMPACTED = 1;
+    /* package-private */ static final int HEADER_SIZE = 16;
+    /* package-private */ static final int CODE_SIZE = 3;
+    /* package-private */ static final int KEYFRAME_INTERVAL = 64;
+
+    /* package-private */ static final long DEFAULT_SEGMENT_DURATION = 60 * 60 * 1000L;
+    /* package-private */ static final long DEFAULT_MAX_SEGMENT_BYTES = 1024 * 1024L;
+    /* package-private */ static final long DEFAULT_RETENTION = 7 * 24 * 60 * 60 * 1000L;
+    /* package-private */ static final long DEFAULT_MAX_TOTAL_BYTES = 32 * 1024 * 1024L;
+    /* package-private */ static final long DEFAULT_COMPACT_AFTER = 24 * 60 * 60 * 1000L;
+    /* package-private */ static final long DEFAULT_COMPACTION_INTERVAL = 60 * 1000L;
+
+    /* package-private */ static final byte DELTA = 0;
+    /* package-private */ static final byte KEYFRAME = 1;
+    private static final int INDEX_ENTRY_SIZE = 12;
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final String INDEX_SUFFIX = ".idx";
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private final File dir;
+    private final long segmentDuration;
+    private final long maxSegmentBytes;
+    private final long retention;
+    private final long maxTotalBytes;
+    private final long compactAfter;
+    private final long compactionInterval;
+    private final long[] appendState = new long[RateTable.MAX_CURRENCIES];
+    private SegmentWriter writer;
+
+    /**
+     * The main constructor of this class.
+     *
+     * @param dir                {@see File} - The directory of the segments.
+     * @param segmentDuration    {@see long} - The time span of a segment in milliseconds.
+     * @param maxSegmentBytes    {@see long} - The size after which a new segment is started.
+     * @param retention          {@see long} - The age after which a segment is deleted.
+     * @param maxTotalBytes      {@see long} - The maximum size of all the segments together.
+     * @param compactAfter       {@see long} - The age after which a segment is compacted.
+     * @param compactionInterval {@see long} - The time span of a record of a compacted segment.
+     */
+    /* package-private */ HistoryLog(final File dir, final long segmentDuration,
+                                    final long maxSegmentBytes, final long retention,
+                                    final long maxTotalBytes, final long compactAfter,
+                                    final long compactionInterval) {
+        this.dir = dir;
+        this.segmentDuration = segmentDuration;
+        this.maxSegmentBytes = maxSegmentBytes;
+        this.retention = retention;
+        this.maxTotalBytes = maxTotalBytes;
+        this.compactAfter = compactAfter;
+        this.compactionInterval = Math.max(compactionInterval, 1);
+    }
+
+    /**
+     * Creates a log with the default limits in the "history" directory under the storage root.
+     *
+     * @param context {@see Context} - The base application context.
+     * @return {@see HistoryLog} - The log, or NULL in case the directory cannot be created.
+     * @see FileUtils#getStorageDir(Context, String)
+     */
+    /* package-private */
+    static HistoryLog open(final Context context) {
+
+        final File dir = FileUtils.getStorageDir(context, DIR_NAME);
+        return (dir != null) ? new HistoryLog(dir, DEFAULT_SEGMENT_DURATION,
+                DEFAULT_MAX_SEGMENT_BYTES, DEFAULT_RETENTION, DEFAULT_MAX_TOTAL_BYTES,
+                DEFAULT_COMPACT_AFTER, DEFAULT_COMPACTION_INTERVAL) : null;
+    }
+
+    /**
+     * Appends the currencies of a snapshot, which have changed since the previous append, as a
+     * record at a specific time. A new segment is started, when the current one is full or its
+     * code table does not have a currency of the snapshot, and the retention and compaction
+     * limits are applied then.
+     *
+     * @param timestamp {@see long} - The time of the snapshot in epoch milliseconds.
+     * @param snapshot  {@see RateTable} - The accepted snapshot.
+     * @return {@see boolean} - True - in case the snapshot is appended, False - in case it cannot
+     * be written.
+     */
+    /* package-private */ synchronized boolean append(final long timestamp, final RateTable snapshot) {
+
+        if (snapshot == null)
+            return false;
+        int slots = 0;
+        for (int i = 0; i < this.appendState.length; i++) {
+            this.appendState[i] = snapshot.get(i);
+            if (this.appendState[i] != 0)
+                slots = i + 1;
+        }
+        try {
+            long start = timestamp;
+            if (this.writer != null && (this.writer.isFull(timestamp) || slots > this.writer.slots)) {
+                //A segment is named by its start, so the next one starts after the last record
+                start = Math.max(timestamp, this.writer.lastTimestamp + 1);
+                closeWriter();
+                maintain(start);
+            }
+            if (this.writer == null) {
+                this.writer = new SegmentWriter(segmentFile(start, ""),
+                        indexFile(start, ""), start, (byte) 0);
+            }
+            this.writer.append(timestamp, this.appendState);
+            return true;
+        } catch (IOException e) {
+            Log.e(TAG, "Cannot append to the history log in " + this.dir, e);
+            closeWriter();
+            return false;
+        }
+    }
+
+    /**
+     * Copies the ticks of a currency in a time range, oldest first. A tick is a change of the
+     * rate of the currency, the removals of the currency are skipped.
+     *
+     * @param index      {@see int} - The currency index.
+     * @param from       {@see long} - The start of the range, inclusive, in epoch milliseconds.
+     * @param to         {@see long} - The end of the range, exclusive, in epoch milliseconds.
+     * @param timestamps {@see long[]} - The array for the timestamps of the ticks.
+     * @param rates      {@see long[]} - The array for the fixed-point rates of the ticks.
+     * @return {@see int} - The number of copied ticks. In case the range has more ticks than the
+     * arrays can hold, the oldest ticks of the range are copied.
+     */
+    /* package-private */ synchronized int range(final int index, final long from, final long to,
+                                                 final long[] timestamps, final long[] rates) {
+
+        if (index < 0 || index >= RateTable.MAX_CURRENCIES || from >= to)
+            return 0;
+        final int limit = Math.min(timestamps.length, rates.length);
+        final long[] starts = listSegments();
+        final SegmentReader reader = new SegmentReader();
+        long current = 0;
+        int count = 0;
+        for (int s = 0; s < starts.length && count < limit; s++) {
+            final long end = (s + 1 < starts.length) ? starts[s + 1] : Long.MAX_VALUE;
+            if (end <= from || starts[s] >= to)
+                continue;
+            try {
+                if (!reader.open(segmentFile(starts[s], ""),
+                        keyframeOffset(indexFile(starts[s], ""), from))) {
+                    continue;
+                }
+                while (count < limit && reader.next() && reader.timestamp < to) {
+                    final long rate = reader.state[index];
+                    if (rate != current) {
+                        current = rate;
+                        if (rate != 0 && reader.timestamp >= from) {
+                            timestamps[count] = reader.timestamp;
+                            rates[count++] = rate;
+                        }
+                    }
+                }
+            } catch (IOException e) {
+                Log.e(TAG, "Cannot read the history segment " + starts[s], e);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Applies the retention and the compaction limits. The segments that ended before the
+     * retention age are deleted and the segments that ended before the compaction age are
+     * compacted, then the oldest segments are deleted while the log is still over its size limit.
+     * The segment that is being written is never deleted nor compacted.
+     *
+     * @param now {@see long} - The current time in epoch milliseconds.
+     */
+    /* package-private */ synchronized void maintain(final long now) {
+
+        final long active = (this.writer != null) ? this.writer.start : Long.MIN_VALUE;
+        long[] starts = listSegments();
+        for (int s = 0; s < starts.length; s++) {
+            if (starts[s] == active)
+                continue;
+            final long end = (s + 1 < starts.length) ? starts[s + 1] : now;
+            if (end <= now - this.retention) {
+                deleteSegment(starts[s]);
+            } else if (end <= now - this.compactAfter) {
+                compact(starts[s]);
+            }
+        }
+        //Measure the segments after the compaction, which has shrunk some of them
+        starts = listSegments();
+        long total = 0;
+        for (long start : starts) {
+            total += segmentBytes(start);
+        }
+        for (int s = 0; s < starts.length && total > this.maxTotalBytes; s++) {
+            if (starts[s] == active)
+                continue;
+            total -= segmentBytes(starts[s]);
+            deleteSegment(starts[s]);
+        }
+    }
+
+    /**
+     * Closes the segment that is being written. The next append starts a new segment.
+     */
+    /* package-private */ synchronized void close() {
+        closeWriter();
+    }
+
+    /* package-private */ File getDir() {
+        return dir;
+    }
+
+    /* package-private */ synchronized int getSegmentCount() {
+        return listSegments().length;
+    }
+
+    /* package-private */ synchronized long getTotalBytes() {
+        long total = 0;
+        for (long start : listSegments()) {
+            total += segmentBytes(start);
+        }
+        return total;
+    }
+
+    /**
+     * Checks whether a segment is compacted.
+     *
+     * @param start {@see long} - The start of the segment.
+     * @return {@see boolean} - True - in case the segment exists and is compacted.
+     */
+    /* package-private */ synchronized boolean isCompacted(final long start) {
+        try {
+            return (readFlags(segmentFile(start, "")) & FLAG_COMPACTED) != 0;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Rewrites a segment to keep the last record of each compaction interval. The compacted
+     * segment is written to temporary files, which are then renamed over the segment.
+     */
+    private void compact(final long start) {
+
+        final File segment = segmentFile(start, "");
+        final File index = indexFile(start, "");
+        final File tempSegment = segmentFile(start, TEMP_SUFFIX);
+        final File tempIndex = indexFile(start, TEMP_SUFFIX);
+        try {
+            if ((readFlags(segment) & FLAG_COMPACTED) != 0)
+                return;
+            final SegmentReader reader = new SegmentReader();
+            if (!reader.open(segment, 0))
+                return;
+            final SegmentWriter compacted = new SegmentWriter(tempSegment, tempIndex, start,
+                    FLAG_COMPACTED);
+            try {
+                final long[] pending = new long[RateTable.MAX_CURRENCIES];
+                long pendingTimestamp = 0;
+                long pendingInterval = 0;
+                boolean hasPending = false;
+                while (reader.next()) {
+                    final long interval = reader.timestamp / this.compactionInterval;
+                    if (hasPending && interval != pendingInterval) {
+                        compacted.append(pendingTimestamp, pending);
+                    }
+                    System.arraycopy(reader.state, 0, pending, 0, pending.length);
+                    pendingTimestamp = reader.timestamp;
+                    pendingInterval = interval;
+                    hasPending = true;
+                }
+                if (hasPending) {
+                    compacted.append(pendingTimestamp, pending);
+                }
+            } finally {
+                compacted.close();
+            }
+            if (!tempIndex.renameTo(index) || !tempSegment.renameTo(segment)) {
+                throw new IOException("Cannot replace the segment " + segment);
+            }
+        } catch (IOException e) {
+            Log.e(TAG, "Cannot compact the history segment " + segment, e);
+            deleteQuietly(tempSegment);
+            deleteQuietly(tempIndex);
+        }
+    }
+
+    private void closeWriter() {
+        if (this.writer != null) {
+            this.writer.close();
+            this.writer = null;
+        }
+    }
+
+    private long segmentBytes(final long start) {
+        return segmentFile(start, "").length() + indexFile(start, "").length();
+    }
+
+    private void deleteSegment(final long start) {
+        deleteQuietly(segmentFile(start, ""));
+        deleteQuietly(indexFile(start, ""));
+    }
+
+    private static void deleteQuietly(final File file) {
+        if (file.exists() && !file.delete()) {
+            Log.w(TAG, "Cannot delete " + file);
+        }
+    }
+
+    private File segmentFile(final long start, final String suffix) {
+        return new File(this.dir, start + SEGMENT_SUFFIX + suffix);
+    }
+
+    private File indexFile(final long start, final String suffix) {
+        return new File(this.dir, start + INDEX_SUFFIX + suffix);
+    }
+
+    /**
+     * Lists the starts of the segments in the directory, in ascending order.
+     */
+    private long[] listSegments() {
+
+        final String[] names = this.dir.list();
+        if (names == null)
+            return new long[0];
+        long[] starts = new long[names.length];
+        int count = 0;
+        for (String name : names) {
+            if (name.endsWith(SEGMENT_SUFFIX)) {
+                try {
+                    starts[count] = Long.parseLong(
+                            name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+                    count++;
+                } catch (NumberFormatException e) {
+                    Log.w(TAG, "Ignoring an unknown file in the history log: " + name);
+                }
+            }
+        }
+        starts = Arrays.copyOf(starts, count);
+        Arrays.sort(starts);
+        return starts;
+    }
+
+    private static byte readFlags(final File segment) throws IOException {
+
+        final RandomAccessFile file = new RandomAccessFile(segment, "r");
+        try {
+            if (file.readInt() != MAGIC || file.readByte() != FORMAT_VERSION)
+                throw new IOException("Unknown history segment format: " + segment);
+            return file.readByte();
+        } finally {
+            file.close();
+        }
+    }
+
+    /**
+     * Finds the offset of the last keyframe at or before a time in the time index of a segment.
+     *
+     * @return {@see long} - The keyframe offset, or 0 for the first record in case there is no
+     * such keyframe or no time index.
+     */
+    private static long keyframeOffset(final File index, final long timestamp) throws IOException {
+
+        final long length = index.length();
+        if (length < INDEX_ENTRY_SIZE)
+            return 0;
+        final RandomAccessFile file = new RandomAccessFile(index, "r");
+        try {
+            final int entries = (int) (length / INDEX_ENTRY_SIZE);
+            final MappedByteBuffer buffer = file.getChannel().map(FileChannel.MapMode.READ_ONLY,
+                    0, (long) entries * INDEX_ENTRY_SIZE);
+            int low = 0;
+            int high = entries;
+            while (low < high) {
+                final int middle = (low + high) >>> 1;
+                if (buffer.getLong(middle * INDEX_ENTRY_SIZE) <= timestamp) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return (low == 0) ? 0 : buffer.getInt((low - 1) * INDEX_ENTRY_SIZE + 8);
+        } finally {
+            file.close();
+        }
+    }
+
+    /**
+     * Writes the records of one segment and its time index. The code table of the segment holds
+     * the currencies, which have an index, when the segment is started, and the slot of each
+     * currency is its current index.
+     *
+     * @author Nikola Georgiev
+     * @version 1.0
+     * @since 1.1.0
+     */
+    private final class SegmentWriter {
+
+        private final long start;
+        private final int slots;
+        private final int headerSize;
+        private final FileOutputStream out;
+        private final FileOutputStream indexOut;
+        private final long[] written = new long[RateTable.MAX_CURRENCIES];
+        private final byte[] buffer = new byte[RateTable.MAX_CURRENCIES * 12 + 24];
+        private final byte[] indexEntry = new byte[INDEX_ENTRY_SIZE];
+        private long size;
+        private long lastTimestamp;
+        private int recordsSinceKeyframe;
+
+        private SegmentWriter(final File segment, final File index, final long start,
+                              final byte flags) throws IOException {
+
+            this.start = start;
+            this.lastTimestamp = start;
+            this.out = new FileOutputStream(segment);
+            try {
+                this.indexOut = new FileOutputStream(index);
+            } catch (IOException e) {
+                this.out.close();
+                throw e;
+            }
+            this.slots = RateTable.getIndexCount();
+            this.headerSize = HEADER_SIZE + this.slots * CODE_SIZE;
+            final ByteBuffer header = ByteBuffer.wrap(this.buffer, 0, this.headerSize);
+            header.putInt(MAGIC).put(FORMAT_VERSION).put(flags).putLong(start)
+                    .putShort((short) this.slots);
+            for (int i = 0; i < this.slots; i++) {
+                final String code = RateTable.codeAt(i);
+                header.put((byte) code.charAt(0)).put((byte) code.charAt(1))
+                        .put((byte) code.charAt(2));
+            }
+            this.out.write(this.buffer, 0, this.headerSize);
+            this.size = this.headerSize;
+        }
+
+        private boolean isFull(final long timestamp) {
+            return timestamp - this.start >= HistoryLog.this.segmentDuration
+                    || this.size >= HistoryLog.this.maxSegmentBytes;
+        }
+
+        /**
+         * Appends a record of the currencies, which differ from the last written state.
+         */
+        private void append(final long timestamp, final long[] state) throws IOException {
+
+            final long time = Math.max(timestamp, this.lastTimestamp);
+            final boolean keyframe = this.size == this.headerSize
+                    || this.recordsSinceKeyframe >= KEYFRAME_INTERVAL;
+            if (keyframe) {
+                Arrays.fill(this.written, 0);
+            }
+            int count = 0;
+            for (int i = 0; i < this.slots; i++) {
+                if (state[i] != this.written[i])
+                    count++;
+            }
+            if (count == 0 && !keyframe)
+                return;
+
+            int position = putVarLong(this.buffer, 0, keyframe ? time - this.start : time - this.lastTimestamp);
+            this.buffer[position++] = keyframe ? KEYFRAME : DELTA;
+            position = putVarLong(this.buffer, position, count);
+            int previous = -1;
+            for (int i = 0; i < this.slots; i++) {
+                if (state[i] != this.written[i]) {
+                    position = putVarLong(this.buffer, position, i - previous - 1);
+                    position = putVarLong(this.buffer, position, state[i] ^ this.written[i]);
+                    this.written[i] = state[i];
+                    previous = i;
+                }
+            }
+            this.out.write(this.buffer, 0, position);
+            if (keyframe) {
+                ByteBuffer.wrap(this.indexEntry).putLong(time).putInt((int) this.size);
+                this.indexOut.write(this.indexEntry);
+                this.recordsSinceKeyframe = 0;
+            }
+            this.recordsSinceKeyframe++;
+            this.size += position;
+            this.lastTimestamp = time;
+        }
+
+        private void close() {
+            try {
+                this.out.close();
+                this.indexOut.close();
+            } catch (IOException e) {
+                Log.w(TAG, "Cannot close the history segment " + this.start, e);
+            }
+        }
+    }
+
+    /**
+     * Decodes the records of one segment from a mapped region of it. The slots of the code table
+     * of the segment are mapped to the current indexes of their codes, so the state is kept by
+     * the current indexes.
+     *
+     * @author Nikola Georgiev
+     * @version 1.0
+     * @since 1.1.0
+     */
+    private static final class SegmentReader {
+
+        private final long[] state = new long[RateTable.MAX_CURRENCIES];
+        private final int[] indexBySlot = new int[RateTable.MAX_CURRENCIES];
+        private int slots;
+        private MappedByteBuffer buffer;
+        private long start;
+        private long timestamp;
+
+        /**
+         * Reads the code table of a segment and maps the segment from an offset of a record, or
+         * from its first record, to its end.
+         *
+         * @return {@see boolean} - True - in case the segment is mapped, False - in case it is
+         * not a valid segment.
+         */
+        private boolean open(final File segment, final long offset) throws IOException {
+
+            this.buffer = null;
+            final RandomAccessFile file = new RandomAccessFile(segment, "r");
+            try {
+                final long length = file.length();
+                if (length < HEADER_SIZE || file.readInt() != MAGIC
+                        || file.readByte() != FORMAT_VERSION) {
+                    return false;
+                }
+                file.readByte();
+                this.start = file.readLong();
+                this.timestamp = this.start;
+                this.slots = file.readUnsignedShort();
+                final long headerSize = HEADER_SIZE + (long) this.slots * CODE_SIZE;
+                if (this.slots > RateTable.MAX_CURRENCIES || length < headerSize)
+                    return false;
+                for (int i = 0; i < this.slots; i++) {
+                    this.indexBySlot[i] = RateTable.indexOf((char) file.readUnsignedByte(),
+                            (char) file.readUnsignedByte(), (char) file.readUnsignedByte());
+                }
+                final long from = Math.min(Math.max(offset, headerSize), length);
+                this.buffer = file.getChannel().map(FileChannel.MapMode.READ_ONLY, from,
+                        length - from);
+                return true;
+            } finally {
+                file.close();
+            }
+        }
+
+        /**
+         * Decodes the next record, updating the time and the state.
+         *
+         * @return {@see boolean} - True - in case a record is decoded, False - at the end of the
+         * segment or at a truncated record.
+         */
+        private boolean next() {
+
+            if (this.buffer == null || !this.buffer.hasRemaining())
+                return false;
+            try {
+                final long time = getVarLong(this.buffer);
+                final byte kind = this.buffer.get();
+                final int count = (int) getVarLong(this.buffer);
+                if (kind == KEYFRAME) {
+                    this.timestamp = this.start + time;
+                    Arrays.fill(this.state, 0);
+                } else if (kind == DELTA) {
+                    this.timestamp += time;
+                } else {
+                    return false;
+                }
+                int slot = -1;
+                for (int i = 0; i < count; i++) {
+                    slot += (int) getVarLong(this.buffer) + 1;
+                    if (slot < 0 || slot >= this.slots)
+                        return false;
+                    final long rate = getVarLong(this.buffer);
+                    final int index = this.indexBySlot[slot];
+                    if (index != RateTable.NO_INDEX)
+                        this.state[index] ^= rate;
+                }
+                return true;
+            } catch (BufferUnderflowException e) {
+                this.buffer = null;
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Writes an unsigned varint, 7 bits per byte, least significant group first.
+     */
+    /* package-private */
+    static int putVarLong(final byte[] buffer, final int offset, final long value) {
+        int position = offset;
+        long remaining = value;
+        while ((remaining & ~0x7FL) != 0) {
+            buffer[position++] = (byte) ((remaining & 0x7F) | 0x80);
+            remaining >>>= 7;
+        }
+        buffer[position++] = (byte) remaining;
+        return position;
+    }
+
+    /**
+     * Reads an unsigned varint written by {@link HistoryLog#putVarLong(byte[], int, long)}.
+     */
+    /* package-private */
+    static long getVarLong(final ByteBuffer buffer) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            final byte b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0)
+                return value;
+        }
+        return value;
+    }
+}
@@ -14,7 +14,7 @@ import android.widget.TextView;
 
     /**
      * Changes the base currency with the currency at a specified position in the currency list.
-     * Then restarts the service and scrolls to the 0 index of the {@see ListView}.
+     * Then derives the rates for the new base and scrolls to the 0 index of the {@see ListView}.
      *
      * @param currencyCode {@see String} - The currency code of clicked list item.
      */
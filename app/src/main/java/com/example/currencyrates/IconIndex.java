@@ -0,0 +1,124 @@
+package com.example.currencyrates;
+
+import android.content.Context;
+import android.net.Uri;
+
+import java.io.File;
+
+/**
+ * In-memory index of the country flag icons, which are stored in the {@code country_images}
+ * directory. The directory is resolved and scanned once, then the index answers whether the icon
+ * of a currency is present and what its {@see Uri} is, from arrays by the {@see RateTable} index
+ * of the currency code, so the model builds of the rates ticks do not touch the disk. The icons
+ * downloaded later are added by {@link IconIndex#markPresent(String)}, once they are saved.
+ * <p>
+ * The index is confined to the main thread, where the models are built and the downloads are
+ * completed.
+ *
+ * @author Nikola Georgiev
+ * @version 1.0
+ * @since 1.1.0
+ */
+/* package-private */ final class IconIndex {
+
+    /* package-private */ static final String DIR_NAME = "country_images";
+    /* package-private */ static final String EXTENSION = ".png";
+
+    private static IconIndex instance;
+
+    private final File directory;
+    private final boolean[] present = new boolean[RateTable.MAX_CURRENCIES];
+    private final Uri[] uris = new Uri[RateTable.MAX_CURRENCIES];
+    private boolean scanned;
+
+    /**
+     * The main constructor of this class.
+     *
+     * @param directory {@see File} - The directory of the icons, or NULL in case it is not
+     *                  available, then no icon is present.
+     */
+    /* package-private */ IconIndex(final File directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Gets the index of the process, and resolves the directory of the icons the first time.
+     *
+     * @param context {@see Context} - The base application context.
+     * @return {@see IconIndex} - The single instance.
+     */
+    /* package-private */ static IconIndex getInstance(final Context context) {
+        if (instance == null) {
+            instance = new IconIndex(FileUtils.getStorageDir(context, DIR_NAME));
+        }
+        return instance;
+    }
+
+    /**
+     * Checks whether the icon of a currency is stored.
+     *
+     * @param currencyCode {@see String} - The 3 letter currency code.
+     * @return {@see boolean} - True in case the icon is stored, False otherwise.
+     */
+    /* package-private */ boolean contains(final String currencyCode) {
+        scan();
+        final int index = RateTable.indexOf(currencyCode);
+        return index != RateTable.NO_INDEX && this.present[index];
+    }
+
+    /**
+     * Gets the {@see Uri} of the icon file of a currency, which is created once per currency.
+     * The icon may not be stored yet, an {@see android.widget.ImageView} shows it, once it is
+     * bound again after the download.
+     *
+     * @param currencyCode {@see String} - The 3 letter currency code.
+     * @return {@see Uri} - The icon file Uri, or NULL in case the directory is not available.
+     */
+    /* package-private */ Uri getUri(final String currencyCode) {
+
+        if (this.directory == null || currencyCode == null)
+            return null;
+        final int index = RateTable.indexOf(currencyCode);
+        if (index == RateTable.NO_INDEX)
+            return Uri.fromFile(new File(this.directory, currencyCode + EXTENSION));
+        Uri uri = this.uris[index];
+        if (uri == null) {
+            uri = Uri.fromFile(new File(this.directory, currencyCode + EXTENSION));
+            this.uris[index] = uri;
+        }
+        return uri;
+    }
+
+    /**
+     * Records that the icon of a currency has been saved.
+     *
+     * @param currencyCode {@see String} - The 3 letter currency code.
+     */
+    /* package-private */ void markPresent(final String currencyCode) {
+        scan();
+        final int index = RateTable.indexOf(currencyCode);
+        if (index != RateTable.NO_INDEX)
+            this.present[index] = true;
+    }
+
+    /**
+     * Lists the icons, which are already stored, the first time the index is used.
+     */
+    private void scan() {
+
+        if (this.scanned)
+            return;
+        this.scanned = true;
+        final String[] fileNames = (this.directory != null) ? this.directory.list() : null;
+        if (fileNames == null)
+            return;
+        for (final String fileName : fileNames) {
+            if (fileName.endsWith(EXTENSION)) {
+                final int index = RateTable.indexOf(
+                        fileName.substring(0, fileName.length() - EXTENSION.length()));
+                if (index != RateTable.NO_INDEX)
+                    this.present[index] = true;
+            }
+        }
+    }
+}
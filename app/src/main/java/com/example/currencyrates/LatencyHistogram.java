@@ -0,0 +1,172 @@
+package com.example.currencyrates;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Thread-safe, fixed-memory histogram of latencies in microseconds. The buckets are logarithmic:
+ * every power of two is split into {@link LatencyHistogram#SUB_BUCKETS} linear sub-buckets, so a
+ * percentile is reported with a relative error of at most 12.5%, from 1 microsecond up to more
+ * than an hour, in {@link LatencyHistogram#BUCKET_COUNT} counters. Longer latencies are counted
+ * in the last bucket. Recording is a few shifts and an atomic increment, and never allocates.
+ * <p>
+ * The percentiles are computed from a {@see Snapshot}, which copies the counters, so the
+ * recording threads are never blocked. A snapshot taken while recording may miss the latest
+ * values, but is consistent with itself.
+ *
+ * @author Nikola Georgiev
+ * @version 1.0
+ * @since 1.1.0
+ */
+/* package-private */ final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 3;
+    /* package-private */ static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int MAX_EXPONENT = 31;
+    /* package-private */ static final int BUCKET_COUNT = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Records a latency.
+     *
+     * @param micros {@see long} - The latency in microseconds, a negative one is recorded as 0.
+     */
+    /* package-private */ void record(final long micros) {
+
+        final long value = Math.max(0, micros);
+        this.counts.incrementAndGet(bucketOf(value));
+        this.total.incrementAndGet();
+        this.sum.addAndGet(value);
+        long current = this.max.get();
+        while (value > current && !this.max.compareAndSet(current, value)) {
+            current = this.max.get();
+        }
+    }
+
+    /**
+     * Clears all the recorded latencies.
+     */
+    /* package-private */ void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            this.counts.set(i, 0);
+        }
+        this.total.set(0);
+        this.sum.set(0);
+        this.max.set(0);
+    }
+
+    /**
+     * Copies the counters to compute the percentiles.
+     *
+     * @return {@see Snapshot} - The snapshot of the recorded latencies.
+     */
+    /* package-private */ Snapshot snapshot() {
+
+        final long[] copy = new long[BUCKET_COUNT];
+        long count = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            copy[i] = this.counts.get(i);
+            count += copy[i];
+        }
+        return new Snapshot(copy, count, this.sum.get(), this.max.get());
+    }
+
+    /**
+     * Gets the bucket of a latency.
+     *
+     * @param value {@see long} - The non-negative latency in microseconds.
+     * @return {@see int} - The index of the bucket.
+     */
+    /* package-private */ static int bucketOf(final long value) {
+
+        if (value < SUB_BUCKETS)
+            return (int) value;
+        final int exponent = 63 - Long.numberOfLeadingZeros(value);
+        if (exponent > MAX_EXPONENT)
+            return BUCKET_COUNT - 1;
+        final int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    /**
+     * Gets the highest latency counted in a bucket.
+     *
+     * @param bucket {@see int} - The index of the bucket.
+     * @return {@see long} - The inclusive upper bound of the bucket in microseconds.
+     */
+    /* package-private */ static long upperBoundOf(final int bucket) {
+
+        if (bucket < SUB_BUCKETS)
+            return bucket;
+        final int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        final long subBucket = bucket % SUB_BUCKETS;
+        return ((SUB_BUCKETS + subBucket + 1) << (exponent - SUB_BUCKET_BITS)) - 1;
+    }
+
+    /**
+     * A copy of the recorded latencies, with their count, mean, maximum and percentiles.
+     *
+     * @author Nikola Georgiev
+     * @version 1.0
+     * @since 1.1.0
+     */
+    /* package-private */ static final class Snapshot {
+
+        private final long[] counts;
+        private final long count;
+        private final long sum;
+        private final long max;
+
+        private Snapshot(final long[] counts, final long count, final long sum, final long max) {
+            this.counts = counts;
+            this.count = count;
+            this.sum = sum;
+            this.max = max;
+        }
+
+        /**
+         * Gets the latency, which a fraction of the recorded latencies does not exceed.
+         *
+         * @param fraction {@see double} - The fraction, from 0 to 1, e.g. 0.99 for the 99th
+         *                 percentile.
+         * @return {@see long} - The upper bound of the bucket of the percentile in microseconds,
+         * never more than the maximum, or 0 in case nothing is recorded.
+         */
+        /* package-private */ long percentile(final double fraction) {
+
+            if (this.count == 0)
+                return 0;
+            final long rank = Math.max(1, (long) Math.ceil(fraction * this.count));
+            long seen = 0;
+            for (int i = 0; i < this.counts.length; i++) {
+                seen += this.counts[i];
+                if (seen >= rank)
+                    return Math.min(upperBoundOf(i), this.max);
+            }
+            return this.max;
+        }
+
+        /* package-private */ long getCount() {
+            return count;
+        }
+
+        /* package-private */ long getMean() {
+            return (count > 0) ? sum / count : 0;
+        }
+
+        /* package-private */ long getMax() {
+            return max;
+        }
+
+        @Override
+        public String toString() {
+            return "count=" + this.count + ", mean=" + getMean() + "us, p50=" + percentile(0.5)
+                    + "us, p90=" + percentile(0.9) + "us, p99=" + percentile(0.99)
+                    + "us, max=" + this.max + "us";
+        }
+    }
+}
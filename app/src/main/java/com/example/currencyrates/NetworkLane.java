@@ -0,0 +1,159 @@
+package com.example.currencyrates;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded {@see ThreadPoolExecutor} for one lane of network work of the
+ * {@see CurrencyRatesService}, e.g. the rates polls or the asset downloads, so one kind of work
+ * never queues behind the other. The lane has a fixed number of daemon threads and a bounded
+ * queue, the tasks submitted to a full queue are rejected with
+ * {@see java.util.concurrent.RejectedExecutionException}. It measures how deep its queue gets and
+ * how long the tasks wait in it before they run.
+ *
+ * @author Nikola Georgiev
+ * @version 1.0
+ * @since 1.1.0
+ */
+/* package-private */ final class NetworkLane extends ThreadPoolExecutor {
+
+    private static final long KEEP_ALIVE_SECONDS = 30;
+
+    private final String name;
+    private final AtomicLong executed = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private final AtomicInteger maxQueueDepth = new AtomicInteger();
+
+    /**
+     * The main constructor of this class.
+     *
+     * @param name          {@see String} - The name of the lane, used for its thread names.
+     * @param threads       {@see int} - The number of threads of the lane.
+     * @param queueCapacity {@see int} - The maximum number of tasks waiting to run.
+     */
+    /* package-private */ NetworkLane(final String name, final int threads, final int queueCapacity) {
+        super(threads, threads, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<Runnable>(queueCapacity), new LaneThreadFactory(name));
+        this.name = name;
+        allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Executes the task on a lane thread, recording the time it was queued at.
+     *
+     * @param command {@see Runnable} - The task to execute.
+     */
+    @Override
+    public void execute(final Runnable command) {
+        super.execute(new TimedTask(command));
+        final int depth = getQueue().size();
+        int max;
+        while (depth > (max = this.maxQueueDepth.get())
+                && !this.maxQueueDepth.compareAndSet(max, depth)) {
+            // Retry until the maximum is updated or another thread has set a greater one
+        }
+    }
+
+    /* package-private */ String getName() {
+        return name;
+    }
+
+    /* package-private */ int getQueueDepth() {
+        return getQueue().size();
+    }
+
+    /* package-private */ int getMaxQueueDepth() {
+        return maxQueueDepth.get();
+    }
+
+    /* package-private */ long getExecutedCount() {
+        return executed.get();
+    }
+
+    /**
+     * Gets the average time the tasks have waited in the queue before they ran.
+     *
+     * @return {@see long} - The average wait time in microseconds, or 0 if no task has run.
+     */
+    /* package-private */ long getAverageWaitMicros() {
+        final long count = this.executed.get();
+        return (count == 0) ? 0 : TimeUnit.NANOSECONDS.toMicros(this.totalWaitNanos.get() / count);
+    }
+
+    /* package-private */ long getMaxWaitMicros() {
+        return TimeUnit.NANOSECONDS.toMicros(maxWaitNanos.get());
+    }
+
+    @Override
+    public String toString() {
+        return name + ": active=" + getActiveCount() + ", queued=" + getQueueDepth()
+                + ", maxQueued=" + getMaxQueueDepth() + ", executed=" + getExecutedCount()
+                + ", avgWait=" + getAverageWaitMicros() + "us, maxWait=" + getMaxWaitMicros() + "us";
+    }
+
+    /**
+     * Records the time a task has waited in the queue.
+     */
+    private void recordWait(final long waitNanos) {
+
+        this.executed.incrementAndGet();
+        this.totalWaitNanos.addAndGet(waitNanos);
+        long max;
+        while (waitNanos > (max = this.maxWaitNanos.get())
+                && !this.maxWaitNanos.compareAndSet(max, waitNanos)) {
+            // Retry until the maximum is updated or another thread has set a greater one
+        }
+    }
+
+    /**
+     * A task wrapper, which knows when it was queued.
+     *
+     * @author Nikola Georgiev
+     * @version 1.0
+     * @since 1.1.0
+     */
+    private final class TimedTask implements Runnable {
+
+        private final Runnable task;
+        private final long queuedAt = System.nanoTime();
+
+        private TimedTask(final Runnable task) {
+            this.task = task;
+        }
+
+        @Override
+        public void run() {
+            recordWait(System.nanoTime() - this.queuedAt);
+            this.task.run();
+        }
+    }
+
+    /**
+     * Creates the named daemon threads of a lane.
+     *
+     * @author Nikola Georgiev
+     * @version 1.0
+     * @since 1.1.0
+     */
+    /* package-private */ static final class LaneThreadFactory implements ThreadFactory {
+
+        private final String name;
+        private final AtomicInteger count = new AtomicInteger();
+
+        /* package-private */ LaneThreadFactory(final String name) {
+            this.name = name;
+        }
+
+        @Override
+        public Thread newThread(final Runnable runnable) {
+            final Thread thread = new Thread(runnable, this.name + "-" + this.count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.example.currencyrates;
+
+import java.io.PrintWriter;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Process-wide latency metrics of the stages of the rates pipeline, from the connection to the
+ * API to the list update, one {@see LatencyHistogram} per {@see Stage}. A stage is timed by
+ * {@link PipelineMetrics#start()} and {@link PipelineMetrics#record(Stage, long)}, which returns
+ * the end time, so consecutive stages can be chained without reading the clock twice.
+ * <p>
+ * The sampling is off by default. While it is off, {@link PipelineMetrics#start()} does not read
+ * the clock and returns {@link PipelineMetrics#NOT_SAMPLED}, which every later record of the same
+ * tick ignores, so the cost is a volatile read per tick. The metrics can be read by
+ * {@link PipelineMetrics#snapshot()}, or printed by {@link PipelineMetrics#dump(PrintWriter)},
+ * e.g. by {@code adb shell dumpsys activity service CurrencyRatesService}.
+ *
+ * @author Nikola Georgiev
+ * @version 1.0
+ * @since 1.1.0
+ */
+/* package-private */ final class PipelineMetrics {
+
+    /* package-private */ static final long NOT_SAMPLED = Long.MIN_VALUE;
+
+    private static final PipelineMetrics INSTANCE = new PipelineMetrics();
+
+    private final LatencyHistogram[] histograms = new LatencyHistogram[Stage.values().length];
+    private volatile boolean sampling;
+
+    /**
+     * The stages of the rates pipeline.
+     */
+    /* package-private */ enum Stage {
+        /**
+         * The name lookup, the TCP connection and the TLS handshake with the API.
+         */
+        CONNECT,
+        /**
+         * The time from the sent request to the received response headers.
+         */
+        FIRST_BYTE,
+        /**
+         * The read of the response body, which is parsed while it is streamed.
+         */
+        BODY_PARSE,
+        /**
+         * The publishing of the accepted rates to the repository and its listeners.
+         */
+        PUBLISH,
+        /**
+         * The whole poll, from the connection to the published rates.
+         */
+        TICK,
+        /**
+         * The build of the list models of the changed currencies.
+         */
+        MODEL_BUILD,
+        /**
+         * The bind of a list row to its model, done by the list adapter during the layout pass.
+         */
+        LIST_BIND
+    }
+
+    /**
+     * The constructor of this class, the pipeline shares the instance of
+     * {@link PipelineMetrics#getInstance()}.
+     */
+    /* package-private */ PipelineMetrics() {
+        for (int i = 0; i < this.histograms.length; i++) {
+            this.histograms[i] = new LatencyHistogram();
+        }
+    }
+
+    /**
+     * Gets the metrics of the process.
+     *
+     * @return {@see PipelineMetrics} - The single instance.
+     */
+    /* package-private */ static PipelineMetrics getInstance() {
+        return INSTANCE;
+    }
+
+    /* package-private */ void setSampling(final boolean sampling) {
+        this.sampling = sampling;
+    }
+
+    /* package-private */ boolean isSampling() {
+        return sampling;
+    }
+
+    /**
+     * Starts timing a stage.
+     *
+     * @return {@see long} - The start time in nanoseconds, or {@link PipelineMetrics#NOT_SAMPLED}
+     * in case the sampling is off.
+     */
+    /* package-private */ long start() {
+        return this.sampling ? System.nanoTime() : NOT_SAMPLED;
+    }
+
+    /**
+     * Records the latency of a stage, which has started at a specific time.
+     *
+     * @param stage {@see Stage} - The stage.
+     * @param start {@see long} - The start time from {@link PipelineMetrics#start()}, or the end
+     *              time of the previous stage.
+     * @return {@see long} - The end time in nanoseconds, to start the next stage with, or
+     * {@link PipelineMetrics#NOT_SAMPLED} in case the stage was not sampled.
+     */
+    /* package-private */ long record(final Stage stage, final long start) {
+
+        if (start == NOT_SAMPLED)
+            return NOT_SAMPLED;
+        final long end = System.nanoTime();
+        this.histograms[stage.ordinal()].record(TimeUnit.NANOSECONDS.toMicros(end - start));
+        return end;
+    }
+
+    /**
+     * Copies the recorded latencies of every stage.
+     *
+     * @return {@see Map} - The snapshots of the stages in the order of the pipeline.
+     */
+    /* package-private */ Map<Stage, LatencyHistogram.Snapshot> snapshot() {
+
+        final Map<Stage, LatencyHistogram.Snapshot> snapshots = new EnumMap<>(Stage.class);
+        for (final Stage stage : Stage.values()) {
+            snapshots.put(stage, this.histograms[stage.ordinal()].snapshot());
+        }
+        return snapshots;
+    }
+
+    /**
+     * Clears the recorded latencies of every stage.
+     */
+    /* package-private */ void reset() {
+        for (final LatencyHistogram histogram : this.histograms) {
+            histogram.reset();
+        }
+    }
+
+    /**
+     * Prints the sampling state and the percentiles of every stage.
+     *
+     * @param writer {@see PrintWriter} - The writer to print to.
+     */
+    /* package-private */ void dump(final PrintWriter writer) {
+
+        writer.println("Pipeline latency (sampling " + (this.sampling ? "on" : "off") + "):");
+        for (final Map.Entry<Stage, LatencyHistogram.Snapshot> entry : snapshot().entrySet()) {
+            writer.println("  " + entry.getKey() + ": " + entry.getValue());
+        }
+    }
+}
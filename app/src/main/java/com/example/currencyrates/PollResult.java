@@ -0,0 +1,69 @@
+package com.example.currencyrates;
+
+/**
+ * The result of a single call to the rates API, made by the {@see CurrencyRatesService}. It tells
+ * whether the rates were downloaded in full, were not modified since the previous call, or the
+ * call has failed, and how long the response stays fresh according to its cache headers.
+ *
+ * @author Nikola Georgiev
+ * @version 1.0
+ * @since 1.1.0
+ */
+/* package-private */ final class PollResult {
+
+    /**
+     * The possible outcomes of a call to the rates API.
+     *
+     * @author Nikola Georgiev
+     * @version 1.0
+     * @since 1.1.0
+     */
+    /* package-private */ enum Status {
+        DOWNLOADED, NOT_MODIFIED, FAILED
+    }
+
+    private final Status status;
+    private final RateTable ratesTable;
+    private final long freshness;
+
+    /**
+     * The main constructor of this class.
+     *
+     * @param status     {@see Status} - The outcome of the call.
+     * @param ratesTable {@see RateTable} - The downloaded rates, or NULL in case they were not
+     *                   downloaded.
+     * @param freshness  {@see long} - The freshness lifetime of the response in milliseconds.
+     */
+    private PollResult(final Status status, final RateTable ratesTable, final long freshness) {
+        this.status = status;
+        this.ratesTable = ratesTable;
+        this.freshness = freshness;
+    }
+
+    /* package-private */
+    static PollResult downloaded(final RateTable ratesTable, final long freshness) {
+        return new PollResult(Status.DOWNLOADED, ratesTable, freshness);
+    }
+
+    /* package-private */
+    static PollResult notModified(final long freshness) {
+        return new PollResult(Status.NOT_MODIFIED, null, freshness);
+    }
+
+    /* package-private */
+    static PollResult failed() {
+        return new PollResult(Status.FAILED, null, 0);
+    }
+
+    /* package-private */ Status getStatus() {
+        return status;
+    }
+
+    /* package-private */ RateTable getRatesTable() {
+        return ratesTable;
+    }
+
+    /* package-private */ long getFreshness() {
+        return freshness;
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.currencyrates;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Thread-safe counters of the calls made to the rates API. They show how many polls were
+ * validated by a conditional request (HTTP 304 Not Modified), how many downloaded the rates in
+ * full, and how many have failed.
+ *
+ * @author Nikola Georgiev
+ * @version 1.0
+ * @since 1.1.0
+ */
+/* package-private */ final class PollStats {
+
+    private final AtomicLong validated = new AtomicLong();
+    private final AtomicLong downloaded = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    /**
+     * Counts a poll by its outcome.
+     *
+     * @param status {@see PollResult.Status} - The outcome of the poll.
+     */
+    /* package-private */ void record(final PollResult.Status status) {
+
+        switch (status) {
+            case NOT_MODIFIED:
+                this.validated.incrementAndGet();
+                break;
+            case DOWNLOADED:
+                this.downloaded.incrementAndGet();
+                break;
+            default:
+                this.failed.incrementAndGet();
+                break;
+        }
+    }
+
+    /* package-private */ long getValidated() {
+        return validated.get();
+    }
+
+    /* package-private */ long getDownloaded() {
+        return downloaded.get();
+    }
+
+    /* package-private */ long getFailed() {
+        return failed.get();
+    }
+
+    /* package-private */ long getTotal() {
+        return getValidated() + getDownloaded() + getFailed();
+    }
+
+    @Override
+    public String toString() {
+        return "polls=" + getTotal() + ", validated=" + getValidated()
+                + ", downloaded=" + getDownloaded() + ", failed=" + getFailed();
+    }
+}
@@ -0,0 +1,240 @@
+package com.example.currencyrates;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Converts the fixed-point rates of a {@see RateTable} to the amounts shown on the GUI, by
+ * multiplying them with the current multiplier. Two modes are supported:
+ * <ul>
+ * <li>{@link Mode#EXACT} - the rate is multiplied as {@see BigDecimal} and the exact product is
+ * returned.</li>
+ * <li>{@link Mode#FIXED_POINT} - the rate and the multiplier are multiplied as scaled longs and
+ * the product is rounded half up to {@link RateConverter#DISPLAY_SCALE} decimal digits.</li>
+ * </ul>
+ * Precision rules of the fixed-point mode: the rate has at most {@link RateTable#SCALE} decimal
+ * digits and the multiplier at most {@link RateConverter#MAX_MULTIPLIER_SCALE} decimal digits,
+ * trailing zeros of both are dropped before multiplying, so the product is exact. The only
+ * rounding is the final half up rounding to the display scale, which is the same rounding
+ * {@link CurrencyUtils#formatBigDecimalAsString(BigDecimal)} does, so both modes show identical
+ * text. In case the multiplier has more decimal digits or the product overflows a long, the
+ * conversion falls back to the exact mode. A currency with other minor units than 2 is converted
+ * at its own display scale by {@link RateConverter#convert(long, int)}, to match the digits of
+ * {@link CurrencyUtils#formatBigDecimalAsString(BigDecimal, String)}.
+ * <p>
+ * A rate of a table derived by the {@see CrossRateEngine} is a fraction of the table
+ * denominator, see {@link RateTable#getDenominator()}. Its product is divided by the denominator
+ * once, and rounded half up to the display scale, in both modes, so the small derived rates keep
+ * all their significant digits until the display.
+ *
+ * @author Nikola Georgiev
+ * @version 1.0
+ * @since 1.1.0
+ */
+/* package-private */ final class RateConverter {
+
+    /* package-private */ static final int DISPLAY_SCALE = 2;
+    /* package-private */ static final int MAX_MULTIPLIER_SCALE = 6;
+
+    private static final long[] POWERS_OF_TEN = new long[19];
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    /**
+     * The available conversion modes.
+     *
+     * @author Nikola Georgiev
+     * @version 1.0
+     * @since 1.1.0
+     */
+    /* package-private */ enum Mode {
+        EXACT, FIXED_POINT
+    }
+
+    private final Mode mode;
+    private BigDecimal multiplier = BigDecimal.ONE;
+    private long multiplierUnscaled = 1;
+    private int multiplierScale = 0;
+    private boolean multiplierFixed = true;
+
+    /**
+     * The main constructor of this class.
+     *
+     * @param mode {@see Mode} - The conversion mode.
+     */
+    /* package-private */ RateConverter(final Mode mode) {
+        this.mode = (mode != null) ? mode : Mode.EXACT;
+    }
+
+    /* package-private */ Mode getMode() {
+        return mode;
+    }
+
+    /* package-private */ BigDecimal getMultiplier() {
+        return multiplier;
+    }
+
+    /**
+     * Sets the multiplier, which will be used for the next conversions. The fixed-point form of
+     * the multiplier is prepared once here, instead of on every conversion.
+     *
+     * @param multiplier {@see BigDecimal} - The non-negative multiplier.
+     */
+    /* package-private */ void setMultiplier(final BigDecimal multiplier) {
+
+        this.multiplier = (multiplier != null) ? multiplier : BigDecimal.ZERO;
+        this.multiplierFixed = false;
+        if (this.multiplier.signum() == 0) {
+            this.multiplierUnscaled = 0;
+            this.multiplierScale = 0;
+            this.multiplierFixed = true;
+            return;
+        }
+        final BigDecimal stripped = this.multiplier.stripTrailingZeros();
+        if (stripped.signum() > 0 && stripped.scale() <= MAX_MULTIPLIER_SCALE
+                && stripped.precision() - stripped.scale() <= 18) {
+            final int scale = Math.max(stripped.scale(), 0);
+            final BigDecimal scaled = stripped.setScale(scale);
+            if (scaled.unscaledValue().bitLength() < 63) {
+                this.multiplierUnscaled = scaled.unscaledValue().longValue();
+                this.multiplierScale = scale;
+                this.multiplierFixed = true;
+            }
+        }
+    }
+
+    /**
+     * Converts a fixed-point rate to the amount of the current multiplier.
+     *
+     * @param scaledRate {@see long} - The rate with {@link RateTable#SCALE} decimal digits.
+     * @return {@see BigDecimal} - The converted amount. In the exact mode it is the exact
+     * product, in the fixed-point mode it is rounded half up to {@link RateConverter#DISPLAY_SCALE}
+     * decimal digits.
+     */
+    /* package-private */ BigDecimal convert(final long scaledRate) {
+        return convert(scaledRate, DISPLAY_SCALE);
+    }
+
+    /**
+     * Converts a fixed-point rate to the amount of the current multiplier, for a currency with a
+     * specific number of minor units.
+     *
+     * @param scaledRate   {@see long} - The rate with {@link RateTable#SCALE} decimal digits.
+     * @param displayScale {@see int} - The decimal digits shown, from 0 to
+     *                     {@link RateTable#SCALE}.
+     * @return {@see BigDecimal} - The converted amount. In the exact mode it is the exact
+     * product, in the fixed-point mode it is rounded half up to the display scale.
+     */
+    /* package-private */ BigDecimal convert(final long scaledRate, final int displayScale) {
+        return convert(scaledRate, RateTable.UNIT, displayScale);
+    }
+
+    /**
+     * Converts a rate, which is a fraction of a denominator, to the amount of the current
+     * multiplier, for a currency with a specific number of minor units.
+     *
+     * @param rate         {@see long} - The numerator of the rate.
+     * @param denominator  {@see long} - The positive denominator of the rate, e.g.
+     *                     {@link RateTable#UNIT} for a fixed-point rate.
+     * @param displayScale {@see int} - The decimal digits shown, from 0 to
+     *                     {@link RateTable#SCALE}.
+     * @return {@see BigDecimal} - The converted amount. In the exact mode it is the exact
+     * product in case the denominator is {@link RateTable#UNIT}, otherwise it is rounded half up
+     * to the display scale.
+     */
+    /* package-private */ BigDecimal convert(final long rate, final long denominator,
+                                             final int displayScale) {
+
+        final long amount = convertFixed(rate, denominator, displayScale);
+        if (amount >= 0)
+            return BigDecimal.valueOf(amount, displayScale);
+        if (denominator == RateTable.UNIT)
+            return this.multiplier.multiply(BigDecimal.valueOf(rate, RateTable.SCALE));
+        return this.multiplier.multiply(BigDecimal.valueOf(rate))
+                .divide(BigDecimal.valueOf(denominator), displayScale, RoundingMode.HALF_UP);
+    }
+
+    /**
+     * Converts a rate, which is a fraction of a denominator, to the unscaled amount of the
+     * current multiplier in the fixed-point mode, so the amount stays a long until it is shown.
+     *
+     * @param rate         {@see long} - The numerator of the rate.
+     * @param denominator  {@see long} - The positive denominator of the rate.
+     * @param displayScale {@see int} - The decimal digits of the result, from 0 to
+     *                     {@link RateTable#SCALE}.
+     * @return {@see long} - The amount with the display scale decimal digits, rounded half up,
+     * or -1 in case the mode is not {@link Mode#FIXED_POINT} or the amount needs the exact mode,
+     * see {@link RateConverter#convert(long, long, int)}.
+     */
+    /* package-private */ long convertFixed(final long rate, final long denominator,
+                                            final int displayScale) {
+        if (this.mode != Mode.FIXED_POINT || !this.multiplierFixed)
+            return -1;
+        return multiplyFixed(rate, denominator, displayScale);
+    }
+
+    /* package-private */ long multiplyFixed(final long scaledRate) {
+        return multiplyFixed(scaledRate, DISPLAY_SCALE);
+    }
+
+    /* package-private */ long multiplyFixed(final long scaledRate, final int displayScale) {
+        return multiplyFixed(scaledRate, RateTable.UNIT, displayScale);
+    }
+
+    /**
+     * Multiplies a rate, which is a fraction of a denominator, with the fixed-point multiplier,
+     * divides the product by the denominator and rounds the quotient half up to the display
+     * scale. The trailing zeros of the rate and the denominator are dropped first, to keep the
+     * product as small as possible, so a fixed-point rate is only multiplied, or divided by a
+     * power of ten.
+     *
+     * @param rate         {@see long} - The numerator of the rate.
+     * @param denominator  {@see long} - The positive denominator of the rate.
+     * @param displayScale {@see int} - The decimal digits of the result, from 0 to
+     *                     {@link RateTable#SCALE}.
+     * @return {@see long} - The amount with the display scale decimal digits, or -1 in case the
+     * rate is negative, the denominator is not positive, or some value overflows.
+     * @see RateTable#divide(long, long, int)
+     */
+    /* package-private */ long multiplyFixed(final long rate, final long denominator,
+                                             final int displayScale) {
+
+        if (rate < 0 || denominator <= 0)
+            return -1;
+        if (rate == 0 || this.multiplierUnscaled == 0)
+            return 0;
+
+        long numerator = rate;
+        long divisor = denominator;
+        int scale = displayScale - this.multiplierScale;
+        while (numerator % 10 == 0) {
+            numerator /= 10;
+            scale++;
+        }
+        while (divisor % 10 == 0) {
+            divisor /= 10;
+            scale--;
+        }
+        if (numerator > Long.MAX_VALUE / this.multiplierUnscaled)
+            return -1;
+        final long product = numerator * this.multiplierUnscaled;
+        if (scale < 0) {
+            if (-scale >= POWERS_OF_TEN.length || divisor > Long.MAX_VALUE / POWERS_OF_TEN[-scale])
+                return -1;
+            divisor *= POWERS_OF_TEN[-scale];
+            scale = 0;
+        }
+        if (scale > RateTable.MAX_DIVISION_SCALE)
+            return -1;
+        try {
+            return RateTable.divide(product, divisor, scale);
+        } catch (ArithmeticException overflow) {
+            return -1;
+        }
+    }
+}
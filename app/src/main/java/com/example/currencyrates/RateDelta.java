@@ -0,0 +1,136 @@
+package com.example.currencyrates;
+
+import java.util.Arrays;
+
+/**
+ * The difference between two consecutive snapshots of the currency rates. It holds the new sealed
+ * {@see RateTable}, the indexes of the currencies that were added, removed or changed compared
+ * to the previous snapshot, and the snapshot version, so the consumers can update only the
+ * changed currencies. A consumer that has not seen the previous version must use the whole
+ * snapshot instead of the changed currencies.
+ *
+ * @author Nikola Georgiev
+ * @version 1.0
+ * @since 1.1.0
+ */
+/* package-private */ final class RateDelta {
+
+    /* package-private */ static final long NO_VERSION = 0;
+
+    private final RateTable snapshot;
+    private final long version;
+    private final long previousVersion;
+    private final int[] changed;
+
+    /**
+     * The main constructor of this class.
+     *
+     * @param snapshot        {@see RateTable} - The new sealed snapshot.
+     * @param version         {@see long} - The version of the new snapshot.
+     * @param previousVersion {@see long} - The version of the snapshot this delta is based on, or
+     *                        {@link RateDelta#NO_VERSION} in case there is no previous snapshot.
+     * @param changed         {@see int[]} - The indexes of the changed currencies.
+     */
+    private RateDelta(final RateTable snapshot, final long version, final long previousVersion,
+                      final int[] changed) {
+        this.snapshot = snapshot;
+        this.version = version;
+        this.previousVersion = previousVersion;
+        this.changed = changed;
+    }
+
+    /**
+     * Compares a new snapshot to the previous one and creates a delta of the changed currencies.
+     *
+     * @param previous        {@see RateTable} - The previous snapshot, or NULL for the first one.
+     * @param current         {@see RateTable} - The new sealed snapshot.
+     * @param previousVersion {@see long} - The version of the previous snapshot.
+     * @return {@see RateDelta} - The delta with version {@code previousVersion + 1}. NULL - in
+     * case nothing has changed, so there is nothing to publish.
+     */
+    /* package-private */
+    static RateDelta between(final RateTable previous, final RateTable current,
+                             final long previousVersion) {
+
+        if (current == null)
+            return null;
+        //One pass over the indexes present in either table, collecting the changed ones
+        final int[] scratch = new int[RateTable.MAX_CURRENCIES];
+        int count = 0;
+        for (int i = nextOfEither(previous, current, 0); i >= 0;
+             i = nextOfEither(previous, current, i + 1)) {
+            if (((previous != null) ? previous.get(i) : 0) != current.get(i))
+                scratch[count++] = i;
+        }
+        if (count == 0)
+            return null;
+        return new RateDelta(current, previousVersion + 1,
+                (previous != null) ? previousVersion : NO_VERSION, Arrays.copyOf(scratch, count));
+    }
+
+    /**
+     * Gets the next index, which has a rate in the previous or in the current snapshot.
+     *
+     * @param previous {@see RateTable} - The previous snapshot, or NULL.
+     * @param current  {@see RateTable} - The new snapshot.
+     * @param from     {@see int} - The index to start from, inclusive.
+     * @return {@see int} - The next index, or {@link RateTable#NO_INDEX} in case there is none.
+     */
+    private static int nextOfEither(final RateTable previous, final RateTable current,
+                                    final int from) {
+        final int next = current.next(from);
+        final int previousNext = (previous != null) ? previous.next(from) : RateTable.NO_INDEX;
+        if (next < 0)
+            return previousNext;
+        return (previousNext < 0) ? next : Math.min(next, previousNext);
+    }
+
+    /* package-private */ RateTable getSnapshot() {
+        return snapshot;
+    }
+
+    /* package-private */ long getVersion() {
+        return version;
+    }
+
+    /* package-private */ long getPreviousVersion() {
+        return previousVersion;
+    }
+
+    /* package-private */ int getChangedCount() {
+        return changed.length;
+    }
+
+    /* package-private */ int getChangedAt(final int position) {
+        return changed[position];
+    }
+
+    /**
+     * Checks whether the currency at specific index has changed.
+     *
+     * @param index {@see int} - The currency index.
+     * @return {@see boolean} - True - in case the currency was added, removed or its rate has
+     * changed, False - otherwise.
+     */
+    /* package-private */ boolean isChanged(final int index) {
+
+        for (final int changedIndex : this.changed) {
+            if (changedIndex == index)
+                return true;
+            if (changedIndex > index)
+                return false;
+        }
+        return false;
+    }
+
+    /**
+     * Checks whether this delta can be applied by a consumer, which has seen a specific version.
+     *
+     * @param seenVersion {@see long} - The last version the consumer has applied.
+     * @return {@see boolean} - True - in case this delta follows the seen version, False - in
+     * case the consumer must use the whole snapshot.
+     */
+    /* package-private */ boolean follows(final long seenVersion) {
+        return this.previousVersion != NO_VERSION && this.previousVersion == seenVersion;
+    }
+}
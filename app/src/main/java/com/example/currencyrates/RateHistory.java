@@ -0,0 +1,325 @@
+package com.example.currencyrates;
+
+/**
+ * In-memory history of the currency rates ticks, kept in one fixed-capacity ring buffer per
+ * currency. Each ring is a pair of primitive arrays of timestamps and fixed-point rates, allocated
+ * once, when the currency is recorded for the first time, so recording a tick allocates nothing.
+ * Once a ring is full, every new tick overwrites the oldest one. Only the currencies changed by a
+ * {@see RateDelta} are recorded, so a currency, which does not move, does not use its capacity.
+ * <p>
+ * The memory ceiling bounds the arrays of all the rings together. The capacity of a ring is
+ * decided by the first recorded snapshot, as the ceiling split evenly between its currencies.
+ * Currencies that appear later get rings of the same capacity, as long as they fit under the
+ * ceiling, otherwise they are not recorded. At 1 Hz and 33 currencies each megabyte of the ceiling
+ * keeps about 33 minutes of ticks for every currency.
+ * <p>
+ * The queries copy the ticks to arrays given by the caller and fill a reusable {@see Stats}, so
+ * they do not allocate either. All the methods are thread-safe.
+ *
+ * @author Nikola Georgiev
+ * @version 1.0
+ * @since 1.1.0
+ */
+/* package-private */ final class RateHistory {
+
+    /* package-private */ static final int BYTES_PER_TICK = 16;
+
+    private final long memoryCeiling;
+    private final Ring[] rings = new Ring[RateTable.MAX_CURRENCIES];
+    private int capacity;
+    private long allocatedBytes;
+    private long droppedTicks;
+
+    /**
+     * The main constructor of this class.
+     *
+     * @param memoryCeiling {@see long} - The maximum number of bytes of all the ring arrays.
+     */
+    /* package-private */ RateHistory(final long memoryCeiling) {
+        this.memoryCeiling = Math.max(memoryCeiling, BYTES_PER_TICK);
+    }
+
+    /**
+     * Records the changed currencies of a delta as ticks at a specific time.
+     *
+     * @param timestamp {@see long} - The time of the tick in epoch milliseconds. A time before the
+     *                  last recorded tick of a currency is recorded as the time of that tick, so
+     *                  the rings stay ordered by time.
+     * @param delta     {@see RateDelta} - The accepted delta.
+     */
+    /* package-private */ synchronized void record(final long timestamp, final RateDelta delta) {
+
+        if (delta == null)
+            return;
+        final RateTable snapshot = delta.getSnapshot();
+        if (this.capacity == 0) {
+            final long perCurrency = this.memoryCeiling / Math.max(1, snapshot.size()) / BYTES_PER_TICK;
+            this.capacity = (int) Math.max(1, Math.min(perCurrency, Integer.MAX_VALUE));
+        }
+        for (int i = 0; i < delta.getChangedCount(); i++) {
+            final int index = delta.getChangedAt(i);
+            final long rate = snapshot.get(index);
+            if (rate > 0) {
+                append(index, timestamp, rate);
+            }
+        }
+    }
+
+    private void append(final int index, final long timestamp, final long rate) {
+
+        Ring ring = this.rings[index];
+        if (ring == null) {
+            final long bytes = (long) this.capacity * BYTES_PER_TICK;
+            if (this.allocatedBytes + bytes > this.memoryCeiling) {
+                this.droppedTicks++;
+                return;
+            }
+            ring = new Ring(this.capacity);
+            this.rings[index] = ring;
+            this.allocatedBytes += bytes;
+        }
+        ring.append(timestamp, rate);
+    }
+
+    /**
+     * Gets the number of ticks kept for a currency.
+     *
+     * @param index {@see int} - The currency index.
+     * @return {@see int} - The number of ticks.
+     */
+    /* package-private */ synchronized int size(final int index) {
+        final Ring ring = ring(index);
+        return (ring != null) ? ring.size : 0;
+    }
+
+    /**
+     * Copies the latest ticks of a currency, oldest first.
+     *
+     * @param index      {@see int} - The currency index.
+     * @param count      {@see int} - The maximum number of ticks to copy.
+     * @param timestamps {@see long[]} - The array for the timestamps of the ticks.
+     * @param rates      {@see long[]} - The array for the fixed-point rates of the ticks.
+     * @return {@see int} - The number of copied ticks, which is limited by the count, the number
+     * of kept ticks, and the lengths of the arrays.
+     */
+    /* package-private */ synchronized int latest(final int index, final int count,
+                                                  final long[] timestamps, final long[] rates) {
+
+        final Ring ring = ring(index);
+        if (ring == null || count <= 0)
+            return 0;
+        final int copied = Math.min(Math.min(count, ring.size),
+                Math.min(timestamps.length, rates.length));
+        return ring.copy(ring.size - copied, ring.size, timestamps, rates);
+    }
+
+    /**
+     * Copies the ticks of a currency in a time range, oldest first.
+     *
+     * @param index      {@see int} - The currency index.
+     * @param from       {@see long} - The start of the range, inclusive, in epoch milliseconds.
+     * @param to         {@see long} - The end of the range, exclusive, in epoch milliseconds.
+     * @param timestamps {@see long[]} - The array for the timestamps of the ticks.
+     * @param rates      {@see long[]} - The array for the fixed-point rates of the ticks.
+     * @return {@see int} - The number of copied ticks. In case the range has more ticks than the
+     * arrays can hold, the oldest ticks of the range are copied.
+     */
+    /* package-private */ synchronized int range(final int index, final long from, final long to,
+                                                 final long[] timestamps, final long[] rates) {
+
+        final Ring ring = ring(index);
+        if (ring == null || from >= to)
+            return 0;
+        final int start = ring.lowerBound(from);
+        final int end = Math.min(ring.lowerBound(to),
+                start + Math.min(timestamps.length, rates.length));
+        return ring.copy(start, end, timestamps, rates);
+    }
+
+    /**
+     * Computes the minimum, maximum and average rate of a currency in a time range.
+     *
+     * @param index {@see int} - The currency index.
+     * @param from  {@see long} - The start of the range, inclusive, in epoch milliseconds.
+     * @param to    {@see long} - The end of the range, exclusive, in epoch milliseconds.
+     * @param stats {@see Stats} - The reusable statistics to fill.
+     * @return {@see boolean} - True - in case the range has any ticks, False - otherwise.
+     */
+    /* package-private */ synchronized boolean stats(final int index, final long from,
+                                                     final long to, final Stats stats) {
+
+        stats.reset();
+        final Ring ring = ring(index);
+        if (ring == null || from >= to)
+            return false;
+        final int end = ring.lowerBound(to);
+        for (int i = ring.lowerBound(from); i < end; i++) {
+            stats.add(ring.timestampAt(i), ring.rateAt(i));
+        }
+        return stats.getCount() > 0;
+    }
+
+    /* package-private */ long getMemoryCeiling() {
+        return memoryCeiling;
+    }
+
+    /* package-private */ synchronized int getCapacity() {
+        return capacity;
+    }
+
+    /* package-private */ synchronized long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+
+    /* package-private */ synchronized long getDroppedTicks() {
+        return droppedTicks;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "capacity=" + this.capacity + ", allocated=" + this.allocatedBytes
+                + "B, ceiling=" + this.memoryCeiling + "B, dropped=" + this.droppedTicks;
+    }
+
+    private Ring ring(final int index) {
+        return (index >= 0 && index < this.rings.length) ? this.rings[index] : null;
+    }
+
+    /**
+     * The ring buffer of the ticks of one currency. The ticks are addressed by their logical
+     * position, 0 is the oldest kept tick.
+     *
+     * @author Nikola Georgiev
+     * @version 1.0
+     * @since 1.1.0
+     */
+    private static final class Ring {
+
+        private final long[] timestamps;
+        private final long[] rates;
+        private int head;
+        private int size;
+
+        private Ring(final int capacity) {
+            this.timestamps = new long[capacity];
+            this.rates = new long[capacity];
+        }
+
+        private void append(final long timestamp, final long rate) {
+
+            final int capacity = this.timestamps.length;
+            final long last = (this.size > 0) ? timestampAt(this.size - 1) : Long.MIN_VALUE;
+            this.timestamps[this.head] = Math.max(timestamp, last);
+            this.rates[this.head] = rate;
+            this.head = (this.head + 1) % capacity;
+            if (this.size < capacity)
+                this.size++;
+        }
+
+        private int physical(final int position) {
+            final int capacity = this.timestamps.length;
+            return (this.head - this.size + position + capacity) % capacity;
+        }
+
+        private long timestampAt(final int position) {
+            return this.timestamps[physical(position)];
+        }
+
+        private long rateAt(final int position) {
+            return this.rates[physical(position)];
+        }
+
+        /**
+         * Finds the position of the first tick at or after a time.
+         */
+        private int lowerBound(final long timestamp) {
+
+            int low = 0;
+            int high = this.size;
+            while (low < high) {
+                final int middle = (low + high) >>> 1;
+                if (timestampAt(middle) < timestamp) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+
+        private int copy(final int start, final int end, final long[] timestamps, final long[] rates) {
+
+            for (int i = start; i < end; i++) {
+                timestamps[i - start] = timestampAt(i);
+                rates[i - start] = rateAt(i);
+            }
+            return Math.max(end - start, 0);
+        }
+    }
+
+    /**
+     * Reusable statistics of the rates in a time range. The average is accumulated as
+     * {@see double}, as the sum of many fixed-point rates may overflow a long, and is rounded
+     * back to a fixed-point rate.
+     *
+     * @author Nikola Georgiev
+     * @version 1.0
+     * @since 1.1.0
+     */
+    /* package-private */ static final class Stats {
+
+        private int count;
+        private long min;
+        private long max;
+        private double sum;
+        private long firstTimestamp;
+        private long lastTimestamp;
+
+        /* package-private */ Stats() {
+            reset();
+        }
+
+        private void reset() {
+            this.count = 0;
+            this.min = Long.MAX_VALUE;
+            this.max = Long.MIN_VALUE;
+            this.sum = 0;
+            this.firstTimestamp = 0;
+            this.lastTimestamp = 0;
+        }
+
+        private void add(final long timestamp, final long rate) {
+            if (this.count == 0)
+                this.firstTimestamp = timestamp;
+            this.lastTimestamp = timestamp;
+            this.count++;
+            this.min = Math.min(this.min, rate);
+            this.max = Math.max(this.max, rate);
+            this.sum += rate;
+        }
+
+        /* package-private */ int getCount() {
+            return count;
+        }
+
+        /* package-private */ long getMin() {
+            return (count > 0) ? min : 0;
+        }
+
+        /* package-private */ long getMax() {
+            return (count > 0) ? max : 0;
+        }
+
+        /* package-private */ long getAverage() {
+            return (count > 0) ? Math.round(sum / count) : 0;
+        }
+
+        /* package-private */ long getFirstTimestamp() {
+            return firstTimestamp;
+        }
+
+        /* package-private */ long getLastTimestamp() {
+            return lastTimestamp;
+        }
+    }
+}
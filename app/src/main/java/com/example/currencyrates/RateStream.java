@@ -0,0 +1,323 @@
+package com.example.currencyrates;
+
+import android.util.Log;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A publisher of the rates of one or more base currencies, published to the
+ * {@see RatesRepository}, to subscribers, which control the rate of the delivery. A subscriber
+ * receives a {@see RateDelta} only after it has requested it, by {@link Subscription#request(long)},
+ * no sooner than its minimum interval after the previous one, and always on its own
+ * {@see Executor}, one delta at a time. The deltas that arrive in between wait in a bounded queue
+ * of the subscriber:
+ * <ul>
+ * <li>{@link Mode#LATEST} - keeps only the latest delta, so a slow subscriber skips to the newest
+ * rates.</li>
+ * <li>{@link Mode#BUFFER} - keeps up to {@link RateStream#BUFFER_CAPACITY} deltas in order, and
+ * drops the oldest one, when it is full.</li>
+ * </ul>
+ * A skipped delta breaks the version chain, which the subscriber detects by
+ * {@link RateDelta#follows(long)}, so it uses the whole snapshot instead of the changed
+ * currencies. A new subscriber first receives the latest published delta of its base, if any.
+ * <p>
+ * The publishing thread never waits for a subscriber, it only queues the delta and submits the
+ * delivery to the executor of the subscriber, in case no delivery is already pending. The
+ * minimum interval is timed by a shared {@see ScheduledExecutorService}.
+ *
+ * @author Nikola Georgiev
+ * @version 1.0
+ * @since 1.1.0
+ */
+/* package-private */ final class RateStream implements RatesRepository.Listener {
+
+    private static final String TAG = RateStream.class.getSimpleName();
+    /* package-private */ static final int BUFFER_CAPACITY = 16;
+
+    private static final Executor DIRECT_EXECUTOR = new Executor() {
+        @Override
+        public void execute(Runnable command) {
+            command.run();
+        }
+    };
+
+    private final RatesRepository repository;
+    private final ScheduledExecutorService timer;
+    private final CopyOnWriteArrayList<StreamSubscription> subscriptions = new CopyOnWriteArrayList<>();
+
+    /**
+     * The delivery modes of a subscriber, which is slower than the published rates.
+     */
+    /* package-private */ enum Mode {
+        LATEST, BUFFER
+    }
+
+    /**
+     * The main constructor of this class. The stream listens to the repository until it is
+     * closed.
+     *
+     * @param repository {@see RatesRepository} - The repository of the published rates.
+     * @param timer      {@see ScheduledExecutorService} - The timer of the minimum intervals.
+     * @see RateStream#close()
+     */
+    /* package-private */ RateStream(final RatesRepository repository,
+                                     final ScheduledExecutorService timer) {
+        this.repository = repository;
+        this.timer = timer;
+        repository.addListener(this, DIRECT_EXECUTOR);
+    }
+
+    /**
+     * Subscribes to the rates of a base currency. Nothing is delivered until the subscriber
+     * requests it.
+     *
+     * @param base        {@see String} - The 3 letter currency code of the base currency.
+     * @param subscriber  {@see Subscriber} - The subscriber.
+     * @param executor    {@see Executor} - The executor, which calls the subscriber.
+     * @param mode        {@see Mode} - How the deltas wait, while the subscriber is not ready.
+     * @param minInterval {@see long} - The minimum time between two deliveries in milliseconds,
+     *                    or 0 for no limit.
+     * @return {@see Subscription} - The subscription, to request the deltas and to cancel.
+     */
+    /* package-private */ Subscription subscribe(final String base, final Subscriber subscriber,
+                                                 final Executor executor, final Mode mode,
+                                                 final long minInterval) {
+
+        final StreamSubscription subscription = new StreamSubscription(base, subscriber, executor,
+                mode, Math.max(0, minInterval));
+        this.subscriptions.add(subscription);
+        final RateDelta latest = this.repository.getLatest(base);
+        if (latest != null)
+            subscription.offer(latest);
+        return subscription;
+    }
+
+    /**
+     * Queues the published delta to each subscriber of its base.
+     *
+     * @param base  {@see String} - The 3 letter currency code of the base currency.
+     * @param delta {@see RateDelta} - The changed currencies and the new sealed snapshot.
+     */
+    @Override
+    public void onRatesChanged(final String base, final RateDelta delta) {
+        for (final StreamSubscription subscription : this.subscriptions) {
+            if (subscription.base.equals(base))
+                subscription.offer(delta);
+        }
+    }
+
+    /**
+     * Stops listening to the repository and cancels every subscription.
+     */
+    /* package-private */ void close() {
+        this.repository.removeListener(this);
+        for (final StreamSubscription subscription : this.subscriptions) {
+            subscription.cancel();
+        }
+    }
+
+    /* package-private */ int getSubscriberCount() {
+        return this.subscriptions.size();
+    }
+
+    /**
+     * The subscriber of the rates of a base currency.
+     *
+     * @author Nikola Georgiev
+     * @version 1.0
+     * @since 1.1.0
+     */
+    /* package-private */ interface Subscriber {
+
+        /**
+         * Called on the executor of the subscriber for each requested delta.
+         *
+         * @param base  {@see String} - The 3 letter currency code of the base currency.
+         * @param delta {@see RateDelta} - The changed currencies and the new sealed snapshot.
+         */
+        void onNext(String base, RateDelta delta);
+    }
+
+    /**
+     * The subscription of a {@see Subscriber}, which requests the deltas and cancels the delivery.
+     *
+     * @author Nikola Georgiev
+     * @version 1.0
+     * @since 1.1.0
+     */
+    /* package-private */ interface Subscription {
+
+        /**
+         * Requests more deltas, which are added to the outstanding demand.
+         *
+         * @param count {@see long} - The number of deltas, must be positive.
+         */
+        void request(long count);
+
+        /**
+         * Cancels the subscription, so no more deltas are delivered.
+         */
+        void cancel();
+
+        /**
+         * Gets the number of deltas, which were dropped, as the subscriber was not ready.
+         *
+         * @return {@see long} - The number of dropped deltas.
+         */
+        long getDroppedCount();
+    }
+
+    /**
+     * The state of one subscriber: the queue of the waiting deltas, the outstanding demand and the
+     * time of the last delivery. The state is guarded by the subscription itself, the subscriber
+     * is called without holding the lock. At most one delivery is pending at a time, either
+     * submitted to the executor or waiting on the timer.
+     *
+     * @author Nikola Georgiev
+     * @version 1.0
+     * @since 1.1.0
+     */
+    private final class StreamSubscription implements Subscription, Runnable {
+
+        private final String base;
+        private final Subscriber subscriber;
+        private final Executor executor;
+        private final Mode mode;
+        private final long minIntervalNanos;
+        private final ArrayDeque<RateDelta> queue = new ArrayDeque<>();
+        private long demand;
+        private long droppedCount;
+        private long lastDeliveredAt;
+        private boolean delivered;
+        private boolean pending;
+        private boolean cancelled;
+
+        private StreamSubscription(final String base, final Subscriber subscriber,
+                                   final Executor executor, final Mode mode, final long minInterval) {
+            this.base = base;
+            this.subscriber = subscriber;
+            this.executor = executor;
+            this.mode = mode;
+            this.minIntervalNanos = TimeUnit.MILLISECONDS.toNanos(minInterval);
+        }
+
+        private void offer(final RateDelta delta) {
+            synchronized (this) {
+                if (this.cancelled)
+                    return;
+                if (this.mode == Mode.LATEST || this.queue.size() >= BUFFER_CAPACITY) {
+                    final int dropped = (this.mode == Mode.LATEST) ? this.queue.size() : 1;
+                    for (int i = 0; i < dropped; i++) {
+                        this.queue.poll();
+                    }
+                    this.droppedCount += dropped;
+                }
+                this.queue.add(delta);
+            }
+            schedule();
+        }
+
+        @Override
+        public void request(final long count) {
+            if (count <= 0)
+                throw new IllegalArgumentException("The requested count must be positive: " + count);
+            synchronized (this) {
+                this.demand = (this.demand + count < 0) ? Long.MAX_VALUE : this.demand + count;
+            }
+            schedule();
+        }
+
+        @Override
+        public void cancel() {
+            synchronized (this) {
+                this.cancelled = true;
+                this.queue.clear();
+            }
+            RateStream.this.subscriptions.remove(this);
+        }
+
+        @Override
+        public synchronized long getDroppedCount() {
+            return this.droppedCount;
+        }
+
+        /**
+         * Submits a delivery to the executor, in case there is anything to deliver and no delivery
+         * is pending yet.
+         */
+        private void schedule() {
+            synchronized (this) {
+                if (this.pending || this.cancelled || this.demand == 0 || this.queue.isEmpty())
+                    return;
+                this.pending = true;
+            }
+            submit();
+        }
+
+        private void submit() {
+            try {
+                this.executor.execute(this);
+            } catch (RejectedExecutionException exception) {
+                Log.w(TAG, "Cannot deliver the " + this.base + " rates, the executor rejected the task.",
+                        exception);
+                synchronized (this) {
+                    this.pending = false;
+                }
+            }
+        }
+
+        /**
+         * Delivers the deltas on the executor of the subscriber, while there is demand, or waits
+         * on the timer for the rest of the minimum interval.
+         */
+        @Override
+        public void run() {
+            while (true) {
+                final RateDelta delta;
+                synchronized (this) {
+                    if (this.cancelled || this.demand == 0 || this.queue.isEmpty()) {
+                        this.pending = false;
+                        return;
+                    }
+                    final long now = System.nanoTime();
+                    final long wait = this.delivered
+                            ? this.lastDeliveredAt + this.minIntervalNanos - now : 0;
+                    if (wait > 0) {
+                        delay(wait);
+                        return;
+                    }
+                    delta = this.queue.poll();
+                    this.demand--;
+                    this.delivered = true;
+                    this.lastDeliveredAt = now;
+                }
+                this.subscriber.onNext(this.base, delta);
+            }
+        }
+
+        /**
+         * Resubmits the delivery after a delay. The delivery stays pending meanwhile.
+         *
+         * @param nanos {@see long} - The delay in nanoseconds.
+         */
+        private void delay(final long nanos) {
+            try {
+                RateStream.this.timer.schedule(new Runnable() {
+                    @Override
+                    public void run() {
+                        submit();
+                    }
+                }, nanos, TimeUnit.NANOSECONDS);
+            } catch (RejectedExecutionException exception) {
+                Log.w(TAG, "Cannot delay the " + this.base + " rates, the timer is shut down.",
+                        exception);
+                this.pending = false;
+            }
+        }
+    }
+}
@@ -0,0 +1,360 @@
+package com.example.currencyrates;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.util.Arrays;
+
+/**
+ * A flat, index based table of currency rates. Each 3 letter ISO currency code is mapped once to
+ * a fixed small integer index (see {@link RateTable#indexOf(String)}), and the rates are kept in
+ * a primitive array as fixed-point values with {@link RateTable#SCALE} decimal digits, so
+ * filling and reading the table does not box, hash or allocate entry objects. A table is filled
+ * by its producer and then sealed, so the consumers of a tick get a read-only view of it.
+ * <p>
+ * In general a rate is the fraction of its value and the denominator of the table, which is
+ * {@link RateTable#UNIT} for the parsed snapshots. A table derived by the
+ * {@see CrossRateEngine} keeps the rates of the snapshot as they are, over the rate of its new
+ * base, so the derived rates are exact and are divided only once, when they are converted for
+ * the display. The snapshots, which are stored, compared or recorded, are always parsed ones.
+ *
+ * @author Nikola Georgiev
+ * @version 1.0
+ * @since 1.1.0
+ */
+/* package-private */ final class RateTable {
+
+    /* package-private */ static final int MAX_CURRENCIES = 256;
+    /* package-private */ static final int SCALE = 10;
+    /* package-private */ static final long UNIT = 10_000_000_000L;
+    /* package-private */ static final int NO_INDEX = -1;
+    /* package-private */ static final int MAX_DIVISION_SCALE = 18;
+
+    private static final int LETTERS = 26;
+    private static final short[] INDEX_BY_CODE = new short[LETTERS * LETTERS * LETTERS];
+    private static final String[] CODE_BY_INDEX = new String[MAX_CURRENCIES];
+    private static volatile int indexCount;
+
+    private static final long[] POWERS_OF_TEN = new long[MAX_DIVISION_SCALE + 1];
+
+    static {
+        Arrays.fill(INDEX_BY_CODE, (short) NO_INDEX);
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    private final long[] rates = new long[MAX_CURRENCIES];
+    private final long denominator;
+    private int size;
+    private boolean sealed;
+
+    /**
+     * Creates an empty table of fixed-point rates with {@link RateTable#SCALE} decimal digits.
+     */
+    /* package-private */ RateTable() {
+        this(UNIT);
+    }
+
+    /**
+     * Creates an empty table of rates, which are fractions of a common denominator.
+     *
+     * @param denominator {@see long} - The positive denominator of all the rates.
+     */
+    /* package-private */ RateTable(final long denominator) {
+        if (denominator <= 0)
+            throw new IllegalArgumentException("The denominator must be positive.");
+        this.denominator = denominator;
+    }
+
+    /**
+     * Gets the index of a currency code, assigning the next free index to it the first time the
+     * code is seen. Once assigned, the index of a code never changes for the process lifetime.
+     *
+     * @param currencyCode {@see String} - The 3 letter (A-Z) currency code.
+     * @return {@see int} - The index of the currency code. {@link RateTable#NO_INDEX} - in case
+     * the code is not a valid 3 letter code or the table has no more free indexes.
+     */
+    /* package-private */
+    static int indexOf(final String currencyCode) {
+
+        if (currencyCode == null || currencyCode.length() != 3)
+            return NO_INDEX;
+        return indexOf(currencyCode.charAt(0), currencyCode.charAt(1), currencyCode.charAt(2));
+    }
+
+    /**
+     * Gets the index of a currency code given as 3 separate letters, assigning the next free
+     * index to it the first time the code is seen.
+     *
+     * @param first  {@see char} - The first letter of the currency code.
+     * @param second {@see char} - The second letter of the currency code.
+     * @param third  {@see char} - The third letter of the currency code.
+     * @return {@see int} - The index of the currency code, or {@link RateTable#NO_INDEX}.
+     * @see RateTable#indexOf(String)
+     */
+    /* package-private */
+    static int indexOf(final char first, final char second, final char third) {
+
+        final int key = packCode(first, second, third);
+        if (key < 0)
+            return NO_INDEX;
+        final int index = INDEX_BY_CODE[key];
+        if (index != NO_INDEX)
+            return index;
+        synchronized (INDEX_BY_CODE) {
+            if (INDEX_BY_CODE[key] == NO_INDEX) {
+                if (indexCount >= MAX_CURRENCIES)
+                    return NO_INDEX;
+                CODE_BY_INDEX[indexCount] = new String(new char[]{first, second, third});
+                INDEX_BY_CODE[key] = (short) indexCount;
+                indexCount++;
+            }
+            return INDEX_BY_CODE[key];
+        }
+    }
+
+    /**
+     * Gets the currency code, which has been assigned to a specific index.
+     *
+     * @param index {@see int} - The currency index.
+     * @return {@see String} - The 3 letter currency code. NULL - in case the index has not been
+     * assigned yet.
+     */
+    /* package-private */
+    static String codeAt(final int index) {
+
+        if (index < 0 || index >= MAX_CURRENCIES)
+            return null;
+        if (index < indexCount)
+            return CODE_BY_INDEX[index];
+        synchronized (INDEX_BY_CODE) {
+            return CODE_BY_INDEX[index];
+        }
+    }
+
+    /**
+     * Gets the number of the currency codes, which have been assigned an index so far. The codes
+     * are at the indexes from 0 to this number, exclusive.
+     *
+     * @return {@see int} - The number of the assigned indexes.
+     * @see RateTable#codeAt(int)
+     */
+    /* package-private */
+    static int getIndexCount() {
+        return indexCount;
+    }
+
+    /**
+     * Packs 3 upper case letters to a single integer key in the range [0, 26^3).
+     *
+     * @return {@see int} - The packed key, or -1 in case some of the letters is not A-Z.
+     */
+    private static int packCode(final char first, final char second, final char third) {
+
+        if (first < 'A' || first > 'Z' || second < 'A' || second > 'Z' || third < 'A' || third > 'Z')
+            return -1;
+        return ((first - 'A') * LETTERS + (second - 'A')) * LETTERS + (third - 'A');
+    }
+
+    /**
+     * Converts a {@see BigDecimal} rate to a fixed-point value with {@link RateTable#SCALE}
+     * decimal digits, rounding half up.
+     *
+     * @param rate {@see BigDecimal} - The rate that should be converted.
+     * @return {@see long} - The fixed-point value of the rate.
+     * @throws ArithmeticException in case the rate does not fit in a long.
+     */
+    /* package-private */
+    static long toScaled(final BigDecimal rate) {
+        final BigInteger unscaled = rate.setScale(SCALE, RoundingMode.HALF_UP).unscaledValue();
+        /* BigInteger.longValueExact is not available before API 31 */
+        if (unscaled.bitLength() > 63)
+            throw new ArithmeticException("The rate value is too large.");
+        return unscaled.longValue();
+    }
+
+    /**
+     * Divides two longs and returns the quotient as a fixed-point value with a specific number of
+     * decimal digits, rounded half up. The division is done by long division digit by digit, so
+     * no intermediate value overflows.
+     *
+     * @param dividend {@see long} - The non-negative dividend.
+     * @param divisor  {@see long} - The positive divisor.
+     * @param scale    {@see int} - The decimal digits of the quotient, from 0 to
+     *                 {@link RateTable#MAX_DIVISION_SCALE}.
+     * @return {@see long} - The fixed-point quotient.
+     * @throws ArithmeticException in case the dividend is negative, the divisor is not positive,
+     *                             or the quotient does not fit in a long.
+     */
+    /* package-private */
+    static long divide(final long dividend, final long divisor, final int scale) {
+
+        if (dividend < 0 || divisor <= 0)
+            throw new ArithmeticException("Cannot divide " + dividend + " by " + divisor + ".");
+        if (scale < 0 || scale > MAX_DIVISION_SCALE)
+            throw new ArithmeticException("Unsupported quotient scale: " + scale);
+        final long unit = POWERS_OF_TEN[scale];
+        final long integral = dividend / divisor;
+        if (integral > Long.MAX_VALUE / unit)
+            throw new ArithmeticException("The quotient is too large.");
+        long remainder = dividend % divisor;
+        long fraction = 0;
+        for (int digit = 0; digit < scale; digit++) {
+            long next = 0;
+            if (remainder <= Long.MAX_VALUE / 10) {
+                remainder *= 10;
+                next = remainder / divisor;
+                remainder %= divisor;
+            } else {
+                /* Add the remainder 10 times, carrying the divisor, so 10 times it never overflows */
+                long sum = 0;
+                for (int i = 0; i < 10; i++) {
+                    if (sum >= divisor - remainder) {
+                        sum -= divisor - remainder;
+                        next++;
+                    } else {
+                        sum += remainder;
+                    }
+                }
+                remainder = sum;
+            }
+            fraction = fraction * 10 + next;
+        }
+        long quotient = integral * unit;
+        if (quotient > Long.MAX_VALUE - fraction)
+            throw new ArithmeticException("The quotient is too large.");
+        quotient += fraction;
+        if (remainder >= divisor - remainder) {
+            if (quotient == Long.MAX_VALUE)
+                throw new ArithmeticException("The quotient is too large.");
+            quotient++;
+        }
+        return quotient;
+    }
+
+    /**
+     * Sets the rate of the currency at specific index.
+     *
+     * @param index      {@see int} - The currency index.
+     * @param scaledRate {@see long} - The positive fixed-point rate.
+     * @throws IllegalStateException    in case the table has been sealed.
+     * @throws IllegalArgumentException in case the index is not valid, or the rate is not
+     *                                  positive.
+     */
+    /* package-private */ void put(final int index, final long scaledRate) {
+
+        if (this.sealed)
+            throw new IllegalStateException("The rate table is sealed and cannot be modified.");
+        if (index < 0 || index >= MAX_CURRENCIES)
+            throw new IllegalArgumentException("Invalid currency index: " + index);
+        if (scaledRate <= 0)
+            throw new IllegalArgumentException("The rate of " + codeAt(index)
+                    + " must be positive, but is " + scaledRate);
+        if (this.rates[index] == 0)
+            this.size++;
+        this.rates[index] = scaledRate;
+    }
+
+    /**
+     * Sets the rate of a specific currency. A code, which is not a valid 3 letter code, is
+     * skipped, the same way the {@see RatesStreamParser} skips it.
+     *
+     * @param currencyCode {@see String} - The 3 letter currency code.
+     * @param rate         {@see BigDecimal} - The positive currency rate.
+     * @throws IllegalStateException    in case the table has been sealed.
+     * @throws IllegalArgumentException in case the rate is not positive.
+     * @throws ArithmeticException      in case the rate does not fit in a long.
+     */
+    /* package-private */ void put(final String currencyCode, final BigDecimal rate) {
+        final int index = indexOf(currencyCode);
+        if (rate != null && index != NO_INDEX) {
+            put(index, toScaled(rate));
+        }
+    }
+
+    /**
+     * Gets the fixed-point rate of the currency at specific index, i.e. the numerator of its
+     * rate over the denominator of the table.
+     *
+     * @param index {@see int} - The currency index.
+     * @return {@see long} - The fixed-point rate, or 0 in case the table has no rate for it.
+     * @see RateTable#getDenominator()
+     */
+    /* package-private */ long get(final int index) {
+        return (index >= 0 && index < MAX_CURRENCIES) ? this.rates[index] : 0;
+    }
+
+    /**
+     * Gets the rate of the currency at specific index as {@see BigDecimal}. The rate of a derived
+     * table is rounded to {@see MathContext#DECIMAL64}, in case it is not a finite decimal.
+     *
+     * @param index {@see int} - The currency index.
+     * @return {@see BigDecimal} - The rate, or NULL in case the table has no rate for it.
+     */
+    /* package-private */ BigDecimal getDecimal(final int index) {
+        final long rate = get(index);
+        if (rate <= 0)
+            return null;
+        if (this.denominator == UNIT)
+            return BigDecimal.valueOf(rate, SCALE);
+        return BigDecimal.valueOf(rate).divide(BigDecimal.valueOf(this.denominator),
+                MathContext.DECIMAL64);
+    }
+
+    /**
+     * Gets the common denominator of the rates, which is {@link RateTable#UNIT} for a table of
+     * fixed-point rates with {@link RateTable#SCALE} decimal digits.
+     *
+     * @return {@see long} - The positive denominator.
+     */
+    /* package-private */ long getDenominator() {
+        return this.denominator;
+    }
+
+    /* package-private */ boolean contains(final int index) {
+        return get(index) > 0;
+    }
+
+    /* package-private */ int size() {
+        return this.size;
+    }
+
+    /* package-private */ boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    /**
+     * Iterates over the table without allocation. Use it as
+     * {@code for (int i = table.next(0); i >= 0; i = table.next(i + 1))}.
+     *
+     * @param from {@see int} - The first index to check.
+     * @return {@see int} - The first index at or after {@param from} that has a rate, or
+     * {@link RateTable#NO_INDEX} in case there is no such index.
+     */
+    /* package-private */ int next(final int from) {
+
+        for (int index = Math.max(from, 0); index < MAX_CURRENCIES; index++) {
+            if (this.rates[index] > 0)
+                return index;
+        }
+        return NO_INDEX;
+    }
+
+    /**
+     * Seals the table, so it cannot be modified anymore, and can be safely handed to the
+     * consumers of the current tick.
+     *
+     * @return {@see RateTable} - This table.
+     */
+    /* package-private */ RateTable seal() {
+        this.sealed = true;
+        return this;
+    }
+
+    /* package-private */ boolean isSealed() {
+        return this.sealed;
+    }
+}
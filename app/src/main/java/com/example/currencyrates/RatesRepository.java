@@ -0,0 +1,212 @@
+package com.example.currencyrates;
+
+import android.util.Log;
+
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Process-wide repository of the latest currency rates of each base currency. The
+ * {@see CurrencyRatesService} publishes every accepted {@see RateDelta} here, instead of
+ * serializing it into a broadcast {@see android.content.Intent}. The deltas and their sealed
+ * snapshots are immutable, so they are shared by reference: the latest one of each base is kept
+ * in an atomic reference, which any thread can read without locking or copying, together with
+ * the time it was published at, as the repository outlives the service, so a reader can tell
+ * how old the latest rates are.
+ * <p>
+ * The listeners are kept in a copy-on-write list, so publishing iterates them without locking,
+ * while registering and unregistering, which are rare, copy the list. Each listener is called on
+ * the {@see Executor} it was registered with, in the order of publishing, as long as that
+ * executor runs its tasks in order. A listener that has been removed is not called anymore, even
+ * by the tasks, which were already submitted to its executor.
+ *
+ * @author Nikola Georgiev
+ * @version 1.0
+ * @since 1.1.0
+ */
+/* package-private */ final class RatesRepository {
+
+    private static final String TAG = RatesRepository.class.getSimpleName();
+    private static final RatesRepository INSTANCE = new RatesRepository();
+
+    private final AtomicReferenceArray<Published> latest =
+            new AtomicReferenceArray<>(RateTable.MAX_CURRENCIES);
+    private final CopyOnWriteArrayList<Registration> registrations = new CopyOnWriteArrayList<>();
+
+    /**
+     * The constructor of this class, the service and the clients share the instance of
+     * {@link RatesRepository#getInstance()}.
+     */
+    /* package-private */ RatesRepository() {
+    }
+
+    /**
+     * Gets the repository of the process.
+     *
+     * @return {@see RatesRepository} - The single instance.
+     */
+    /* package-private */ static RatesRepository getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Publishes the latest rates of a base currency and notifies every listener on its executor.
+     *
+     * @param base  {@see String} - The 3 letter currency code of the base currency.
+     * @param delta {@see RateDelta} - The changed currencies and the new sealed snapshot.
+     */
+    /* package-private */ void publish(final String base, final RateDelta delta) {
+        publish(base, delta, System.currentTimeMillis());
+    }
+
+    /**
+     * Publishes the latest rates of a base currency at a specific time and notifies every
+     * listener on its executor.
+     *
+     * @param base        {@see String} - The 3 letter currency code of the base currency.
+     * @param delta       {@see RateDelta} - The changed currencies and the new sealed snapshot.
+     * @param publishedAt {@see long} - The time of publishing in epoch milliseconds.
+     */
+    /* package-private */ void publish(final String base, final RateDelta delta,
+                                       final long publishedAt) {
+
+        final int index = RateTable.indexOf(base);
+        if (index == RateTable.NO_INDEX || delta == null)
+            return;
+        this.latest.set(index, new Published(delta, publishedAt));
+        for (final Registration registration : this.registrations) {
+            registration.notify(base, delta);
+        }
+    }
+
+    /**
+     * Gets the latest published rates of a base currency, without locking.
+     *
+     * @param base {@see String} - The 3 letter currency code of the base currency.
+     * @return {@see RateDelta} - The latest delta, whose snapshot holds all the rates, or NULL in
+     * case nothing has been published for the base yet.
+     */
+    /* package-private */ RateDelta getLatest(final String base) {
+        final Published published = getPublished(base);
+        return (published != null) ? published.delta : null;
+    }
+
+    /**
+     * Gets the time the latest rates of a base currency were published at.
+     *
+     * @param base {@see String} - The 3 letter currency code of the base currency.
+     * @return {@see long} - The time of publishing in epoch milliseconds, or 0 in case nothing
+     * has been published for the base yet.
+     */
+    /* package-private */ long getPublishedAt(final String base) {
+        final Published published = getPublished(base);
+        return (published != null) ? published.publishedAt : 0;
+    }
+
+    private Published getPublished(final String base) {
+        final int index = RateTable.indexOf(base);
+        return (index != RateTable.NO_INDEX) ? this.latest.get(index) : null;
+    }
+
+    /**
+     * Registers a listener of the published rates. A listener, which is already registered, is
+     * not registered again.
+     *
+     * @param listener {@see Listener} - The listener.
+     * @param executor {@see Executor} - The executor, which calls the listener.
+     */
+    /* package-private */ synchronized void addListener(final Listener listener, final Executor executor) {
+
+        for (final Registration registration : this.registrations) {
+            if (registration.listener == listener)
+                return;
+        }
+        this.registrations.add(new Registration(listener, executor));
+    }
+
+    /**
+     * Unregisters a listener of the published rates.
+     *
+     * @param listener {@see Listener} - The listener.
+     */
+    /* package-private */ synchronized void removeListener(final Listener listener) {
+
+        for (final Registration registration : this.registrations) {
+            if (registration.listener == listener) {
+                registration.active = false;
+                this.registrations.remove(registration);
+            }
+        }
+    }
+
+    /**
+     * The listener of the published rates.
+     *
+     * @author Nikola Georgiev
+     * @version 1.0
+     * @since 1.1.0
+     */
+    /* package-private */ interface Listener {
+
+        /**
+         * Called on the executor of the listener, when new rates of a base currency are published.
+         *
+         * @param base  {@see String} - The 3 letter currency code of the base currency.
+         * @param delta {@see RateDelta} - The changed currencies and the new sealed snapshot.
+         */
+        void onRatesChanged(String base, RateDelta delta);
+    }
+
+    /**
+     * The latest delta of a base currency with the time it was published at.
+     *
+     * @author Nikola Georgiev
+     * @version 1.0
+     * @since 1.1.0
+     */
+    private static final class Published {
+
+        private final RateDelta delta;
+        private final long publishedAt;
+
+        private Published(final RateDelta delta, final long publishedAt) {
+            this.delta = delta;
+            this.publishedAt = publishedAt;
+        }
+    }
+
+    /**
+     * A registered listener with its executor.
+     *
+     * @author Nikola Georgiev
+     * @version 1.0
+     * @since 1.1.0
+     */
+    private static final class Registration {
+
+        private final Listener listener;
+        private final Executor executor;
+        private volatile boolean active = true;
+
+        private Registration(final Listener listener, final Executor executor) {
+            this.listener = listener;
+            this.executor = executor;
+        }
+
+        private void notify(final String base, final RateDelta delta) {
+            try {
+                this.executor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (Registration.this.active)
+                            Registration.this.listener.onRatesChanged(base, delta);
+                    }
+                });
+            } catch (RejectedExecutionException exception) {
+                Log.w(TAG, "Cannot notify a rates listener, its executor rejected the task.", exception);
+            }
+        }
+    }
+}
@@ -0,0 +1,371 @@
+package com.example.currencyrates;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+
+/**
+ * A streaming, pull-style parser of the rates API payload. It reads the response bytes directly
+ * from the {@see InputStream} and fills a {@see RateTable} with the values of the "rates" object,
+ * without building an intermediate {@see String} of the body or a JSON DOM. The currency codes are
+ * mapped to their indexes from the raw bytes and the numbers are converted to fixed-point values
+ * digit by digit, so no objects are allocated per currency. Every other member of the payload is
+ * skipped. The parser does not log, the error of a rejected payload is kept for the caller, see
+ * {@link RatesStreamParser#getLastError()}. NOTE: One instance reuses its read buffer between
+ * calls, so it must not be used by more than one thread at the same time.
+ *
+ * @author Nikola Georgiev
+ * @version 1.0
+ * @since 1.1.0
+ */
+/* package-private */ final class RatesStreamParser {
+
+    private static final int BUFFER_SIZE = 8192;
+    private static final int MAX_NUMBER_LENGTH = 64;
+    private static final byte[] RATES_NODE = {'r', 'a', 't', 'e', 's'};
+
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private final char[] number = new char[MAX_NUMBER_LENGTH];
+    private InputStream in;
+    private int position;
+    private int limit;
+    private Exception lastError;
+
+    /**
+     * Parses the rates payload from a stream. The stream is read up to the end of the top level
+     * JSON object, it is not closed by this method.
+     *
+     * @param in {@see InputStream} - The response body stream.
+     * @return {@see RateTable} - Returns sealed table of the currency rates. It will return an
+     * empty table, in case the payload is malformed, truncated, has a rate which is not
+     * positive, or doesn't have the required data.
+     */
+    /* package-private */ RateTable parse(final InputStream in) {
+
+        if (in == null) {
+            return new RateTable().seal();
+        }
+        this.in = in;
+        this.position = 0;
+        this.limit = 0;
+        this.lastError = null;
+        try {
+            final RateTable ratesTable = new RateTable();
+            readDocument(ratesTable);
+            return ratesTable.seal();
+        } catch (IOException | IllegalArgumentException | ArithmeticException e) {
+            this.lastError = e;
+        } finally {
+            this.in = null;
+        }
+        return new RateTable().seal();
+    }
+
+    /**
+     * Gets the error, which made the last parse return an empty table.
+     *
+     * @return {@see Exception} - The error of the last parse, or NULL in case it succeeded.
+     */
+    /* package-private */ Exception getLastError() {
+        return lastError;
+    }
+
+    /**
+     * Reads the top level object and the "rates" member of it.
+     */
+    private void readDocument(final RateTable ratesTable) throws IOException {
+
+        expect('{', nextToken());
+        int token = nextToken();
+        if (token == '}')
+            return;
+        while (true) {
+            expect('"', token);
+            final boolean isRates = readKeyEquals(RATES_NODE);
+            expect(':', nextToken());
+            if (isRates) {
+                readRates(ratesTable);
+            } else {
+                skipValue(nextToken());
+            }
+            token = nextToken();
+            if (token == '}')
+                return;
+            expect(',', token);
+            token = nextToken();
+        }
+    }
+
+    /**
+     * Reads the "rates" object and puts each currency code and rate pair to the table. Members
+     * with keys that are not 3 letter codes are skipped. A "rates" value, which is not an
+     * object (e.g. null), results in an empty table.
+     */
+    private void readRates(final RateTable ratesTable) throws IOException {
+
+        int token = nextToken();
+        if (token != '{') {
+            skipValue(token);
+            return;
+        }
+        token = nextToken();
+        if (token == '}')
+            return;
+        while (true) {
+            expect('"', token);
+            final int index = readCurrencyKey();
+            expect(':', nextToken());
+            token = nextToken();
+            if (index == RateTable.NO_INDEX) {
+                skipValue(token);
+            } else {
+                ratesTable.put(index, readRate(token));
+            }
+            token = nextToken();
+            if (token == '}')
+                return;
+            expect(',', token);
+            token = nextToken();
+        }
+    }
+
+    /**
+     * Reads a string key, after its opening quote, and checks whether it equals to an expected
+     * ASCII key.
+     */
+    private boolean readKeyEquals(final byte[] expected) throws IOException {
+
+        boolean equals = true;
+        int length = 0;
+        int b;
+        while ((b = read()) != '"') {
+            if (b == '\\') {
+                skipEscape();
+                equals = false;
+            } else if (length >= expected.length || b != expected[length]) {
+                equals = false;
+            }
+            length++;
+        }
+        return equals && length == expected.length;
+    }
+
+    /**
+     * Reads a currency code key, after its opening quote, and gets the index of it.
+     *
+     * @return {@see int} - The currency index, or {@link RateTable#NO_INDEX} in case the key is
+     * not a 3 letter currency code.
+     */
+    private int readCurrencyKey() throws IOException {
+
+        char first = 0;
+        char second = 0;
+        char third = 0;
+        boolean valid = true;
+        int length = 0;
+        int b;
+        while ((b = read()) != '"') {
+            if (b == '\\') {
+                skipEscape();
+                valid = false;
+            } else if (length == 0) {
+                first = (char) b;
+            } else if (length == 1) {
+                second = (char) b;
+            } else if (length == 2) {
+                third = (char) b;
+            }
+            length++;
+        }
+        return (valid && length == 3) ? RateTable.indexOf(first, second, third) : RateTable.NO_INDEX;
+    }
+
+    /**
+     * Reads a rate value, either a JSON number or a string with a number, as fixed-point value.
+     */
+    private long readRate(final int first) throws IOException {
+
+        int length = 0;
+        if (first == '"') {
+            int b;
+            while ((b = read()) != '"') {
+                if (b == '\\' || length >= MAX_NUMBER_LENGTH)
+                    throw new NumberFormatException("Invalid rate value.");
+                this.number[length++] = (char) b;
+            }
+        } else {
+            this.number[length++] = (char) first;
+            int b;
+            while (isNumberPart(b = peek())) {
+                if (length >= MAX_NUMBER_LENGTH)
+                    throw new NumberFormatException("The rate value is too long.");
+                this.number[length++] = (char) b;
+                this.position++;
+            }
+        }
+        return toScaled(this.number, length);
+    }
+
+    /**
+     * Converts the characters of a decimal number to a fixed-point value with
+     * {@link RateTable#SCALE} decimal digits, rounding half up. Numbers with exponent are
+     * converted through {@see BigDecimal}, as they are not expected in the payload.
+     *
+     * @throws NumberFormatException in case the characters are not a valid number.
+     */
+    private static long toScaled(final char[] chars, final int length) {
+
+        long unscaled = 0;
+        int fractionDigits = 0;
+        int digits = 0;
+        boolean fraction = false;
+        boolean roundUp = false;
+        int i = (length > 0 && (chars[0] == '-' || chars[0] == '+')) ? 1 : 0;
+        final boolean negative = i == 1 && chars[0] == '-';
+        for (; i < length; i++) {
+            final char c = chars[i];
+            if (c >= '0' && c <= '9') {
+                digits++;
+                if (!fraction || fractionDigits < RateTable.SCALE) {
+                    if (unscaled > (Long.MAX_VALUE - 9) / 10)
+                        throw new ArithmeticException("The rate value is too large.");
+                    unscaled = unscaled * 10 + (c - '0');
+                    if (fraction)
+                        fractionDigits++;
+                } else if (fractionDigits == RateTable.SCALE) {
+                    roundUp = c >= '5';
+                    fractionDigits++;
+                }
+            } else if (c == '.' && !fraction) {
+                fraction = true;
+            } else if (c == 'e' || c == 'E') {
+                return RateTable.toScaled(new BigDecimal(chars, 0, length));
+            } else {
+                throw new NumberFormatException("Invalid rate value.");
+            }
+        }
+        if (digits == 0)
+            throw new NumberFormatException("Invalid rate value.");
+        for (int scale = Math.min(fractionDigits, RateTable.SCALE); scale < RateTable.SCALE; scale++) {
+            if (unscaled > Long.MAX_VALUE / 10)
+                throw new ArithmeticException("The rate value is too large.");
+            unscaled *= 10;
+        }
+        if (roundUp)
+            unscaled++;
+        return negative ? -unscaled : unscaled;
+    }
+
+    /**
+     * Skips a JSON value of any type, starting with its first token.
+     */
+    private void skipValue(final int first) throws IOException {
+
+        if (first == '"') {
+            skipString();
+        } else if (first == '{' || first == '[') {
+            int depth = 1;
+            while (depth > 0) {
+                final int b = read();
+                if (b == '"') {
+                    skipString();
+                } else if (b == '{' || b == '[') {
+                    depth++;
+                } else if (b == '}' || b == ']') {
+                    depth--;
+                }
+            }
+        } else if (isNumberPart(first) || (first >= 'a' && first <= 'z')) {
+            int b;
+            while (isNumberPart(b = peek()) || (b >= 'a' && b <= 'z')) {
+                this.position++;
+            }
+        } else {
+            throw malformed(first);
+        }
+    }
+
+    /**
+     * Skips a string, after its opening quote.
+     */
+    private void skipString() throws IOException {
+        int b;
+        while ((b = read()) != '"') {
+            if (b == '\\')
+                skipEscape();
+        }
+    }
+
+    /**
+     * Skips an escape sequence, after its backslash.
+     */
+    private void skipEscape() throws IOException {
+        if (read() == 'u') {
+            for (int i = 0; i < 4; i++) {
+                read();
+            }
+        }
+    }
+
+    private static boolean isNumberPart(final int b) {
+        return (b >= '0' && b <= '9') || b == '.' || b == '-' || b == '+' || b == 'e' || b == 'E';
+    }
+
+    private static boolean isWhitespace(final int b) {
+        return b == ' ' || b == '\n' || b == '\r' || b == '\t';
+    }
+
+    private static IOException malformed(final int token) {
+        return new IOException("Malformed rates payload, unexpected character: " + (char) token);
+    }
+
+    private static void expect(final char expected, final int token) throws IOException {
+        if (token != expected)
+            throw malformed(token);
+    }
+
+    /**
+     * Reads the next byte, which is not a whitespace.
+     */
+    private int nextToken() throws IOException {
+        int b;
+        do {
+            b = read();
+        } while (isWhitespace(b));
+        return b;
+    }
+
+    /**
+     * Reads the next byte from the buffer, filling it from the stream when needed.
+     *
+     * @throws EOFException in case the stream ends, as the payload is truncated then.
+     */
+    private int read() throws IOException {
+        final int b = peek();
+        if (b < 0)
+            throw new EOFException("Truncated rates payload.");
+        this.position++;
+        return b;
+    }
+
+    /**
+     * Gets the next byte from the buffer without consuming it.
+     *
+     * @return {@see int} - The next byte, or -1 in case the stream has ended.
+     */
+    private int peek() throws IOException {
+        if (this.position >= this.limit) {
+            this.position = 0;
+            this.limit = 0;
+            int count;
+            do {
+                count = this.in.read(this.buffer, 0, this.buffer.length);
+            } while (count == 0);
+            if (count < 0)
+                return -1;
+            this.limit = count;
+        }
+        return this.buffer[this.position] & 0xFF;
+    }
+}
@@ -1,20 +1,21 @@
 package com.example.currencyrates;
 
 import android.app.Activity;
-import android.content.BroadcastReceiver;
 import android.content.ComponentName;
 import android.content.Context;
 import android.content.Intent;
-import android.content.IntentFilter;
 import android.content.ServiceConnection;
-import android.content.res.Resources;
 import android.database.DataSetObserver;
 import android.graphics.Bitmap;
 import android.graphics.BitmapFactory;
 import android.net.Uri;
 import android.os.AsyncTask;
 import android.os.Bundle;
+import android.os.Handler;
 import android.os.IBinder;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.text.format.DateUtils;
 import android.util.Log;
 import android.view.KeyEvent;
 import android.view.LayoutInflater;
@@ -28,24 +29,24 @@ import android.widget.ListView;
 import android.widget.ProgressBar;
 import android.widget.TextView;
 
+import androidx.appcompat.app.ActionBar;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.appcompat.widget.Toolbar;
-import androidx.core.content.res.ResourcesCompat;
-import androidx.localbroadcastmanager.content.LocalBroadcastManager;
 
 import com.github.kevinsawicki.http.HttpRequest;
 
 import org.apache.commons.lang3.StringUtils;
-import org.apache.commons.lang3.Validate;
 
+import java.io.BufferedInputStream;
+import java.io.IOException;
 import java.io.InputStream;
-import java.io.Serializable;
 import java.math.BigDecimal;
-import java.util.AbstractMap;
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 
 import butterknife.BindView;
 import butterknife.ButterKnife;
@@ -63,17 +64,43 @@ public class ScrollingActivity extends AppCompatActivity implements ICurrencyRat
     public static final String REVOLUT_BASE_URL = "https://revolut.duckdns.org/latest?base=";
     public static final String COUNTRY_FLAGS_API_URL = "https://www.countryflags.io/";
     public static final String ICON_TYPE_AND_SIZE = "/shiny/64.png";
+    public static final String SNAPSHOT_BASE_CURRENCY = "EUR";
 
     private static final BigDecimal DEFAULT_MULTIPLIER = BigDecimal.ONE;
-    private static final BigDecimal DEFAULT_QUANTITY = BigDecimal.ONE;
+    private static final long DEFAULT_QUANTITY = RateTable.UNIT;
+    /* The rates not published for longer than the longest polling interval are not being polled */
+    private static final long STALE_PUBLISHED_RATES_AGE =
+            AdaptivePollingPolicy.MAX_FRESHNESS_INTERVAL;
 
+    private final TransferStats flagTransferStats = new TransferStats();
     private List<CurrencyModel> currenciesList = new LinkedList<>();
-    private BroadcastReceiver dataReceiver;
+    private final CurrencyModel[] currencyModels = new CurrencyModel[RateTable.MAX_CURRENCIES];
+    private long ratesVersion = RateDelta.NO_VERSION;
+    private RateStream.Subscriber ratesSubscriber;
+    private RateStream.Subscription ratesSubscription;
+    private Executor mainThreadExecutor;
     private ServiceConnection serviceConnection;
     private CurrencyRatesService currencyRatesService;
     private CurrenciesListAdapter listAdapter;
+    private CrossRateEngine crossRateEngine;
+    private RateConverter rateConverter;
+    private CurrencyModelBuilder modelBuilder;
+    private CurrencyMetadata currencyMetadata;
+    private IconIndex iconIndex;
+    private FlagDownloadManager flagDownloads;
+    private FlagBitmapCache flagBitmaps;
+    private ScheduledExecutorService flagRetryTimer;
+    //The assets lane of the bound service, resolved on the main thread for the flag downloads
+    private volatile Executor assetsLane;
     private boolean isServiceBound;
+    private boolean isStarted;
+    //The service is bound only once the saved snapshot has been read, before any network call
+    private boolean isSnapshotLoaded;
+    private boolean isActivityDestroyed;
     private boolean isListLoaded;
+    private boolean isShowingStaleRates;
+    private RateDelta staleDelta;
+    private final long createdAt = SystemClock.elapsedRealtime();
     private BigDecimal multiplier = DEFAULT_MULTIPLIER;
     private String baseCurrency = "EUR";
     private View listHeader;
@@ -101,17 +128,30 @@ public class ScrollingActivity extends AppCompatActivity implements ICurrencyRat
         super.setContentView(R.layout.activity_scrolling);
         ButterKnife.bind(this);
 
-        /* Register to receive broadcast messages. We are registering an observer (dataReceiver) to receive Intents  with actions named "currency-rates". */
-        initDataReceiver();
+        final boolean fixedPoint = super.getResources().getBoolean(R.bool.fixed_point_conversion);
+        this.rateConverter = new RateConverter(fixedPoint ?
+                RateConverter.Mode.FIXED_POINT : RateConverter.Mode.EXACT);
+        this.rateConverter.setMultiplier(this.multiplier);
+        this.currencyMetadata = CurrencyMetadata.getInstance(this);
+        this.iconIndex = IconIndex.getInstance(this);
+        this.modelBuilder = new CurrencyModelBuilder(this.rateConverter, createCurrencyAssets());
+
+        /* Create the subscriber (ratesSubscriber) of the published rates, which is called on the main thread, once the service is bound. */
+        initRatesSubscriber();
+        initFlagDownloads();
 
         final Toolbar toolbar = super.findViewById(R.id.toolbar);
         super.setSupportActionBar(toolbar);
 
         this.listAdapter = new CurrenciesListAdapter(this, this.currenciesList);
+        this.listAdapter.setIconCache(this.flagBitmaps);
         this.listAdapter.registerDataSetObserver(createListDataObserver());
         this.listView.setAdapter(this.listAdapter);
         this.listView.setDescendantFocusability(ViewGroup.FOCUS_BEFORE_DESCENDANTS);
         this.listView.setItemsCanFocus(true);
+
+        /* Show the last known rates, before the first poll of the service completes */
+        loadSavedSnapshot();
     }
 
     /**
@@ -130,9 +170,10 @@ public class ScrollingActivity extends AppCompatActivity implements ICurrencyRat
     @Override
     protected void onStart() {
         super.onStart();
-        /* Bind to CurrencyRatesService */
-        initServiceConnection();
-        startService();
+        this.isStarted = true;
+        /* Bind to CurrencyRatesService, unless the saved snapshot is still being read */
+        if (this.isSnapshotLoaded)
+            bindRatesService();
     }
 
     /**
@@ -152,10 +193,38 @@ public class ScrollingActivity extends AppCompatActivity implements ICurrencyRat
     @Override
     protected void onStop() {
         super.onStop();
+        this.isStarted = false;
+        unsubscribeFromRates();
         if (this.isServiceBound) {
             unbindService(this.serviceConnection);
         }
         this.isServiceBound = false;
+        this.assetsLane = null;
+    }
+
+    /**
+     * Stops the pending flag downloads and their retry timer.
+     *
+     * @see #onStop
+     */
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        this.isActivityDestroyed = true;
+        this.flagDownloads.close();
+        this.flagRetryTimer.shutdownNow();
+    }
+
+    /**
+     * Releases the decoded flag icons, depending on the memory pressure.
+     *
+     * @param level The context of the trim, giving a hint of the amount of trimming the
+     *              application may like to perform.
+     */
+    @Override
+    public void onTrimMemory(int level) {
+        super.onTrimMemory(level);
+        this.flagBitmaps.onTrimMemory(level);
     }
 
     /**
@@ -224,45 +293,11 @@ public class ScrollingActivity extends AppCompatActivity implements ICurrencyRat
         return super.onOptionsItemSelected(item);
     }
 
-    /**
-     * Perform any final cleanup before an activity is destroyed.  This can
-     * happen either because the activity is finishing (someone called
-     * {@link #finish} on it, or because the system is temporarily destroying
-     * this instance of the activity to save space.  You can distinguish
-     * between these two scenarios with the {@link #isFinishing} method.
-     *
-     * <p><em>Note: do not count on this method being called as a place for
-     * saving data! For example, if an activity is editing data in a content
-     * provider, those edits should be committed in either {@link #onPause} or
-     * {@link #onSaveInstanceState}, not here.</em> This method is usually implemented to
-     * free resources like threads that are associated with an activity, so
-     * that a destroyed activity does not leave such things around while the
-     * rest of its application is still running.  There are situations where
-     * the system will simply kill the activity's hosting process without
-     * calling this method (or any others) in it, so it should not be used to
-     * do things that are intended to remain around after the process goes
-     * away.
-     *
-     * <p><em>Derived classes must call through to the super class's
-     * implementation of this method.  If they do not, an exception will be
-     * thrown.</em></p>
-     *
-     * @see #onPause
-     * @see #onStop
-     * @see #finish
-     * @see #isFinishing
-     */
-    @Override
-    protected void onDestroy() {
-        final LocalBroadcastManager localBroadcastManager = LocalBroadcastManager.getInstance(this);
-        /* Unregister the data receiver, because the activity is about to be closed. */
-        localBroadcastManager.unregisterReceiver(this.dataReceiver);
-        super.onDestroy();
-    }
-
     /**
      * Changes the base currency with the currency at a specified position in the currency list.
-     * Then restarts the service and scrolls to the 0 index of the {@see ListView}.
+     * Then derives the rates for the new base from the last snapshot, using the
+     * {@see CrossRateEngine}, and scrolls to the 0 index of the {@see ListView}. The service keeps
+     * polling the same snapshot base, so no new API call is needed.
      *
      * @param currencyCode {@see String} - The currency code of clicked list item.
      */
@@ -270,10 +305,10 @@ public class ScrollingActivity extends AppCompatActivity implements ICurrencyRat
     public void changeBaseCurrency(final String currencyCode) {
 
         if (StringUtils.isNotEmpty(currencyCode)) {
-            super.unbindService(this.serviceConnection);
             this.baseCurrency = currencyCode;
-            this.multiplier = getDefaultCurrencyMultiplier(currencyCode);
-            startService();
+            this.multiplier = this.currencyMetadata.getDefaultMultiplier(currencyCode);
+            this.rateConverter.setMultiplier(this.multiplier);
+            refreshCurrencyRates(null);
             this.listView.smoothScrollToPosition(0);
             replaceListHeader();
         }
@@ -297,6 +332,8 @@ public class ScrollingActivity extends AppCompatActivity implements ICurrencyRat
                 final BigDecimal input = new BigDecimal(v.getText().toString());
                 if (BigDecimal.ZERO.compareTo(input) < 0) {
                     multiplier = input;
+                    rateConverter.setMultiplier(input);
+                    refreshCurrencyRates(null);
                     /* Hide the software keyboard after multiplier is set. */
                     final Object inputService = super.getSystemService(Activity.INPUT_METHOD_SERVICE);
                     if (inputService instanceof InputMethodManager) {
@@ -352,54 +389,228 @@ public class ScrollingActivity extends AppCompatActivity implements ICurrencyRat
                 final CurrencyRatesService.LocalBinder binder = (CurrencyRatesService.LocalBinder) service;
                 currencyRatesService = binder.getService();
                 isServiceBound = true;
+                assetsLane = currencyRatesService.getAssetsLane();
+                subscribeToRates(currencyRatesService);
             }
 
             @Override
             public void onServiceDisconnected(ComponentName arg0) {
                 isServiceBound = false;
+                assetsLane = null;
+                unsubscribeFromRates();
             }
         };
     }
 
     /**
-     * Call this method in order to create {@see Intent} with the URL as extra, based on the base
-     * currency, and start the service.
+     * Binds the {@see CurrencyRatesService} with a new {@see ServiceConnection}.
+     */
+    private void bindRatesService() {
+        initServiceConnection();
+        startService();
+    }
+
+    /**
+     * Call this method in order to create {@see Intent} with the URL as extra, based on the
+     * snapshot base currency, and start the service. The rates for any other base currency are
+     * derived from this snapshot.
+     *
+     * @see CrossRateEngine
      */
     private void startService() {
 
         final Intent intent = new Intent(this, CurrencyRatesService.class);
-        intent.putExtra(CurrencyRatesService.URL_KEY, REVOLUT_BASE_URL + this.baseCurrency);
+        intent.putExtra(CurrencyRatesService.URL_KEY, REVOLUT_BASE_URL);
+        intent.putExtra(CurrencyRatesService.BASE_CURRENCY_KEY, SNAPSHOT_BASE_CURRENCY);
         super.bindService(intent, this.serviceConnection, Context.BIND_AUTO_CREATE);
     }
 
     /**
-     * Initializing the data receiver as {@see BroadcastReceiver} and implementing its callbacks.
-     * When the data receiver receives a serialized data as extra, it parses it to a list of
-     * {@see CurrenciesListAdapter.CurrencyModel} and calls the
-     * {@link ScrollingActivity#updateListAdapterData(List)} method in order to update the list
-     * using this data.
+     * Initializing the rates subscriber as {@see RateStream.Subscriber}, which is called on the
+     * main thread. The subscriber requests one {@see RateDelta} at a time, only the latest one is
+     * kept while the list is being updated, so the main looper never queues up deltas. When the
+     * subscriber receives a {@see RateDelta}, it keeps its snapshot as the current
+     * {@see CrossRateEngine} snapshot and calls the
+     * {@link ScrollingActivity#refreshCurrencyRates(RateDelta)} method in order to update the
+     * changed currencies in the list, and then requests the next one. The snapshot is shared
+     * with the service by reference, so nothing is copied.
      */
-    private void initDataReceiver() {
+    private void initRatesSubscriber() {
 
-        // Our handler for received Intents. This will be called whenever an Intent with an action named "currency-rates" is broadcast.
-        this.dataReceiver = new BroadcastReceiver() {
+        final Handler handler = new Handler(Looper.getMainLooper());
+        this.mainThreadExecutor = new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                handler.post(command);
+            }
+        };
+        this.ratesSubscriber = new RateStream.Subscriber() {
 
             @Override
-            public void onReceive(Context context, Intent intent) {
-
-                // Get extra data included in the Intent
-                final Serializable extra = intent.getSerializableExtra(CurrencyRatesService.CURRENCY_RATES_KEY);
-                if (extra instanceof Map) {
-                    final Map<String, BigDecimal> dataMap = (Map) extra;
-                    final List<CurrencyModel> currencyRates = parseCurrencyRates(dataMap);
-                    if (!currencyRates.isEmpty()) {
-                        updateListAdapterData(currencyRates);
-                    }
+            public void onNext(String base, RateDelta delta) {
+
+                crossRateEngine = new CrossRateEngine(SNAPSHOT_BASE_CURRENCY, delta.getSnapshot());
+                if (delta != staleDelta) {
+                    //The stream starts with the latest published delta, which is not fresher
+                    staleDelta = null;
+                    setStaleRates(0);
                 }
+                refreshCurrencyRates(delta);
+                if (ratesSubscription != null)
+                    ratesSubscription.request(1);
             }
         };
-        LocalBroadcastManager.getInstance(this).registerReceiver(this.dataReceiver,
-                new IntentFilter(CurrencyRatesService.BROADCAST_KEY));
+    }
+
+    /**
+     * Subscribes to the rates of the snapshot base currency, published by the bound service.
+     *
+     * @param service {@see CurrencyRatesService} - The bound service.
+     */
+    private void subscribeToRates(final CurrencyRatesService service) {
+
+        unsubscribeFromRates();
+        this.ratesSubscription = service.getRateStream().subscribe(SNAPSHOT_BASE_CURRENCY,
+                this.ratesSubscriber, this.mainThreadExecutor, RateStream.Mode.LATEST, 0);
+        this.ratesSubscription.request(1);
+    }
+
+    /**
+     * Cancels the subscription to the rates, if any.
+     */
+    private void unsubscribeFromRates() {
+        if (this.ratesSubscription != null) {
+            this.ratesSubscription.cancel();
+            this.ratesSubscription = null;
+        }
+    }
+
+    /**
+     * Shows the rates already published to the {@see RatesRepository} in this process, if any,
+     * otherwise loads the snapshot saved by the {@see CurrencyRatesService} on the previous run,
+     * if any, and shows its rates marked as stale, until the service publishes fresh rates. The
+     * published rates are marked as stale as well, in case they are older than the longest
+     * polling interval, as the repository outlives the service. The snapshot file is read on the
+     * default {@see AsyncTask} executor, so the main thread does no disk I/O, and the result is
+     * posted back to the main thread. The service is bound only once the snapshot is shown, so
+     * the saved rates never overwrite the fresh ones.
+     *
+     * @see SnapshotStore
+     */
+    private void loadSavedSnapshot() {
+
+        final RatesRepository repository = RatesRepository.getInstance();
+        final RateDelta published = repository.getLatest(SNAPSHOT_BASE_CURRENCY);
+        if (published != null) {
+            //The service has already published rates in this process, maybe long ago
+            final long publishedAt = repository.getPublishedAt(SNAPSHOT_BASE_CURRENCY);
+            this.crossRateEngine = new CrossRateEngine(SNAPSHOT_BASE_CURRENCY, published.getSnapshot());
+            refreshCurrencyRates(published);
+            if (System.currentTimeMillis() - publishedAt > STALE_PUBLISHED_RATES_AGE) {
+                this.staleDelta = published;
+                setStaleRates(publishedAt);
+            }
+            onSnapshotLoaded(null);
+            return;
+        }
+        final SnapshotStore store = SnapshotStore.in(this);
+        AsyncTask.THREAD_POOL_EXECUTOR.execute(new Runnable() {
+            @Override
+            public void run() {
+                SnapshotStore.Snapshot snapshot = null;
+                try {
+                    snapshot = store.read();
+                } catch (IOException exception) {
+                    Log.w(TAG, "Ignoring the rates snapshot " + store.getFile(), exception);
+                }
+                final SnapshotStore.Snapshot saved = snapshot;
+                mainThreadExecutor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        onSnapshotLoaded(saved);
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Shows the rates of the saved snapshot, if any, and binds the service, in case the activity
+     * is started. NOTE: Must be called on the main thread.
+     *
+     * @param snapshot {@see SnapshotStore.Snapshot} - The saved snapshot, or NULL in case there is
+     *                 none, or the published rates are shown instead.
+     */
+    private void onSnapshotLoaded(final SnapshotStore.Snapshot snapshot) {
+
+        if (this.isActivityDestroyed)
+            return;
+        this.isSnapshotLoaded = true;
+        if (snapshot != null && !snapshot.getRates().isEmpty()
+                && SNAPSHOT_BASE_CURRENCY.equals(snapshot.getBase())) {
+            this.crossRateEngine = new CrossRateEngine(snapshot.getBase(), snapshot.getRates());
+            refreshCurrencyRates(null);
+            setStaleRates(snapshot.getSavedAt());
+            Log.i(TAG, "Showing the saved rates from " + snapshot.getSavedAt() + " after "
+                    + (SystemClock.elapsedRealtime() - this.createdAt) + "ms");
+        }
+        if (this.isStarted)
+            bindRatesService();
+    }
+
+    /**
+     * Marks the shown rates as stale in the toolbar subtitle, or clears the mark.
+     *
+     * @param savedAt {@see long} - The time the shown rates were saved at, in epoch milliseconds,
+     *                or 0 in case the rates are fresh.
+     */
+    private void setStaleRates(final long savedAt) {
+
+        if (savedAt == 0 && !this.isShowingStaleRates)
+            return;
+        this.isShowingStaleRates = savedAt > 0;
+        final ActionBar actionBar = super.getSupportActionBar();
+        if (actionBar != null) {
+            actionBar.setSubtitle(this.isShowingStaleRates ? super.getString(R.string.stale_rates,
+                    DateUtils.getRelativeTimeSpanString(savedAt)) : null);
+        }
+    }
+
+    /**
+     * Derives the rates for the current base currency from the last received snapshot, parses
+     * them to a list of {@see CurrencyModel} and updates the list using this data. Only the models
+     * of the changed currencies are rebuilt, in case the delta follows the last applied version
+     * and the rate of the base currency itself has not changed. It does nothing in case no
+     * snapshot has been received yet. The model build is timed by the {@see PipelineMetrics},
+     * the bind of the rows is timed by the list adapter.
+     *
+     * @param delta {@see RateDelta} - The received delta, or NULL to rebuild all the models, e.g.
+     *              after the base currency or the multiplier has changed.
+     * @see CrossRateEngine#rebase(String)
+     */
+    private void refreshCurrencyRates(final RateDelta delta) {
+
+        final boolean partial = CurrencyModelBuilder.isPartialUpdate(delta, this.ratesVersion,
+                this.baseCurrency);
+        if (delta != null) {
+            this.ratesVersion = delta.getVersion();
+        }
+        if (!partial) {
+            Arrays.fill(this.currencyModels, null);
+        }
+        if (this.crossRateEngine == null) {
+            return;
+        }
+        final PipelineMetrics metrics = PipelineMetrics.getInstance();
+        final long start = metrics.start();
+        final RateTable ratesTable = this.crossRateEngine.rebase(this.baseCurrency);
+        final List<CurrencyModel> currencyRates = this.modelBuilder.buildAll(ratesTable,
+                partial ? delta : null, this.currencyModels);
+        metrics.record(PipelineMetrics.Stage.MODEL_BUILD, start);
+        if (!currencyRates.isEmpty()) {
+            //The rows are bound later, by the layout pass, see CurrenciesListAdapter#getView
+            updateListAdapterData(currencyRates);
+        }
     }
 
     /**
@@ -426,8 +637,8 @@ public class ScrollingActivity extends AppCompatActivity implements ICurrencyRat
     }
 
     /**
-     * Creates header view based on a specific inflated layout, loads data as
-     * {@see AbstractMap.SimpleEntry}, and sets listeners to it.
+     * Creates header view based on a specific inflated layout, loads the base currency data, and
+     * sets listeners to it.
      *
      * @return {@see View} - Returns header view.
      */
@@ -439,9 +650,7 @@ public class ScrollingActivity extends AppCompatActivity implements ICurrencyRat
         final CurrenciesListAdapter.ListItem listHeader =
                 this.listAdapter.createListHeader(headerView, getFocusChangeListener());
 
-        final Map.Entry<String, BigDecimal> baseCurrency =
-                new AbstractMap.SimpleEntry<>(this.baseCurrency, DEFAULT_QUANTITY);
-        listHeader.setValues(buildCurrencyModel(baseCurrency));
+        listHeader.setValues(this.modelBuilder.build(this.baseCurrency, DEFAULT_QUANTITY));
         headerView.setTag(listHeader);
         return headerView;
     }
@@ -472,26 +681,6 @@ public class ScrollingActivity extends AppCompatActivity implements ICurrencyRat
         };
     }
 
-    /**
-     * This method converts a map with {@see BigDecimal} values to {@see ArrayList} of
-     * {@see CurrenciesListAdapter.CurrencyModel} items.
-     *
-     * @param dataMap {@see Map} - A map of currency rates as {@see BigDecimal} using their
-     *                currency codes as key.
-     * @return {@see List} - Returns {@see ArrayList} of {@see CurrenciesListAdapter.CurrencyModel}.
-     * In case te map is empty or has null pointer, this method will return an empty list.
-     */
-    private List<CurrencyModel> parseCurrencyRates(final Map<String, BigDecimal> dataMap) {
-
-        final List<CurrencyModel> currencies = new ArrayList<>();
-        if (dataMap != null && !dataMap.isEmpty()) {
-            for (final Map.Entry<String, BigDecimal> entry : dataMap.entrySet()) {
-                currencies.add(buildCurrencyModel(entry));
-            }
-        }
-        return currencies;
-    }
-
     /**
      * Find the current header in the {@see ListView} and replaces it with newly created header
      * {@see View}.
@@ -536,82 +725,104 @@ public class ScrollingActivity extends AppCompatActivity implements ICurrencyRat
     }
 
     /**
-     * Converts {@see Map.Entry} of {@see String} and {@see BigDecimal} pair to a
-     * {@see CurrenciesListAdapter.CurrencyModel}. The map entry key is the currency code and the map
-     * entry value is the currency rate.
+     * Creates the provider of the icons, the names and the minor units of the currencies for the
+     * {@see CurrencyModelBuilder}, which downloads the missing icons and reads the rest from the
+     * {@see CurrencyMetadata} registry.
      *
-     * @param entry {@see Map.Entry} - A map entry of {@see String} and {@see BigDecimal} pair.
-     * @return {@see CurrenciesListAdapter.CurrencyModel} - Returns currency model based on the map entry.
+     * @return {@see CurrencyModelBuilder.CurrencyAssets} - The assets of this activity.
      */
-    private CurrencyModel buildCurrencyModel(final Map.Entry<String, BigDecimal> entry) {
+    private CurrencyModelBuilder.CurrencyAssets createCurrencyAssets() {
+        return new CurrencyModelBuilder.CurrencyAssets() {
+            @Override
+            public Uri getIconUri(String currencyCode) {
+                return ScrollingActivity.this.getIconUri(currencyCode);
+            }
 
-        Validate.notNull(entry, "Currency entry should NOT have Null Pointer. ");
+            @Override
+            public String getName(String currencyCode) {
+                return ScrollingActivity.this.currencyMetadata.getName(currencyCode);
+            }
 
-        final String currencyCode = entry.getKey();
-        final Uri iconUri = getIconUri(currencyCode);
-        final String currencyName = getStringByResId(currencyCode);
-        final BigDecimal currencyRate = this.multiplier.multiply(entry.getValue());
-        return new CurrencyModel(iconUri, currencyCode, currencyName, currencyRate);
+            @Override
+            public int getMinorUnits(String currencyCode) {
+                return ScrollingActivity.this.currencyMetadata.getMinorUnits(currencyCode);
+            }
+        };
     }
 
     /**
-     * Downloads country icon picture based on a 3 letter currency code. This currency code will
-     * be converted to a 2 letter country code and used as parameter into the RESTful request to
-     * the API.
+     * Downloads country icon picture based on a 3 letter currency code, in case the
+     * {@see IconIndex} does not have it yet. This currency code will be converted to a 2 letter
+     * country code and used as parameter into the RESTful request to the API.
      *
      * @param currencyCode {@see String} - A 3 letter currency code that will used to download an
      *                     icon for.
      * @return {@see Uri} - The image icon file {@see Uri} in the internal device memory.
-     * @see ImageFileDownloader
-     * @see FileUtils
+     * @see FlagDownloadManager
+     * @see IconIndex
      */
     private Uri getIconUri(String currencyCode) {
 
-        final String iconUrl = buildCountryIconUrlByCurrencyCode(currencyCode);
-        if (!FileUtils.isFileExisting(this, currencyCode)) {
-            new ImageFileDownloader(iconUrl, currencyCode).execute();
+        if (!this.iconIndex.contains(currencyCode)) {
+            final String iconUrl = buildCountryIconUrlByCurrencyCode(currencyCode);
+            this.flagDownloads.request(currencyCode, iconUrl);
         }
-        return FileUtils.getIconUri(this, currencyCode);
+        return this.iconIndex.getUri(currencyCode);
     }
 
     /**
-     * Gets currency name based on the 3 letter currency code. All the currency names are suppose
-     * to be added into the String resources of this package and the string resource names should
-     * be the currency code.
-     *
-     * @param currencyCode {@see String} - A 3 letter currency code that will used to get a
-     *                     currency name for.
-     * @return {@see String} - The currency name based on the 3 letter currency code.
+     * Creates the {@see FlagDownloadManager}, which downloads the missing icons on the assets lane
+     * of the bound {@see CurrencyRatesService}, so they do not delay the rates polls, or on the
+     * default {@see AsyncTask} executor, in case the service is not bound yet. The lane is resolved
+     * on the main thread, when the service binds, as the downloads are started on the retry timer
+     * thread as well. Once an icon is stored, it is added to the {@see IconIndex} and the rows
+     * showing it are updated. The icons are decoded once into the {@see FlagBitmapCache}, which
+     * the list rows are bound from.
      */
-    private String getStringByResId(final String currencyCode) {
+    private void initFlagDownloads() {
+
+        final Executor worker = new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                final Executor lane = assetsLane;
+                ((lane != null) ? lane : AsyncTask.THREAD_POOL_EXECUTOR).execute(command);
+            }
+        };
+        this.flagRetryTimer = Executors.newSingleThreadScheduledExecutor(
+                new NetworkLane.LaneThreadFactory("flag-retry"));
+        this.flagDownloads = new FlagDownloadManager(new FlagFetcher(), worker,
+                this.mainThreadExecutor, this.flagRetryTimer, new FlagDownloadManager.Listener() {
+            @Override
+            public void onFlagReady(String currencyCode) {
+                iconIndex.markPresent(currencyCode);
+                flagBitmaps.invalidate(currencyCode);
+                refreshIcons(currencyCode);
+            }
 
-        final Resources res = super.getResources();
-        final int nameId = res.getIdentifier(currencyCode, "string", super.getPackageName());
-        final String currencyName = (nameId > 0) ? res.getString(nameId) : null;
-        return StringUtils.isEmpty(currencyName) ? currencyCode : currencyName;
+            @Override
+            public void onFlagFailed(String currencyCode, String url, int attempts) {
+                Log.w(TAG, "Giving up the icon from URL: " + url + " after " + attempts
+                        + " attempts.");
+            }
+        });
+        this.flagBitmaps = new FlagBitmapCache(AsyncTask.THREAD_POOL_EXECUTOR,
+                this.mainThreadExecutor, new FlagBitmapCache.Listener() {
+            @Override
+            public void onBitmapDecoded(String currencyCode) {
+                refreshIcons(currencyCode);
+            }
+        });
     }
 
     /**
-     * Gets currency multiplier based on the 3 letter currency code. All the currency names are
-     * suppose to be added into the dimen.xml resources of this package and the resource item
-     * names should be the currency code.
+     * Updates the icon of the list rows and the list header, which show a currency.
      *
-     * @param currencyCode {@see String} - A 3 letter currency code that will used to get the
-     *                                  default currency multiplier for.
-     * @return {@see BigDecimal} - The default currency multiplier based on the 3 letter currency code.
-     * @since 1.0.3
+     * @param currencyCode {@see String} - The 3 letter currency code.
      */
-    private BigDecimal getDefaultCurrencyMultiplier(final String currencyCode) {
-
-        final Resources res = super.getResources();
-        final int resIdentifier = res.getIdentifier(currencyCode, "dimen", super.getPackageName());
-        try {
-            final float defaultValue = ResourcesCompat.getFloat(super.getResources(), resIdentifier);
-            return new BigDecimal(defaultValue);
-        } catch (NumberFormatException | Resources.NotFoundException e) {
-            Log.w(TAG, "Cannot find the default multiplier for: " + currencyCode, e);
-        }
-        return BigDecimal.ZERO;
+    private void refreshIcons(final String currencyCode) {
+        this.listAdapter.refreshIcon(currencyCode);
+        if (this.listHeader != null && this.listHeader.getTag() instanceof CurrenciesListAdapter.ListItem)
+            ((CurrenciesListAdapter.ListItem) this.listHeader.getTag()).refreshIcon(currencyCode);
     }
 
     /**
@@ -623,89 +834,70 @@ public class ScrollingActivity extends AppCompatActivity implements ICurrencyRat
      */
     private String buildCountryIconUrlByCurrencyCode(final String currencyCode) {
 
-        if (StringUtils.isBlank(currencyCode) || currencyCode.length() < 2) {
+        final String flagKey = this.currencyMetadata.getFlagKey(currencyCode);
+        if (flagKey == null) {
             return null;
         }
-        return StringUtils.join(COUNTRY_FLAGS_API_URL, currencyCode.substring(0, 2).toLowerCase(), ICON_TYPE_AND_SIZE);
+        return StringUtils.join(COUNTRY_FLAGS_API_URL, flagKey, ICON_TYPE_AND_SIZE);
     }
 
     /**
-     * A class that extends the {@see AsyncTask} to provide ability to download file
-     * asynchronously using {@see HttpRequest}. This {@see AsyncTask} downloads the image file
-     * and converts it to {@see Bitmap} image, then stores it into the temporary internal app
-     * storage.
+     * Downloads an icon on a worker thread using {@see HttpRequest}, compressed in case the server
+     * supports it, converts it to {@see Bitmap} image, then stores it into the temporary internal
+     * app storage.
      *
      * @author Nikola Georgiev
      * @version 1.0
      * @see FileUtils#saveTempBitmap(Context, Bitmap, String)
-     * @since 1.0.0
+     * @since 1.1.0
      */
-    /* package-private */ class ImageFileDownloader extends AsyncTask<String, Long, Bitmap> {
-
-        private final String url;
-        private final String fileName;
+    /* package-private */ class FlagFetcher implements FlagDownloadManager.Fetcher {
 
         /**
-         * The main constructor of the class.
+         * Downloads and stores an icon.
          *
-         * @param url      {@see String} - The image URL, which will be downloaded.
          * @param fileName {@see String} - The image filename, which will be used to store the
          *                 image file.
+         * @param url      {@see String} - The image URL, which will be downloaded.
+         * @return {@see boolean} - True in case the icon is stored, False otherwise.
          */
-        /* package-private */ ImageFileDownloader(final String url, final String fileName) {
-            this.url = url;
-            this.fileName = fileName;
+        @Override
+        public boolean fetch(final String fileName, final String url) {
+
+            final Bitmap bitmap = download(url);
+            if (bitmap == null) {
+                Log.w(TAG, "Download failed: " + url);
+                return false;
+            }
+            Log.i(TAG, "Downloaded file from URL: " + url
+                    + ", flag transfer stats: " + ScrollingActivity.this.flagTransferStats);
+            return FileUtils.saveTempBitmap(ScrollingActivity.this, bitmap, fileName) != null;
         }
 
-        /**
-         * Override this method to perform a computation on a background thread. The
-         * specified parameters are the parameters passed to {@link #execute}
-         * by the caller of this task.
-         * <p>
-         * This method can call {@link #publishProgress} to publish updates
-         * on the UI thread.
-         *
-         * @param urls The parameters of the task.
-         * @return A result, defined by the subclass of this task.
-         * @see #onPreExecute()
-         * @see #onPostExecute
-         * @see #publishProgress
-         */
-        @Override
-        protected Bitmap doInBackground(String... urls) {
+        private Bitmap download(final String url) {
 
             try {
-                final HttpRequest request = HttpRequest.get(this.url);
+                final HttpRequest request = HttpRequest.get(url);
                 //Accept all certificates
                 request.trustAllCerts();
-                InputStream inputStream = null;
-                if (request.ok()) {
-                    inputStream = request.buffer();
+                request.acceptGzipEncoding();
+                if (!request.ok()) {
+                    return null;
                 }
-                return BitmapFactory.decodeStream(inputStream);
-            } catch (HttpRequest.HttpRequestException exception) {
+                final InputStream inputStream = new BufferedInputStream(
+                        TransferStreams.openBody(request, ScrollingActivity.this.flagTransferStats));
+                try {
+                    return BitmapFactory.decodeStream(inputStream);
+                } finally {
+                    try {
+                        inputStream.close();
+                    } catch (IOException e) {
+                        Log.w(TAG, "Cannot close the response stream for URL: " + url, e);
+                    }
+                }
+            } catch (HttpRequest.HttpRequestException | IOException exception) {
                 return null;
             }
         }
-
-        /**
-         * <p>Runs on the UI thread after {@link #doInBackground}. The
-         * specified result is the value returned by {@link #doInBackground}.</p>
-         *
-         * <p>This method won't be invoked if the task was cancelled.</p>
-         *
-         * @param bitmap The result of the operation computed by {@link #doInBackground}.
-         * @see #onPreExecute
-         * @see #doInBackground
-         * @see #onCancelled()
-         */
-        @Override
-        protected void onPostExecute(Bitmap bitmap) {
-            if (bitmap != null) {
-                Log.i(TAG, "Downloaded file from URL: " + ImageFileDownloader.this.url);
-                FileUtils.saveTempBitmap(ScrollingActivity.this, bitmap, ImageFileDownloader.this.fileName);
-            } else
-                Log.w(TAG, "Download failed.");
-        }
     }
 }
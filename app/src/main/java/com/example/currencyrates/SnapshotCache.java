@@ -0,0 +1,147 @@
+package com.example.currencyrates;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Thread-safe cache of the last downloaded rates snapshot of each base currency, with a time to
+ * live per entry. The entries are kept in an array by the base currency index, so a read is a
+ * single volatile load and never blocks. An expired entry is still returned, marked as not fresh,
+ * so a consumer can show it immediately and wait for the next poll of that base.
+ *
+ * @author Nikola Georgiev
+ * @version 1.0
+ * @since 1.1.0
+ */
+/* package-private */ final class SnapshotCache {
+
+    private final long defaultTtl;
+    private final AtomicReferenceArray<Entry> entries =
+            new AtomicReferenceArray<>(RateTable.MAX_CURRENCIES);
+
+    /**
+     * The main constructor of this class.
+     *
+     * @param defaultTtl {@see long} - The time to live of an entry in milliseconds, used in case
+     *                   the response gives no freshness lifetime.
+     */
+    /* package-private */ SnapshotCache(final long defaultTtl) {
+        this.defaultTtl = defaultTtl;
+    }
+
+    /**
+     * Puts the downloaded snapshot of a base currency.
+     *
+     * @param base      {@see String} - The 3 letter currency code of the base currency.
+     * @param rates     {@see RateTable} - The sealed rates against the base currency.
+     * @param fetchedAt {@see long} - The time of the download in epoch milliseconds.
+     * @param freshness {@see long} - The freshness lifetime of the response in milliseconds.
+     */
+    /* package-private */ void put(final String base, final RateTable rates, final long fetchedAt,
+                                   final long freshness) {
+
+        final int index = RateTable.indexOf(base);
+        if (index != RateTable.NO_INDEX && rates != null) {
+            this.entries.set(index, new Entry(base, rates, fetchedAt,
+                    fetchedAt + ttl(freshness)));
+        }
+    }
+
+    /**
+     * Extends the life of the snapshot of a base currency, which was revalidated as not modified.
+     *
+     * @param base        {@see String} - The 3 letter currency code of the base currency.
+     * @param validatedAt {@see long} - The time of the revalidation in epoch milliseconds.
+     * @param freshness   {@see long} - The freshness lifetime of the response in milliseconds.
+     */
+    /* package-private */ void touch(final String base, final long validatedAt, final long freshness) {
+
+        final int index = RateTable.indexOf(base);
+        if (index == RateTable.NO_INDEX)
+            return;
+        final Entry entry = this.entries.get(index);
+        if (entry != null) {
+            this.entries.compareAndSet(index, entry, new Entry(base, entry.rates, validatedAt,
+                    validatedAt + ttl(freshness)));
+        }
+    }
+
+    /**
+     * Gets the cached snapshot of a base currency, even if it has expired.
+     *
+     * @param base {@see String} - The 3 letter currency code of the base currency.
+     * @return {@see Entry} - The cached snapshot, or NULL in case the base has not been
+     * downloaded yet.
+     */
+    /* package-private */ Entry get(final String base) {
+        final int index = RateTable.indexOf(base);
+        return (index != RateTable.NO_INDEX) ? this.entries.get(index) : null;
+    }
+
+    /**
+     * Removes the entries, which have expired before a specific time.
+     *
+     * @param before {@see long} - The time in epoch milliseconds.
+     * @return {@see int} - The number of removed entries.
+     */
+    /* package-private */ int evictExpired(final long before) {
+
+        int evicted = 0;
+        for (int i = 0; i < this.entries.length(); i++) {
+            final Entry entry = this.entries.get(i);
+            if (entry != null && entry.expiresAt < before && this.entries.compareAndSet(i, entry, null))
+                evicted++;
+        }
+        return evicted;
+    }
+
+    /**
+     * Gets the time to live of an entry: the freshness lifetime of the response, even if it is
+     * shorter than the default, or the default in case the response gives none.
+     */
+    private long ttl(final long freshness) {
+        return (freshness > 0) ? freshness : this.defaultTtl;
+    }
+
+    /**
+     * A cached snapshot of one base currency.
+     *
+     * @author Nikola Georgiev
+     * @version 1.0
+     * @since 1.1.0
+     */
+    /* package-private */ static final class Entry {
+
+        private final String base;
+        private final RateTable rates;
+        private final long fetchedAt;
+        private final long expiresAt;
+
+        private Entry(final String base, final RateTable rates, final long fetchedAt,
+                      final long expiresAt) {
+            this.base = base;
+            this.rates = rates;
+            this.fetchedAt = fetchedAt;
+            this.expiresAt = expiresAt;
+        }
+
+        /* package-private */ String getBase() {
+            return base;
+        }
+
+        /* package-private */ RateTable getRates() {
+            return rates;
+        }
+
+        /* package-private */ long getFetchedAt() {
+            return fetchedAt;
+        }
+
+        /* package-private */ long getExpiresAt() {
+            return expiresAt;
+        }
+
+        /* package-private */ boolean isFresh(final long now) {
+            return now < expiresAt;
+        }
+    }
+}
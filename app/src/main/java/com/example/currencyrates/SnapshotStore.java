@@ -0,0 +1,222 @@
+package com.example.currencyrates;
+
+import android.content.Context;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Persists the last accepted rates snapshot to a compact binary file in the app's files dir, so
+ * the GUI can show the last known rates on a cold start, before any network call completes. The
+ * file layout, all numbers big-endian, is:
+ * <pre>
+ * int   magic            0x52415445 ("RATE")
+ * short format version   {@link SnapshotStore#FORMAT_VERSION}
+ * byte  scale            {@link RateTable#SCALE}
+ * 3 x byte base currency code
+ * long  saved at         epoch milliseconds
+ * short count
+ * count x (3 x byte currency code, long fixed-point rate)
+ * long  CRC32 of all the previous bytes
+ * </pre>
+ * The file is written to a temporary file first, synced, and then renamed over the previous one,
+ * so a reader never sees a partially written snapshot. Files with unknown version or scale, or
+ * with a wrong checksum, are rejected with an {@see IOException}, which the callers log, so the
+ * store itself does not depend on the Android logging.
+ *
+ * @author Nikola Georgiev
+ * @version 1.0
+ * @since 1.1.0
+ */
+/* package-private */ final class SnapshotStore {
+
+    /* package-private */ static final String FILE_NAME = "rates_snapshot.bin";
+    /* package-private */ static final int MAGIC = 0x52415445;
+    /* package-private */ static final short FORMAT_VERSION = 1;
+
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final int CODE_LENGTH = 3;
+
+    private final File file;
+
+    /**
+     * The main constructor of this class.
+     *
+     * @param file {@see File} - The snapshot file.
+     */
+    /* package-private */ SnapshotStore(final File file) {
+        this.file = file;
+    }
+
+    /**
+     * Creates a store of the snapshot file in the app's files dir.
+     *
+     * @param context {@see Context} - The base application context.
+     * @return {@see SnapshotStore} - The store of the app's snapshot.
+     */
+    /* package-private */
+    static SnapshotStore in(final Context context) {
+        return new SnapshotStore(new File(context.getFilesDir(), FILE_NAME));
+    }
+
+    /* package-private */ File getFile() {
+        return file;
+    }
+
+    /**
+     * Writes a snapshot atomically, replacing the previous one.
+     *
+     * @param snapshot {@see Snapshot} - The snapshot that should be saved.
+     * @return {@see boolean} - True - in case the snapshot is saved, False - in case it has no
+     * valid base currency.
+     * @throws IOException In case the snapshot cannot be saved. The temporary file is deleted,
+     *                     the previous snapshot is kept.
+     */
+    /* package-private */ boolean write(final Snapshot snapshot) throws IOException {
+
+        if (snapshot == null || RateTable.indexOf(snapshot.getBase()) == RateTable.NO_INDEX)
+            return false;
+
+        final File temp = new File(this.file.getPath() + TEMP_SUFFIX);
+        boolean saved = false;
+        try {
+            final FileOutputStream fos = new FileOutputStream(temp);
+            try {
+                final CheckedOutputStream checked =
+                        new CheckedOutputStream(new BufferedOutputStream(fos), new CRC32());
+                final DataOutputStream out = new DataOutputStream(checked);
+                final RateTable rates = snapshot.getRates();
+                out.writeInt(MAGIC);
+                out.writeShort(FORMAT_VERSION);
+                out.writeByte(RateTable.SCALE);
+                writeCode(out, snapshot.getBase());
+                out.writeLong(snapshot.getSavedAt());
+                out.writeShort(rates.size());
+                for (int i = rates.next(0); i >= 0; i = rates.next(i + 1)) {
+                    writeCode(out, RateTable.codeAt(i));
+                    out.writeLong(rates.get(i));
+                }
+                out.flush();
+                out.writeLong(checked.getChecksum().getValue());
+                out.flush();
+                fos.getFD().sync();
+            } finally {
+                fos.close();
+            }
+            if (!temp.renameTo(this.file)) {
+                throw new IOException("Cannot rename " + temp + " to " + this.file);
+            }
+            saved = true;
+            return true;
+        } finally {
+            if (!saved) {
+                //Best effort, a left over temporary file is overwritten by the next write
+                temp.delete();
+            }
+        }
+    }
+
+    /**
+     * Reads the saved snapshot.
+     *
+     * @return {@see Snapshot} - The saved snapshot with sealed rates. NULL - in case there is no
+     * snapshot.
+     * @throws IOException In case the file cannot be read, or it is not a valid snapshot.
+     */
+    /* package-private */ Snapshot read() throws IOException {
+
+        if (!this.file.isFile())
+            return null;
+        final CheckedInputStream checked = new CheckedInputStream(
+                new BufferedInputStream(new FileInputStream(this.file)), new CRC32());
+        final DataInputStream in = new DataInputStream(checked);
+        try {
+            if (in.readInt() != MAGIC || in.readShort() != FORMAT_VERSION
+                    || in.readByte() != RateTable.SCALE) {
+                throw new IOException("Unknown format of the rates snapshot " + this.file);
+            }
+            final String base = readCode(in);
+            final long savedAt = in.readLong();
+            final int count = in.readUnsignedShort();
+            final RateTable rates = new RateTable();
+            for (int i = 0; i < count; i++) {
+                final int index = RateTable.indexOf(readCode(in));
+                final long rate = in.readLong();
+                if (rate <= 0)
+                    throw new IOException("Invalid rate " + rate + " in " + this.file);
+                if (index != RateTable.NO_INDEX)
+                    rates.put(index, rate);
+            }
+            final long checksum = checked.getChecksum().getValue();
+            if (in.readLong() != checksum) {
+                throw new IOException("Wrong checksum of the rates snapshot " + this.file);
+            }
+            return new Snapshot(base, rates.seal(), savedAt);
+        } finally {
+            in.close();
+        }
+    }
+
+    private static void writeCode(final DataOutputStream out, final String code) throws IOException {
+        for (int i = 0; i < CODE_LENGTH; i++) {
+            out.writeByte(code.charAt(i));
+        }
+    }
+
+    private static String readCode(final DataInputStream in) throws IOException {
+        final char[] code = new char[CODE_LENGTH];
+        for (int i = 0; i < CODE_LENGTH; i++) {
+            code[i] = (char) in.readUnsignedByte();
+        }
+        return new String(code);
+    }
+
+    /**
+     * A saved rates snapshot: the rates against a base currency and the time they were saved at.
+     *
+     * @author Nikola Georgiev
+     * @version 1.0
+     * @since 1.1.0
+     */
+    /* package-private */ static final class Snapshot {
+
+        private final String base;
+        private final RateTable rates;
+        private final long savedAt;
+
+        /**
+         * The main constructor of this class.
+         *
+         * @param base    {@see String} - The 3 letter currency code of the base currency.
+         * @param rates   {@see RateTable} - The sealed rates against the base currency.
+         * @param savedAt {@see long} - The time the rates were accepted at, in epoch
+         *                milliseconds.
+         */
+        /* package-private */ Snapshot(final String base, final RateTable rates, final long savedAt) {
+            this.base = base;
+            this.rates = rates;
+            this.savedAt = savedAt;
+        }
+
+        /* package-private */ String getBase() {
+            return base;
+        }
+
+        /* package-private */ RateTable getRates() {
+            return rates;
+        }
+
+        /* package-private */ long getSavedAt() {
+            return savedAt;
+        }
+    }
+}
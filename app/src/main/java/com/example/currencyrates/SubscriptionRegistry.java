@@ -0,0 +1,108 @@
+package com.example.currencyrates;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * The subscribed base currencies of the {@see CurrencyRatesService}, one {@see BaseSubscription}
+ * per base, which counts the consumers of that base. The first consumer of a base creates its
+ * subscription and the last one removes it, so a base subscribed again gets a new subscription,
+ * and the results of the polls of the previous one can be told apart by
+ * {@link SubscriptionRegistry#isCurrent(BaseSubscription)}. NOTE: Must be used on the main thread.
+ *
+ * @author Nikola Georgiev
+ * @version 1.0
+ * @since 1.1.0
+ */
+/* package-private */ final class SubscriptionRegistry {
+
+    private final Map<String, BaseSubscription> subscriptions = new HashMap<>();
+    private final long minInterval;
+    private final Random random;
+
+    /**
+     * The main constructor of this class.
+     *
+     * @param minInterval {@see long} - The shortest polling interval of a base in milliseconds.
+     * @param random      {@see Random} - The source of the jitter of the polling intervals.
+     */
+    /* package-private */ SubscriptionRegistry(final long minInterval, final Random random) {
+        this.minInterval = minInterval;
+        this.random = random;
+    }
+
+    /**
+     * Adds a consumer to the subscription of a base currency, creating the subscription for the
+     * first consumer.
+     *
+     * @param base {@see String} - The 3 letter currency code of the base currency.
+     * @param url  {@see String} - The API URL of the base rates, used by a new subscription.
+     * @return {@see BaseSubscription} - The subscription of the base, which is new in case it has
+     * a single consumer, or NULL in case the base is not a valid currency code.
+     */
+    /* package-private */ BaseSubscription subscribe(final String base, final String url) {
+
+        if (RateTable.indexOf(base) == RateTable.NO_INDEX)
+            return null;
+        BaseSubscription subscription = this.subscriptions.get(base);
+        if (subscription == null) {
+            subscription = new BaseSubscription(base, url,
+                    new AdaptivePollingPolicy(this.minInterval, this.random));
+            this.subscriptions.put(base, subscription);
+        }
+        subscription.addConsumer();
+        return subscription;
+    }
+
+    /**
+     * Removes a consumer from the subscription of a base currency, removing the subscription
+     * after its last consumer.
+     *
+     * @param base {@see String} - The 3 letter currency code of the base currency.
+     * @return {@see boolean} - True - in case the last consumer has left and the base is not
+     * subscribed anymore, False - otherwise.
+     */
+    /* package-private */ boolean unsubscribe(final String base) {
+
+        final BaseSubscription subscription = this.subscriptions.get(base);
+        if (subscription != null && subscription.removeConsumer() <= 0) {
+            this.subscriptions.remove(base);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Gets the current subscription of a base currency.
+     *
+     * @param base {@see String} - The 3 letter currency code of the base currency.
+     * @return {@see BaseSubscription} - The subscription, or NULL in case the base is not
+     * subscribed.
+     */
+    /* package-private */ BaseSubscription get(final String base) {
+        return this.subscriptions.get(base);
+    }
+
+    /**
+     * Checks whether a subscription is still the current one of its base, i.e. its base has not
+     * been unsubscribed, or unsubscribed and subscribed again, since it was created.
+     *
+     * @param subscription {@see BaseSubscription} - The subscription.
+     * @return {@see boolean} - True - in case the subscription is current.
+     */
+    /* package-private */ boolean isCurrent(final BaseSubscription subscription) {
+        return subscription != null && this.subscriptions.get(subscription.getBase()) == subscription;
+    }
+
+    /**
+     * Removes all the subscriptions, so none of them is current anymore.
+     */
+    /* package-private */ void clear() {
+        this.subscriptions.clear();
+    }
+
+    /* package-private */ int size() {
+        return this.subscriptions.size();
+    }
+}
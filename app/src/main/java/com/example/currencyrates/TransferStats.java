@@ -0,0 +1,58 @@
+package com.example.currencyrates;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Thread-safe counters of the bytes transferred by the HTTP calls. The compressed bytes are the
+ * bytes read from the network, and the uncompressed bytes are the bytes of the decoded body, so
+ * the ratio of them shows how much data the compression saves.
+ *
+ * @author Nikola Georgiev
+ * @version 1.0
+ * @since 1.1.0
+ */
+/* package-private */ final class TransferStats {
+
+    private final AtomicLong compressedBytes = new AtomicLong();
+    private final AtomicLong uncompressedBytes = new AtomicLong();
+    private final AtomicLong compressedResponses = new AtomicLong();
+    private final AtomicLong responses = new AtomicLong();
+
+    /**
+     * Counts the bytes of a single response body.
+     *
+     * @param compressed   {@see boolean} - Whether the body was transferred compressed.
+     * @param wireBytes    {@see long} - The bytes read from the network.
+     * @param decodedBytes {@see long} - The bytes of the decoded body.
+     */
+    /* package-private */ void record(final boolean compressed, final long wireBytes,
+                                      final long decodedBytes) {
+        this.responses.incrementAndGet();
+        if (compressed)
+            this.compressedResponses.incrementAndGet();
+        this.compressedBytes.addAndGet(wireBytes);
+        this.uncompressedBytes.addAndGet(decodedBytes);
+    }
+
+    /* package-private */ long getCompressedBytes() {
+        return compressedBytes.get();
+    }
+
+    /* package-private */ long getUncompressedBytes() {
+        return uncompressedBytes.get();
+    }
+
+    /* package-private */ long getCompressedResponses() {
+        return compressedResponses.get();
+    }
+
+    /* package-private */ long getResponses() {
+        return responses.get();
+    }
+
+    @Override
+    public String toString() {
+        return "responses=" + getResponses() + " (gzip " + getCompressedResponses() + ")"
+                + ", wire bytes=" + getCompressedBytes() + ", body bytes=" + getUncompressedBytes();
+    }
+}
@@ -0,0 +1,144 @@
+package com.example.currencyrates;
+
+import com.github.kevinsawicki.http.HttpRequest;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Utility class that opens the response body of a {@see HttpRequest}, which has negotiated
+ * compressed transfer with {@link HttpRequest#acceptGzipEncoding()}. The body is decompressed
+ * while it is read, so it can be streamed directly into a parser or decoder, and both the
+ * compressed and the uncompressed bytes are counted to a {@see TransferStats}.
+ * <p>
+ * The body is wrapped in its own {@see GZIPInputStream}, instead of enabling
+ * {@link HttpRequest#uncompress(boolean)}, as that one hands out the already decoded stream, so
+ * the bytes on the wire could not be counted before they are decoded.
+ *
+ * @author Nikola Georgiev
+ * @version 1.0
+ * @since 1.1.0
+ */
+/* package-private */ final class TransferStreams {
+
+    private static final String ENCODING_GZIP = "gzip";
+
+    private TransferStreams() {
+    }
+
+    /**
+     * Opens the response body stream, decompressing it in case the server has sent it gzip
+     * encoded. The bytes are counted to the stats when the returned stream is closed.
+     *
+     * @param request {@see HttpRequest} - The request, which should not decompress the body
+     *                itself, i.e. {@link HttpRequest#uncompress(boolean)} is not enabled.
+     * @param stats   {@see TransferStats} - The stats, which will count the bytes.
+     * @return {@see InputStream} - The decoded response body stream.
+     * @throws IOException in case the gzip header of the body cannot be read. The response body
+     *                     stream is closed then.
+     * @throws HttpRequest.HttpRequestException in case the response cannot be read.
+     */
+    /* package-private */
+    static InputStream openBody(final HttpRequest request, final TransferStats stats)
+            throws IOException {
+
+        final boolean compressed = ENCODING_GZIP.equals(request.contentEncoding());
+        final CountingInputStream wire = new CountingInputStream(request.stream(), null, false, null);
+        if (!compressed)
+            return new CountingInputStream(wire, wire, false, stats);
+        final InputStream decoded;
+        try {
+            decoded = new GZIPInputStream(wire);
+        } catch (IOException exception) {
+            //The caller never gets a stream to close
+            closeQuietly(wire);
+            throw exception;
+        }
+        return new CountingInputStream(decoded, wire, true, stats);
+    }
+
+    /**
+     * Closes a stream, ignoring the errors, as another error is already being reported.
+     *
+     * @param stream {@see InputStream} - The stream that should be closed.
+     */
+    private static void closeQuietly(final InputStream stream) {
+        try {
+            stream.close();
+        } catch (IOException ignored) {
+            //The original error is reported instead
+        }
+    }
+
+    /**
+     * A stream that counts the bytes read through it, and reports them to the stats when it is
+     * closed.
+     *
+     * @author Nikola Georgiev
+     * @version 1.0
+     * @since 1.1.0
+     */
+    private static final class CountingInputStream extends FilterInputStream {
+
+        private final CountingInputStream wire;
+        private final boolean compressed;
+        private final TransferStats stats;
+        private long count;
+        private boolean closed;
+
+        /**
+         * The main constructor of this class.
+         *
+         * @param in         {@see InputStream} - The stream to count the bytes of.
+         * @param wire       {@see CountingInputStream} - The stream counting the network bytes,
+         *                   or NULL in case this is the network stream.
+         * @param compressed {@see boolean} - Whether the body is transferred compressed.
+         * @param stats      {@see TransferStats} - The stats to report to, or NULL.
+         */
+        private CountingInputStream(final InputStream in, final CountingInputStream wire,
+                                    final boolean compressed, final TransferStats stats) {
+            super(in);
+            this.wire = wire;
+            this.compressed = compressed;
+            this.stats = stats;
+        }
+
+        @Override
+        public int read() throws IOException {
+            final int b = super.read();
+            if (b >= 0)
+                this.count++;
+            return b;
+        }
+
+        @Override
+        public int read(final byte[] buffer, final int offset, final int length) throws IOException {
+            final int read = super.read(buffer, offset, length);
+            if (read > 0)
+                this.count += read;
+            return read;
+        }
+
+        @Override
+        public long skip(final long n) throws IOException {
+            final long skipped = super.skip(n);
+            if (skipped > 0)
+                this.count += skipped;
+            return skipped;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                if (!this.closed && this.stats != null && this.wire != null) {
+                    this.stats.record(this.compressed, this.wire.count, this.count);
+                }
+                this.closed = true;
+            }
+        }
+    }
+}
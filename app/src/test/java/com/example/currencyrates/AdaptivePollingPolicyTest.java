@@ -0,0 +1,87 @@
+package com.example.currencyrates;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Unit tests of the polling intervals decided by {@link AdaptivePollingPolicy}.
+ */
+public class AdaptivePollingPolicyTest {
+
+  private static final long MIN_INTERVAL = 1000;
+
+  private static AdaptivePollingPolicy policy() {
+    return new AdaptivePollingPolicy(MIN_INTERVAL, new Random(42));
+  }
+
+  /**
+   * Verify the interval stretches after unchanged polls and snaps back on a change
+   */
+  @Test
+  public void unchangedStretchesAndChangeSnapsBack() {
+    final AdaptivePollingPolicy policy = policy();
+    for (int i = 1; i < AdaptivePollingPolicy.UNCHANGED_THRESHOLD; i++) {
+      assertEquals(MIN_INTERVAL, policy.onResult(PollResult.Status.NOT_MODIFIED, false, 0));
+      assertEquals(AdaptivePollingPolicy.Reason.UNCHANGED, policy.getReason());
+    }
+    assertEquals(2 * MIN_INTERVAL, policy.onResult(PollResult.Status.NOT_MODIFIED, false, 0));
+    assertEquals(4 * MIN_INTERVAL, policy.onResult(PollResult.Status.DOWNLOADED, false, 0));
+    assertEquals(AdaptivePollingPolicy.Reason.IDLE_STRETCH, policy.getReason());
+    for (int i = 0; i < 100; i++) {
+      policy.onResult(PollResult.Status.NOT_MODIFIED, false, 0);
+    }
+    assertEquals(AdaptivePollingPolicy.MAX_IDLE_INTERVAL, policy.getCurrentInterval());
+
+    assertEquals(MIN_INTERVAL, policy.onResult(PollResult.Status.DOWNLOADED, true, 0));
+    assertEquals(AdaptivePollingPolicy.Reason.CHANGED, policy.getReason());
+    assertEquals(0, policy.getUnchangedStreak());
+  }
+
+  /**
+   * Verify the failures back off exponentially with jitter, up to the cap
+   */
+  @Test
+  public void failuresBackOffWithJitter() {
+    final AdaptivePollingPolicy policy = policy();
+    for (int failures = 1; failures <= 20; failures++) {
+      final long backoff = Math.min(AdaptivePollingPolicy.MAX_BACKOFF_INTERVAL,
+          MIN_INTERVAL << Math.min(failures, 16));
+      final long interval = policy.onResult(PollResult.Status.FAILED, false, 0);
+      assertTrue(interval + " for " + failures, interval >= backoff / 2 && interval <= backoff);
+      assertEquals(AdaptivePollingPolicy.Reason.FAILURE_BACKOFF, policy.getReason());
+    }
+    assertEquals(MIN_INTERVAL, policy.onResult(PollResult.Status.DOWNLOADED, true, 0));
+    assertEquals(0, policy.getConsecutiveFailures());
+  }
+
+  /**
+   * Verify the response freshness delays the next poll, up to the cap
+   */
+  @Test
+  public void freshnessIsHonoured() {
+    final AdaptivePollingPolicy policy = policy();
+    assertEquals(30000, policy.onResult(PollResult.Status.DOWNLOADED, true, 30000));
+    assertEquals(AdaptivePollingPolicy.Reason.CACHE_FRESHNESS, policy.getReason());
+    assertEquals(AdaptivePollingPolicy.MAX_FRESHNESS_INTERVAL,
+        policy.onResult(PollResult.Status.NOT_MODIFIED, false, Long.MAX_VALUE));
+  }
+
+  /**
+   * Verify the freshness lifetime is read from the cache headers
+   */
+  @Test
+  public void freshnessFromHeaders() {
+    assertEquals(60000, AdaptivePollingPolicy.freshness("public, max-age=60", 0, 0, 0));
+    assertEquals(60000, AdaptivePollingPolicy.freshness("max-age=60", 5000, 1000, 0));
+    assertEquals(0, AdaptivePollingPolicy.freshness("no-cache, max-age=60", 0, 0, 0));
+    assertEquals(0, AdaptivePollingPolicy.freshness("No-Store", 5000, 1000, 0));
+    assertEquals(4000, AdaptivePollingPolicy.freshness(null, 5000, 1000, 0));
+    assertEquals(3000, AdaptivePollingPolicy.freshness("public", 5000, 0, 2000));
+    assertEquals(0, AdaptivePollingPolicy.freshness(null, 1000, 5000, 0));
+    assertEquals(0, AdaptivePollingPolicy.freshness(null, 0, 0, 0));
+  }
+}
@@ -0,0 +1,221 @@
+package com.example.currencyrates;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.Random;
+import java.util.TimeZone;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests of the conditional polls of {@link BaseSubscription}, against a local stand-in of
+ * the rates API, which answers a request with matching validators as not modified
+ */
+public class BaseSubscriptionTest {
+
+  private static final String ETAG = "\"v1\"";
+  private static final long LAST_MODIFIED = System.currentTimeMillis() / 1000 * 1000 - 60000;
+
+  private HttpServer server;
+  private String url;
+
+  /**
+   * The stand-in of the API, which remembers the validators of the last request.
+   */
+  private static final class RatesHandler implements HttpHandler {
+
+    private final String payload;
+    private final AtomicInteger requests = new AtomicInteger();
+    private volatile String ifNoneMatch;
+    private volatile String ifModifiedSince;
+
+    private RatesHandler(String payload) {
+      this.payload = payload;
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+      requests.incrementAndGet();
+      ifNoneMatch = exchange.getRequestHeaders().getFirst("If-None-Match");
+      ifModifiedSince = exchange.getRequestHeaders().getFirst("If-Modified-Since");
+      if (ETAG.equals(ifNoneMatch)) {
+        //The server sets the Date header itself, to the current time
+        exchange.getResponseHeaders().set("Expires", httpDate(System.currentTimeMillis() + 30000));
+        exchange.sendResponseHeaders(304, -1);
+        exchange.close();
+        return;
+      }
+      final byte[] body = payload.getBytes("UTF-8");
+      exchange.getResponseHeaders().set("ETag", ETAG);
+      exchange.getResponseHeaders().set("Last-Modified", httpDate(LAST_MODIFIED));
+      exchange.getResponseHeaders().set("Cache-Control", "public, max-age=60");
+      exchange.sendResponseHeaders(200, body.length);
+      final OutputStream out = exchange.getResponseBody();
+      out.write(body);
+      out.close();
+    }
+  }
+
+  private static String httpDate(long time) {
+    final SimpleDateFormat format = new SimpleDateFormat("EEE, dd MMM yyyy HH:mm:ss zzz", Locale.US);
+    format.setTimeZone(TimeZone.getTimeZone("GMT"));
+    return format.format(new Date(time));
+  }
+
+  /**
+   * Start the local stand-in server
+   */
+  @Before
+  public void startServer() throws IOException {
+    server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+    server.start();
+    url = "http://127.0.0.1:" + server.getAddress().getPort();
+  }
+
+  /**
+   * Stop the local stand-in server
+   */
+  @After
+  public void stopServer() {
+    server.stop(0);
+  }
+
+  private BaseSubscription subscribe(String path, RatesHandler handler) {
+    server.createContext(path, handler);
+    return new BaseSubscription("EUR", url + path, new AdaptivePollingPolicy(1000, new Random(42)));
+  }
+
+  private static PollResult poll(BaseSubscription subscription) {
+    return subscription.poll(PipelineMetrics.NOT_SAMPLED, new TransferStats());
+  }
+
+  /**
+   * Verify the validators of the downloaded rates are replayed, and a not modified response is
+   * reported with the freshness of its Expires header
+   */
+  @Test
+  public void revalidateWithValidators() {
+    final RatesHandler handler = new RatesHandler("{\"base\":\"EUR\",\"rates\":{\"USD\":1.1}}");
+    final BaseSubscription subscription = subscribe("/latest", handler);
+
+    final PollResult downloaded = poll(subscription);
+    assertEquals(PollResult.Status.DOWNLOADED, downloaded.getStatus());
+    assertEquals(1, downloaded.getRatesTable().size());
+    assertEquals(60000, downloaded.getFreshness());
+    assertNull(handler.ifNoneMatch);
+    assertNull(handler.ifModifiedSince);
+
+    final PollResult notModified = poll(subscription);
+    assertEquals(PollResult.Status.NOT_MODIFIED, notModified.getStatus());
+    assertNull(notModified.getRatesTable());
+    //Both dates have a second precision
+    assertTrue(Math.abs(notModified.getFreshness() - 30000) <= 1000);
+    assertEquals(ETAG, handler.ifNoneMatch);
+    assertEquals(httpDate(LAST_MODIFIED), handler.ifModifiedSince);
+  }
+
+  /**
+   * Verify the validators of a response without rates are not kept, so the next poll downloads
+   * the rates in full
+   */
+  @Test
+  public void emptyResponseKeepsNoValidators() {
+    final RatesHandler handler = new RatesHandler("{\"base\":\"EUR\",\"rates\":{}}");
+    final BaseSubscription subscription = subscribe("/empty", handler);
+
+    assertEquals(PollResult.Status.DOWNLOADED, poll(subscription).getStatus());
+    assertEquals(PollResult.Status.DOWNLOADED, poll(subscription).getStatus());
+    assertEquals(2, handler.requests.get());
+    assertNull(handler.ifNoneMatch);
+    assertNull(handler.ifModifiedSince);
+  }
+
+  /**
+   * Verify a server error is reported as a failed poll without freshness
+   */
+  @Test
+  public void serverErrorFails() {
+    server.createContext("/error", new HttpHandler() {
+      @Override
+      public void handle(HttpExchange exchange) throws IOException {
+        exchange.sendResponseHeaders(503, -1);
+        exchange.close();
+      }
+    });
+    final BaseSubscription subscription = new BaseSubscription("EUR", url + "/error",
+        new AdaptivePollingPolicy(1000, new Random(42)));
+
+    final PollResult failed = poll(subscription);
+    assertEquals(PollResult.Status.FAILED, failed.getStatus());
+    assertEquals(0, failed.getFreshness());
+  }
+
+  /**
+   * Verify the connection of a failed response, whose body is not read, is disconnected instead
+   * of being left open
+   */
+  @Test
+  public void failedResponseDisconnects() throws Exception {
+    final ServerSocket serverSocket = new ServerSocket(0, 1, InetAddress.getByName("127.0.0.1"));
+    final ExecutorService stub = Executors.newSingleThreadExecutor();
+    try {
+      final Future<Integer> afterResponse = stub.submit(new Callable<Integer>() {
+        @Override
+        public Integer call() throws IOException {
+          final Socket socket = serverSocket.accept();
+          try {
+            final BufferedReader in = new BufferedReader(
+                new InputStreamReader(socket.getInputStream(), "ISO-8859-1"));
+            String line;
+            do {
+              line = in.readLine();
+            } while (line != null && !line.isEmpty());
+            final OutputStream out = socket.getOutputStream();
+            out.write(("HTTP/1.1 503 Service Unavailable\r\nContent-Length: 4\r\n\r\nbusy")
+                .getBytes("ISO-8859-1"));
+            out.flush();
+            socket.setSoTimeout(5000);
+            //-1 once the client has closed the connection
+            return socket.getInputStream().read();
+          } finally {
+            socket.close();
+          }
+        }
+      });
+      final BaseSubscription subscription = new BaseSubscription("EUR",
+          "http://127.0.0.1:" + serverSocket.getLocalPort() + "/latest",
+          new AdaptivePollingPolicy(1000, new Random(42)));
+
+      assertEquals(PollResult.Status.FAILED, poll(subscription).getStatus());
+      assertEquals(-1, afterResponse.get(10, TimeUnit.SECONDS).intValue());
+    } finally {
+      stub.shutdownNow();
+      serverSocket.close();
+    }
+  }
+}
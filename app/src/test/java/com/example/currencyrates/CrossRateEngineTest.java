@@ -0,0 +1,99 @@
+package com.example.currencyrates;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+
+import org.junit.Test;
+
+/**
+ * Unit tests of the rates derived by {@link CrossRateEngine} for the source base and the other
+ * base currencies of a snapshot.
+ */
+public class CrossRateEngineTest {
+
+  private static final int EUR = RateTable.indexOf("EUR");
+  private static final int USD = RateTable.indexOf("USD");
+  private static final int JPY = RateTable.indexOf("JPY");
+  private static final int BGN = RateTable.indexOf("BGN");
+
+  private static CrossRateEngine engine() {
+    final RateTable rates = new RateTable();
+    rates.put("USD", new BigDecimal("1.1234"));
+    rates.put("JPY", new BigDecimal("129.87"));
+    rates.put("BGN", new BigDecimal("1.9558"));
+    return new CrossRateEngine("EUR", rates.seal());
+  }
+
+  private static void assertRate(String expected, RateTable table, int index) {
+    assertEquals(RateTable.codeAt(index), 0,
+        new BigDecimal(expected).compareTo(table.getDecimal(index)));
+  }
+
+  /**
+   * Verify the rates against the source base are the rates of the snapshot
+   */
+  @Test
+  public void rebaseToSourceBase() {
+    final RateTable rates = engine().rebase("EUR");
+    assertTrue(rates.isSealed());
+    assertEquals(3, rates.size());
+    assertFalse(rates.contains(EUR));
+    assertRate("1.1234", rates, USD);
+    assertRate("129.87", rates, JPY);
+    assertRate("1.9558", rates, BGN);
+  }
+
+  /**
+   * Verify the rates against another base are divided by its rate, the base itself is excluded
+   * and the source base gets the inverse rate of the new base
+   */
+  @Test
+  public void rebaseToOtherBase() {
+    final RateTable rates = engine().rebase("USD");
+    assertTrue(rates.isSealed());
+    assertEquals(3, rates.size());
+    assertFalse(rates.contains(USD));
+    final MathContext precision = MathContext.DECIMAL64;
+    assertRate(new BigDecimal("129.87").divide(new BigDecimal("1.1234"), precision).toString(),
+        rates, JPY);
+    assertRate(new BigDecimal("1.9558").divide(new BigDecimal("1.1234"), precision).toString(),
+        rates, BGN);
+    assertRate(BigDecimal.ONE.divide(new BigDecimal("1.1234"), precision).toString(),
+        rates, EUR);
+  }
+
+  /**
+   * Verify only the source base and the currencies of the snapshot can be bases
+   */
+  @Test
+  public void canRebase() {
+    final CrossRateEngine engine = engine();
+    assertEquals("EUR", engine.getSourceBase());
+    assertTrue(engine.canRebase("EUR"));
+    assertTrue(engine.canRebase("JPY"));
+    assertFalse(engine.canRebase("GBP"));
+    assertFalse(engine.canRebase("EURO"));
+    assertFalse(engine.canRebase(null));
+
+    final RateTable rates = engine.rebase("GBP");
+    assertTrue(rates.isSealed());
+    assertTrue(rates.isEmpty());
+    assertNull(rates.getDecimal(EUR));
+  }
+
+  /**
+   * Verify an engine without a snapshot derives empty tables
+   */
+  @Test
+  public void noSnapshot() {
+    final CrossRateEngine engine = new CrossRateEngine("EUR", null);
+    assertTrue(engine.getSourceRates().isEmpty());
+    assertTrue(engine.rebase("EUR").isEmpty());
+    assertFalse(engine.canRebase("USD"));
+  }
+}
@@ -0,0 +1,98 @@
+package com.example.currencyrates;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.math.BigDecimal;
+import java.text.DecimalFormat;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests of the cached formatters of {@link CurrencyFormatters}.
+ */
+public class CurrencyFormattersTest {
+
+  private Locale defaultLocale;
+
+  @Before
+  public void setUp() {
+    this.defaultLocale = Locale.getDefault();
+    Locale.setDefault(Locale.US);
+  }
+
+  @After
+  public void tearDown() {
+    Locale.setDefault(this.defaultLocale);
+  }
+
+  /**
+   * Verify the amounts are shown with the ISO 4217 minor units of the currency
+   */
+  @Test
+  public void minorUnits() {
+    final BigDecimal amount = new BigDecimal("1234.5675");
+    assertEquals("1,234.57", CurrencyUtils.formatBigDecimalAsString(amount, "EUR"));
+    assertEquals("1,235", CurrencyUtils.formatBigDecimalAsString(amount, "JPY"));
+    assertEquals("1,234.568", CurrencyUtils.formatBigDecimalAsString(amount, "BHD"));
+    assertEquals("1,234.57", CurrencyUtils.formatBigDecimalAsString(amount, "EURO"));
+    assertEquals("1,234.57", CurrencyUtils.formatBigDecimalAsString(amount));
+  }
+
+  /**
+   * Verify the fixed-point conversion at the minor units shows the same text as the exact one
+   */
+  @Test
+  public void convertAtMinorUnits() {
+    final RateConverter exact = new RateConverter(RateConverter.Mode.EXACT);
+    final RateConverter fixed = new RateConverter(RateConverter.Mode.FIXED_POINT);
+    exact.setMultiplier(new BigDecimal("2.5"));
+    fixed.setMultiplier(new BigDecimal("2.5"));
+    final long rate = RateTable.toScaled(new BigDecimal("0.2"));
+    for (String code : new String[]{"JPY", "EUR", "BHD"}) {
+      final int digits = CurrencyFormatters.getInstance().getFractionDigits(code);
+      assertEquals(code, CurrencyUtils.formatBigDecimalAsString(exact.convert(rate, digits), code),
+          CurrencyUtils.formatBigDecimalAsString(fixed.convert(rate, digits), code));
+    }
+    assertEquals("1", CurrencyUtils.formatBigDecimalAsString(fixed.convert(rate, 0), "JPY"));
+  }
+
+  /**
+   * Verify the cached formatters are dropped once the default locale changes
+   */
+  @Test
+  public void localeChange() {
+    final BigDecimal amount = new BigDecimal("1234.5");
+    final DecimalFormat us = CurrencyFormatters.getInstance().get("EUR");
+    assertSame(us, CurrencyFormatters.getInstance().get("EUR"));
+    assertEquals("1,234.50", CurrencyUtils.formatBigDecimalAsString(amount, "EUR"));
+
+    Locale.setDefault(Locale.GERMANY);
+    assertEquals("1.234,50", CurrencyUtils.formatBigDecimalAsString(amount, "EUR"));
+    assertNotSame(us, CurrencyFormatters.getInstance().get("EUR"));
+  }
+
+  /**
+   * Verify each thread formats with its own formatter instance
+   */
+  @Test
+  public void formatterPerThread() throws InterruptedException {
+    final DecimalFormat main = CurrencyFormatters.getInstance().get("EUR");
+    final AtomicReference<DecimalFormat> worker = new AtomicReference<>();
+    final Thread thread = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        worker.set(CurrencyFormatters.getInstance().get("EUR"));
+      }
+    });
+    thread.start();
+    thread.join();
+    assertNotSame(main, worker.get());
+    assertEquals(main, worker.get());
+  }
+}
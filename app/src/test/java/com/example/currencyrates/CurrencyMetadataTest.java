@@ -0,0 +1,48 @@
+package com.example.currencyrates;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.math.BigDecimal;
+import java.util.Locale;
+
+import org.junit.Test;
+
+/**
+ * Unit tests of the lookups of {@link CurrencyMetadata}.
+ */
+public class CurrencyMetadataTest {
+
+  /**
+   * Verify the registered data is returned by currency code
+   */
+  @Test
+  public void registered() {
+    final CurrencyMetadata metadata = new CurrencyMetadata(Locale.US);
+    metadata.put("JPY", "Japanese yen", new BigDecimal("100"));
+    metadata.put("BHD", null, null);
+
+    assertEquals("Japanese yen", metadata.getName("JPY"));
+    assertEquals(new BigDecimal("100"), metadata.getDefaultMultiplier("JPY"));
+    assertEquals("jp", metadata.getFlagKey("JPY"));
+    assertEquals(0, metadata.getMinorUnits("JPY"));
+
+    assertEquals("BHD", metadata.getName("BHD"));
+    assertEquals(BigDecimal.ZERO, metadata.getDefaultMultiplier("BHD"));
+    assertEquals(3, metadata.getMinorUnits("BHD"));
+  }
+
+  /**
+   * Verify the currencies, which are not registered, fall back to values derived from the code
+   */
+  @Test
+  public void notRegistered() {
+    final CurrencyMetadata metadata = new CurrencyMetadata(Locale.US);
+    assertEquals("KWD", metadata.getName("KWD"));
+    assertEquals(BigDecimal.ZERO, metadata.getDefaultMultiplier("KWD"));
+    assertEquals("kw", metadata.getFlagKey("KWD"));
+    assertEquals(3, metadata.getMinorUnits("KWD"));
+    assertEquals("EURO", metadata.getName("EURO"));
+    assertNull(metadata.getFlagKey("E"));
+  }
+}
@@ -0,0 +1,153 @@
+package com.example.currencyrates;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import android.net.Uri;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Unit tests of the models built by {@link CurrencyModelBuilder}, and of the reuse of the models,
+ * which are not changed by a {@link RateDelta}.
+ */
+public class CurrencyModelBuilderTest {
+
+  private final List<String> built = new ArrayList<>();
+
+  private final CurrencyModelBuilder.CurrencyAssets assets =
+      new CurrencyModelBuilder.CurrencyAssets() {
+        @Override
+        public Uri getIconUri(String currencyCode) {
+          built.add(currencyCode);
+          return null;
+        }
+
+        @Override
+        public String getName(String currencyCode) {
+          return currencyCode;
+        }
+
+        @Override
+        public int getMinorUnits(String currencyCode) {
+          return "JPY".equals(currencyCode) ? 0 : 2;
+        }
+      };
+
+  private static RateTable table(String... codesAndRates) {
+    final RateTable rates = new RateTable();
+    for (int i = 0; i < codesAndRates.length; i += 2) {
+      rates.put(codesAndRates[i], new BigDecimal(codesAndRates[i + 1]));
+    }
+    return rates.seal();
+  }
+
+  private CurrencyModelBuilder builder(RateConverter.Mode mode) {
+    final RateConverter converter = new RateConverter(mode);
+    converter.setMultiplier(new BigDecimal("2"));
+    return new CurrencyModelBuilder(converter, assets);
+  }
+
+  /**
+   * Verify the fixed-point models keep only the display amount, and both modes show the same
+   * rates at the minor units of each currency
+   */
+  @Test
+  public void build() {
+    final CurrencyModel fixed = builder(RateConverter.Mode.FIXED_POINT).build("JPY",
+        RateTable.toScaled(new BigDecimal("129.87")));
+    assertEquals(260, fixed.getDisplayAmount());
+    assertEquals(0, fixed.getDisplayScale());
+    assertEquals(0, new BigDecimal("260").compareTo(fixed.getCurrencyRate()));
+
+    final CurrencyModel exact = builder(RateConverter.Mode.EXACT).build("USD",
+        RateTable.toScaled(new BigDecimal("1.1234")));
+    assertEquals(225, exact.getDisplayAmount());
+    assertEquals(2, exact.getDisplayScale());
+    assertEquals(0, new BigDecimal("2.2468").compareTo(exact.getCurrencyRate()));
+    assertEquals("USD", exact.getCurrencyName());
+  }
+
+  /**
+   * Verify only the models of the changed currencies are rebuilt, and the others are reused
+   */
+  @Test
+  public void reuseUnchanged() {
+    final CurrencyModelBuilder builder = builder(RateConverter.Mode.FIXED_POINT);
+    final CurrencyModel[] models = new CurrencyModel[RateTable.MAX_CURRENCIES];
+    final RateTable first = table("USD", "1.1", "JPY", "129.87", "BGN", "1.9558");
+    final RateDelta firstDelta = RateDelta.between(null, first, RateDelta.NO_VERSION);
+    assertEquals(3, builder.buildAll(first, null, models).size());
+    assertEquals(3, built.size());
+    final CurrencyModel usd = models[RateTable.indexOf("USD")];
+    final CurrencyModel bgn = models[RateTable.indexOf("BGN")];
+
+    built.clear();
+    final RateTable second = table("USD", "1.1", "JPY", "130.01", "BGN", "1.9558");
+    final RateDelta delta = RateDelta.between(first, second, firstDelta.getVersion());
+    assertTrue(CurrencyModelBuilder.isPartialUpdate(delta, firstDelta.getVersion(), "EUR"));
+    final List<CurrencyModel> currencies = builder.buildAll(second, delta, models);
+    assertEquals(3, currencies.size());
+    assertEquals(1, built.size());
+    assertEquals("JPY", built.get(0));
+    assertTrue(usd == models[RateTable.indexOf("USD")]);
+    assertTrue(bgn == models[RateTable.indexOf("BGN")]);
+    assertTrue(currencies.contains(usd));
+    assertEquals(260, models[RateTable.indexOf("JPY")].getDisplayAmount());
+  }
+
+  /**
+   * Verify a delta, which does not follow the seen version, e.g. the first one, forces a full
+   * rebuild
+   */
+  @Test
+  public void notFollowingRebuildsAll() {
+    final RateTable first = table("USD", "1.1", "JPY", "129.87");
+    final RateDelta firstDelta = RateDelta.between(null, first, RateDelta.NO_VERSION);
+    assertFalse(CurrencyModelBuilder.isPartialUpdate(firstDelta, RateDelta.NO_VERSION, "EUR"));
+    assertFalse(CurrencyModelBuilder.isPartialUpdate(null, firstDelta.getVersion(), "EUR"));
+
+    final RateDelta delta = RateDelta.between(first, table("USD", "1.2", "JPY", "129.87"),
+        firstDelta.getVersion());
+    assertFalse(CurrencyModelBuilder.isPartialUpdate(delta, RateDelta.NO_VERSION, "EUR"));
+    assertFalse(CurrencyModelBuilder.isPartialUpdate(delta, firstDelta.getVersion() + 1, "EUR"));
+    assertTrue(CurrencyModelBuilder.isPartialUpdate(delta, firstDelta.getVersion(), "JPY"));
+
+    final CurrencyModelBuilder builder = builder(RateConverter.Mode.FIXED_POINT);
+    final CurrencyModel[] models = new CurrencyModel[RateTable.MAX_CURRENCIES];
+    builder.buildAll(first, null, models);
+    built.clear();
+    builder.buildAll(delta.getSnapshot(), null, models);
+    assertEquals(2, built.size());
+  }
+
+  /**
+   * Verify a change of the rate of the shown base itself disables the partial update, as all the
+   * derived rates change with it
+   */
+  @Test
+  public void baseRateChangeRebuildsAll() {
+    final RateTable first = table("USD", "1.1", "JPY", "129.87");
+    final RateDelta delta = RateDelta.between(first, table("USD", "1.2", "JPY", "129.87"), 1);
+    assertFalse(CurrencyModelBuilder.isPartialUpdate(delta, 1, "USD"));
+    assertTrue(CurrencyModelBuilder.isPartialUpdate(delta, 1, "EUR"));
+  }
+
+  /**
+   * Verify an empty or missing table builds no models
+   */
+  @Test
+  public void emptyTable() {
+    final CurrencyModelBuilder builder = builder(RateConverter.Mode.EXACT);
+    final CurrencyModel[] models = new CurrencyModel[RateTable.MAX_CURRENCIES];
+    assertTrue(builder.buildAll(null, null, models).isEmpty());
+    assertTrue(builder.buildAll(new RateTable().seal(), null, models).isEmpty());
+    assertNull(models[RateTable.indexOf("USD")]);
+  }
+}
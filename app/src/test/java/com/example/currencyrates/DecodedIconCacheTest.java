@@ -0,0 +1,229 @@
+package com.example.currencyrates;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import android.content.ComponentCallbacks2;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+import org.junit.Test;
+
+/**
+ * Unit tests of the LRU sizing, the missing and the stale icons and the memory trimming of
+ * {@link DecodedIconCache}, with icons decoded from a map of strings, measured by their length.
+ */
+public class DecodedIconCacheTest {
+
+  private static final Executor DIRECT = new Executor() {
+    @Override
+    public void execute(Runnable command) {
+      command.run();
+    }
+  };
+
+  private final Map<String, String> files = new HashMap<>();
+  private final List<String> decodedPaths = new ArrayList<>();
+  private final List<String> notified = new ArrayList<>();
+
+  private final DecodedIconCache.Sizer<String> sizer = new DecodedIconCache.Sizer<String>() {
+    @Override
+    public int sizeOf(String icon) {
+      return icon.length();
+    }
+  };
+
+  private final DecodedIconCache.Decoder<String> decoder = new DecodedIconCache.Decoder<String>() {
+    @Override
+    public String decode(String path) {
+      decodedPaths.add(path);
+      if (path.startsWith("broken"))
+        throw new IllegalStateException("Cannot decode " + path);
+      return files.get(path);
+    }
+  };
+
+  private final DecodedIconCache.Listener listener = new DecodedIconCache.Listener() {
+    @Override
+    public void onIconDecoded(String currencyCode) {
+      notified.add(currencyCode);
+    }
+  };
+
+  /**
+   * A decoder executor, which runs the submitted decodings only when asked.
+   */
+  private static final class ManualExecutor implements Executor {
+
+    private final List<Runnable> tasks = new ArrayList<>();
+
+    @Override
+    public void execute(Runnable command) {
+      tasks.add(command);
+    }
+
+    private void runAll() {
+      final List<Runnable> copy = new ArrayList<>(tasks);
+      tasks.clear();
+      for (Runnable task : copy) {
+        task.run();
+      }
+    }
+  }
+
+  private DecodedIconCache<String> newCache(int maxSize, Executor decoderExecutor) {
+    return new DecodedIconCache<>(maxSize, sizer, decoder, decoderExecutor, DIRECT, listener);
+  }
+
+  /**
+   * Cache an icon of a given size, decoded from a file named after its currency
+   */
+  private void load(DecodedIconCache<String> cache, String code, int size) {
+    final StringBuilder icon = new StringBuilder();
+    for (int i = 0; i < size; i++) {
+      icon.append('x');
+    }
+    files.put(code + ".png", icon.toString());
+    assertNull(cache.get(code, code + ".png"));
+    assertEquals(icon.toString(), cache.get(code, null));
+  }
+
+  /**
+   * Verify the least recently used icons are evicted, once the sizes exceed the maximum
+   */
+  @Test
+  public void lruSizing() {
+    final DecodedIconCache<String> cache = newCache(10, DIRECT);
+    load(cache, "USD", 4);
+    load(cache, "GBP", 4);
+    assertEquals(8, cache.size());
+
+    // Use USD, so GBP is the least recently used one
+    assertEquals("xxxx", cache.get("USD", null));
+    load(cache, "JPY", 4);
+    assertEquals(8, cache.size());
+    assertNull(cache.get("GBP", null));
+    assertEquals("xxxx", cache.get("USD", null));
+    assertEquals("xxxx", cache.get("JPY", null));
+
+    cache.invalidate("USD");
+    assertEquals(4, cache.size());
+    assertNull(cache.get("USD", null));
+    assertEquals(Arrays.asList("USD", "GBP", "JPY"), notified);
+  }
+
+  /**
+   * Verify an icon, which cannot be decoded, is not decoded again until it is invalidated
+   */
+  @Test
+  public void missingUntilInvalidated() {
+    final DecodedIconCache<String> cache = newCache(10, DIRECT);
+    assertNull(cache.get("USD", "USD.png"));
+    assertTrue(cache.isMissing("USD"));
+    assertNull(cache.get("USD", "USD.png"));
+    assertEquals(1, decodedPaths.size());
+    assertTrue(notified.isEmpty());
+
+    files.put("USD.png", "xx");
+    cache.invalidate("USD");
+    assertFalse(cache.isMissing("USD"));
+    assertNull(cache.get("USD", "USD.png"));
+    assertEquals("xx", cache.get("USD", "USD.png"));
+    assertEquals(2, decodedPaths.size());
+    assertEquals(1, notified.size());
+  }
+
+  /**
+   * Verify an icon is decoded once at a time, and its result is dropped, in case it has been
+   * invalidated while decoding
+   */
+  @Test
+  public void staleWhileDecoding() {
+    final ManualExecutor decoderExecutor = new ManualExecutor();
+    final DecodedIconCache<String> cache = newCache(10, decoderExecutor);
+    files.put("USD.png", "old");
+    assertNull(cache.get("USD", "USD.png"));
+    assertNull(cache.get("USD", "USD.png"));
+    assertEquals(1, decoderExecutor.tasks.size());
+
+    cache.invalidate("USD");
+    assertTrue(cache.isStale("USD"));
+    files.put("USD.png", "new");
+    decoderExecutor.runAll();
+    assertFalse(cache.isStale("USD"));
+    assertEquals(0, cache.size());
+    assertEquals(1, notified.size());
+
+    assertNull(cache.get("USD", "USD.png"));
+    decoderExecutor.runAll();
+    assertEquals("new", cache.get("USD", null));
+  }
+
+  /**
+   * Verify the cache is kept while running normally, halved from running low up to the
+   * background level, and cleared from the moderate level
+   */
+  @Test
+  public void trimLevels() {
+    final DecodedIconCache<String> cache = newCache(12, DIRECT);
+    load(cache, "USD", 4);
+    load(cache, "GBP", 4);
+    load(cache, "JPY", 4);
+
+    cache.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_RUNNING_MODERATE);
+    assertEquals(12, cache.size());
+
+    cache.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW);
+    assertEquals(4, cache.size());
+    assertEquals("xxxx", cache.get("JPY", null));
+
+    load(cache, "USD", 4);
+    cache.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN);
+    assertEquals(4, cache.size());
+    assertEquals("xxxx", cache.get("USD", null));
+
+    load(cache, "GBP", 4);
+    cache.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_BACKGROUND);
+    assertEquals(4, cache.size());
+    assertEquals("xxxx", cache.get("GBP", null));
+
+    cache.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_MODERATE);
+    assertEquals(0, cache.size());
+    assertNull(cache.get("GBP", null));
+  }
+
+  /**
+   * Verify an icon, the decoder throws for, does not stay decoding, and is remembered as missing
+   * until it is invalidated
+   */
+  @Test
+  public void decoderFailure() {
+    final ManualExecutor decoderExecutor = new ManualExecutor();
+    final DecodedIconCache<String> cache = newCache(10, decoderExecutor);
+    assertNull(cache.get("USD", "broken/USD.png"));
+    try {
+      decoderExecutor.runAll();
+      fail();
+    } catch (IllegalStateException expected) {
+      // Expected
+    }
+    assertTrue(cache.isMissing("USD"));
+    assertNull(cache.get("USD", "broken/USD.png"));
+    assertTrue(decoderExecutor.tasks.isEmpty());
+
+    files.put("USD.png", "xx");
+    cache.invalidate("USD");
+    assertNull(cache.get("USD", "USD.png"));
+    decoderExecutor.runAll();
+    assertEquals("xx", cache.get("USD", null));
+    assertEquals(Arrays.asList("broken/USD.png", "USD.png"), decodedPaths);
+  }
+}
@@ -0,0 +1,117 @@
+package com.example.currencyrates;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.text.DecimalFormat;
+import java.text.NumberFormat;
+import java.util.Locale;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Unit tests of {@link DigitWriter}, verifying it writes the same text as the
+ * {@link DecimalFormat} of the locale.
+ */
+public class DigitWriterTest {
+
+  private static final Locale[] LOCALES = {Locale.US, Locale.GERMANY, Locale.FRANCE,
+      new Locale("de", "CH"), new Locale("ar", "EG")};
+
+  private static String format(Locale locale, long unscaled, int scale, int fractionDigits) {
+    final DecimalFormat format = (DecimalFormat) NumberFormat.getNumberInstance(locale);
+    format.setMinimumFractionDigits(fractionDigits);
+    format.setMaximumFractionDigits(fractionDigits);
+    format.setRoundingMode(RoundingMode.HALF_UP);
+    return format.format(BigDecimal.valueOf(unscaled, scale));
+  }
+
+  private static String write(Locale locale, long unscaled, int scale, int fractionDigits) {
+    final DigitWriter writer = new DigitWriter();
+    assertTrue(writer.write(unscaled, scale, fractionDigits, DigitWriter.Symbols.of(locale)));
+    return writer.toString();
+  }
+
+  /**
+   * Verify the grouping and the decimal separators of known values
+   */
+  @Test
+  public void knownValues() {
+    assertEquals("1,234,567.89", write(Locale.US, 123456789, 2, 2));
+    assertEquals("1.234.567,89", write(Locale.GERMANY, 123456789, 2, 2));
+    assertEquals("0.00", write(Locale.US, 0, 0, 2));
+    assertEquals("-12.35", write(Locale.US, -123456, 4, 2));
+    assertEquals("0.00", write(Locale.US, -1, 4, 2));
+    assertEquals("1,235", write(Locale.US, 12345, 1, 0));
+    assertEquals("100.000", write(Locale.US, 100, 0, 3));
+  }
+
+  /**
+   * Verify the writer shows the same text as the decimal format for random values and locales
+   */
+  @Test
+  public void randomValues() {
+    final Random random = new Random(7);
+    final DigitWriter writer = new DigitWriter();
+    for (Locale locale : LOCALES) {
+      final DigitWriter.Symbols symbols = DigitWriter.Symbols.of(locale);
+      for (int i = 0; i < 20000; i++) {
+        final long unscaled = (long) (random.nextDouble() * Math.pow(10, 1 + random.nextInt(15)));
+        final int scale = random.nextInt(11);
+        final int fractionDigits = random.nextInt(4);
+        assertTrue(writer.write(unscaled, scale, fractionDigits, symbols));
+        assertEquals(locale + " " + unscaled + "E-" + scale,
+            format(locale, unscaled, scale, fractionDigits), writer.toString());
+      }
+    }
+  }
+
+  /**
+   * Verify the writer reports the amounts, which overflow after rescaling
+   */
+  @Test
+  public void overflow() {
+    final DigitWriter writer = new DigitWriter();
+    final DigitWriter.Symbols symbols = DigitWriter.Symbols.of(Locale.US);
+    assertFalse(writer.write(Long.MAX_VALUE / 10, 0, 2, symbols));
+    assertEquals(0, writer.length());
+    assertFalse(writer.write(Long.MIN_VALUE, 0, 0, symbols));
+    assertTrue(writer.write(Long.MAX_VALUE, 0, 0, symbols));
+    assertEquals("9,223,372,036,854,775,807", writer.toString());
+  }
+
+  /**
+   * Verify the patterns with a secondary grouping size are told apart from the uniform ones
+   */
+  @Test
+  public void uniformGrouping() {
+    assertTrue(DigitWriter.Symbols.isUniformGrouping("#,##0.###"));
+    assertTrue(DigitWriter.Symbols.isUniformGrouping("#,##0.00;(#,##0.00)"));
+    assertTrue(DigitWriter.Symbols.isUniformGrouping("#,###,##0"));
+    assertTrue(DigitWriter.Symbols.isUniformGrouping("0.###"));
+    assertFalse(DigitWriter.Symbols.isUniformGrouping("#,##,##0.###"));
+    assertFalse(DigitWriter.Symbols.isUniformGrouping("#,##,##0"));
+  }
+
+  /**
+   * Verify the writer refuses the locales with a secondary grouping size, so their amounts are
+   * left to the decimal format
+   */
+  @Test
+  public void secondaryGroupingNotWritten() {
+    final Locale locale = new Locale("en", "IN");
+    final DecimalFormat format = (DecimalFormat) NumberFormat.getNumberInstance(locale);
+    final DigitWriter.Symbols symbols = DigitWriter.Symbols.of(locale);
+    assertEquals(DigitWriter.Symbols.isUniformGrouping(format.toPattern()),
+        symbols.isUniformGrouping());
+    if (!symbols.isUniformGrouping()) {
+      final DigitWriter writer = new DigitWriter();
+      assertFalse(writer.write(123456789, 2, 2, symbols));
+      assertEquals(0, writer.length());
+    }
+  }
+}
@@ -0,0 +1,168 @@
+package com.example.currencyrates;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Unit tests of the merging, the limits and the retries of {@link FlagDownloadManager}.
+ */
+public class FlagDownloadManagerTest {
+
+  private static final Executor DIRECT = new Executor() {
+    @Override
+    public void execute(Runnable command) {
+      command.run();
+    }
+  };
+
+  private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor();
+  private final List<String> ready = new CopyOnWriteArrayList<>();
+  private final List<String> failed = new CopyOnWriteArrayList<>();
+  private final FlagDownloadManager.Listener listener = new FlagDownloadManager.Listener() {
+    @Override
+    public void onFlagReady(String key) {
+      ready.add(key);
+    }
+
+    @Override
+    public void onFlagFailed(String key, String url, int attempts) {
+      failed.add(key + "/" + attempts);
+    }
+  };
+
+  @After
+  public void tearDown() {
+    timer.shutdownNow();
+  }
+
+  /**
+   * A worker, which runs the submitted downloads only when asked.
+   */
+  private static final class ManualWorker implements Executor {
+
+    private final List<Runnable> tasks = new ArrayList<>();
+
+    @Override
+    public synchronized void execute(Runnable command) {
+      tasks.add(command);
+    }
+
+    private void runAll() {
+      final List<Runnable> copy;
+      synchronized (this) {
+        copy = new ArrayList<>(tasks);
+        tasks.clear();
+      }
+      for (Runnable task : copy) {
+        task.run();
+      }
+    }
+  }
+
+  /**
+   * Verify duplicate requests are merged and at most the host limit runs at a time
+   */
+  @Test
+  public void mergeAndLimitPerHost() {
+    final AtomicInteger fetches = new AtomicInteger();
+    final ManualWorker worker = new ManualWorker();
+    final FlagDownloadManager manager = new FlagDownloadManager(new FlagDownloadManager.Fetcher() {
+      @Override
+      public boolean fetch(String key, String url) {
+        fetches.incrementAndGet();
+        return true;
+      }
+    }, worker, DIRECT, timer, listener);
+
+    assertTrue(manager.request("USD", "https://flags.test/us.png"));
+    assertFalse(manager.request("USD", "https://flags.test/us.png"));
+    assertTrue(manager.request("GBP", "https://flags.test/gb.png"));
+    assertTrue(manager.request("JPY", "https://flags.test/jp.png"));
+    assertTrue(manager.request("EUR", "https://other.test/eu.png"));
+    assertEquals(1, manager.getMergedCount());
+    assertEquals(FlagDownloadManager.MAX_DOWNLOADS_PER_HOST, manager.getRunningCount("flags.test"));
+    assertEquals(1, manager.getRunningCount("other.test"));
+
+    worker.runAll();
+    worker.runAll();
+    assertEquals(4, fetches.get());
+    assertEquals(0, manager.getPendingCount());
+    assertEquals(0, manager.getRunningCount("flags.test"));
+    assertEquals(4, ready.size());
+    assertTrue(ready.contains("JPY"));
+  }
+
+  /**
+   * Verify a failed download is retried after a backoff, and given up after the last attempt
+   */
+  @Test
+  public void retryWithBackoff() throws InterruptedException {
+    final AtomicInteger attempts = new AtomicInteger();
+    final CountDownLatch done = new CountDownLatch(2 + FlagDownloadManager.MAX_ATTEMPTS);
+    final FlagDownloadManager manager = new FlagDownloadManager(new FlagDownloadManager.Fetcher() {
+      @Override
+      public boolean fetch(String key, String url) {
+        done.countDown();
+        return "USD".equals(key) && attempts.incrementAndGet() == 2;
+      }
+    }, DIRECT, DIRECT, timer, listener, 1);
+
+    assertTrue(manager.request("USD", "https://flags.test/us.png"));
+    assertTrue(manager.request("GBP", "https://flags.test/gb.png"));
+    assertTrue(done.await(5, TimeUnit.SECONDS));
+    final long deadline = System.currentTimeMillis() + 5000;
+    while (manager.getPendingCount() > 0 && System.currentTimeMillis() < deadline) {
+      Thread.sleep(5);
+    }
+
+    assertEquals(2, attempts.get());
+    assertEquals(1, ready.size());
+    assertEquals("USD", ready.get(0));
+    assertEquals(1, failed.size());
+    assertEquals("GBP/" + FlagDownloadManager.MAX_ATTEMPTS, failed.get(0));
+    assertEquals(0, manager.getPendingCount());
+    assertFalse(manager.request("GBP", "https://flags.test/gb.png"));
+  }
+
+  /**
+   * Verify a stored icon stays pending until the listener is called, so the requests made
+   * before the callback runs do not download it again
+   */
+  @Test
+  public void pendingUntilNotified() {
+    final AtomicInteger fetches = new AtomicInteger();
+    final ManualWorker callbacks = new ManualWorker();
+    final FlagDownloadManager manager = new FlagDownloadManager(new FlagDownloadManager.Fetcher() {
+      @Override
+      public boolean fetch(String key, String url) {
+        fetches.incrementAndGet();
+        return true;
+      }
+    }, DIRECT, callbacks, timer, listener);
+
+    assertTrue(manager.request("USD", "https://flags.test/us.png"));
+    assertEquals(1, fetches.get());
+    assertEquals(1, manager.getPendingCount());
+    assertFalse(manager.request("USD", "https://flags.test/us.png"));
+    assertEquals(1, fetches.get());
+    assertTrue(ready.isEmpty());
+
+    callbacks.runAll();
+    assertEquals(1, ready.size());
+    assertEquals(0, manager.getPendingCount());
+  }
+}
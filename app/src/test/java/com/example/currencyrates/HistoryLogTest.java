@@ -0,0 +1,243 @@
+package com.example.currencyrates;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests of the segments, the encoding and the limits of {@link HistoryLog}.
+ */
+public class HistoryLogTest {
+
+  private static final int USD = RateTable.indexOf("USD");
+  private static final int JPY = RateTable.indexOf("JPY");
+  private static final long SEGMENT = 1000_000;
+
+  private File dir;
+
+  @Before
+  public void setUp() throws IOException {
+    dir = File.createTempFile("history", "");
+    assertTrue(dir.delete());
+    assertTrue(dir.mkdirs());
+  }
+
+  @After
+  public void tearDown() {
+    for (File file : dir.listFiles()) {
+      file.delete();
+    }
+    dir.delete();
+  }
+
+  private HistoryLog log(long retention, long maxTotalBytes, long compactAfter) {
+    return new HistoryLog(dir, SEGMENT, 1 << 20, retention, maxTotalBytes, compactAfter, 60_000);
+  }
+
+  private static RateTable table(long usd, long jpy) {
+    final RateTable table = new RateTable();
+    table.put(USD, usd);
+    table.put(JPY, jpy);
+    return table.seal();
+  }
+
+  /**
+   * Appends a USD tick every second, moving by one unit of the last digit, with a constant JPY
+   */
+  private static void appendTicks(HistoryLog log, long from, int count) {
+    for (int i = 0; i < count; i++) {
+      assertTrue(log.append(from + i * 1000L, table(11_234_000_000L + i, 1_298_700_000_000L)));
+    }
+  }
+
+  /**
+   * Verify the varints round trip
+   */
+  @Test
+  public void varLong() {
+    final byte[] buffer = new byte[10];
+    for (long value : new long[]{0, 1, 127, 128, 300, Long.MAX_VALUE, -1, Long.MIN_VALUE}) {
+      final int length = HistoryLog.putVarLong(buffer, 0, value);
+      final ByteBuffer read = ByteBuffer.wrap(buffer, 0, length);
+      assertEquals(value, HistoryLog.getVarLong(read));
+      assertFalse(read.hasRemaining());
+    }
+  }
+
+  /**
+   * Verify the ticks are read back across segments and keyframes, and are compact on the disk
+   */
+  @Test
+  public void appendAndRange() {
+    final HistoryLog log = log(Long.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE);
+    appendTicks(log, 0, 3000);
+    log.close();
+    assertEquals(3, log.getSegmentCount());
+    assertTrue("" + log.getTotalBytes(), log.getTotalBytes() < 3000 * 8);
+
+    final long[] times = new long[5000];
+    final long[] rates = new long[5000];
+    assertEquals(3000, log.range(USD, 0, Long.MAX_VALUE, times, rates));
+    for (int i = 0; i < 3000; i++) {
+      assertEquals(i * 1000L, times[i]);
+      assertEquals(11_234_000_000L + i, rates[i]);
+    }
+    assertEquals(1, log.range(JPY, 0, Long.MAX_VALUE, times, rates));
+    assertEquals(1_298_700_000_000L, rates[0]);
+
+    assertEquals(3, log.range(USD, 1_500_000, 1_503_000, times, rates));
+    assertArrayEquals(new long[]{1_500_000, 1_501_000, 1_502_000},
+        new long[]{times[0], times[1], times[2]});
+    assertEquals(11_234_001_500L, rates[0]);
+    assertEquals(2, log.range(USD, 0, 10_000_000, new long[2], new long[2]));
+  }
+
+  /**
+   * Verify a truncated last record ends the segment
+   */
+  @Test
+  public void truncatedTail() throws IOException {
+    final HistoryLog log = log(Long.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE);
+    appendTicks(log, 0, 10);
+    log.close();
+    final RandomAccessFile segment = new RandomAccessFile(new File(dir, "0.seg"), "rw");
+    try {
+      segment.setLength(segment.length() - 1);
+    } finally {
+      segment.close();
+    }
+    assertEquals(9, log.range(USD, 0, Long.MAX_VALUE, new long[20], new long[20]));
+  }
+
+  /**
+   * Verify the old segments are compacted to one record per interval and then deleted
+   */
+  @Test
+  public void compactionAndRetention() {
+    final HistoryLog log = log(10 * SEGMENT, Long.MAX_VALUE, 2 * SEGMENT);
+    appendTicks(log, 0, 3000);
+    log.close();
+
+    log.maintain(5 * SEGMENT);
+    assertEquals(3, log.getSegmentCount());
+    assertTrue(log.isCompacted(0));
+    assertTrue(log.isCompacted(SEGMENT));
+    assertFalse(log.isCompacted(2 * SEGMENT));
+    final long[] times = new long[5000];
+    final long[] rates = new long[5000];
+    assertEquals(17, log.range(USD, 0, SEGMENT, times, rates));
+    assertEquals(59_000, times[0]);
+    assertEquals(11_234_000_059L, rates[0]);
+    assertEquals(999_000, times[16]);
+    assertEquals(1000, log.range(USD, 2 * SEGMENT, Long.MAX_VALUE, times, rates));
+
+    log.maintain(12 * SEGMENT);
+    assertEquals(1, log.getSegmentCount());
+    assertEquals(1000, log.range(USD, 0, Long.MAX_VALUE, times, rates));
+  }
+
+  /**
+   * Verify the oldest segments are deleted over the size limit
+   */
+  @Test
+  public void sizeLimit() {
+    final HistoryLog log = log(Long.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE);
+    appendTicks(log, 0, 3000);
+    log.close();
+    final long total = log.getTotalBytes();
+
+    final HistoryLog limited = log(Long.MAX_VALUE, total / 2, Long.MAX_VALUE);
+    limited.maintain(3 * SEGMENT);
+    assertEquals(1, limited.getSegmentCount());
+    assertTrue(limited.getTotalBytes() <= total / 2);
+  }
+
+  /**
+   * Verify the size limit is applied to the compacted sizes, so no segment is deleted in case
+   * the compaction alone brings the log under the limit
+   */
+  @Test
+  public void sizeLimitAfterCompaction() {
+    final HistoryLog log = log(Long.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE);
+    appendTicks(log, 0, 3000);
+    log.close();
+    final long total = log.getTotalBytes();
+
+    final HistoryLog limited = log(Long.MAX_VALUE, total * 3 / 4, 2 * SEGMENT);
+    limited.maintain(5 * SEGMENT);
+    assertEquals(3, limited.getSegmentCount());
+    assertTrue(limited.isCompacted(0));
+    assertTrue(limited.isCompacted(SEGMENT));
+    assertTrue(limited.getTotalBytes() <= total * 3 / 4);
+  }
+
+  /**
+   * Verify a segment written by a process, which has assigned the indexes in another order, is
+   * read back by the codes of its code table
+   */
+  @Test
+  public void reopenAfterIndexOrderChange() throws IOException {
+    final ByteBuffer segment = ByteBuffer.allocate(64);
+    segment.putInt(HistoryLog.MAGIC).put(HistoryLog.FORMAT_VERSION).put((byte) 0).putLong(0)
+        .putShort((short) 2).put("JPYUSD".getBytes("US-ASCII"));
+    final byte[] record = new byte[32];
+    int position = HistoryLog.putVarLong(record, 0, 5000);
+    record[position++] = HistoryLog.KEYFRAME;
+    position = HistoryLog.putVarLong(record, position, 2);
+    position = HistoryLog.putVarLong(record, position, 0);
+    position = HistoryLog.putVarLong(record, position, 1_298_700_000_000L);
+    position = HistoryLog.putVarLong(record, position, 0);
+    position = HistoryLog.putVarLong(record, position, 11_234_000_000L);
+    segment.put(record, 0, position);
+    final FileOutputStream out = new FileOutputStream(new File(dir, "0.seg"));
+    try {
+      out.write(segment.array(), 0, segment.position());
+    } finally {
+      out.close();
+    }
+
+    final HistoryLog log = log(Long.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE);
+    final long[] times = new long[4];
+    final long[] rates = new long[4];
+    assertEquals(1, log.range(USD, 0, Long.MAX_VALUE, times, rates));
+    assertEquals(5000, times[0]);
+    assertEquals(11_234_000_000L, rates[0]);
+    assertEquals(1, log.range(JPY, 0, Long.MAX_VALUE, times, rates));
+    assertEquals(1_298_700_000_000L, rates[0]);
+  }
+
+  /**
+   * Verify a currency, which gets its index after the segment has started, starts a new segment
+   * with it in the code table
+   */
+  @Test
+  public void newCurrencyStartsSegment() {
+    final HistoryLog log = log(Long.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE);
+    appendTicks(log, 0, 10);
+    final int added = RateTable.indexOf("QQX");
+    final RateTable table = new RateTable();
+    table.put(USD, 11_234_000_000L);
+    table.put(added, 42);
+    assertTrue(log.append(10_000, table.seal()));
+    log.close();
+
+    assertEquals(2, log.getSegmentCount());
+    final long[] times = new long[20];
+    final long[] rates = new long[20];
+    assertEquals(1, log.range(added, 0, Long.MAX_VALUE, times, rates));
+    assertEquals(10_000, times[0]);
+    assertEquals(42, rates[0]);
+    assertEquals(11, log.range(USD, 0, Long.MAX_VALUE, times, rates));
+  }
+}
@@ -0,0 +1,49 @@
+package com.example.currencyrates;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unit tests of the presence of the icons in {@link IconIndex}.
+ */
+public class IconIndexTest {
+
+  @Rule
+  public final TemporaryFolder folder = new TemporaryFolder();
+
+  /**
+   * Verify the stored icons are found by the single scan, and the later files only once marked
+   */
+  @Test
+  public void scanAndMark() throws IOException {
+    final File directory = folder.newFolder(IconIndex.DIR_NAME);
+    assertTrue(new File(directory, "USD" + IconIndex.EXTENSION).createNewFile());
+    assertTrue(new File(directory, "GBP.tmp").createNewFile());
+    final IconIndex index = new IconIndex(directory);
+
+    assertTrue(index.contains("USD"));
+    assertFalse(index.contains("GBP"));
+    assertFalse(index.contains("EURO"));
+
+    assertTrue(new File(directory, "JPY" + IconIndex.EXTENSION).createNewFile());
+    assertFalse(index.contains("JPY"));
+    index.markPresent("JPY");
+    assertTrue(index.contains("JPY"));
+  }
+
+  /**
+   * Verify no icon is present, in case the directory is not available
+   */
+  @Test
+  public void noDirectory() {
+    final IconIndex index = new IconIndex(null);
+    assertFalse(index.contains("USD"));
+  }
+}
@@ -0,0 +1,73 @@
+package com.example.currencyrates;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Map;
+
+import org.junit.Test;
+
+/**
+ * Unit tests of the buckets and the percentiles of {@link LatencyHistogram} and the sampling of
+ * {@link PipelineMetrics}.
+ */
+public class LatencyHistogramTest {
+
+  /**
+   * Verify every value falls in a bucket, whose upper bound is within 12.5% of it
+   */
+  @Test
+  public void buckets() {
+    int previous = -1;
+    for (long value = 0; value < 1 << 20; value += 1 + value / 64) {
+      final int bucket = LatencyHistogram.bucketOf(value);
+      assertTrue(bucket >= previous);
+      assertTrue(value <= LatencyHistogram.upperBoundOf(bucket));
+      assertTrue(bucket == 0 || value > LatencyHistogram.upperBoundOf(bucket - 1));
+      assertTrue(LatencyHistogram.upperBoundOf(bucket) - value <= value / 8);
+      previous = bucket;
+    }
+    assertEquals(LatencyHistogram.BUCKET_COUNT - 1, LatencyHistogram.bucketOf(Long.MAX_VALUE));
+  }
+
+  /**
+   * Verify the percentiles, the mean and the maximum
+   */
+  @Test
+  public void percentiles() {
+    final LatencyHistogram histogram = new LatencyHistogram();
+    for (int i = 1; i <= 1000; i++) {
+      histogram.record(i);
+    }
+    final LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+    assertEquals(1000, snapshot.getCount());
+    assertEquals(500, snapshot.getMean());
+    assertEquals(1000, snapshot.getMax());
+    assertTrue(snapshot.percentile(0.5) >= 500 && snapshot.percentile(0.5) <= 500 * 9 / 8);
+    assertTrue(snapshot.percentile(0.99) >= 990 && snapshot.percentile(0.99) <= 1000);
+    assertEquals(1000, snapshot.percentile(1));
+
+    histogram.reset();
+    assertEquals(0, histogram.snapshot().getCount());
+    assertEquals(0, histogram.snapshot().percentile(0.5));
+  }
+
+  /**
+   * Verify nothing is recorded while the sampling is off
+   */
+  @Test
+  public void sampling() {
+    final PipelineMetrics metrics = new PipelineMetrics();
+    final long skipped = metrics.start();
+    assertEquals(PipelineMetrics.NOT_SAMPLED, skipped);
+    assertEquals(PipelineMetrics.NOT_SAMPLED, metrics.record(PipelineMetrics.Stage.CONNECT, skipped));
+
+    metrics.setSampling(true);
+    final long end = metrics.record(PipelineMetrics.Stage.CONNECT, metrics.start());
+    metrics.record(PipelineMetrics.Stage.FIRST_BYTE, end);
+    final Map<PipelineMetrics.Stage, LatencyHistogram.Snapshot> snapshot = metrics.snapshot();
+    assertEquals(1, snapshot.get(PipelineMetrics.Stage.CONNECT).getCount());
+    assertEquals(1, snapshot.get(PipelineMetrics.Stage.FIRST_BYTE).getCount());
+    assertEquals(0, snapshot.get(PipelineMetrics.Stage.TICK).getCount());
+  }
+}
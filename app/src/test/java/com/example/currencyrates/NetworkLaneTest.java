@@ -0,0 +1,64 @@
+package com.example.currencyrates;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+/**
+ * Unit tests of the bounds and the measurements of {@link NetworkLane}.
+ */
+public class NetworkLaneTest {
+
+  /**
+   * Verify the lane rejects tasks over its capacity and measures the queue depth and wait time
+   */
+  @Test
+  public void boundedAndMeasured() throws Exception {
+    final NetworkLane lane = new NetworkLane("test", 1, 2);
+    final CountDownLatch release = new CountDownLatch(1);
+    final CountDownLatch done = new CountDownLatch(3);
+    final Runnable blocked = new Runnable() {
+      @Override
+      public void run() {
+        try {
+          release.await();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        done.countDown();
+      }
+    };
+    try {
+      lane.execute(blocked);
+      lane.execute(blocked);
+      lane.execute(blocked);
+      try {
+        lane.execute(blocked);
+        fail("The lane should reject a task over its capacity");
+      } catch (RejectedExecutionException expected) {
+        // The running task and the two queued ones fill the lane
+      }
+      assertEquals(2, lane.getQueueDepth());
+      assertEquals(2, lane.getMaxQueueDepth());
+
+      Thread.sleep(20);
+      release.countDown();
+      assertTrue(done.await(5, TimeUnit.SECONDS));
+      lane.shutdown();
+      assertTrue(lane.awaitTermination(5, TimeUnit.SECONDS));
+
+      assertEquals(3, lane.getExecutedCount());
+      assertEquals(0, lane.getQueueDepth());
+      assertTrue(lane.toString(), lane.getMaxWaitMicros() >= 20000);
+      assertTrue(lane.toString(), lane.getAverageWaitMicros() <= lane.getMaxWaitMicros());
+    } finally {
+      lane.shutdownNow();
+    }
+  }
+}
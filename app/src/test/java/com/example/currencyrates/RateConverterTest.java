@@ -0,0 +1,162 @@
+package com.example.currencyrates;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Unit tests of the fixed-point conversion done by {@link RateConverter}, verifying it shows the
+ * same text as the exact {@link BigDecimal} conversion.
+ */
+public class RateConverterTest {
+
+  private static final String[] MULTIPLIERS = {"0", "1", "10", "100", "1000", "0.5", "2.25",
+      "12.345", "0.000001", "999999", "123456.789012", "1E+3"};
+
+  private static final String[] RATES = {"1", "1.1234", "0.0000625", "16000.1", "120.55",
+      "0.005", "0.015", "0.025", "1.2345678901", "0.0000000001", "98765.4321"};
+
+  private static String exact(String multiplier, long rate) {
+    final RateConverter converter = new RateConverter(RateConverter.Mode.EXACT);
+    converter.setMultiplier(new BigDecimal(multiplier));
+    return CurrencyUtils.formatBigDecimalAsString(converter.convert(rate));
+  }
+
+  private static String fixed(String multiplier, long rate) {
+    final RateConverter converter = new RateConverter(RateConverter.Mode.FIXED_POINT);
+    converter.setMultiplier(new BigDecimal(multiplier));
+    return CurrencyUtils.formatBigDecimalAsString(converter.convert(rate));
+  }
+
+  /**
+   * Verify both modes show the same text for known multipliers and rates
+   */
+  @Test
+  public void knownValues() {
+    for (String multiplier : MULTIPLIERS) {
+      for (String rate : RATES) {
+        final long scaled = RateTable.toScaled(new BigDecimal(rate));
+        assertEquals(multiplier + " x " + rate, exact(multiplier, scaled),
+            fixed(multiplier, scaled));
+      }
+    }
+  }
+
+  /**
+   * Verify both modes show the same text for random multipliers and rates
+   */
+  @Test
+  public void randomValues() {
+    final Random random = new Random(42);
+    for (int i = 0; i < 100000; i++) {
+      final long rate = 1 + (long) (random.nextDouble() * 100000L * RateTable.UNIT);
+      final BigDecimal multiplier = BigDecimal.valueOf(random.nextInt(100000000),
+          random.nextInt(RateConverter.MAX_MULTIPLIER_SCALE + 1));
+      assertEquals(multiplier + " x " + rate, exact(multiplier.toPlainString(), rate),
+          fixed(multiplier.toPlainString(), rate));
+    }
+  }
+
+  /**
+   * Verify half up rounding at the display scale
+   */
+  @Test
+  public void roundingHalfUp() {
+    final RateConverter converter = new RateConverter(RateConverter.Mode.FIXED_POINT);
+    converter.setMultiplier(BigDecimal.ONE);
+    assertEquals(1, converter.multiplyFixed(RateTable.toScaled(new BigDecimal("0.005"))));
+    assertEquals(0, converter.multiplyFixed(RateTable.toScaled(new BigDecimal("0.0049999999"))));
+    assertEquals(2, converter.multiplyFixed(RateTable.toScaled(new BigDecimal("0.015"))));
+    assertEquals(3, converter.multiplyFixed(RateTable.toScaled(new BigDecimal("0.025"))));
+  }
+
+  /**
+   * Verify the fixed-point mode falls back to the exact mode when the product overflows or the
+   * multiplier has too many decimal digits
+   */
+  @Test
+  public void fallbackToExact() {
+    final RateConverter converter = new RateConverter(RateConverter.Mode.FIXED_POINT);
+    converter.setMultiplier(new BigDecimal("1000000000000"));
+    final long rate = RateTable.toScaled(new BigDecimal("98765.4321012345"));
+    assertEquals(-1, converter.multiplyFixed(rate));
+    assertEquals(0, new BigDecimal("98765432101234500")
+        .compareTo(converter.convert(rate)));
+
+    converter.setMultiplier(new BigDecimal("0.1234567"));
+    assertTrue(converter.convert(RateTable.UNIT).scale() > RateConverter.DISPLAY_SCALE);
+    assertEquals(exact("0.1234567", RateTable.UNIT), fixed("0.1234567", RateTable.UNIT));
+    assertEquals(-1, converter.convertFixed(RateTable.UNIT, RateTable.UNIT, 2));
+  }
+
+  /**
+   * Verify the fixed-point amount is kept in long form, and only the fixed-point mode has one
+   */
+  @Test
+  public void convertFixed() {
+    final RateConverter converter = new RateConverter(RateConverter.Mode.FIXED_POINT);
+    converter.setMultiplier(new BigDecimal("2.5"));
+    final long rate = RateTable.toScaled(new BigDecimal("1.1234"));
+    assertEquals(281, converter.convertFixed(rate, RateTable.UNIT, 2));
+    assertEquals(2809, converter.convertFixed(rate, RateTable.UNIT, 3));
+    assertEquals(0, BigDecimal.valueOf(281, 2).compareTo(converter.convert(rate)));
+
+    final RateConverter exact = new RateConverter(RateConverter.Mode.EXACT);
+    exact.setMultiplier(new BigDecimal("2.5"));
+    assertEquals(-1, exact.convertFixed(rate, RateTable.UNIT, 2));
+  }
+
+  /**
+   * Verify a rate, which does not fit in a long at the table scale, is rejected instead of wrapped
+   */
+  @Test
+  public void scaledOverflow() {
+    assertEquals(Long.MAX_VALUE,
+        RateTable.toScaled(new BigDecimal(Long.MAX_VALUE).movePointLeft(RateTable.SCALE)));
+    try {
+      RateTable.toScaled(new BigDecimal("1E+9"));
+      fail();
+    } catch (ArithmeticException expected) {
+      assertTrue(expected.getMessage().contains("too large"));
+    }
+  }
+
+  /**
+   * Verify a small rate derived over the rate of a new base keeps its significant digits, and
+   * both modes divide it once, rounding half up at the display scale
+   */
+  @Test
+  public void derivedRateKeepsDigits() {
+    // BTC and IDR against EUR, so BTC against IDR is about 1.2E-9
+    final long btc = RateTable.toScaled(new BigDecimal("0.0000201234"));
+    final long idr = RateTable.toScaled(new BigDecimal("16543.21"));
+    final BigDecimal expected = new BigDecimal("20123.4")
+        .divide(new BigDecimal("16543.21"), 8, RoundingMode.HALF_UP);
+    for (RateConverter.Mode mode : RateConverter.Mode.values()) {
+      final RateConverter converter = new RateConverter(mode);
+      converter.setMultiplier(new BigDecimal("1000000000"));
+      assertEquals(mode.name(), expected, converter.convert(btc, idr, 8));
+    }
+    assertEquals(0, new BigDecimal("1.21641447").compareTo(expected));
+
+    final Random random = new Random(5);
+    final RateConverter exact = new RateConverter(RateConverter.Mode.EXACT);
+    final RateConverter fixed = new RateConverter(RateConverter.Mode.FIXED_POINT);
+    for (int i = 0; i < 20000; i++) {
+      final long rate = 1 + (long) (random.nextDouble() * 100000L * RateTable.UNIT);
+      final long denominator = 1 + (long) (random.nextDouble() * 100000L * RateTable.UNIT);
+      final BigDecimal multiplier = BigDecimal.valueOf(random.nextInt(1000000),
+          random.nextInt(RateConverter.MAX_MULTIPLIER_SCALE + 1));
+      exact.setMultiplier(multiplier);
+      fixed.setMultiplier(multiplier);
+      final int scale = random.nextInt(4);
+      assertEquals(exact.convert(rate, denominator, scale), fixed.convert(rate, denominator, scale));
+    }
+  }
+}
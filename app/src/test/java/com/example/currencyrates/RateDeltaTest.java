@@ -0,0 +1,88 @@
+package com.example.currencyrates;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigDecimal;
+
+import org.junit.Test;
+
+/**
+ * Unit tests of the changed currencies and the versions of {@link RateDelta}.
+ */
+public class RateDeltaTest {
+
+  private static final int USD = RateTable.indexOf("USD");
+  private static final int JPY = RateTable.indexOf("JPY");
+  private static final int BGN = RateTable.indexOf("BGN");
+  private static final int GBP = RateTable.indexOf("GBP");
+
+  private static RateTable table(String... codesAndRates) {
+    final RateTable rates = new RateTable();
+    for (int i = 0; i < codesAndRates.length; i += 2) {
+      rates.put(codesAndRates[i], new BigDecimal(codesAndRates[i + 1]));
+    }
+    return rates.seal();
+  }
+
+  /**
+   * Verify the first snapshot changes all its currencies and follows no version
+   */
+  @Test
+  public void firstSnapshot() {
+    final RateDelta delta = RateDelta.between(null, table("USD", "1.1", "JPY", "129.87"), 0);
+    assertEquals(1, delta.getVersion());
+    assertEquals(RateDelta.NO_VERSION, delta.getPreviousVersion());
+    assertEquals(2, delta.getChangedCount());
+    assertTrue(delta.isChanged(USD));
+    assertTrue(delta.isChanged(JPY));
+    assertFalse(delta.follows(RateDelta.NO_VERSION));
+    assertNull(RateDelta.between(null, null, 0));
+  }
+
+  /**
+   * Verify the added, the removed and the changed currencies are found in index order, and the
+   * unchanged ones are not
+   */
+  @Test
+  public void changedCurrencies() {
+    final RateTable previous = table("USD", "1.1", "JPY", "129.87", "BGN", "1.9558");
+    final RateTable current = table("USD", "1.2", "BGN", "1.9558", "GBP", "0.85");
+    final RateDelta delta = RateDelta.between(previous, current, 7);
+    assertEquals(8, delta.getVersion());
+    assertEquals(7, delta.getPreviousVersion());
+    assertEquals(3, delta.getChangedCount());
+    assertTrue(delta.isChanged(USD));
+    assertTrue(delta.isChanged(JPY));
+    assertTrue(delta.isChanged(GBP));
+    assertFalse(delta.isChanged(BGN));
+    assertFalse(delta.isChanged(RateTable.NO_INDEX));
+    for (int position = 1; position < delta.getChangedCount(); position++) {
+      assertTrue(delta.getChangedAt(position - 1) < delta.getChangedAt(position));
+    }
+    assertTrue(delta.getSnapshot() == current);
+  }
+
+  /**
+   * Verify an unchanged snapshot makes no delta
+   */
+  @Test
+  public void unchanged() {
+    assertNull(RateDelta.between(table("USD", "1.1"), table("USD", "1.1"), 3));
+    assertNull(RateDelta.between(new RateTable().seal(), new RateTable().seal(), 3));
+  }
+
+  /**
+   * Verify a delta follows only the version it is based on
+   */
+  @Test
+  public void follows() {
+    final RateDelta delta = RateDelta.between(table("USD", "1.1"), table("USD", "1.2"), 4);
+    assertTrue(delta.follows(4));
+    assertFalse(delta.follows(3));
+    assertFalse(delta.follows(5));
+    assertFalse(delta.follows(RateDelta.NO_VERSION));
+  }
+}
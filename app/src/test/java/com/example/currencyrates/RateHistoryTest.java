@@ -0,0 +1,111 @@
+package com.example.currencyrates;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Unit tests of the ring buffers and the queries of {@link RateHistory}.
+ */
+public class RateHistoryTest {
+
+  private static final int USD = RateTable.indexOf("USD");
+  private static final int JPY = RateTable.indexOf("JPY");
+
+  private static RateTable table(long usd, long jpy) {
+    final RateTable table = new RateTable();
+    table.put(USD, usd);
+    table.put(JPY, jpy);
+    return table.seal();
+  }
+
+  /**
+   * Records the rates 1, 2, ... count of USD at times 1000, 2000, ..., and a constant JPY rate
+   */
+  private static RateHistory history(long ceiling, int count) {
+    final RateHistory history = new RateHistory(ceiling);
+    RateTable previous = null;
+    for (int i = 1; i <= count; i++) {
+      final RateTable current = table(i, 500);
+      history.record(i * 1000L, RateDelta.between(previous, current, i - 1));
+      previous = current;
+    }
+    return history;
+  }
+
+  /**
+   * Verify the capacity follows the ceiling and the oldest ticks are overwritten
+   */
+  @Test
+  public void ringOverwritesOldest() {
+    final RateHistory history = history(2 * 10 * RateHistory.BYTES_PER_TICK, 25);
+    assertEquals(10, history.getCapacity());
+    assertEquals(10, history.size(USD));
+    assertEquals(1, history.size(JPY));
+    assertEquals(2 * 10 * RateHistory.BYTES_PER_TICK, history.getAllocatedBytes());
+
+    final long[] times = new long[20];
+    final long[] rates = new long[20];
+    assertEquals(10, history.latest(USD, 20, times, rates));
+    assertEquals(16, rates[0]);
+    assertEquals(25, rates[9]);
+    assertEquals(16000, times[0]);
+  }
+
+  /**
+   * Verify the latest and range queries return the ticks oldest first
+   */
+  @Test
+  public void latestAndRange() {
+    final RateHistory history = history(1 << 20, 100);
+    final long[] times = new long[3];
+    final long[] rates = new long[3];
+    assertEquals(3, history.latest(USD, 5, times, rates));
+    assertArrayEquals(new long[]{98, 99, 100}, rates);
+
+    assertEquals(3, history.range(USD, 10000, 13000, times, rates));
+    assertArrayEquals(new long[]{10000, 11000, 12000}, times);
+    assertEquals(2, history.range(USD, 98500, 200000, times, rates));
+    assertArrayEquals(new long[]{100000, 99, 100}, new long[]{times[1], rates[0], rates[1]});
+    assertEquals(0, history.range(USD, 200000, 300000, times, rates));
+    assertEquals(0, history.range(RateTable.indexOf("BGN"), 0, 300000, times, rates));
+  }
+
+  /**
+   * Verify the min, max and average of a range
+   */
+  @Test
+  public void stats() {
+    final RateHistory history = history(1 << 20, 100);
+    final RateHistory.Stats stats = new RateHistory.Stats();
+    assertTrue(history.stats(USD, 10000, 20001, stats));
+    assertEquals(11, stats.getCount());
+    assertEquals(10, stats.getMin());
+    assertEquals(20, stats.getMax());
+    assertEquals(15, stats.getAverage());
+    assertEquals(10000, stats.getFirstTimestamp());
+    assertEquals(20000, stats.getLastTimestamp());
+    assertFalse(history.stats(USD, 0, 1000, stats));
+    assertEquals(0, stats.getCount());
+  }
+
+  /**
+   * Verify the currencies over the ceiling are dropped
+   */
+  @Test
+  public void ceilingIsHonoured() {
+    final RateHistory history = new RateHistory(4 * RateHistory.BYTES_PER_TICK);
+    final RateTable first = new RateTable();
+    first.put(USD, 1);
+    history.record(1, RateDelta.between(null, first.seal(), 0));
+    assertEquals(4, history.getCapacity());
+    final RateTable second = table(2, 3);
+    history.record(2, RateDelta.between(first, second, 1));
+    assertEquals(2, history.size(USD));
+    assertEquals(0, history.size(JPY));
+    assertEquals(1, history.getDroppedTicks());
+  }
+}
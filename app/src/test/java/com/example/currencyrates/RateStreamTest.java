@@ -0,0 +1,138 @@
+package com.example.currencyrates;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests of the demand, the conflation and the minimum interval of {@link RateStream}.
+ */
+public class RateStreamTest {
+
+  private static final Executor DIRECT = new Executor() {
+    @Override
+    public void execute(Runnable command) {
+      command.run();
+    }
+  };
+
+  private RatesRepository repository;
+  private ScheduledExecutorService timer;
+  private RateStream stream;
+
+  @Before
+  public void setUp() {
+    repository = new RatesRepository();
+    timer = Executors.newSingleThreadScheduledExecutor();
+    stream = new RateStream(repository, timer);
+  }
+
+  @After
+  public void tearDown() {
+    stream.close();
+    timer.shutdownNow();
+  }
+
+  private static final class RecordingSubscriber implements RateStream.Subscriber {
+
+    private final List<RateDelta> deltas = new ArrayList<>();
+    private final CountDownLatch latch;
+
+    private RecordingSubscriber(int expected) {
+      latch = new CountDownLatch(expected);
+    }
+
+    @Override
+    public synchronized void onNext(String base, RateDelta delta) {
+      deltas.add(delta);
+      latch.countDown();
+    }
+  }
+
+  private static RateDelta delta(long usd) {
+    final RateTable table = new RateTable();
+    table.put(RateTable.indexOf("USD"), usd);
+    return RateDelta.between(null, table.seal(), RateDelta.NO_VERSION);
+  }
+
+  /**
+   * Verify nothing is delivered without demand, and the latest mode keeps only the newest delta
+   */
+  @Test
+  public void latestOnDemand() {
+    final RecordingSubscriber subscriber = new RecordingSubscriber(0);
+    final RateStream.Subscription subscription =
+        stream.subscribe("EUR", subscriber, DIRECT, RateStream.Mode.LATEST, 0);
+    repository.publish("EUR", delta(1));
+    repository.publish("GBP", delta(2));
+    final RateDelta last = delta(3);
+    repository.publish("EUR", last);
+    assertEquals(0, subscriber.deltas.size());
+
+    subscription.request(5);
+    assertEquals(1, subscriber.deltas.size());
+    assertSame(last, subscriber.deltas.get(0));
+    assertEquals(1, subscription.getDroppedCount());
+
+    repository.publish("EUR", delta(4));
+    assertEquals(2, subscriber.deltas.size());
+    subscription.cancel();
+    repository.publish("EUR", delta(5));
+    assertEquals(2, subscriber.deltas.size());
+    assertEquals(0, stream.getSubscriberCount());
+  }
+
+  /**
+   * Verify the buffer mode keeps the order and drops the oldest deltas over its capacity, and a
+   * new subscriber receives the latest published delta
+   */
+  @Test
+  public void bufferAndReplay() {
+    final RateDelta first = delta(100);
+    repository.publish("EUR", first);
+    final RecordingSubscriber subscriber = new RecordingSubscriber(0);
+    final RateStream.Subscription subscription =
+        stream.subscribe("EUR", subscriber, DIRECT, RateStream.Mode.BUFFER, 0);
+    final List<RateDelta> published = new ArrayList<>();
+    for (int i = 0; i < RateStream.BUFFER_CAPACITY + 4; i++) {
+      final RateDelta delta = delta(i + 1);
+      published.add(delta);
+      repository.publish("EUR", delta);
+    }
+    assertEquals(5, subscription.getDroppedCount());
+
+    subscription.request(Long.MAX_VALUE);
+    subscription.request(Long.MAX_VALUE);
+    assertEquals(RateStream.BUFFER_CAPACITY, subscriber.deltas.size());
+    assertEquals(published.subList(4, published.size()), subscriber.deltas);
+  }
+
+  /**
+   * Verify the deliveries are at least the minimum interval apart
+   */
+  @Test
+  public void minInterval() throws InterruptedException {
+    final RecordingSubscriber subscriber = new RecordingSubscriber(2);
+    final RateStream.Subscription subscription =
+        stream.subscribe("EUR", subscriber, DIRECT, RateStream.Mode.BUFFER, 200);
+    subscription.request(2);
+    final long start = System.nanoTime();
+    repository.publish("EUR", delta(1));
+    repository.publish("EUR", delta(2));
+    assertEquals(1, subscriber.deltas.size());
+    assertTrue(subscriber.latch.await(5, TimeUnit.SECONDS));
+    assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(200));
+  }
+}
@@ -0,0 +1,183 @@
+package com.example.currencyrates;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Unit tests of the code indexes, the division, the sealing and the iteration of
+ * {@link RateTable}.
+ */
+public class RateTableTest {
+
+  private static long exactDivide(long dividend, long divisor, int scale) {
+    return BigDecimal.valueOf(dividend).divide(BigDecimal.valueOf(divisor), scale,
+        RoundingMode.HALF_UP).unscaledValue().longValue();
+  }
+
+  /**
+   * Verify a code keeps its index, and the index maps back to the code
+   */
+  @Test
+  public void indexOfAndCodeAt() {
+    final int usd = RateTable.indexOf("USD");
+    assertTrue(usd >= 0 && usd < RateTable.getIndexCount());
+    assertEquals(usd, RateTable.indexOf("USD"));
+    assertEquals(usd, RateTable.indexOf('U', 'S', 'D'));
+    assertEquals("USD", RateTable.codeAt(usd));
+
+    assertEquals(RateTable.NO_INDEX, RateTable.indexOf("usd"));
+    assertEquals(RateTable.NO_INDEX, RateTable.indexOf("EURO"));
+    assertEquals(RateTable.NO_INDEX, RateTable.indexOf((String) null));
+    assertNull(RateTable.codeAt(RateTable.NO_INDEX));
+    assertNull(RateTable.codeAt(RateTable.MAX_CURRENCIES));
+  }
+
+  /**
+   * Verify the quotient is rounded half up at the requested scale
+   */
+  @Test
+  public void divideRounding() {
+    assertEquals(3333333333L, RateTable.divide(1, 3, 10));
+    assertEquals(6666666667L, RateTable.divide(2, 3, 10));
+    assertEquals(1, RateTable.divide(1, 2, 0));
+    assertEquals(0, RateTable.divide(49, 100, 0));
+    assertEquals(5, RateTable.divide(1, 2, 1));
+    assertEquals(0, RateTable.divide(0, 7, 18));
+    assertEquals(123456789, RateTable.divide(123456789, 1, 0));
+
+    final Random random = new Random(3);
+    for (int i = 0; i < 100000; i++) {
+      final long divisor = 1 + (long) (random.nextDouble() * Math.pow(10, random.nextInt(19)));
+      final long dividend = (long) (random.nextDouble() * Math.pow(10, random.nextInt(13)));
+      final int scale = random.nextInt(7);
+      assertEquals(dividend + "/" + divisor, exactDivide(dividend, divisor, scale),
+          RateTable.divide(dividend, divisor, scale));
+    }
+  }
+
+  /**
+   * Verify the digits of a remainder close to a huge divisor are not lost to an overflow
+   */
+  @Test
+  public void divideHugeDivisor() {
+    final long divisor = Long.MAX_VALUE - 1;
+    final long dividend = Long.MAX_VALUE - 2;
+    assertEquals(exactDivide(dividend, divisor, 18), RateTable.divide(dividend, divisor, 18));
+    assertEquals(exactDivide(1, divisor, 18), RateTable.divide(1, divisor, 18));
+  }
+
+  /**
+   * Verify a quotient, which does not fit in a long, and the invalid operands are rejected
+   */
+  @Test
+  public void divideOverflow() {
+    assertEquals(Long.MAX_VALUE, RateTable.divide(Long.MAX_VALUE, 1, 0));
+    final long[][] invalid = {{1_000_000_000L, 1, 10}, {Long.MAX_VALUE, 2, 1}, {1, 0, 0},
+        {-1, 1, 0}, {1, -1, 0}, {1, 1, RateTable.MAX_DIVISION_SCALE + 1}};
+    for (long[] operands : invalid) {
+      try {
+        RateTable.divide(operands[0], operands[1], (int) operands[2]);
+        fail(operands[0] + "/" + operands[1]);
+      } catch (ArithmeticException expected) {
+        // Expected
+      }
+    }
+  }
+
+  /**
+   * Verify the rates, which are not positive, are rejected instead of dropped
+   */
+  @Test
+  public void putRejectsInvalidRates() {
+    final RateTable table = new RateTable();
+    for (long rate : new long[]{0, -1}) {
+      try {
+        table.put(RateTable.indexOf("USD"), rate);
+        fail(Long.toString(rate));
+      } catch (IllegalArgumentException expected) {
+        assertTrue(expected.getMessage().contains("USD"));
+      }
+    }
+    try {
+      table.put(RateTable.MAX_CURRENCIES, 1);
+      fail();
+    } catch (IllegalArgumentException expected) {
+      // Expected
+    }
+    table.put("EURO", BigDecimal.ONE);
+    assertTrue(table.isEmpty());
+  }
+
+  /**
+   * Verify a sealed table keeps its rates and cannot be modified
+   */
+  @Test
+  public void seal() {
+    final RateTable table = new RateTable();
+    table.put("USD", new BigDecimal("1.1234"));
+    assertFalse(table.isSealed());
+    assertTrue(table == table.seal());
+    assertTrue(table.isSealed());
+    try {
+      table.put("JPY", BigDecimal.TEN);
+      fail();
+    } catch (IllegalStateException expected) {
+      // Expected
+    }
+    assertEquals(1, table.size());
+    assertEquals(new BigDecimal("1.1234000000"), table.getDecimal(RateTable.indexOf("USD")));
+  }
+
+  /**
+   * Verify the iteration visits each rate once, in index order
+   */
+  @Test
+  public void next() {
+    final RateTable table = new RateTable();
+    assertEquals(RateTable.NO_INDEX, table.next(0));
+    final String[] codes = {"GBP", "USD", "JPY"};
+    for (String code : codes) {
+      table.put(code, BigDecimal.ONE);
+    }
+    int count = 0;
+    int previous = -1;
+    for (int i = table.next(0); i >= 0; i = table.next(i + 1)) {
+      assertTrue(i > previous);
+      assertTrue(table.contains(i));
+      previous = i;
+      count++;
+    }
+    assertEquals(codes.length, count);
+    assertEquals(table.size(), count);
+    assertEquals(table.next(-5), table.next(0));
+    assertEquals(RateTable.NO_INDEX, table.next(RateTable.MAX_CURRENCIES));
+  }
+
+  /**
+   * Verify the rates of a table with a denominator are its fractions
+   */
+  @Test
+  public void denominator() {
+    final RateTable table = new RateTable(3);
+    table.put(RateTable.indexOf("USD"), 1);
+    assertEquals(3, table.getDenominator());
+    assertEquals(RateTable.UNIT, new RateTable().getDenominator());
+    assertEquals(0, new BigDecimal("0.3333333333333333")
+        .compareTo(table.getDecimal(RateTable.indexOf("USD"))));
+    try {
+      new RateTable(0);
+      fail();
+    } catch (IllegalArgumentException expected) {
+      // Expected
+    }
+  }
+}
@@ -0,0 +1,119 @@
+package com.example.currencyrates;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import org.junit.Test;
+
+/**
+ * Unit tests of the publishing and the listeners of {@link RatesRepository}.
+ */
+public class RatesRepositoryTest {
+
+  /**
+   * Queues the tasks, so the test decides when the listeners run
+   */
+  private static final class QueueExecutor implements Executor {
+
+    private final List<Runnable> tasks = new ArrayList<>();
+
+    @Override
+    public void execute(Runnable command) {
+      tasks.add(command);
+    }
+
+    private void runAll() {
+      for (Runnable task : tasks) {
+        task.run();
+      }
+      tasks.clear();
+    }
+  }
+
+  private static final class RecordingListener implements RatesRepository.Listener {
+
+    private final List<String> bases = new ArrayList<>();
+    private final List<RateDelta> deltas = new ArrayList<>();
+
+    @Override
+    public void onRatesChanged(String base, RateDelta delta) {
+      bases.add(base);
+      deltas.add(delta);
+    }
+  }
+
+  private static RateDelta delta(long usd) {
+    final RateTable table = new RateTable();
+    table.put(RateTable.indexOf("USD"), usd);
+    return RateDelta.between(null, table.seal(), RateDelta.NO_VERSION);
+  }
+
+  /**
+   * Verify the latest delta of each base is shared by reference
+   */
+  @Test
+  public void latestPerBase() {
+    final RatesRepository repository = new RatesRepository();
+    assertNull(repository.getLatest("EUR"));
+    final RateDelta eur = delta(5);
+    final RateDelta gbp = delta(6);
+    repository.publish("EUR", eur);
+    repository.publish("GBP", gbp);
+    repository.publish("EURO", delta(7));
+    assertSame(eur, repository.getLatest("EUR"));
+    assertSame(gbp, repository.getLatest("GBP"));
+    assertNull(repository.getLatest("EURO"));
+  }
+
+  /**
+   * Verify the time of publishing is kept with the latest delta of each base
+   */
+  @Test
+  public void publishedAt() {
+    final RatesRepository repository = new RatesRepository();
+    assertEquals(0, repository.getPublishedAt("EUR"));
+    repository.publish("EUR", delta(5), 10_000);
+    repository.publish("EUR", delta(6), 25_000);
+    repository.publish("GBP", delta(7), 12_000);
+    assertEquals(25_000, repository.getPublishedAt("EUR"));
+    assertEquals(12_000, repository.getPublishedAt("GBP"));
+    assertEquals(0, repository.getPublishedAt("EURO"));
+
+    final long before = System.currentTimeMillis();
+    repository.publish("USD", delta(8));
+    assertTrue(repository.getPublishedAt("USD") >= before);
+  }
+
+  /**
+   * Verify the listeners run on their executors, once each, and not after they are removed
+   */
+  @Test
+  public void listeners() {
+    final RatesRepository repository = new RatesRepository();
+    final QueueExecutor executor = new QueueExecutor();
+    final RecordingListener listener = new RecordingListener();
+    repository.addListener(listener, executor);
+    repository.addListener(listener, executor);
+
+    final RateDelta eur = delta(5);
+    repository.publish("EUR", eur);
+    assertEquals(0, listener.deltas.size());
+    executor.runAll();
+    assertEquals(1, listener.deltas.size());
+    assertEquals("EUR", listener.bases.get(0));
+    assertSame(eur, listener.deltas.get(0));
+
+    repository.publish("GBP", delta(6));
+    repository.removeListener(listener);
+    executor.runAll();
+    repository.publish("USD", delta(7));
+    executor.runAll();
+    assertEquals(1, listener.deltas.size());
+  }
+}
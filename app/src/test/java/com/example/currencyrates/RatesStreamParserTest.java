@@ -0,0 +1,136 @@
+package com.example.currencyrates;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+
+import org.junit.Test;
+
+/**
+ * Unit tests of the streaming rates payload parsing done by {@link RatesStreamParser}
+ */
+public class RatesStreamParserTest {
+
+  private static final String PAYLOAD = "{\"base\":\"EUR\",\"date\":\"2018-09-06\","
+      + "\"rates\":{\"AUD\":1.6179,\"BGN\":1.9615,\"JPY\":129.47,\"IDR\":17322.0}}";
+
+  private static RateTable parse(String payload) {
+    return new RatesStreamParser().parse(new ByteArrayInputStream(payload.getBytes()));
+  }
+
+  private static BigDecimal rate(RateTable table, String code) {
+    return table.getDecimal(RateTable.indexOf(code));
+  }
+
+  /**
+   * Stream returning one byte per read, to exercise the buffer refill
+   */
+  private static class SlowInputStream extends FilterInputStream {
+
+    SlowInputStream(InputStream in) {
+      super(in);
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      return super.read(b, off, Math.min(len, 1));
+    }
+  }
+
+  /**
+   * Verify the rates of a valid payload
+   */
+  @Test
+  public void validPayload() {
+    final RateTable table = parse(PAYLOAD);
+    assertTrue(table.isSealed());
+    assertEquals(4, table.size());
+    assertEquals(0, new BigDecimal("1.6179").compareTo(rate(table, "AUD")));
+    assertEquals(0, new BigDecimal("129.47").compareTo(rate(table, "JPY")));
+    assertEquals(0, new BigDecimal("17322").compareTo(rate(table, "IDR")));
+  }
+
+  /**
+   * Verify whitespace, skipped members, quoted numbers, exponents and rounding
+   */
+  @Test
+  public void formatting() {
+    final RateTable table = parse(" {\n \"meta\" : {\"a\":[1,{\"b\":\"}\\\"\"}],\"c\":null},"
+        + "\t\"rates\" : { \"USD\" : \"1.1\" , \"GBP\":8.5E-1, \"CHF\":0.123456789015,"
+        + " \"TOOLONG\":1, \"ok\":true } , \"x\":false }");
+    assertEquals(3, table.size());
+    assertEquals(0, new BigDecimal("1.1").compareTo(rate(table, "USD")));
+    assertEquals(0, new BigDecimal("0.85").compareTo(rate(table, "GBP")));
+    assertEquals(0, new BigDecimal("0.1234567890").compareTo(rate(table, "CHF")));
+    assertEquals(0, new BigDecimal("0.1234567891")
+        .compareTo(rate(parse("{\"rates\":{\"CHF\":0.12345678905}}"), "CHF")));
+  }
+
+  /**
+   * Verify the buffer is refilled correctly for a stream returning one byte per read
+   */
+  @Test
+  public void slowStream() {
+    final RateTable table = new RatesStreamParser().parse(
+        new SlowInputStream(new ByteArrayInputStream(PAYLOAD.getBytes())));
+    assertEquals(4, table.size());
+    assertEquals(0, new BigDecimal("1.9615").compareTo(rate(table, "BGN")));
+  }
+
+  /**
+   * Verify every truncated payload results in an empty table
+   */
+  @Test
+  public void truncatedPayload() {
+    for (int length = 0; length < PAYLOAD.length(); length++) {
+      assertTrue(PAYLOAD.substring(0, length), parse(PAYLOAD.substring(0, length)).isEmpty());
+    }
+  }
+
+  /**
+   * Verify malformed payloads result in an empty table
+   */
+  @Test
+  public void malformedPayload() {
+    assertTrue(parse("<html></html>").isEmpty());
+    assertTrue(parse("[1,2]").isEmpty());
+    assertTrue(parse("{\"rates\":{\"USD\":1.1.1}}").isEmpty());
+    assertTrue(parse("{\"rates\":{\"USD\":\"abc\"}}").isEmpty());
+    assertTrue(parse("{\"rates\":{\"USD\" 1.1}}").isEmpty());
+    assertTrue(parse("{\"rates\":{\"USD\":1.1,}}").isEmpty());
+    assertTrue(parse("{\"rates\":null}").isEmpty());
+    assertTrue(parse("{}").isEmpty());
+    assertTrue(new RatesStreamParser().parse(null).isEmpty());
+  }
+
+  /**
+   * Verify a parser instance can be reused after a failure
+   */
+  @Test
+  public void reuse() {
+    final RatesStreamParser parser = new RatesStreamParser();
+    assertTrue(parser.parse(new ByteArrayInputStream("{\"rates\":{".getBytes())).isEmpty());
+    assertNotNull(parser.getLastError());
+    assertEquals(4, parser.parse(new ByteArrayInputStream(PAYLOAD.getBytes())).size());
+    assertNull(parser.getLastError());
+  }
+
+  /**
+   * Verify a payload with a rate, which is not positive, is rejected with its error
+   */
+  @Test
+  public void nonPositiveRate() {
+    final RatesStreamParser parser = new RatesStreamParser();
+    assertTrue(parser.parse(new ByteArrayInputStream(
+        "{\"rates\":{\"USD\":1.1,\"JPY\":0}}".getBytes())).isEmpty());
+    assertTrue(parser.getLastError() instanceof IllegalArgumentException);
+    assertTrue(parse("{\"rates\":{\"USD\":-1.1}}").isEmpty());
+  }
+}
@@ -0,0 +1,64 @@
+package com.example.currencyrates;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Unit tests of the expiry of the entries of {@link SnapshotCache}.
+ */
+public class SnapshotCacheTest {
+
+  private static RateTable table(long usd) {
+    final RateTable table = new RateTable();
+    table.put(RateTable.indexOf("USD"), usd);
+    return table.seal();
+  }
+
+  /**
+   * Verify the entry expires after the freshness of the response, even a shorter one than the
+   * default ttl, and is still returned
+   */
+  @Test
+  public void expiry() {
+    final SnapshotCache cache = new SnapshotCache(1000);
+    final RateTable rates = table(5);
+    cache.put("EUR", rates, 10_000, 500);
+    cache.put("GBP", table(6), 10_000, 5000);
+    cache.put("JPY", table(7), 10_000, 0);
+    assertNull(cache.get("USD"));
+    assertNull(cache.get("XXX"));
+
+    final SnapshotCache.Entry entry = cache.get("EUR");
+    assertSame(rates, entry.getRates());
+    assertEquals(10_500, entry.getExpiresAt());
+    assertTrue(entry.isFresh(10_499));
+    assertFalse(entry.isFresh(10_500));
+    assertEquals(15_000, cache.get("GBP").getExpiresAt());
+    assertEquals(11_000, cache.get("JPY").getExpiresAt());
+  }
+
+  /**
+   * Verify a revalidation extends the entry and the expired entries are evicted
+   */
+  @Test
+  public void touchAndEvict() {
+    final SnapshotCache cache = new SnapshotCache(1000);
+    final RateTable rates = table(5);
+    cache.put("EUR", rates, 10_000, 0);
+    cache.put("GBP", table(6), 10_000, 0);
+    cache.touch("EUR", 12_000, 0);
+    cache.touch("USD", 12_000, 0);
+    assertNull(cache.get("USD"));
+    assertSame(rates, cache.get("EUR").getRates());
+    assertEquals(12_000, cache.get("EUR").getFetchedAt());
+
+    assertEquals(1, cache.evictExpired(12_500));
+    assertNull(cache.get("GBP"));
+    assertTrue(cache.get("EUR").isFresh(12_500));
+  }
+}
@@ -0,0 +1,120 @@
+package com.example.currencyrates;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.math.BigDecimal;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests of the binary snapshot file written and read by {@link SnapshotStore}.
+ */
+public class SnapshotStoreTest {
+
+  private File file;
+
+  @Before
+  public void setUp() throws IOException {
+    file = File.createTempFile("rates", ".bin");
+    assertTrue(file.delete());
+  }
+
+  @After
+  public void tearDown() {
+    file.delete();
+    new File(file.getPath() + ".tmp").delete();
+  }
+
+  private static RateTable rates() {
+    final RateTable rates = new RateTable();
+    rates.put("USD", new BigDecimal("1.1234"));
+    rates.put("JPY", new BigDecimal("129.87"));
+    rates.put("BGN", new BigDecimal("1.9558"));
+    return rates.seal();
+  }
+
+  private static void assertRejected(SnapshotStore store) {
+    try {
+      store.read();
+      fail();
+    } catch (IOException expected) {
+      // Expected
+    }
+  }
+
+  /**
+   * Verify a written snapshot is read back with the same rates, base and time
+   */
+  @Test
+  public void roundTrip() throws IOException {
+    final SnapshotStore store = new SnapshotStore(file);
+    assertNull(store.read());
+    assertTrue(store.write(new SnapshotStore.Snapshot("EUR", rates(), 1234567890123L)));
+
+    final SnapshotStore.Snapshot snapshot = store.read();
+    assertNotNull(snapshot);
+    assertEquals("EUR", snapshot.getBase());
+    assertEquals(1234567890123L, snapshot.getSavedAt());
+    assertTrue(snapshot.getRates().isSealed());
+    assertEquals(3, snapshot.getRates().size());
+    for (String code : new String[]{"USD", "JPY", "BGN"}) {
+      final int index = RateTable.indexOf(code);
+      assertEquals(code, rates().get(index), snapshot.getRates().get(index));
+    }
+    assertFalse(new File(file.getPath() + ".tmp").exists());
+  }
+
+  /**
+   * Verify a newer snapshot replaces the previous one
+   */
+  @Test
+  public void replacesPrevious() throws IOException {
+    final SnapshotStore store = new SnapshotStore(file);
+    assertTrue(store.write(new SnapshotStore.Snapshot("EUR", rates(), 1)));
+    assertTrue(store.write(new SnapshotStore.Snapshot("EUR", new RateTable().seal(), 2)));
+    assertEquals(2, store.read().getSavedAt());
+    assertTrue(store.read().getRates().isEmpty());
+  }
+
+  /**
+   * Verify a corrupted or truncated file is rejected
+   */
+  @Test
+  public void corruptedIsRejected() throws IOException {
+    final SnapshotStore store = new SnapshotStore(file);
+    assertTrue(store.write(new SnapshotStore.Snapshot("EUR", rates(), 1)));
+    final RandomAccessFile raf = new RandomAccessFile(file, "rw");
+    try {
+      raf.seek(30);
+      final int b = raf.read();
+      raf.seek(30);
+      raf.write(b ^ 0xFF);
+      assertRejected(store);
+      raf.setLength(raf.length() - 4);
+      assertRejected(store);
+    } finally {
+      raf.close();
+    }
+  }
+
+  /**
+   * Verify a snapshot without a valid base is not written
+   */
+  @Test
+  public void invalidBaseNotWritten() throws IOException {
+    final SnapshotStore store = new SnapshotStore(file);
+    assertFalse(store.write(new SnapshotStore.Snapshot("EURO", rates(), 1)));
+    assertFalse(store.write(null));
+    assertNull(store.read());
+  }
+}
@@ -0,0 +1,71 @@
+package com.example.currencyrates;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Unit tests of the per-base subscriptions of {@link SubscriptionRegistry}.
+ */
+public class SubscriptionRegistryTest {
+
+  private static SubscriptionRegistry registry() {
+    return new SubscriptionRegistry(1000, new Random(42));
+  }
+
+  /**
+   * Verify the consumers of a base share a single subscription, and each base has its own
+   */
+  @Test
+  public void oneSubscriptionPerBase() {
+    final SubscriptionRegistry registry = registry();
+    final BaseSubscription eur = registry.subscribe("EUR", "https://api.test/latest?base=EUR");
+    assertEquals(1, eur.getConsumers());
+    assertSame(eur, registry.subscribe("EUR", "https://api.test/latest?base=EUR"));
+    assertEquals(2, eur.getConsumers());
+    final BaseSubscription usd = registry.subscribe("USD", "https://api.test/latest?base=USD");
+    assertNotSame(eur, usd);
+    assertNotSame(eur.getPollingPolicy(), usd.getPollingPolicy());
+    assertEquals("https://api.test/latest?base=USD", usd.getUrl());
+    assertEquals(2, registry.size());
+    assertNull(registry.subscribe("EURO", "https://api.test/latest?base=EURO"));
+    assertEquals(2, registry.size());
+
+    assertFalse(registry.unsubscribe("EUR"));
+    assertSame(eur, registry.get("EUR"));
+    assertTrue(registry.unsubscribe("EUR"));
+    assertNull(registry.get("EUR"));
+    assertFalse(registry.unsubscribe("EUR"));
+    assertEquals(1, registry.size());
+  }
+
+  /**
+   * Verify a base subscribed again gets a new subscription, so the polls of the former one are
+   * not current anymore
+   */
+  @Test
+  public void resubscribeReplaces() {
+    final SubscriptionRegistry registry = registry();
+    final BaseSubscription former = registry.subscribe("GBP", "https://api.test/latest?base=GBP");
+    assertTrue(registry.isCurrent(former));
+    assertTrue(registry.unsubscribe("GBP"));
+    assertFalse(registry.isCurrent(former));
+
+    final BaseSubscription current = registry.subscribe("GBP", "https://api.test/latest?base=GBP");
+    assertNotSame(former, current);
+    assertEquals(1, current.getConsumers());
+    assertTrue(registry.isCurrent(current));
+    assertFalse(registry.isCurrent(former));
+
+    registry.clear();
+    assertFalse(registry.isCurrent(current));
+    assertFalse(registry.isCurrent(null));
+  }
+}
@@ -0,0 +1,159 @@
+package com.example.currencyrates;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.github.kevinsawicki.http.HttpRequest;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Unit tests of the compressed transfer done by {@link TransferStreams}, against a local stand-in
+ * of the rates API, which serves gzip encoded bodies when the client accepts them
+ */
+public class TransferStreamsTest {
+
+  private static final String PAYLOAD;
+
+  static {
+    final StringBuilder payload = new StringBuilder("{\"base\":\"EUR\",\"rates\":{");
+    for (char c = 'A'; c <= 'Z'; c++) {
+      payload.append(c == 'A' ? "" : ",").append("\"U").append(c).append("D\":1.2345");
+    }
+    PAYLOAD = payload.append("}}").toString();
+  }
+
+  private static HttpServer server;
+  private static String url;
+
+  /**
+   * Start the local stand-in server
+   */
+  @BeforeClass
+  public static void startServer() throws IOException {
+    server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+    server.createContext("/latest", new HttpHandler() {
+
+      @Override
+      public void handle(HttpExchange exchange) throws IOException {
+        byte[] body = PAYLOAD.getBytes("UTF-8");
+        final String accept = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+        if (accept != null && accept.contains("gzip")) {
+          final ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+          final GZIPOutputStream gzip = new GZIPOutputStream(compressed);
+          gzip.write(body);
+          gzip.close();
+          body = compressed.toByteArray();
+          exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+        }
+        exchange.sendResponseHeaders(200, body.length);
+        final OutputStream out = exchange.getResponseBody();
+        out.write(body);
+        out.close();
+      }
+    });
+    server.createContext("/broken", new HttpHandler() {
+
+      @Override
+      public void handle(HttpExchange exchange) throws IOException {
+        final byte[] body = PAYLOAD.getBytes("UTF-8");
+        exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+        exchange.sendResponseHeaders(200, body.length);
+        final OutputStream out = exchange.getResponseBody();
+        out.write(body);
+        out.close();
+      }
+    });
+    server.start();
+    url = "http://127.0.0.1:" + server.getAddress().getPort() + "/latest";
+  }
+
+  /**
+   * Stop the local stand-in server
+   */
+  @AfterClass
+  public static void stopServer() {
+    server.stop(0);
+  }
+
+  private static RateTable download(HttpRequest request, TransferStats stats) throws IOException {
+    final InputStream body = TransferStreams.openBody(request, stats);
+    try {
+      return new RatesStreamParser().parse(body);
+    } finally {
+      body.close();
+    }
+  }
+
+  /**
+   * Verify a gzip encoded body is decompressed while parsing and both byte counts are reported
+   */
+  @Test
+  public void compressedBody() throws IOException {
+    final TransferStats stats = new TransferStats();
+    final HttpRequest request = HttpRequest.get(url).acceptGzipEncoding();
+    assertTrue(request.ok());
+    assertEquals("gzip", request.contentEncoding());
+
+    final RateTable table = download(request, stats);
+    assertEquals(26, table.size());
+    assertEquals(0, new BigDecimal("1.2345").compareTo(table.getDecimal(RateTable.indexOf("USD"))));
+    assertEquals(1, stats.getResponses());
+    assertEquals(1, stats.getCompressedResponses());
+    assertEquals(PAYLOAD.length(), stats.getUncompressedBytes());
+    assertTrue(stats.getCompressedBytes() > 0);
+    assertTrue(stats.getCompressedBytes() < stats.getUncompressedBytes());
+  }
+
+  /**
+   * Verify an identity encoded body is counted the same on the wire and decoded
+   */
+  @Test
+  public void uncompressedBody() throws IOException {
+    final TransferStats stats = new TransferStats();
+    final HttpRequest request = HttpRequest.get(url);
+    assertTrue(request.ok());
+
+    assertEquals(26, download(request, stats).size());
+    assertEquals(0, stats.getCompressedResponses());
+    assertEquals(PAYLOAD.length(), stats.getUncompressedBytes());
+    assertEquals(stats.getUncompressedBytes(), stats.getCompressedBytes());
+  }
+
+  /**
+   * Verify a body with a broken gzip header is rejected, and its stream is closed
+   */
+  @Test
+  public void brokenGzipHeaderClosesBody() throws IOException {
+    final HttpRequest request = HttpRequest.get(url.replace("/latest", "/broken"));
+    request.acceptGzipEncoding();
+    final TransferStats stats = new TransferStats();
+    try {
+      TransferStreams.openBody(request, stats);
+      fail();
+    } catch (IOException expected) {
+      // Expected
+    }
+    try {
+      request.getConnection().getInputStream().read();
+      fail();
+    } catch (IOException expected) {
+      // Expected, the stream is closed
+    }
+    assertEquals(0, stats.getCompressedResponses());
+  }
+}
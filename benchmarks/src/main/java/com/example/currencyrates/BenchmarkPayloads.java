@@ -0,0 +1,126 @@
+package com.example.currencyrates;
+
+import java.io.ByteArrayInputStream;
+import java.io.UnsupportedEncodingException;
+import java.util.LinkedHashSet;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Payloads of the rates API for the benchmarks. A realistic payload has the 33 currencies of the
+ * Revolut API with their usual magnitudes and 4 fraction digits, followed by generated currency
+ * codes with similar rates, in case more instruments are requested. A synthetic payload has
+ * random rates of any magnitude with up to 10 fraction digits, which are the worst case of the
+ * parser and the fixed-point conversion. The payloads are generated from a fixed seed, so every
+ * run measures the same data.
+ *
+ * @author Nikola Georgiev
+ * @version 1.0
+ * @since 1.1.0
+ */
+/* package-private */ final class BenchmarkPayloads {
+
+    /* package-private */ static final String[] REVOLUT_CODES = {
+            "EUR", "AUD", "BGN", "BRL", "CAD", "CHF", "CNY", "CZK", "DKK", "GBP", "HKD",
+            "HRK", "HUF", "IDR", "ILS", "INR", "ISK", "JPY", "KRW", "MXN", "MYR", "NOK",
+            "NZD", "PHP", "PLN", "RON", "RUB", "SEK", "SGD", "THB", "TRY", "USD", "ZAR"
+    };
+    private static final double[] REVOLUT_RATES = {
+            1.0, 1.6163, 1.9558, 4.7937, 1.5337, 1.1275, 7.9483, 25.73, 7.4588, 0.89841, 9.1351,
+            7.4374, 326.6, 17331.0, 4.1725, 83.718, 127.84, 128.88, 1304.8, 22.370, 4.8128, 9.7790,
+            1.7638, 62.618, 4.3192, 4.6409, 79.624, 10.593, 1.6006, 38.147, 7.6303, 1.1638, 17.833
+    };
+    private static final long SEED = 0x52415445L;
+
+    /**
+     * The kinds of the payloads.
+     */
+    /* package-private */ enum Kind {
+        REALISTIC, SYNTHETIC
+    }
+
+    private BenchmarkPayloads() {
+    }
+
+    /**
+     * Gets the currency codes of a payload: the Revolut codes first, then the other 3 letter
+     * codes in alphabetical order.
+     *
+     * @param instruments {@see int} - The number of codes.
+     * @return {@see String[]} - The unique currency codes.
+     */
+    /* package-private */ static String[] codes(final int instruments) {
+
+        final Set<String> codes = new LinkedHashSet<>();
+        for (int i = 0; i < REVOLUT_CODES.length && codes.size() < instruments; i++) {
+            codes.add(REVOLUT_CODES[i]);
+        }
+        final char[] code = new char[3];
+        for (int i = 0; i < 26 * 26 * 26 && codes.size() < instruments; i++) {
+            code[0] = (char) ('A' + i / (26 * 26));
+            code[1] = (char) ('A' + i / 26 % 26);
+            code[2] = (char) ('A' + i % 26);
+            codes.add(new String(code));
+        }
+        return codes.toArray(new String[0]);
+    }
+
+    /**
+     * Builds the JSON payload of the rates API.
+     *
+     * @param instruments {@see int} - The number of rates.
+     * @param kind        {@see Kind} - The kind of the rates.
+     * @return {@see String} - The payload.
+     */
+    /* package-private */ static String json(final int instruments, final Kind kind) {
+
+        final Random random = new Random(SEED);
+        final String[] codes = codes(instruments);
+        final StringBuilder json = new StringBuilder(instruments * 24 + 64);
+        json.append("{\"base\":\"EUR\",\"date\":\"2018-09-06\",\"rates\":{");
+        for (int i = 0; i < codes.length; i++) {
+            if (i > 0)
+                json.append(',');
+            json.append('"').append(codes[i]).append("\":").append(rate(i, kind, random));
+        }
+        return json.append("}}").toString();
+    }
+
+    /**
+     * Builds the JSON payload of the rates API as UTF-8 bytes, as it is streamed from the network.
+     *
+     * @param instruments {@see int} - The number of rates.
+     * @param kind        {@see Kind} - The kind of the rates.
+     * @return {@see byte[]} - The payload.
+     */
+    /* package-private */ static byte[] bytes(final int instruments, final Kind kind) {
+        try {
+            return json(instruments, kind).getBytes("UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Parses a payload to a sealed table.
+     *
+     * @param instruments {@see int} - The number of rates.
+     * @param kind        {@see Kind} - The kind of the rates.
+     * @return {@see RateTable} - The table, which holds at most {@link RateTable#MAX_CURRENCIES}
+     * rates.
+     */
+    /* package-private */ static RateTable table(final int instruments, final Kind kind) {
+        return new RatesStreamParser().parse(new ByteArrayInputStream(bytes(instruments, kind)));
+    }
+
+    private static String rate(final int index, final Kind kind, final Random random) {
+
+        if (kind == Kind.SYNTHETIC) {
+            final double magnitude = Math.pow(10, random.nextInt(9) - 3);
+            return String.format(java.util.Locale.ROOT, "%.10f", magnitude * (1 + random.nextDouble()));
+        }
+        final double base = REVOLUT_RATES[index % REVOLUT_RATES.length];
+        final double jitter = (index < REVOLUT_RATES.length) ? 1 : 0.5 + random.nextDouble();
+        return String.format(java.util.Locale.ROOT, "%.4f", base * jitter);
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.currencyrates;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput and allocation of the conversion of a rates payload to a {@see RateTable}: the
+ * streamed parse, which the service uses, with a reused and with a new parser, and the
+ * {@see org.json.JSONObject} based parse of the whole string. The tables hold at most
+ * {@link RateTable#MAX_CURRENCIES} rates, so the larger payloads measure how fast the extra
+ * instruments are skipped.
+ *
+ * @author Nikola Georgiev
+ * @version 1.0
+ * @since 1.1.0
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ConvertDataBenchmark {
+
+    @Param({"33", "256", "1000", "10000"})
+    public int instruments;
+
+    @Param({"REALISTIC", "SYNTHETIC"})
+    public String kind;
+
+    private byte[] bytes;
+    private String json;
+    private RatesStreamParser parser;
+
+    @Setup
+    public void setUp() {
+        final BenchmarkPayloads.Kind payload = BenchmarkPayloads.Kind.valueOf(this.kind);
+        this.bytes = BenchmarkPayloads.bytes(this.instruments, payload);
+        this.json = BenchmarkPayloads.json(this.instruments, payload);
+        this.parser = new RatesStreamParser();
+    }
+
+    @Benchmark
+    public Object streamed() {
+        return CurrencyUtils.convertData(new ByteArrayInputStream(this.bytes), this.parser);
+    }
+
+    @Benchmark
+    public Object streamedNewParser() {
+        return CurrencyUtils.convertData(new ByteArrayInputStream(this.bytes));
+    }
+
+    @Benchmark
+    public Object jsonObject() {
+        return CurrencyUtils.convertData(this.json);
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.currencyrates;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput and allocation of {@link CurrencyUtils#formatBigDecimalAsString(BigDecimal, String)},
+ * which formats every rate shown in the list, for the converted rates of a realistic payload, with
+ * the default and with the currency specific fraction digits, compared with the allocation-free
+ * {@see DigitWriter}, which the list uses instead.
+ *
+ * @author Nikola Georgiev
+ * @version 1.0
+ * @since 1.1.0
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class FormatBenchmark {
+
+    private BigDecimal[] rates;
+    private String[] codes;
+    private long[] amounts;
+    private int[] scales;
+    private final DigitWriter writer = new DigitWriter();
+    private int next;
+
+    @Setup
+    public void setUp() {
+        final RateTable table = BenchmarkPayloads.table(BenchmarkPayloads.REVOLUT_CODES.length,
+                BenchmarkPayloads.Kind.REALISTIC);
+        final RateConverter converter = new RateConverter(RateConverter.Mode.FIXED_POINT);
+        converter.setMultiplier(BigDecimal.TEN);
+        this.rates = new BigDecimal[table.size()];
+        this.codes = new String[table.size()];
+        this.amounts = new long[table.size()];
+        this.scales = new int[table.size()];
+        int count = 0;
+        for (int i = table.next(0); i >= 0; i = table.next(i + 1)) {
+            final int scale = CurrencyFormatters.getInstance().getFractionDigits(RateTable.codeAt(i));
+            this.codes[count] = RateTable.codeAt(i);
+            this.rates[count] = converter.convert(table.get(i), scale);
+            this.amounts[count] = CurrencyModelBuilder.toDisplayAmount(this.rates[count], scale);
+            this.scales[count++] = scale;
+        }
+    }
+
+    @Benchmark
+    public String format() {
+        final BigDecimal rate = this.rates[this.next];
+        this.next = (this.next + 1) % this.rates.length;
+        return CurrencyUtils.formatBigDecimalAsString(rate);
+    }
+
+    @Benchmark
+    public String formatCurrency() {
+        final int index = this.next;
+        this.next = (this.next + 1) % this.rates.length;
+        return CurrencyUtils.formatBigDecimalAsString(this.rates[index], this.codes[index]);
+    }
+
+    @Benchmark
+    public Object writeDigits() {
+        final int index = this.next;
+        this.next = (this.next + 1) % this.rates.length;
+        this.writer.write(this.amounts[index], this.scales[index], this.scales[index]);
+        return this.writer;
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.currencyrates;
+
+import android.net.Uri;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput and allocation of the conversion of a snapshot to the list models by the
+ * {@see CurrencyModelBuilder}, as done by the activity for each tick: the full rebuild, e.g.
+ * after the base currency has changed, and the partial one, which rebuilds only the tenth of the
+ * currencies changed by a delta. The icons and the names are looked up in memory, so only the
+ * conversion itself is measured.
+ *
+ * @author Nikola Georgiev
+ * @version 1.0
+ * @since 1.1.0
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ModelBuildBenchmark {
+
+    @Param({"33", "256", "10000"})
+    public int instruments;
+
+    @Param({"FIXED_POINT", "EXACT"})
+    public String mode;
+
+    private CurrencyModelBuilder builder;
+    private RateTable table;
+    private RateDelta delta;
+    private final CurrencyModel[] models = new CurrencyModel[RateTable.MAX_CURRENCIES];
+
+    @Setup
+    public void setUp() {
+        this.table = BenchmarkPayloads.table(this.instruments, BenchmarkPayloads.Kind.REALISTIC);
+        final RateTable changed = new RateTable();
+        int position = 0;
+        for (int i = this.table.next(0); i >= 0; i = this.table.next(i + 1), position++) {
+            changed.put(i, (position % 10 == 0) ? this.table.get(i) + 1 : this.table.get(i));
+        }
+        this.delta = RateDelta.between(this.table, changed.seal(), 1);
+
+        final Map<String, String> names = new HashMap<>();
+        for (String code : BenchmarkPayloads.codes(this.instruments)) {
+            names.put(code, code + " name");
+        }
+        final Uri icon = Uri.parse("file:///flags/flag.png");
+        final RateConverter converter = new RateConverter(RateConverter.Mode.valueOf(this.mode));
+        converter.setMultiplier(new BigDecimal("12.5"));
+        this.builder = new CurrencyModelBuilder(converter, new CurrencyModelBuilder.CurrencyAssets() {
+            @Override
+            public Uri getIconUri(String currencyCode) {
+                return icon;
+            }
+
+            @Override
+            public String getName(String currencyCode) {
+                return names.get(currencyCode);
+            }
+
+            @Override
+            public int getMinorUnits(String currencyCode) {
+                return CurrencyFormatters.getInstance().getFractionDigits(currencyCode);
+            }
+        });
+        this.builder.buildAll(this.table, null, this.models);
+    }
+
+    @Benchmark
+    public Object fullRebuild() {
+        return this.builder.buildAll(this.table, null, this.models);
+    }
+
+    @Benchmark
+    public Object partialRebuild() {
+        return this.builder.buildAll(this.delta.getSnapshot(), this.delta, this.models);
+    }
+}
@@ -0,0 +1,111 @@
+package com.github.kevinsawicki.http;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of the response body paths of {@link HttpRequest} against a {@link LocalServer}:
+ * {@link HttpRequest#body()}, {@link HttpRequest#bytes()},
+ * {@link HttpRequest#receive(File)} and a gzip encoded response decoded with
+ * {@link HttpRequest#uncompress(boolean)}
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class DownloadBenchmark {
+
+  private static final OutputStream DISCARD = new OutputStream() {
+
+    @Override
+    public void write(int b) {
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+    }
+  };
+
+  /**
+   * Payload size in bytes, from 1 KB to 100 MB
+   */
+  @Param({ "1024", "65536", "1048576", "104857600" })
+  public long size;
+
+  private LocalServer server;
+
+  private File file;
+
+  /**
+   * Start the server and encode the gzip payload
+   *
+   * @throws Exception
+   */
+  @Setup(Level.Trial)
+  public void setUp() throws Exception {
+    server = new LocalServer();
+    server.start();
+    server.prepareGzip(size);
+    file = File.createTempFile("download", ".bin");
+    file.deleteOnExit();
+  }
+
+  /**
+   * Stop the server
+   *
+   * @throws Exception
+   */
+  @TearDown(Level.Trial)
+  public void tearDown() throws Exception {
+    server.stop();
+    file.delete();
+  }
+
+  @Benchmark
+  public String body(final Transferred transferred) {
+    String body = HttpRequest.get(server.url("/download", size)).body();
+    transferred.bytes += size;
+    return body;
+  }
+
+  @Benchmark
+  public byte[] bytes(final Transferred transferred) {
+    byte[] bytes = HttpRequest.get(server.url("/download", size)).bytes();
+    transferred.bytes += size;
+    return bytes;
+  }
+
+  @Benchmark
+  public HttpRequest receiveFile(final Transferred transferred) {
+    HttpRequest request = HttpRequest.get(server.url("/download", size))
+        .receive(file);
+    transferred.bytes += size;
+    return request;
+  }
+
+  @Benchmark
+  public HttpRequest uncompress(final Transferred transferred) {
+    HttpRequest request = HttpRequest.get(server.url("/gzip", size))
+        .acceptGzipEncoding().uncompress(true).receive(DISCARD);
+    transferred.bytes += size;
+    return request;
+  }
+}
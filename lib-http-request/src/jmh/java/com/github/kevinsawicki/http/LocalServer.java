@@ -0,0 +1,208 @@
+package com.github.kevinsawicki.http;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.GZIPOutputStream;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.eclipse.jetty.server.Connector;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.handler.AbstractHandler;
+import org.eclipse.jetty.server.nio.SelectChannelConnector;
+
+/**
+ * In-process Jetty server for the benchmarks, the same server the ServerTestCase of the tests uses,
+ * listening on a free local port. It serves payloads of any size built from one text block, so
+ * they compress like a real API response, and discards any uploaded body:
+ * <ul>
+ * <li>GET /download?size=N - N bytes of the payload</li>
+ * <li>GET /gzip?size=N - N bytes of the payload, gzip encoded in advance</li>
+ * <li>POST /upload - reads the whole body and responds with its length</li>
+ * </ul>
+ */
+public class LocalServer {
+
+  /**
+   * Size of the block the payloads repeat
+   */
+  public static final int BLOCK_SIZE = 64 * 1024;
+
+  private final byte[] block = createBlock();
+
+  private final Map<Long, byte[]> gzipped = new ConcurrentHashMap<Long, byte[]>();
+
+  private Server server;
+
+  private String url;
+
+  /**
+   * Start the server
+   *
+   * @throws Exception
+   */
+  public void start() throws Exception {
+    server = new Server();
+    server.setHandler(new PayloadHandler());
+    Connector connector = new SelectChannelConnector();
+    connector.setPort(0);
+    server.setConnectors(new Connector[] { connector });
+    server.start();
+    url = "http://localhost:" + connector.getLocalPort();
+  }
+
+  /**
+   * Stop the server
+   *
+   * @throws Exception
+   */
+  public void stop() throws Exception {
+    if (server != null)
+      server.stop();
+    server = null;
+  }
+
+  /**
+   * Get the URL of a path with a payload size
+   *
+   * @param path
+   * @param size
+   * @return URL
+   */
+  public String url(final String path, final long size) {
+    return url + path + "?size=" + size;
+  }
+
+  /**
+   * Get the URL of a path
+   *
+   * @param path
+   * @return URL
+   */
+  public String url(final String path) {
+    return url + path;
+  }
+
+  /**
+   * Encode a payload of a size with gzip, once, before it is served
+   *
+   * @param size
+   * @return the length of the encoded payload
+   * @throws IOException
+   */
+  public int prepareGzip(final long size) throws IOException {
+    byte[] encoded = gzipped.get(size);
+    if (encoded == null) {
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      GZIPOutputStream gzip = new GZIPOutputStream(bytes, BLOCK_SIZE);
+      try {
+        writePayload(gzip, size);
+      } finally {
+        gzip.close();
+      }
+      encoded = bytes.toByteArray();
+      gzipped.put(size, encoded);
+    }
+    return encoded.length;
+  }
+
+  /**
+   * Create a temporary file with a payload of a size
+   *
+   * @param size
+   * @return file, which is deleted on exit
+   * @throws IOException
+   */
+  public File createFile(final long size) throws IOException {
+    File file = File.createTempFile("payload", ".bin");
+    file.deleteOnExit();
+    OutputStream output = new BufferedOutputStream(new FileOutputStream(file),
+        BLOCK_SIZE);
+    try {
+      writePayload(output, size);
+    } finally {
+      output.close();
+    }
+    return file;
+  }
+
+  private void writePayload(final OutputStream output, final long size)
+      throws IOException {
+    long remaining = size;
+    while (remaining > 0) {
+      int length = (int) Math.min(remaining, block.length);
+      output.write(block, 0, length);
+      remaining -= length;
+    }
+  }
+
+  /**
+   * Create a block of JSON like rates text, with random digits
+   */
+  private static byte[] createBlock() {
+    Random random = new Random(0x52415445L);
+    byte[] block = new byte[BLOCK_SIZE];
+    byte[] template = "\"CUR\":0.0000,".getBytes();
+    for (int i = 0; i < block.length; i++) {
+      byte value = template[i % template.length];
+      if (value == '0' || value == 'C' || value == 'U' || value == 'R')
+        value = (byte) (value == '0' ? '0' + random.nextInt(10)
+            : 'A' + random.nextInt(26));
+      block[i] = value;
+    }
+    return block;
+  }
+
+  private static long size(final HttpServletRequest request) {
+    String size = request.getParameter("size");
+    return size != null ? Long.parseLong(size) : 0;
+  }
+
+  private class PayloadHandler extends AbstractHandler {
+
+    public void handle(String target, Request baseRequest,
+        HttpServletRequest request, HttpServletResponse response)
+        throws IOException, ServletException {
+      baseRequest.setHandled(true);
+      if ("/download".equals(target)) {
+        long size = size(request);
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType("text/plain");
+        response.setHeader("Content-Length", Long.toString(size));
+        writePayload(response.getOutputStream(), size);
+      } else if ("/gzip".equals(target)) {
+        byte[] encoded = gzipped.get(size(request));
+        if (encoded == null) {
+          response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+          return;
+        }
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType("text/plain");
+        response.setHeader("Content-Encoding", "gzip");
+        response.setContentLength(encoded.length);
+        response.getOutputStream().write(encoded);
+      } else if ("/upload".equals(target)) {
+        InputStream input = request.getInputStream();
+        byte[] buffer = new byte[BLOCK_SIZE];
+        long count = 0;
+        int read;
+        while ((read = input.read(buffer)) != -1)
+          count += read;
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.getWriter().print(count);
+      } else
+        response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+    }
+  }
+}
@@ -0,0 +1,29 @@
+package com.github.kevinsawicki.http;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Payload bytes transferred by a benchmark thread, reported by JMH as a rate next to the
+ * operations, i.e. in bytes per second
+ */
+@AuxCounters(AuxCounters.Type.OPERATIONS)
+@State(Scope.Thread)
+public class Transferred {
+
+  /**
+   * Payload bytes transferred in the current iteration
+   */
+  public long bytes;
+
+  /**
+   * Clear the count before each iteration
+   */
+  @Setup(Level.Iteration)
+  public void clear() {
+    bytes = 0;
+  }
+}
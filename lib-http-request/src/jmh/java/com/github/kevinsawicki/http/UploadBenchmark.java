@@ -0,0 +1,88 @@
+package com.github.kevinsawicki.http;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of the request body paths of {@link HttpRequest} against a {@link LocalServer}:
+ * {@link HttpRequest#send(File)}, buffered by the connection and in chunked streaming mode, and a
+ * multipart {@link HttpRequest#part(String, String, String, File)} upload
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class UploadBenchmark {
+
+  /**
+   * Payload size in bytes, from 1 KB to 100 MB
+   */
+  @Param({ "1024", "65536", "1048576", "104857600" })
+  public long size;
+
+  private LocalServer server;
+
+  private File file;
+
+  /**
+   * Start the server and write the payload file
+   *
+   * @throws Exception
+   */
+  @Setup(Level.Trial)
+  public void setUp() throws Exception {
+    server = new LocalServer();
+    server.start();
+    file = server.createFile(size);
+  }
+
+  /**
+   * Stop the server
+   *
+   * @throws Exception
+   */
+  @TearDown(Level.Trial)
+  public void tearDown() throws Exception {
+    server.stop();
+    file.delete();
+  }
+
+  @Benchmark
+  public int send(final Transferred transferred) {
+    int code = HttpRequest.post(server.url("/upload")).send(file).code();
+    transferred.bytes += size;
+    return code;
+  }
+
+  @Benchmark
+  public int sendChunked(final Transferred transferred) {
+    int code = HttpRequest.post(server.url("/upload"))
+        .chunk(LocalServer.BLOCK_SIZE).send(file).code();
+    transferred.bytes += size;
+    return code;
+  }
+
+  @Benchmark
+  public int part(final Transferred transferred) {
+    int code = HttpRequest.post(server.url("/upload"))
+        .part("file", "payload.bin", "application/octet-stream", file).code();
+    transferred.bytes += size;
+    return code;
+  }
+}